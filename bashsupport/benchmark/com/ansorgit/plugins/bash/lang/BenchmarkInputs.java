@@ -0,0 +1,151 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BenchmarkInputs.java, Class: BenchmarkInputs
+ * Last modified: 2011-02-16
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The inputs of the benchmarks.
+ * <p/>
+ * An input is either the name of a script in the corpus directory, <code>synthetic:&lt;lines&gt;</code> or
+ * <code>generated:&lt;seed&gt;:&lt;statements&gt;</code>, a script of the {@link BashScriptGenerator}.
+ * The corpus directory is set by the system property <code>bashsupport.benchmark.corpus</code>,
+ * the default is <code>testData/scripts</code>.
+ * <p/>
+ * The synthetic scripts repeat a block of commonly used Bash constructs until the requested number of lines is
+ * reached. The text only depends on the number of lines, the results of different revisions are comparable.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BenchmarkInputs {
+    public static final String SYNTHETIC_PREFIX = "synthetic:";
+    public static final String GENERATED_PREFIX = "generated:";
+
+    private static final String[] SYNTHETIC_BLOCK = {
+            "#!/bin/bash",
+            "# generated input, block %d",
+            "function setup_%d() {",
+            "    local dir=\"${1:-/tmp}/work_%d\"",
+            "    export PATH=\"$dir/bin:$PATH\"",
+            "    if [ -d \"$dir\" ] && [[ $dir != /* ]]; then",
+            "        echo \"relative directory: $dir\" >&2",
+            "        return 1",
+            "    elif test -f \"$dir/.lock\"; then",
+            "        rm -f \"$dir/.lock\" 2>/dev/null || true",
+            "    fi",
+            "    for file in \"$dir\"/*.sh; do",
+            "        case \"${file##*/}\" in",
+            "            init*) . \"$file\" ;;",
+            "            *.bak|*~) continue ;;",
+            "            *) echo 'skipped' \"$file\" ;;",
+            "        esac",
+            "    done",
+            "    count=$((count + %d * 2))",
+            "    while read -r line; do",
+            "        value=`echo $line | cut -d= -f2`",
+            "        names[$count]=\"${line%%=*}\"",
+            "    done < \"$dir/config\"",
+            "    cat <<EOF > \"$dir/out_%d.txt\"",
+            "value: $value, count: $count",
+            "EOF",
+            "    (cd \"$dir\" && ls -la | grep -v '^total' | wc -l)",
+            "    let \"result = count %% 7\"",
+            "}",
+            ""
+    };
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Loads the text of an input.
+     *
+     * @param input The name of a corpus script, <code>synthetic:&lt;lines&gt;</code> or
+     *              <code>generated:&lt;seed&gt;:&lt;statements&gt;</code>
+     * @return The text of the input
+     * @throws IOException If the corpus script could not be read
+     */
+    public static String load(String input) throws IOException {
+        if (input.startsWith(SYNTHETIC_PREFIX)) {
+            return synthetic(Integer.parseInt(input.substring(SYNTHETIC_PREFIX.length())));
+        }
+
+        if (input.startsWith(GENERATED_PREFIX)) {
+            final String[] values = input.substring(GENERATED_PREFIX.length()).split(":");
+            return new BashScriptGenerator(Long.parseLong(values[0])).generate(Integer.parseInt(values[1]));
+        }
+
+        final File file = new File(System.getProperty("bashsupport.benchmark.corpus", "testData/scripts"), input);
+        final InputStream stream = new FileInputStream(file);
+        try {
+            final byte[] data = new byte[(int) file.length()];
+
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = stream.read(data, offset, data.length - offset)) > 0) {
+                offset += read;
+            }
+
+            return new String(data, 0, offset, "UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Creates a synthetic script.
+     *
+     * @param lines The number of lines
+     * @return The script, it has exactly the given number of lines
+     */
+    public static String synthetic(int lines) {
+        final StringBuilder result = new StringBuilder(lines * 32);
+
+        int block = 0;
+        while (true) {
+            for (String line : SYNTHETIC_BLOCK) {
+                if (lines-- <= 0) {
+                    return result.toString();
+                }
+
+                result.append(String.format(line, block)).append('\n');
+            }
+
+            block++;
+        }
+    }
+
+    /**
+     * @param text The text
+     * @return The number of lines of the text
+     */
+    public static int countLines(CharSequence text) {
+        int lines = text.length() > 0 && text.charAt(text.length() - 1) != '\n' ? 1 : 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+
+        return lines;
+    }
+}
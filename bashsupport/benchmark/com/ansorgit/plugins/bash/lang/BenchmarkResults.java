@@ -0,0 +1,141 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BenchmarkResults.java, Class: BenchmarkResults
+ * Last modified: 2011-02-15
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the measured durations of operations per input and reports their percentiles.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BenchmarkResults {
+    private final Map<String, Map<String, List<Long>>> samples = Maps.newLinkedHashMap();
+
+    /**
+     * Adds a sample.
+     *
+     * @param input     The name of the input
+     * @param operation The name of the measured operation
+     * @param nanos     The duration in nanoseconds
+     */
+    public void add(String input, String operation, long nanos) {
+        Map<String, List<Long>> operations = samples.get(input);
+        if (operations == null) {
+            operations = Maps.newLinkedHashMap();
+            samples.put(input, operations);
+        }
+
+        List<Long> values = operations.get(operation);
+        if (values == null) {
+            values = Lists.newArrayList();
+            operations.put(operation, values);
+        }
+
+        values.add(nanos);
+    }
+
+    /**
+     * @param input      The name of the input
+     * @param operation  The name of the operation
+     * @param percentile The percentile, between 0 and 100
+     * @return The duration of the given percentile in nanoseconds, using the nearest rank. -1 if there are no samples.
+     */
+    public long percentile(String input, String operation, int percentile) {
+        final Map<String, List<Long>> operations = samples.get(input);
+        final List<Long> values = operations != null ? operations.get(operation) : null;
+        if (values == null || values.isEmpty()) {
+            return -1;
+        }
+
+        final long[] sorted = new long[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Writes a table with the p50 and p99 durations in milliseconds.
+     *
+     * @param writer The target
+     * @throws IOException If the output could not be written
+     */
+    public void writeTable(Writer writer) throws IOException {
+        for (Map.Entry<String, Map<String, List<Long>>> input : samples.entrySet()) {
+            writer.write(input.getKey() + "\n");
+
+            for (Map.Entry<String, List<Long>> operation : input.getValue().entrySet()) {
+                writer.write(String.format("    %-50s p50 %10.3f ms   p99 %10.3f ms   (%d samples)\n",
+                        operation.getKey(),
+                        millis(percentile(input.getKey(), operation.getKey(), 50)),
+                        millis(percentile(input.getKey(), operation.getKey(), 99)),
+                        operation.getValue().size()));
+            }
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Writes the results as JSON array, one object per input and operation.
+     *
+     * @param writer The target
+     * @throws IOException If the output could not be written
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("[");
+
+        boolean first = true;
+        for (Map.Entry<String, Map<String, List<Long>>> input : samples.entrySet()) {
+            for (Map.Entry<String, List<Long>> operation : input.getValue().entrySet()) {
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+
+                writer.write(String.format("  {\"input\": \"%s\", \"operation\": \"%s\", \"samples\": %d, \"p50Nanos\": %d, \"p99Nanos\": %d}",
+                        escape(input.getKey()),
+                        escape(operation.getKey()),
+                        operation.getValue().size(),
+                        percentile(input.getKey(), operation.getKey(), 50),
+                        percentile(input.getKey(), operation.getKey(), 99)));
+            }
+        }
+
+        writer.write("\n]\n");
+        writer.flush();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
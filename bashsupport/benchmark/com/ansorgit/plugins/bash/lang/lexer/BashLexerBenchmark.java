@@ -0,0 +1,122 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLexerBenchmark.java, Class: BashLexerBenchmark
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.lexer;
+
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.BenchmarkInputs;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+
+/**
+ * Measures the throughput of the Bash lexers in tokens per second.
+ * <p/>
+ * The benchmark <code>flexLexer</code> runs the lexer which was generated by JFlex,
+ * <code>bashLexer</code> runs {@link BashLexer}, the lexer which is used by the parser. It drives the JFlex lexer itself
+ * and merges the STRING_CHAR tokens into WORD tokens, there is no separate merging lexer in between.
+ * The lexers are reused, as it is done by the IDE. <code>newBashLexer</code> creates a new lexer for each text, as
+ * it was done by the indexing before the lexers were kept per thread. Run it with <code>-prof gc</code> and the
+ * small input to compare the allocations per token.
+ * <p/>
+ * Run it with the ant target <code>benchmark</code>.
+ *
+ * @author Joachim Ansorg
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BashLexerBenchmark {
+    @Param({"synthetic:10000", "synthetic:100000", "generated:1:1000", "generated:1:20"})
+    public String input;
+
+    private CharSequence text;
+    private _BashLexer flexLexer;
+    private BashLexer bashLexer;
+
+    /**
+     * The number of lexed tokens, reported by JMH as tokens per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = BenchmarkInputs.load(input);
+        flexLexer = new _BashLexer(BashVersion.Bash_v4, null);
+        bashLexer = new BashLexer(BashVersion.Bash_v4);
+    }
+
+    @Benchmark
+    public int flexLexer(Tokens counter) throws IOException {
+        flexLexer.reset(text, 0, text.length(), 0);
+        flexLexer.resetState();
+
+        int count = 0;
+        while (flexLexer.advance() != null) {
+            count++;
+        }
+
+        counter.tokens += count;
+        return count;
+    }
+
+    @Benchmark
+    public int bashLexer(Tokens counter) {
+        return lex(bashLexer, counter);
+    }
+
+    @Benchmark
+    public int newBashLexer(Tokens counter) {
+        return lex(new BashLexer(BashVersion.Bash_v4), counter);
+    }
+
+    private int lex(BashLexer lexer, Tokens counter) {
+        lexer.start(text, 0, text.length(), 0);
+
+        int count = 0;
+        while (lexer.getTokenType() != null) {
+            count++;
+            lexer.advance();
+        }
+
+        counter.tokens += count;
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashParserBenchmark.java, Class: BashParserBenchmark
+ * Last modified: 2011-02-16
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser;
+
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.BenchmarkInputs;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the Bash parser in lines per second.
+ * <p/>
+ * Each invocation lexes and parses the input into an AST with a new PsiBuilder, the PSI elements are not created.
+ * The PsiBuilder needs a running application, a light test fixture is set up for each trial.
+ * <p/>
+ * Run it with the ant target <code>benchmark</code>.
+ *
+ * @author Joachim Ansorg
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BashParserBenchmark {
+    @Param({"synthetic:10000", "synthetic:100000", "generated:1:1000"})
+    public String input;
+
+    private CharSequence text;
+    private int lines;
+    private IdeaProjectTestFixture fixture;
+
+    /**
+     * The number of parsed lines, reported by JMH as lines per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Lines {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = IdeaTestFixtureFactory.getFixtureFactory().createLightFixtureBuilder().getFixture();
+        fixture.setUp();
+
+        text = BenchmarkInputs.load(input);
+        lines = BenchmarkInputs.countLines(text);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.tearDown();
+    }
+
+    @Benchmark
+    public ASTNode parse(Lines counter) {
+        final BashLexer lexer = new BashLexer(BashVersion.Bash_v4);
+        final PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(lexer, BashFileType.BASH_LANGUAGE, text);
+
+        final ASTNode result = new BashParser(BashVersion.Bash_v4).parse(BashElementTypes.FILE, builder);
+
+        counter.lines += lines;
+        return result;
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashPsiBenchmark.java, Class: BashPsiBenchmark
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi;
+
+import com.ansorgit.plugins.bash.editor.annotator.BashAnnotator;
+import com.ansorgit.plugins.bash.editor.codefolding.BashFoldingBuilder;
+import com.ansorgit.plugins.bash.editor.inspections.InspectionProvider;
+import com.ansorgit.plugins.bash.lang.BenchmarkInputs;
+import com.ansorgit.plugins.bash.lang.BenchmarkResults;
+import com.ansorgit.plugins.bash.lang.psi.api.BashPsiElement;
+import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVar;
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
+import com.ansorgit.plugins.bash.lang.psi.resolve.AbstractResolveTest;
+import com.ansorgit.plugins.bash.settings.BashProjectSettings;
+import com.google.common.collect.Lists;
+import com.intellij.codeInsight.completion.CompletionUtil;
+import com.intellij.codeInsight.daemon.impl.AnnotationHolderImpl;
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.impl.source.tree.CompositeElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.refactoring.rename.RenameProcessor;
+import com.intellij.util.IncorrectOperationException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the PSI based features of the plugin: resolving variables and commands, the completion of variables and
+ * commands, the creation of the PSI elements, the inspections, the annotator, the code folding, the formatter and the
+ * rename of variables and functions.
+ * <p/>
+ * Each operation is timed on the complete file, once per sample. The p50 and p99 durations are reported for each
+ * input and operation, so that a regression can be tracked down to the subsystem which caused it.
+ * The inputs are the scripts in the corpus directory and synthetic scripts, see {@link BenchmarkInputs}.
+ * <p/>
+ * This is not part of the regular test run, use the ant target <code>psi-benchmark</code>.
+ * The system properties are:
+ * <ul>
+ * <li>bashsupport.benchmark.corpus: the directory of the scripts</li>
+ * <li>bashsupport.benchmark.synthetic: comma separated synthetic and generated inputs, e.g. <code>synthetic:5000</code></li>
+ * <li>bashsupport.benchmark.renameUsages: the number of usages of the renamed variable and function</li>
+ * <li>bashsupport.benchmark.warmup / bashsupport.benchmark.samples: the number of runs per operation</li>
+ * <li>bashsupport.benchmark.output: the JSON result file, optional</li>
+ * </ul>
+ *
+ * @author Joachim Ansorg
+ */
+public class BashPsiBenchmark extends AbstractResolveTest {
+    private final int warmup = Integer.getInteger("bashsupport.benchmark.warmup", 3);
+    private final int samples = Integer.getInteger("bashsupport.benchmark.samples", 20);
+    private final int renameUsages = Integer.getInteger("bashsupport.benchmark.renameUsages", 3000);
+
+    private final BenchmarkResults results = new BenchmarkResults();
+
+    /**
+     * A measured operation on a file.
+     */
+    private interface Operation {
+        void run(PsiFile file) throws Exception;
+    }
+
+    public void testBenchmark() throws Exception {
+        for (String input : findInputs()) {
+            final String text = BenchmarkInputs.load(input);
+            final PsiFile file = createFile(input.replace(':', '_') + (input.endsWith(".sh") ? "" : ".sh"), text);
+
+            measure(input, "resolve", file, new Operation() {
+                public void run(PsiFile file) {
+                    resolveAll(file);
+                }
+            });
+
+            for (final LocalInspectionTool tool : createInspections()) {
+                measure(input, "inspection " + tool.getID(), file, new Operation() {
+                    public void run(PsiFile file) {
+                        inspect(file, tool);
+                    }
+                });
+            }
+
+            measureCompletion(input, text);
+
+            measure(input, "psi creation", file, new Operation() {
+                public void run(PsiFile file) {
+                    createPsi(file.getNode());
+                }
+            });
+
+            measure(input, "annotator", file, new Operation() {
+                public void run(PsiFile file) {
+                    annotate(file);
+                }
+            });
+
+            measure(input, "folding", file, new Operation() {
+                public void run(PsiFile file) {
+                    new BashFoldingBuilder().buildFoldRegions(file.getNode(), document(file));
+                }
+            });
+
+            measureFormatting(input, file);
+        }
+
+        measureRename("rename:" + renameUsages, renameUsages);
+
+        final PrintWriter console = new PrintWriter(System.out);
+        results.writeTable(console);
+
+        final String outputPath = System.getProperty("bashsupport.benchmark.output");
+        if (outputPath != null) {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(outputPath), "UTF-8");
+            try {
+                results.writeJson(writer);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private List<String> findInputs() {
+        final List<String> inputs = Lists.newArrayList();
+
+        final File corpus = new File(System.getProperty("bashsupport.benchmark.corpus", "testData/scripts"));
+        final String[] names = corpus.list();
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name : names) {
+                if (name.endsWith(".sh")) {
+                    inputs.add(name);
+                }
+            }
+        }
+
+        for (String synthetic : System.getProperty("bashsupport.benchmark.synthetic", "synthetic:5000,synthetic:10000,synthetic:20000,generated:1:100").split(",")) {
+            if (synthetic.trim().length() > 0) {
+                inputs.add(synthetic.trim());
+            }
+        }
+
+        return inputs;
+    }
+
+    private void measure(String input, String name, PsiFile file, Operation operation) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            operation.run(file);
+        }
+
+        for (int i = 0; i < samples; i++) {
+            final long start = System.nanoTime();
+            operation.run(file);
+            results.add(input, name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The formatter changes the file, the original text is restored after each run. The restore is not measured.
+     */
+    private void measureFormatting(String input, final PsiFile file) throws Exception {
+        final BashProjectSettings settings = BashProjectSettings.storedSettings(myProject);
+        final boolean formatterEnabled = settings.isFormatterEnabled();
+        settings.setFormatterEnabled(true);
+
+        final Document document = document(file);
+        final String originalText = document.getText();
+
+        try {
+            for (int i = 0; i < warmup + samples; i++) {
+                final long start = System.nanoTime();
+                reformat(file);
+                final long duration = System.nanoTime() - start;
+
+                if (i >= warmup) {
+                    results.add(input, "formatting", duration);
+                }
+
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    public void run() {
+                        document.setText(originalText);
+                        PsiDocumentManager.getInstance(myProject).commitDocument(document);
+                    }
+                });
+            }
+        } finally {
+            settings.setFormatterEnabled(formatterEnabled);
+        }
+    }
+
+    /**
+     * Completes a variable and a command at the end of the file without a typed prefix, i.e. all visible variables
+     * and all functions and builtin commands are offered. Like the completion of the IDE the variants are computed
+     * on a copy of the file which contains the dummy identifier. A new copy is used for each run, thus the cached
+     * definition tables of the file are built again as in the IDE. Copying the file is not measured.
+     */
+    private void measureCompletion(String input, String text) throws Exception {
+        final String dummy = CompletionUtil.DUMMY_IDENTIFIER_TRIMMED;
+        final String completionText = text + "\necho $" + dummy + "\n" + dummy + "\n";
+        final PsiFile file = createFile("completion_" + input.replace(':', '_') + (input.endsWith(".sh") ? "" : ".sh"), completionText);
+
+        measureCompletion(input, "completion variable", file, completionText.lastIndexOf("$" + dummy) + 1, BashVar.class);
+        measureCompletion(input, "completion command", file, completionText.lastIndexOf(dummy), BashCommand.class);
+    }
+
+    private void measureCompletion(String input, String name, PsiFile file, int offset, Class<? extends BashPsiElement> type) {
+        for (int i = 0; i < warmup + samples; i++) {
+            final PsiFile copy = (PsiFile) file.copy();
+            final PsiReference reference = (PsiReference) PsiTreeUtil.getParentOfType(copy.findElementAt(offset), type, false);
+            assertNotNull(reference);
+
+            final long start = System.nanoTime();
+            reference.getVariants();
+            final long duration = System.nanoTime() - start;
+
+            if (i >= warmup) {
+                results.add(input, name, duration);
+            }
+        }
+    }
+
+    /**
+     * Renames a variable and a function which are used in each line of a generated script. The original text is
+     * restored after each run, the restore is not measured.
+     */
+    private void measureRename(String input, int usages) throws Exception {
+        final StringBuilder text = new StringBuilder("renamedVar=1\nrenamedFunction() {\n  echo $renamedVar\n}\n");
+        for (int i = 0; i < usages; i++) {
+            text.append("renamedFunction \"$renamedVar\" ${renamedVar}\n");
+        }
+
+        final PsiFile file = createFile("rename.sh", text.toString());
+        final Document document = document(file);
+        final String originalText = document.getText();
+
+        measureRename(input, "rename variable", file, originalText, 0, BashVarDef.class);
+        measureRename(input, "rename function", file, originalText, originalText.indexOf("renamedFunction"), BashFunctionDef.class);
+    }
+
+    private void measureRename(String input, String name, PsiFile file, final String originalText, int offset, Class<? extends PsiNamedElement> type) {
+        final Document document = document(file);
+
+        for (int i = 0; i < warmup + samples; i++) {
+            final PsiNamedElement element = PsiTreeUtil.getParentOfType(file.findElementAt(offset), type, false);
+            assertNotNull(element);
+
+            final long start = System.nanoTime();
+            new RenameProcessor(myProject, element, element.getName() + "New", false, false).run();
+            final long duration = System.nanoTime() - start;
+
+            if (i >= warmup) {
+                results.add(input, name, duration);
+            }
+
+            ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                public void run() {
+                    document.setText(originalText);
+                    PsiDocumentManager.getInstance(myProject).commitDocument(document);
+                }
+            });
+        }
+    }
+
+    private void reformat(final PsiFile file) {
+        CommandProcessor.getInstance().executeCommand(myProject, new Runnable() {
+            public void run() {
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    public void run() {
+                        try {
+                            CodeStyleManager.getInstance(myProject).reformat(file);
+                        } catch (IncorrectOperationException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            }
+        }, null, null);
+    }
+
+    private static void resolveAll(PsiFile file) {
+        file.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof BashVar) {
+                    ((BashVar) element).resolve();
+                } else if (element instanceof BashCommand) {
+                    ((BashCommand) element).resolve();
+                }
+
+                super.visitElement(element);
+            }
+        });
+    }
+
+    private void inspect(PsiFile file, LocalInspectionTool tool) {
+        final ProblemsHolder holder = new ProblemsHolder(InspectionManager.getInstance(myProject), file);
+        final PsiElementVisitor visitor = tool.buildVisitor(holder, false);
+
+        file.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                element.accept(visitor);
+                super.visitElement(element);
+            }
+        });
+    }
+
+    /**
+     * Creates new PSI elements for all composite nodes below the given node, the PSI of the file is not changed.
+     */
+    private static void createPsi(ASTNode parent) {
+        for (ASTNode node = parent.getFirstChildNode(); node != null; node = node.getTreeNext()) {
+            if (node instanceof CompositeElement) {
+                BashPsiCreator.createElement(node);
+                createPsi(node);
+            }
+        }
+    }
+
+    private static void annotate(PsiFile file) {
+        final BashAnnotator annotator = new BashAnnotator();
+        final AnnotationHolderImpl holder = new AnnotationHolderImpl();
+
+        file.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                annotator.annotate(element, holder);
+                super.visitElement(element);
+            }
+        });
+    }
+
+    private Document document(PsiFile file) {
+        return PsiDocumentManager.getInstance(myProject).getDocument(file);
+    }
+
+    private static List<LocalInspectionTool> createInspections() throws Exception {
+        final List<LocalInspectionTool> result = Lists.newArrayList();
+        for (Class inspectionClass : new InspectionProvider().getInspectionClasses()) {
+            final Object inspection = inspectionClass.newInstance();
+            if (inspection instanceof LocalInspectionTool) {
+                result.add((LocalInspectionTool) inspection);
+            }
+        }
+
+        return result;
+    }
+
+    protected String getTestDataPath() {
+        return System.getProperty("bashsupport.benchmark.corpus", "testData/scripts");
+    }
+}
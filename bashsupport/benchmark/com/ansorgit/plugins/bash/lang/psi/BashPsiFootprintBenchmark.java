@@ -0,0 +1,200 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashPsiFootprintBenchmark.java, Class: BashPsiFootprintBenchmark
+ * Last modified: 2011-02-18
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi;
+
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.BenchmarkInputs;
+import com.ansorgit.plugins.bash.lang.psi.api.BashPsiElement;
+import com.ansorgit.plugins.bash.lang.psi.resolve.AbstractResolveTest;
+import com.google.common.collect.Lists;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the heap which is retained by the PSI of the corpus scripts.
+ * <p/>
+ * Each input is parsed into several copies of a PSI file. All elements of each copy are created. The difference of the
+ * used heap before and after, divided by the number of elements, is the number of bytes per PSI node. It contains the
+ * AST nodes and the PSI elements, but not the text of the file, which is shared by all copies.
+ * <p/>
+ * Run it on two revisions to compare the footprint before and after a change, the numbers of a single run depend on
+ * the JVM and its settings. This is not part of the regular test run, use the ant target <code>psi-footprint</code>.
+ * The system properties are:
+ * <ul>
+ * <li>bashsupport.benchmark.corpus: the directory of the scripts</li>
+ * <li>bashsupport.benchmark.synthetic: comma separated synthetic and generated inputs, e.g. <code>synthetic:5000</code></li>
+ * <li>bashsupport.benchmark.copies: the number of PSI copies per input</li>
+ * <li>bashsupport.benchmark.output: the JSON result file, optional</li>
+ * </ul>
+ *
+ * @author Joachim Ansorg
+ */
+public class BashPsiFootprintBenchmark extends AbstractResolveTest {
+    private final int copies = Integer.getInteger("bashsupport.benchmark.copies", 10);
+
+    /**
+     * The measured footprint of an input.
+     */
+    private static final class Footprint {
+        final String input;
+        final int nodes;
+        final int bashElements;
+        final long bytes;
+
+        Footprint(String input, int nodes, int bashElements, long bytes) {
+            this.input = input;
+            this.nodes = nodes;
+            this.bashElements = bashElements;
+            this.bytes = bytes;
+        }
+
+        long bytesPerNode() {
+            return nodes > 0 ? bytes / nodes : 0;
+        }
+    }
+
+    public void testFootprint() throws Exception {
+        final List<Footprint> results = Lists.newArrayList();
+
+        for (String input : findInputs()) {
+            results.add(measure(input, BenchmarkInputs.load(input)));
+        }
+
+        System.out.println(String.format("%-40s %10s %10s %14s %10s", "input", "nodes", "bash psi", "bytes", "bytes/node"));
+        for (Footprint footprint : results) {
+            System.out.println(String.format("%-40s %10d %10d %14d %10d", footprint.input, footprint.nodes,
+                    footprint.bashElements, footprint.bytes, footprint.bytesPerNode()));
+        }
+
+        final String outputPath = System.getProperty("bashsupport.benchmark.output");
+        if (outputPath != null) {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(outputPath), "UTF-8");
+            try {
+                writeJson(results, writer);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private Footprint measure(String input, String text) {
+        final String fileName = input.replace(':', '_') + (input.endsWith(".sh") ? "" : ".sh");
+        final List<PsiFile> files = Lists.newArrayListWithCapacity(copies);
+        final int[] counts = new int[2];
+
+        final long before = usedHeap();
+        for (int i = 0; i < copies; i++) {
+            final PsiFile file = PsiFileFactory.getInstance(myProject).createFileFromText(fileName, BashFileType.BASH_FILE_TYPE, text);
+            counts[0] = 0;
+            counts[1] = 0;
+
+            file.accept(new PsiRecursiveElementVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    counts[0]++;
+                    if (element instanceof BashPsiElement) {
+                        counts[1]++;
+                    }
+
+                    super.visitElement(element);
+                }
+            });
+
+            files.add(file);
+        }
+        final long after = usedHeap();
+
+        //the files have to be reachable until the heap was measured
+        assertEquals(copies, files.size());
+
+        return new Footprint(input, counts[0], counts[1], (after - before) / copies);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            final long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current == used) {
+                break;
+            }
+            used = current;
+        }
+
+        return used;
+    }
+
+    private static void writeJson(List<Footprint> results, Writer writer) throws IOException {
+        writer.write("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            final Footprint footprint = results.get(i);
+            writer.write("  {\"input\": \"" + footprint.input.replace("\\", "\\\\").replace("\"", "\\\"") + "\", \"nodes\": "
+                    + footprint.nodes + ", \"bashElements\": " + footprint.bashElements + ", \"bytes\": " + footprint.bytes
+                    + ", \"bytesPerNode\": " + footprint.bytesPerNode() + "}");
+            writer.write(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        writer.write("]\n");
+    }
+
+    private static List<String> findInputs() {
+        final List<String> inputs = Lists.newArrayList();
+
+        final File corpus = new File(System.getProperty("bashsupport.benchmark.corpus", "testData/scripts"));
+        final String[] names = corpus.list();
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name : names) {
+                if (name.endsWith(".sh")) {
+                    inputs.add(name);
+                }
+            }
+        }
+
+        for (String synthetic : System.getProperty("bashsupport.benchmark.synthetic", "synthetic:5000,generated:1:100").split(",")) {
+            if (synthetic.trim().length() > 0) {
+                inputs.add(synthetic.trim());
+            }
+        }
+
+        return inputs;
+    }
+
+    protected String getTestDataPath() {
+        return System.getProperty("bashsupport.benchmark.corpus", "testData/scripts");
+    }
+}
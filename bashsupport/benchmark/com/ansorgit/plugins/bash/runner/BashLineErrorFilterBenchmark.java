@@ -0,0 +1,119 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLineErrorFilterBenchmark.java, Class: BashLineErrorFilterBenchmark
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the throughput of the console error line scanner with the regular expression
+ * which was used by the former RegexpFilter based implementation.
+ * <p/>
+ * A generated log is pushed through both implementations, JMH reports the result as lines per second.
+ * Both benchmarks return the number of found error lines, it is the same for both.
+ * <p/>
+ * Run it with the ant target <code>benchmark</code>.
+ *
+ * @author Joachim Ansorg
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BashLineErrorFilterBenchmark {
+    //the regular expression needs about a second for this number of lines
+    private static final int LINES = 10000;
+
+    //the pattern of the former filter, RegexpFilter.FILE_PATH_MACROS and LINE_MACROS expanded
+    private static final Pattern REGEXP_PATTERN =
+            Pattern.compile("((?:\\p{Alpha}\\:)?[0-9 a-z_A-Z\\-\\\\./]+): [a-zA-Z]+ ([0-9]+): .+");
+
+    private String[] log;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        log = createLog(new Random(42));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int scanner() {
+        int matches = 0;
+        for (String line : log) {
+            if (BashLineErrorFilter.findErrorLocation(line) != null) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int regexp() {
+        int matches = 0;
+        for (String line : log) {
+            if (REGEXP_PATTERN.matcher(line).find()) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    private static String[] createLog(Random random) {
+        final String[] log = new String[LINES];
+
+        for (int i = 0; i < LINES; i++) {
+            switch (random.nextInt(10)) {
+                case 0:
+                    log[i] = "/opt/deploy/scripts/install-" + i + ".sh: line " + random.nextInt(5000) + ": foo: command not found";
+                    break;
+                case 1:
+                    //long lines with many colons are the worst case of the regular expression
+                    StringBuilder builder = new StringBuilder();
+                    for (int j = 0; j < 40; j++) {
+                        builder.append("key").append(j).append(": value ").append(random.nextInt(100)).append(' ');
+                    }
+                    log[i] = builder.toString();
+                    break;
+                case 2:
+                    log[i] = "2011-02-08 12:" + random.nextInt(60) + ":" + random.nextInt(60) + " INFO: deployed package " + i;
+                    break;
+                default:
+                    log[i] = "copying file " + i + " of " + LINES + " to /var/lib/deploy/target/path/file" + i + ".dat";
+            }
+        }
+
+        return log;
+    }
+}
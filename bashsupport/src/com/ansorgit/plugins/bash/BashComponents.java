@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashComponents.java, Class: BashComponents
- * Last modified: 2010-03-25
+ * Last modified: 2011-02-22
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,4 +28,6 @@ package com.ansorgit.plugins.bash;
 public class BashComponents {
     public static final String HighlighterFactory = "BashHighlighterFactory";
     public static final String BASH_LOADER = "bash.support.loader";
+    public static final String LargeFileNotifier = "BashLargeFileNotifier";
+    public static final String MetricsComponent = "BashMetricsComponent";
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashDocumentationProvider.java, Class: BashDocumentationProvider
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-22
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@
 
 package com.ansorgit.plugins.bash.documentation;
 
+import com.ansorgit.plugins.bash.metrics.BashMetrics;
 import com.google.common.collect.Lists;
 import com.intellij.lang.documentation.QuickDocumentationProvider;
 import com.intellij.openapi.diagnostic.Logger;
@@ -63,7 +64,12 @@ public class BashDocumentationProvider extends QuickDocumentationProvider {
     public String generateDoc(PsiElement element, PsiElement originalElement) {
         log.info("generateDoc() for " + element + " and " + originalElement);
 
-        return DocumentationProvider.documentation(element, originalElement);
+        final long start = BashMetrics.start();
+        try {
+            return DocumentationProvider.documentation(element, originalElement);
+        } finally {
+            BashMetrics.record(BashMetrics.Category.DOCUMENTATION, "generateDoc", originalElement != null ? originalElement : element, start);
+        }
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashAnnotator.java, Class: BashAnnotator
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-25
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@
 package com.ansorgit.plugins.bash.editor.annotator;
 
 import com.ansorgit.plugins.bash.editor.highlighting.BashSyntaxHighlighter;
+import com.ansorgit.plugins.bash.editor.largefile.BashLargeFiles;
 import com.ansorgit.plugins.bash.lang.psi.api.BashBackquote;
 import com.ansorgit.plugins.bash.lang.psi.api.BashString;
 import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
@@ -30,6 +31,7 @@ import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDocStartMarker;
 import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVar;
 import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
 import com.ansorgit.plugins.bash.lang.psi.api.word.BashWord;
+import com.ansorgit.plugins.bash.metrics.BashMetrics;
 import com.intellij.lang.annotation.Annotation;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.Annotator;
@@ -40,10 +42,18 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiRecursiveElementVisitor;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * The annotator for the the Bash language.
  * It takes care of the advanced syntax highlighting options.
  * <p/>
+ * Large files in the limited mode are not annotated, they only have the highlighting of the lexer.
+ * The time of each branch is measured while the {@link BashMetrics} are enabled.
+ * <p/>
+ * The branch of an element is looked up by the class of the element, see {@link #branchOf(Class)}.
+ * <p/>
  * Date: 12.04.2009
  * Time: 13:28:15
  *
@@ -51,34 +61,56 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashAnnotator implements Annotator {
     private static final Logger log = Logger.getInstance("#bash.BashAnnotator");
+    private static final ConcurrentMap<Class<? extends PsiElement>, Branch> branches = new ConcurrentHashMap<Class<? extends PsiElement>, Branch>();
+
     private final FunctionDefAnnotator functionAnnotator = new FunctionDefAnnotator();
 
     public void annotate(@NotNull PsiElement element, @NotNull AnnotationHolder annotationHolder) {
-        if (element instanceof BashBackquote) {
-            annotateBackquote(element, annotationHolder);
-        } else if (element instanceof BashHereDoc) {
-            annotateHereDoc((BashHereDoc) element, annotationHolder);
-        } else if (element instanceof BashHereDocStartMarker) {
-            annotateHereDocStart(element, annotationHolder);
-        } else if (element instanceof BashHereDocEndMarker) {
-            annotateHereDocEnd(element, annotationHolder);
-        } else if (element instanceof BashFunctionDef) {
-            functionAnnotator.annotate((BashFunctionDef) element, annotationHolder);
-        } else if (element instanceof BashCommand) {
-            annotateCommand((BashCommand) element, annotationHolder);
-        } else if (element instanceof BashVarDef) {
-            annotateVarDef((BashVarDef) element, annotationHolder);
-        } else if (element instanceof BashVar) {
-            BashVarAnnotator.annotateVar((BashVar) element, annotationHolder);
-        } else if (element instanceof BashWord) {
-            annotateWord(element, annotationHolder);
-        } else if (element instanceof BashString) {
-            annotateString(element, annotationHolder);
-        } else if (element instanceof BashSubshellCommand) {
-            annotateSubshell(element, annotationHolder);
+        if (BashLargeFiles.isLimited(element.getContainingFile())) {
+            return;
+        }
+
+        final long start = BashMetrics.start();
+        final String branch = annotateElement(element, annotationHolder);
+        if (branch != null) {
+            BashMetrics.record(BashMetrics.Category.ANNOTATOR, branch, element, start);
         }
     }
 
+    /**
+     * @return The name of the branch which annotated the element, null if the element was not annotated
+     */
+    private String annotateElement(PsiElement element, AnnotationHolder annotationHolder) {
+        final Branch branch = branchOf(element.getClass());
+        if (branch == Branch.NONE) {
+            return null;
+        }
+
+        branch.annotate(this, element, annotationHolder);
+        return branch.getName();
+    }
+
+    /**
+     * Finds the branch for a class of elements. The branches are checked in the order of their declaration, the first
+     * branch which accepts the class is cached for it. Further elements of the class only need a single lookup.
+     */
+    static Branch branchOf(Class<? extends PsiElement> elementClass) {
+        Branch branch = branches.get(elementClass);
+        if (branch == null) {
+            branch = Branch.NONE;
+            for (Branch candidate : Branch.values()) {
+                if (candidate.type != null && candidate.type.isAssignableFrom(elementClass)) {
+                    branch = candidate;
+                    break;
+                }
+            }
+
+            branches.put(elementClass, branch);
+        }
+
+        return branch;
+    }
+
     private void annotateWord(PsiElement bashWord, AnnotationHolder annotationHolder) {
         //we have to mark the remaped tokens (which are words now) to have the default word formatting.
         Annotation annotation = annotationHolder.createInfoAnnotation(bashWord, null);
@@ -162,4 +194,83 @@ public class BashAnnotator implements Annotator {
         final Annotation annotation = holder.createInfoAnnotation(element, null);
         annotation.setTextAttributes(BashSyntaxHighlighter.SUBSHELL_COMMAND);
     }
+
+    /**
+     * The kinds of annotated elements, in the order in which they are checked.
+     */
+    enum Branch {
+        BACKQUOTE("backquote", BashBackquote.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateBackquote(element, holder);
+            }
+        },
+        HEREDOC("heredoc", BashHereDoc.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateHereDoc((BashHereDoc) element, holder);
+            }
+        },
+        HEREDOC_START("heredoc start", BashHereDocStartMarker.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateHereDocStart(element, holder);
+            }
+        },
+        HEREDOC_END("heredoc end", BashHereDocEndMarker.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateHereDocEnd(element, holder);
+            }
+        },
+        FUNCTION("function", BashFunctionDef.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.functionAnnotator.annotate((BashFunctionDef) element, holder);
+            }
+        },
+        COMMAND("command", BashCommand.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateCommand((BashCommand) element, holder);
+            }
+        },
+        VAR_DEF("variable definition", BashVarDef.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateVarDef((BashVarDef) element, holder);
+            }
+        },
+        VAR("variable", BashVar.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                BashVarAnnotator.annotateVar((BashVar) element, holder);
+            }
+        },
+        WORD("word", BashWord.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateWord(element, holder);
+            }
+        },
+        STRING("string", BashString.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateString(element, holder);
+            }
+        },
+        SUBSHELL("subshell", BashSubshellCommand.class) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+                annotator.annotateSubshell(element, holder);
+            }
+        },
+        NONE(null, null) {
+            void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder) {
+            }
+        };
+
+        private final String name;
+        private final Class<?> type;
+
+        Branch(String name, Class<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        abstract void annotate(BashAnnotator annotator, PsiElement element, AnnotationHolder holder);
+    }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AbsolutePathCompletionProvider.java, Class: AbsolutePathCompletionProvider
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-07
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,11 +20,8 @@ package com.ansorgit.plugins.bash.editor.codecompletion;
 
 import com.ansorgit.plugins.bash.util.CompletionUtil;
 import com.intellij.codeInsight.completion.CompletionParameters;
-import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.util.ProcessingContext;
-
-import java.util.Collections;
-import java.util.List;
+import com.intellij.util.Processor;
 
 /**
  * This completion provider provides code completion for file / directory paths in the file.
@@ -42,11 +39,11 @@ class AbsolutePathCompletionProvider extends BashCompletionProvider {
 
 
     @Override
-    protected List<String> addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, CompletionResultSet resultWithoutPrefix) {
+    protected void addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, Processor<String> consumer) {
         if (!currentText.startsWith("/")) {
-            return Collections.emptyList();
+            return;
         }
 
-        return CompletionUtil.completeAbsolutePath(currentText);
+        CompletionUtil.completeAbsolutePath(currentText, consumer);
     }
 }
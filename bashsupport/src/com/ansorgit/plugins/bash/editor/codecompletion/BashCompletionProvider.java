@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashCompletionProvider.java, Class: BashCompletionProvider
- * Last modified: 2010-03-28
+ * Last modified: 2011-02-07
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,10 +24,9 @@ import com.intellij.codeInsight.completion.CompletionProvider;
 import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.ProcessingContext;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 /**
  * Abstrace base class for completion providers in Bash files.
  * <p/>
@@ -56,14 +55,17 @@ abstract class BashCompletionProvider extends CompletionProvider<CompletionParam
         String originalText = findOriginalText(element);
         final String currentText = findCurrentText(parameters, element);
 
-        CompletionResultSet result = currentText != null && originalText.startsWith(currentText)
+        final CompletionResultSet result = currentText != null && originalText.startsWith(currentText)
                 ? resultWithoutPrefix.withPrefixMatcher(currentText)
                 : resultWithoutPrefix;
 
-        List<String> items = addBashCompletions(currentText, parameters, context, resultWithoutPrefix);
-        for (String i : items) {
-            result.addElement(new PathLookupElement(i, !i.endsWith("/")));
-        }
+        //the items are shown as soon as they are found, a slow file system does not delay the first results
+        addBashCompletions(currentText, parameters, context, new Processor<String>() {
+            public boolean process(String item) {
+                result.addElement(new PathLookupElement(item, !item.endsWith("/")));
+                return true;
+            }
+        });
     }
 
     protected String findOriginalText(PsiElement element) {
@@ -87,8 +89,8 @@ abstract class BashCompletionProvider extends CompletionProvider<CompletionParam
         return element;
     }
 
-    protected abstract List<String> addBashCompletions(String currentText,
-                                                       CompletionParameters parameters,
-                                                       ProcessingContext context,
-                                                       CompletionResultSet resultWithoutPrefix);
+    protected abstract void addBashCompletions(String currentText,
+                                               CompletionParameters parameters,
+                                               ProcessingContext context,
+                                               Processor<String> consumer);
 }
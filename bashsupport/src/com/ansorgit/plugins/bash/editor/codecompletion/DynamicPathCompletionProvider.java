@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: DynamicPathCompletionProvider.java, Class: DynamicPathCompletionProvider
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-07
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,13 +21,11 @@ package com.ansorgit.plugins.bash.editor.codecompletion;
 import com.ansorgit.plugins.bash.util.CompletionUtil;
 import com.google.common.collect.Sets;
 import com.intellij.codeInsight.completion.CompletionParameters;
-import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.util.ProcessingContext;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -48,18 +46,18 @@ class DynamicPathCompletionProvider extends BashCompletionProvider {
     }
 
     @Override
-    protected List<String> addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, CompletionResultSet resultWithoutPrefix) {
+    protected void addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, Processor<String> consumer) {
         String usedPrefix = findUsedPrefix(currentText);
         if (usedPrefix == null) {
-            return Collections.emptyList();
+            return;
         }
 
         String baseDir = findBaseDir(parameters, usedPrefix);
         if (baseDir == null) {
-            return Collections.emptyList();
+            return;
         }
 
-        return CompletionUtil.completeRelativePath(baseDir, usedPrefix, currentText.substring(usedPrefix.length()));
+        CompletionUtil.completeRelativePath(baseDir, usedPrefix, currentText.substring(usedPrefix.length()), consumer);
     }
 
     @Nullable
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: ShebangPathCompletionProvider.java, Class: ShebangPathCompletionProvider
- * Last modified: 2010-03-28
+ * Last modified: 2011-02-07
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,11 +21,9 @@ package com.ansorgit.plugins.bash.editor.codecompletion;
 import com.ansorgit.plugins.bash.lang.psi.api.BashShebang;
 import com.ansorgit.plugins.bash.util.CompletionUtil;
 import com.intellij.codeInsight.completion.CompletionParameters;
-import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.ProcessingContext;
-
-import java.util.List;
+import com.intellij.util.Processor;
 
 /**
  * This completion provider provides code completion for file / directory paths in the file.
@@ -40,8 +38,8 @@ class ShebangPathCompletionProvider extends BashCompletionProvider {
     }
 
     @Override
-    protected List<String> addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, CompletionResultSet resultWithoutPrefix) {
-        return CompletionUtil.completeAbsolutePath(currentText);
+    protected void addBashCompletions(String currentText, CompletionParameters parameters, ProcessingContext context, Processor<String> consumer) {
+        CompletionUtil.completeAbsolutePath(currentText, consumer);
     }
 
     @Override
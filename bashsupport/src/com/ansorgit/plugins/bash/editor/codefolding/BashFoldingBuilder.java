@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashFoldingBuilder.java, Class: BashFoldingBuilder
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,16 @@
 
 package com.ansorgit.plugins.bash.editor.codefolding;
 
+import com.ansorgit.plugins.bash.editor.largefile.BashLargeFiles;
+import com.ansorgit.plugins.bash.editor.largefile.BlockScanner;
 import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
 import com.intellij.lang.ASTNode;
 import com.intellij.lang.folding.FoldingBuilder;
 import com.intellij.lang.folding.FoldingDescriptor;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 
@@ -32,6 +36,9 @@ import java.util.List;
 
 /**
  * Code folding builder for the Bash language.
+ * <p/>
+ * The fold regions of large files in the limited mode are found by the {@link BlockScanner}. The descriptor of such
+ * a region uses the leaf at the keyword which opens the block or at the start of the here-doc.
  *
  * @author Joachim Ansorg, mail@joachim-ansorg.de
  */
@@ -39,7 +46,13 @@ public class BashFoldingBuilder implements FoldingBuilder, BashElementTypes {
     @NotNull
     public FoldingDescriptor[] buildFoldRegions(@NotNull ASTNode node, @NotNull Document document) {
         List<FoldingDescriptor> descriptors = new ArrayList<FoldingDescriptor>();
-        appendDescriptors(node, document, descriptors);
+
+        final PsiElement psi = node.getPsi();
+        if (psi instanceof PsiFile && BashLargeFiles.isLimited((PsiFile) psi)) {
+            appendScannedDescriptors(node, document, descriptors);
+        } else {
+            appendDescriptors(node, document, descriptors);
+        }
 
         return descriptors.toArray(new FoldingDescriptor[descriptors.size()]);
     }
@@ -69,6 +82,20 @@ public class BashFoldingBuilder implements FoldingBuilder, BashElementTypes {
         return node;
     }
 
+    private static void appendScannedDescriptors(ASTNode fileNode, Document document, List<FoldingDescriptor> descriptors) {
+        for (BlockScanner.Region region : BlockScanner.scan(document.getCharsSequence())) {
+            final TextRange range = region.getRange();
+            if (document.getLineNumber(range.getStartOffset()) + 2 > document.getLineNumber(range.getEndOffset())) {
+                continue;
+            }
+
+            final ASTNode anchor = fileNode.findLeafElementAt(region.getAnchorOffset());
+            if (anchor != null) {
+                descriptors.add(new FoldingDescriptor(anchor, range));
+            }
+        }
+    }
+
     private static TextRange adjustFoldingRange(ASTNode node) {
         if (node.getElementType() == HEREDOC_ELEMENT) {
             TextRange textRange = node.getTextRange();
@@ -96,17 +123,28 @@ public class BashFoldingBuilder implements FoldingBuilder, BashElementTypes {
 
     public String getPlaceholderText(@NotNull ASTNode node) {
         final IElementType type = node.getElementType();
-        if (!isFoldable(type)) {
+        if (!isFoldable(type) && node.getFirstChildNode() != null) {
             return null;
         }
 
-        if (type == HEREDOC_ELEMENT) {
+        //a leaf is the anchor of a region which was found by the block scanner
+        if (type == HEREDOC_ELEMENT || isInHereDoc(node)) {
             return "...";
         }
 
         return "{...}";
     }
 
+    private static boolean isInHereDoc(ASTNode node) {
+        for (ASTNode parent = node.getTreeParent(); parent != null; parent = parent.getTreeParent()) {
+            if (parent.getElementType() == HEREDOC_ELEMENT) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public boolean isCollapsedByDefault(@NotNull ASTNode node) {
         return false;
     }
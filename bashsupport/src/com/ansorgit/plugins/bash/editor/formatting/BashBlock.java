@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashBlock.java, Class: BashBlock
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-17
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,6 @@
 package com.ansorgit.plugins.bash.editor.formatting;
 
 import com.ansorgit.plugins.bash.editor.formatting.processor.BashSpacingProcessor;
-import com.ansorgit.plugins.bash.editor.formatting.processor.BashSpacingProcessorBasic;
 import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
 import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
 import com.intellij.formatting.*;
@@ -50,15 +49,31 @@ public class BashBlock implements Block, BashElementTypes {
     final protected Indent myIndent;
     final protected Wrap myWrap;
     final protected CodeStyleSettings mySettings;
+    final private boolean myInString;
 
     protected List<Block> mySubBlocks = null;
 
     public BashBlock(@NotNull final ASTNode node, @Nullable final Alignment alignment, @NotNull final Indent indent, @Nullable final Wrap wrap, final CodeStyleSettings settings) {
+        this(node, alignment, indent, wrap, settings, hasStringAncestor(node));
+    }
+
+    BashBlock(@NotNull final ASTNode node, @Nullable final Alignment alignment, @NotNull final Indent indent, @Nullable final Wrap wrap, final CodeStyleSettings settings, boolean inString) {
         myNode = node;
         myAlignment = alignment;
         myIndent = indent;
         myWrap = wrap;
         mySettings = settings;
+        myInString = inString;
+    }
+
+    private static boolean hasStringAncestor(ASTNode node) {
+        for (ASTNode current = node; current != null; current = current.getTreeParent()) {
+            if (current.getElementType() == STRING_ELEMENT) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     @NotNull
@@ -84,6 +99,13 @@ public class BashBlock implements Block, BashElementTypes {
         return mySubBlocks;
     }
 
+    /**
+     * @return True if this block is a string or is contained in a string
+     */
+    public boolean isInString() {
+        return myInString;
+    }
+
     @Nullable
     public Wrap getWrap() {
         return myWrap;
@@ -109,8 +131,7 @@ public class BashBlock implements Block, BashElementTypes {
     @Nullable
     public Spacing getSpacing(Block child1, Block child2) {
         if ((child1 instanceof BashBlock) && (child2 instanceof BashBlock)) {
-            Spacing spacing = BashSpacingProcessor.getSpacing(((BashBlock) child1), ((BashBlock) child2), mySettings);
-            return spacing != null ? spacing : BashSpacingProcessorBasic.getSpacing(((BashBlock) child1), ((BashBlock) child2), mySettings);
+            return BashSpacingProcessor.getSpacing(this, (BashBlock) child1, (BashBlock) child2, mySettings);
         }
         return null;
     }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashBlockGenerator.java, Class: BashBlockGenerator
- * Last modified: 2010-05-13
+ * Last modified: 2011-02-17
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,7 +59,8 @@ public class BashBlockGenerator implements BashElementTypes {
         for (ASTNode childNode : children) {
             if (canBeCorrectBlock(childNode)) {
                 final Indent indent = BashIndentProcessor.getChildIndent(block, prevChildNode, childNode);
-                subBlocks.add(new BashBlock(childNode, myAlignment, indent, myWrap, mySettings));
+                final boolean inString = block.isInString() || childNode.getElementType() == STRING_ELEMENT;
+                subBlocks.add(new BashBlock(childNode, myAlignment, indent, myWrap, mySettings, inString));
                 prevChildNode = childNode;
             }
         }
@@ -1,32 +0,0 @@
-/*
- * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
- * File: SpacingUtil.java, Class: SpacingUtil
- * Last modified: 2009-12-04
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.ansorgit.plugins.bash.editor.formatting;
-
-import com.intellij.lang.ASTNode;
-
-/**
- * User: jansorg
- * Date: Nov 4, 2009
- * Time: 7:56:08 PM
- */
-public class SpacingUtil {
-    public static boolean isWhiteSpace(ASTNode treePrev) {
-        return false;
-    }
-}
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashSpacingProcessorBasic.java, Class: BashSpacingProcessorBasic
- * Last modified: 2010-01-31
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,81 +18,171 @@
 
 package com.ansorgit.plugins.bash.editor.formatting.processor;
 
-import com.ansorgit.plugins.bash.editor.formatting.BashBlock;
 import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
 import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
-import com.ansorgit.plugins.bash.lang.psi.api.BashBackquote;
-import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
-import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDoc;
-import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDocEndMarker;
-import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDocMarker;
-import com.ansorgit.plugins.bash.lang.psi.api.shell.BashCase;
-import com.ansorgit.plugins.bash.lang.psi.api.shell.BashIf;
-import com.ansorgit.plugins.bash.lang.psi.api.word.BashWord;
-import com.ansorgit.plugins.bash.lang.psi.impl.word.BashStringImpl;
-import com.intellij.formatting.Spacing;
 import com.intellij.lang.ASTNode;
-import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.psi.PsiElement;
-import com.intellij.psi.codeStyle.CodeStyleSettings;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.tree.TokenSet;
 
+/**
+ * The spacing rules of the Bash formatter.
+ * <p/>
+ * The rules only depend on the element type of the parent and of the two neighbour nodes. The rules are compiled
+ * into a table of parent x left x right type when the class is loaded, a lookup is a few array reads and does not
+ * allocate.
+ * <p/>
+ * Two rules also check the node before the left node, i.e. the assignment word before an equals sign and the command
+ * before a semicolon. The table stores the result with and without this context, the previous node is only checked
+ * if the two results differ.
+ * <p/>
+ * Nodes in strings are not part of the table, the caller returns {@link #NO_SPACING} for all nodes of a string.
+ *
+ * @author Joachim Ansorg
+ */
 public abstract class BashSpacingProcessorBasic implements BashElementTypes, BashTokenTypes {
-    private static final Logger log = Logger.getInstance("SpacingProcessorBasic");
-    private static TokenSet commandSet = TokenSet.create(GENERIC_COMMAND_ELEMENT, INTERNAL_COMMAND_ELEMENT, SIMPLE_COMMAND_ELEMENT);
+    //the spacing ids, the spacing objects are created by BashSpacingProcessor
+    static final int COMMON_SPACING = 0;
+    static final int NO_SPACING = 1;
+    static final int COMMON_SPACING_WITH_NL = 2;
+    static final int READ_ONLY_SPACING = 3;
+    static final int FUNCTION_DEF_SPACING = 4;
+    static final int SPACING_COUNT = 5;
+
+    private static final TokenSet commandSet = TokenSet.create(GENERIC_COMMAND_ELEMENT, INTERNAL_COMMAND_ELEMENT, SIMPLE_COMMAND_ELEMENT, ARITHMETIC_COMMAND);
+
+    //all left and right types which are used by the rules, all other types share the index 0
+    private static final IElementType[] ruleTypes = {
+            STRING_CHAR, STRING_BEGIN, STRING_END, HEREDOC_START_MARKER_ELEMENT, HEREDOC_END_MARKER_ELEMENT,
+            EXPR_CONDITIONAL, _EXPR_CONDITIONAL, BRACKET_KEYWORD, _BRACKET_KEYWORD,
+            DOLLAR, SUBSHELL_COMMAND, ARITHMETIC_COMMAND, VAR_SUBSTITUTION_ELEMENT, VAR_COMPOSED_VAR_ELEMENT,
+            LEFT_CURLY, RIGHT_CURLY, BACKQUOTE, LEFT_PAREN, RIGHT_PAREN,
+            FUNCTION_DEF_COMMAND, IF_COMMAND, THEN_KEYWORD, ELIF_KEYWORD, ELSE_KEYWORD, FI_KEYWORD,
+            ASSIGNMENT_WORD, EQ, SEMI, CASE_PATTERN_ELEMENT, IN_KEYWORD, DO_KEYWORD, DONE_KEYWORD, SHEBANG_ELEMENT,
+            SIMPLE_COMMAND_ELEMENT, INTERNAL_COMMAND_ELEMENT, GENERIC_COMMAND_ELEMENT
+    };
+
+    //all parent types which are used by the rules, all other types share the index 0
+    private static final IElementType[] parentTypes = {
+            HEREDOC_ELEMENT, PARSED_WORD_ELEMENT, EXPANSION_ELEMENT, VAR_SUBSTITUTION_ELEMENT, VAR_COMPOSED_VAR_ELEMENT,
+            BACKQUOTE_COMMAND, FUNCTION_DEF_COMMAND, IF_COMMAND, CASE_COMMAND
+    };
+
+    private static final int TYPES = ruleTypes.length + 1;
+
+    private static final byte[] typeIndex = createIndex(ruleTypes);
+    private static final byte[] parentIndex = createIndex(parentTypes);
+    private static final byte[] table = compile();
+
+    /**
+     * Returns the spacing id of two neighbour nodes.
+     *
+     * @param parentType The type of the common parent node
+     * @param leftNode   The left node
+     * @param rightType  The type of the right node
+     * @return The spacing id
+     */
+    static int getSpacing(IElementType parentType, ASTNode leftNode, IElementType rightType) {
+        final int entry = lookup(parentType, leftNode.getElementType(), rightType);
 
-    private static final Spacing NO_SPACING_WITH_NEWLINE = Spacing.createSpacing(0, 0, 0, true, 1);
-    private static final Spacing NO_SPACING = Spacing.createSpacing(0, 0, 0, false, 0);
-    private static final Spacing COMMON_SPACING = Spacing.createSpacing(1, 1, 0, true, 100);
-    private static final Spacing COMMON_SPACING_WITH_NL = Spacing.createSpacing(1, 1, 1, true, 100);
-    private static final Spacing IMPORT_BETWEEN_SPACING = Spacing.createSpacing(0, 0, 1, true, 100);
-    private static final Spacing IMPORT_OTHER_SPACING = Spacing.createSpacing(0, 0, 2, true, 100);
-    private static final Spacing LAZY_SPACING = Spacing.createSpacing(0, 239, 0, true, 100);
+        final int spacing = entry & 0xf;
+        final int contextSpacing = entry >> 4;
+        if (spacing != contextSpacing && hasContext(leftNode)) {
+            return contextSpacing;
+        }
 
-    public static Spacing getSpacing(BashBlock child1, BashBlock child2, CodeStyleSettings settings) {
-        ASTNode leftNode = child1.getNode();
-        ASTNode rightNode = child2.getNode();
+        return spacing;
+    }
 
-        IElementType leftType = leftNode.getElementType();
-        IElementType rightType = rightNode.getElementType();
+    /**
+     * @return The table entry, the low four bits are the spacing id without context, the high bits the id with context
+     */
+    static int lookup(IElementType parentType, IElementType leftType, IElementType rightType) {
+        return table[(index(parentIndex, parentType) * TYPES + index(typeIndex, leftType)) * TYPES + index(typeIndex, rightType)];
+    }
 
-        final PsiElement leftPsi = leftNode.getPsi();
-        final PsiElement rightPsi = rightNode.getPsi();
+    private static int index(byte[] index, IElementType type) {
+        final int typeIndex = type.getIndex();
+        return typeIndex < index.length ? index[typeIndex] : 0;
+    }
 
-        final IElementType leftParentElement = leftPsi != null && leftPsi.getParent() != null ? leftPsi.getParent().getNode().getElementType() : null;
-        final IElementType rightParentElement = rightPsi != null && rightPsi.getParent() != null ? rightPsi.getParent().getNode().getElementType() : null;
+    /**
+     * @return True if the node follows an assignment word (for an equals sign) or a command (for a semicolon)
+     */
+    private static boolean hasContext(ASTNode leftNode) {
+        final ASTNode prev = leftNode.getTreePrev();
+        if (prev == null) {
+            return false;
+        }
 
-        //Braces Placement
-        // For multi-line strings
-        //if (!child1.getNode().getTextRange().equals(child1.getTextRange()) || !child2.getNode().getTextRange().equals(child2.getTextRange())) {
-        //    return NO_SPACING;
-        //}
+        return leftNode.getElementType() == EQ ? prev.getElementType() == ASSIGNMENT_WORD : isCommand(prev.getElementType());
+    }
+
+    private static byte[] createIndex(IElementType[] types) {
+        int maxIndex = 0;
+        for (IElementType type : types) {
+            maxIndex = Math.max(maxIndex, type.getIndex());
+        }
+
+        final byte[] result = new byte[maxIndex + 1];
+        for (int i = 0; i < types.length; i++) {
+            result[types[i].getIndex()] = (byte) (i + 1);
+        }
+
+        return result;
+    }
+
+    private static byte[] compile() {
+        final byte[] result = new byte[(parentTypes.length + 1) * TYPES * TYPES];
+
+        for (int parent = 0; parent <= parentTypes.length; parent++) {
+            final IElementType parentType = parent == 0 ? null : parentTypes[parent - 1];
+
+            for (int left = 0; left < TYPES; left++) {
+                final IElementType leftType = left == 0 ? null : ruleTypes[left - 1];
+
+                for (int right = 0; right < TYPES; right++) {
+                    final IElementType rightType = right == 0 ? null : ruleTypes[right - 1];
+
+                    final int spacing = spacing(parentType, leftType, rightType, false);
+                    final int contextSpacing = spacing(parentType, leftType, rightType, true);
+                    result[(parent * TYPES + left) * TYPES + right] = (byte) (spacing | contextSpacing << 4);
+                }
+            }
+        }
+
+        return result;
+    }
 
+    /**
+     * The spacing rules. A null type stands for all types which are not used by the rules.
+     *
+     * @param parentType  The type of the parent node
+     * @param leftType    The type of the left node
+     * @param rightType   The type of the right node
+     * @param leftContext True if the left node follows an assignment word (for an equals sign) or a command (for a semicolon)
+     * @return The spacing id
+     */
+    static int spacing(IElementType parentType, IElementType leftType, IElementType rightType, boolean leftContext) {
         //for composed strings
-        if (isNodeInString(leftNode) && isNodeInString(rightNode)) {
+        if (leftType == STRING_CHAR && rightType == STRING_CHAR) {
             return NO_SPACING;
         }
 
         //for heredocs
-        if (leftPsi.getParent() instanceof BashHereDoc && rightPsi.getParent() instanceof BashHereDoc) {
-            return Spacing.getReadOnlySpacing();
+        if (parentType == HEREDOC_ELEMENT) {
+            return READ_ONLY_SPACING;
         }
 
-        if (leftType == STRING_BEGIN && rightPsi instanceof BashHereDocMarker) {
+        if (leftType == STRING_BEGIN && isHereDocMarker(rightType)) {
             return NO_SPACING;
         }
 
-        if (leftPsi instanceof BashHereDocMarker && rightType == STRING_END) {
+        if (isHereDocMarker(leftType) && rightType == STRING_END) {
             return NO_SPACING;
         }
 
-        if (leftType == LINE_FEED && rightType instanceof BashHereDocEndMarker) {
-            return Spacing.getReadOnlySpacing();
-        }
-
-        //for composed words
-        if (leftPsi.getParent() instanceof BashWord && rightPsi.getParent() instanceof BashWord) {
+        //for composed words and brace expansions like a{b,c}d
+        if (parentType == PARSED_WORD_ELEMENT || parentType == EXPANSION_ELEMENT) {
             return NO_SPACING;
         }
 
@@ -113,36 +203,28 @@ public abstract class BashSpacingProcessorBasic implements BashElementTypes, Bas
             return NO_SPACING;
         }
 
-        if (leftType == DOLLAR && rightType == LEFT_CURLY && rightParentElement == VAR_COMPOSED_VAR_ELEMENT) {
+        if (leftType == DOLLAR && rightType == LEFT_CURLY && parentType == VAR_COMPOSED_VAR_ELEMENT) {
             return NO_SPACING;
         }
 
         //{} expressions
         if ((leftType == LEFT_CURLY || rightType == RIGHT_CURLY) &&
-                (leftPsi.getParent().getNode().getElementType() == VAR_SUBSTITUTION_ELEMENT ||
-                        leftPsi.getParent().getNode().getElementType() == VAR_COMPOSED_VAR_ELEMENT)) {
+                (parentType == VAR_SUBSTITUTION_ELEMENT || parentType == VAR_COMPOSED_VAR_ELEMENT)) {
             return NO_SPACING;
         }
 
         //for backticks
-        if ((leftType == BACKQUOTE || rightType == BACKQUOTE) && leftPsi.getParent() instanceof BashBackquote) {
-            return NO_SPACING;
-        }
-
-        // For leftPsi parentheses in method declarations
-        if (LEFT_PAREN.equals(rightNode.getElementType()) &&
-                rightNode.getPsi().getParent().getNode() != null &&
-                FUNCTION_DEF_COMMAND == rightPsi.getParent().getNode().getElementType()) {
+        if ((leftType == BACKQUOTE || rightType == BACKQUOTE) && parentType == BACKQUOTE_COMMAND) {
             return NO_SPACING;
         }
 
-        //rightPsi parenthesis in function definitions
-        if (RIGHT_PAREN.equals(rightNode.getElementType()) && FUNCTION_DEF_COMMAND == rightParentElement) {
+        //parentheses in function definitions
+        if ((rightType == LEFT_PAREN || rightType == RIGHT_PAREN) && parentType == FUNCTION_DEF_COMMAND) {
             return NO_SPACING;
         }
 
-        if (FUNCTION_DEF_COMMAND == leftType) {
-            return Spacing.createSpacing(0, 0, settings.BLANK_LINES_AROUND_METHOD + 1, settings.KEEP_LINE_BREAKS, 100);
+        if (leftType == FUNCTION_DEF_COMMAND) {
+            return FUNCTION_DEF_SPACING;
         }
 
         //if statement
@@ -150,25 +232,10 @@ public abstract class BashSpacingProcessorBasic implements BashElementTypes, Bas
             return COMMON_SPACING_WITH_NL;
         }
 
-        if (leftType == THEN_KEYWORD && leftNode.getPsi().getParent() instanceof BashIf) {
-            log.debug("Formatting if-then-else: then");
-            return COMMON_SPACING_WITH_NL;
-        }
-
-        if (rightType == ELIF_KEYWORD && rightNode.getPsi().getParent() instanceof BashIf) {
-            log.debug("Formatting if-then: else");
-            return COMMON_SPACING_WITH_NL;
-        }
-
-        if (((leftType == ELSE_KEYWORD) && (leftNode.getPsi().getParent() instanceof BashIf)) ||
-                ((rightType == ELSE_KEYWORD) && (rightNode.getPsi().getParent() instanceof BashIf))) {
-            log.debug("Formatting if-then: else");
-            return COMMON_SPACING_WITH_NL;
-        }
-
-        if (leftType == FI_KEYWORD && leftNode.getPsi().getParent() instanceof BashIf ||
-                rightType == FI_KEYWORD && rightNode.getPsi().getParent() instanceof BashIf) {
-            log.debug("Formatting if-then: fi");
+        if (parentType == IF_COMMAND &&
+                (leftType == THEN_KEYWORD || rightType == ELIF_KEYWORD
+                        || leftType == ELSE_KEYWORD || rightType == ELSE_KEYWORD
+                        || leftType == FI_KEYWORD || rightType == FI_KEYWORD)) {
             return COMMON_SPACING_WITH_NL;
         }
 
@@ -177,12 +244,7 @@ public abstract class BashSpacingProcessorBasic implements BashElementTypes, Bas
             return NO_SPACING;
         }
 
-        if (leftType == EQ && leftNode.getTreePrev() != null && leftNode.getTreePrev().getElementType() == ASSIGNMENT_WORD) {
-            return NO_SPACING;
-        }
-
-        //generic commands and function calls
-        if ((leftPsi instanceof BashCommand || leftPsi instanceof BashBlock) && ";".equals(rightNode.getText())) {
+        if (leftType == EQ && leftContext) {
             return NO_SPACING;
         }
 
@@ -197,7 +259,7 @@ public abstract class BashSpacingProcessorBasic implements BashElementTypes, Bas
         }
 
         //in keyword
-        if (leftType == IN_KEYWORD && leftPsi.getParent() instanceof BashCase) {
+        if (leftType == IN_KEYWORD && parentType == CASE_COMMAND) {
             return COMMON_SPACING_WITH_NL;
         }
 
@@ -217,41 +279,18 @@ public abstract class BashSpacingProcessorBasic implements BashElementTypes, Bas
         }
 
         //consecutive commands
-        /*if (leftType == GENERIC_COMMAND_ELEMENT && rightType == GENERIC_COMMAND_ELEMENT &&
-                BashPsiUtils.getElementLineNumber(leftPsi) != BashPsiUtils.getElementLineNumber(rightPsi)) {
-            return COMMON_SPACING_WITH_NL;
-        } */
-        if (leftType == SEMI && leftNode.getTreePrev().getPsi() instanceof BashCommand && rightPsi instanceof BashCommand) {
+        if (leftType == SEMI && leftContext && isCommand(rightType)) {
             return COMMON_SPACING_WITH_NL;
         }
 
         return COMMON_SPACING;
     }
 
-    private static boolean isInCasePattern(ASTNode node) {
-        return node.getTreeParent() != null && node.getTreeParent().getElementType() == CASE_PATTERN_ELEMENT;
+    private static boolean isHereDocMarker(IElementType type) {
+        return type == HEREDOC_START_MARKER_ELEMENT || type == HEREDOC_END_MARKER_ELEMENT;
     }
 
-    /**
-     * A node can be embedded in an string. For now, do not reformat those expressions.
-     *
-     * @param node
-     * @return True if the on of the nodes is embedded in a string
-     */
-    private static boolean isNodeInString(ASTNode node) {
-        if (node.getElementType() == STRING_CHAR) {
-            return true;
-        }
-
-        PsiElement parent = node.getPsi().getParent();
-        while (parent != null) {
-            if (parent instanceof BashStringImpl) {
-                return true;
-            }
-
-            parent = parent.getParent();
-        }
-
-        return false;
+    private static boolean isCommand(IElementType type) {
+        return type != null && commandSet.contains(type);
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: RemoveHeredocHighlightingPass.java, Class: RemoveHeredocHighlightingPass
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@
 
 package com.ansorgit.plugins.bash.editor.highlighting.codeHighlighting;
 
+import com.ansorgit.plugins.bash.editor.largefile.BashLargeFiles;
+import com.ansorgit.plugins.bash.editor.largefile.BlockScanner;
 import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
 import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDoc;
 import com.google.common.collect.Lists;
@@ -45,6 +47,8 @@ import java.util.List;
  * <p/>
  * In this highlighting pass we remove all highlighting in heredoc subtokens.
  * <p/>
+ * The here-docs of large files in the limited mode are found by the {@link BlockScanner}, not in the PSI.
+ * <p/>
  * <p/>
  * User: jansorg
  * Date: Jan 25, 2010
@@ -65,6 +69,17 @@ class RemoveHeredocHighlightingPass extends TextEditorHighlightingPass {
     public void doCollectInformation(ProgressIndicator progress) {
         final List<TextRange> collectedRanges = Lists.newLinkedList();
 
+        if (BashLargeFiles.isLimited(bashFile)) {
+            for (BlockScanner.Region region : BlockScanner.scan(editor.getDocument().getCharsSequence())) {
+                if (region.getKind() == BlockScanner.HEREDOC) {
+                    collectedRanges.add(region.getRange());
+                }
+            }
+
+            unhighlightRanges = collectedRanges;
+            return;
+        }
+
         PsiRecursiveElementVisitor visitor = new PsiRecursiveElementVisitor() {
             @Override
             public void visitElement(PsiElement element) {
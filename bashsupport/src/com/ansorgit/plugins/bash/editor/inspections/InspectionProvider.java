@@ -50,8 +50,8 @@ public class InspectionProvider implements InspectionToolProvider {
                 ReadonlyVariableInspection.class,
                 InternalVariableInspection.class,
                 UnknownFiledescriptorInspection.class,
-                GlocalLocalVarDefInspection.class
-                //UnusedFunctionDefInspection.class
+                GlocalLocalVarDefInspection.class,
+                UnusedFunctionDefInspection.class
         };
     }
 }
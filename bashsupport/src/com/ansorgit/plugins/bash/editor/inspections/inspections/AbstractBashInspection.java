@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AbstractBashInspection.java, Class: AbstractBashInspection
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-22
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,16 @@
 
 package com.ansorgit.plugins.bash.editor.inspections.inspections;
 
+import com.ansorgit.plugins.bash.editor.largefile.BashLargeFiles;
+import com.ansorgit.plugins.bash.metrics.BashMetrics;
+import com.ansorgit.plugins.bash.metrics.BashMetricsVisitor;
 import com.intellij.codeHighlighting.HighlightDisplayLevel;
 import com.intellij.codeInspection.CustomSuppressableInspectionTool;
 import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.codeInspection.SuppressIntentionAction;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -30,6 +35,11 @@ import org.jetbrains.annotations.Nullable;
 /**
  * Abstract base class for Bash inspections.
  * <p/>
+ * Large files which are only analysed in the limited mode are not inspected while they are edited.
+ * The batch inspections still inspect them.
+ * <p/>
+ * The visitor is measured while the {@link BashMetrics} are enabled.
+ * <p/>
  * Date: 15.05.2009
  * Time: 14:42:11
  *
@@ -37,6 +47,33 @@ import org.jetbrains.annotations.Nullable;
  */
 abstract class AbstractBashInspection extends LocalInspectionTool implements CustomSuppressableInspectionTool {
     private static final SuppressIntentionAction[] EMPTY_ARRAY = new SuppressIntentionAction[0];
+    private static final PsiElementVisitor EMPTY_VISITOR = new PsiElementVisitor() {
+    };
+
+    @NotNull
+    @Override
+    public final PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        if (isOnTheFly && BashLargeFiles.isLimited(holder.getFile())) {
+            return EMPTY_VISITOR;
+        }
+
+        final PsiElementVisitor visitor = buildBashVisitor(holder, isOnTheFly);
+        if (BashMetrics.getInstance().isEnabled()) {
+            return new BashMetricsVisitor(visitor, getShortName(), holder.getFile());
+        }
+
+        return visitor;
+    }
+
+    /**
+     * Builds the visitor of the inspection, this replaces {@link #buildVisitor(ProblemsHolder, boolean)}.
+     *
+     * @param holder     The holder of the found problems
+     * @param isOnTheFly True if the inspection runs in the editor
+     * @return The visitor
+     */
+    @NotNull
+    protected abstract PsiElementVisitor buildBashVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly);
 
     @Override
     public boolean isEnabledByDefault() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: ConvertBackquoteInspection.java, Class: ConvertBackquoteInspection
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -67,7 +67,7 @@ public class ConvertBackquoteInspection extends AbstractBashInspection {
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder problemsHolder, final boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder problemsHolder, final boolean isOnTheFly) {
         return new BashVisitor() {
             @Override
             public void visitBackquoteCommand(BashBackquote backquote) {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: ConvertSubshellInspection.java, Class: ConvertSubshellInspection
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,7 +65,7 @@ public class ConvertSubshellInspection extends AbstractBashInspection {
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
         return new BashVisitor() {
             @Override
             public void visitSubshell(BashSubshellCommand subshellCommand) {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: DuplicateFunctionDefInspection.java, Class: DuplicateFunctionDefInspection
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,22 +20,16 @@ package com.ansorgit.plugins.bash.editor.inspections.inspections;
 
 import com.ansorgit.plugins.bash.lang.psi.BashVisitor;
 import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
-import com.ansorgit.plugins.bash.lang.psi.impl.command.BashFunctionProcessor;
+import com.ansorgit.plugins.bash.lang.psi.util.BashFunctionDefTable;
 import com.ansorgit.plugins.bash.lang.psi.util.BashPsiUtils;
 import com.intellij.codeHighlighting.HighlightDisplayLevel;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.ResolveState;
-import com.intellij.psi.util.PsiTreeUtil;
 import org.intellij.lang.annotations.Pattern;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This inspection highlights duplicate function definitions.
  * <p/>
@@ -66,8 +60,8 @@ public class DuplicateFunctionDefInspection extends AbstractBashInspection {
 
     @Override
     public String getStaticDescription() {
-        return "Detects duplicate function definitions and highlights the double definitions. There is a chance of false" +
-                "positives if the earlier definition is inside of a conditional command.";
+        return "Detects duplicate function definitions and highlights the double definitions. Earlier definitions inside of " +
+                "conditional commands, loops, subshells or function bodies are ignored unless the later definition is in the same branch.";
     }
 
     @NotNull
@@ -78,39 +72,26 @@ public class DuplicateFunctionDefInspection extends AbstractBashInspection {
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BashVisitor() {
             @Override
             public void visitFunctionDef(BashFunctionDef functionDef) {
-                BashFunctionProcessor p = new BashFunctionProcessor(functionDef.getName(), true);
-
-                PsiElement start = functionDef.getContext() != null ? functionDef.getContext() : functionDef.getPrevSibling();
-
-                PsiTreeUtil.treeWalkUp(p, start, functionDef.getContainingFile(), ResolveState.initial());
-
-                List<PsiElement> results = new ArrayList(p.getResults());
-                results.remove(functionDef);
-
-                if (results.size() > 0) {
-                    //find the result which has the lowest textOffset in the file
-                    PsiElement firstFunctionDef = results.get(0);
-                    for (PsiElement e : results) {
-                        if (e.getTextOffset() < firstFunctionDef.getTextOffset()) {
-                            firstFunctionDef = e;
-                        }
-                    }
+                if (functionDef.getNameSymbol() == null) {
+                    return;
+                }
 
+                BashFunctionDefTable functionTable = BashFunctionDefTable.forFile(functionDef.getContainingFile());
+                BashFunctionDef firstFunctionDef = functionTable.findPreviousDefinition(functionDef);
 
-                    if (firstFunctionDef.getTextOffset() < functionDef.getTextOffset()) {
-                        String message = "The function '" + functionDef.getName() +
-                                "' is already defined on line " + BashPsiUtils.getElementLineNumber(firstFunctionDef) + ".";
+                if (firstFunctionDef != null) {
+                    String message = "The function '" + functionDef.getName() +
+                            "' is already defined on line " + BashPsiUtils.getElementLineNumber(firstFunctionDef) + ".";
 
-                        holder.registerProblem(
-                                functionDef.getNameSymbol(),
-                                message,
-                                ProblemHighlightType.GENERIC_ERROR_OR_WARNING
-                        );
-                    }
+                    holder.registerProblem(
+                            functionDef.getNameSymbol(),
+                            message,
+                            ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                    );
                 }
             }
         };
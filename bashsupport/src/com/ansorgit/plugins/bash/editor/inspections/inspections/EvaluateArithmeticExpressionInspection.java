@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: EvaluateArithmeticExpressionInspection.java, Class: EvaluateArithmeticExpressionInspection
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -72,7 +72,7 @@ public class EvaluateArithmeticExpressionInspection extends AbstractBashInspecti
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
         return new BashVisitor() {
             @Override
             public void visitArithmeticExpression(ArithmeticExpression expression) {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: FixShebangInspection.java, Class: FixShebangInspection
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -107,7 +107,7 @@ public class FixShebangInspection extends AbstractBashInspection {
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
         final Set<String> commands = Sets.newHashSet(configuredCommands().split("\\n"));
         commands.remove(""); //invalid command, may not be offered as replacement
 
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: UnusedFunctionDefInspection.java, Class: UnusedFunctionDefInspection
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,12 @@
 package com.ansorgit.plugins.bash.editor.inspections.inspections;
 
 import com.ansorgit.plugins.bash.lang.psi.BashVisitor;
+import com.ansorgit.plugins.bash.lang.psi.api.BashSymbol;
 import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.util.BashCommandNameIndex;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiReference;
 import org.intellij.lang.annotations.Pattern;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
@@ -31,7 +32,11 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Highlights unused function definitions.
  * <p/>
- * fixme: This inspection currently does not work. For a proper implementation we'd need an index.
+ * The calls are looked up in the command name index of the file, only the commands at the indexed
+ * offsets are resolved.
+ * <p/>
+ * Function calls are only resolved within their own file. The functions of a library which is sourced by
+ * other scripts would all be reported, so the inspection is disabled by default.
  * <p/>
  * User: jansorg
  * Date: Oct 31, 2009
@@ -63,15 +68,24 @@ public class UnusedFunctionDefInspection extends AbstractBashInspection {
         return "This inspection highlights function definitions which are never called in a Bash script.";
     }
 
+    @Override
+    public boolean isEnabledByDefault() {
+        return false;
+    }
+
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BashVisitor() {
             @Override
             public void visitFunctionDef(BashFunctionDef functionDef) {
-                PsiReference[] references = functionDef.getReferences();
-                if (references.length == 0) {
-                    holder.registerProblem(functionDef.getNameSymbol(), "Unused function definition", ProblemHighlightType.LIKE_UNUSED_SYMBOL);
+                final BashSymbol nameSymbol = functionDef.getNameSymbol();
+                if (nameSymbol == null) {
+                    return;
+                }
+
+                if (!BashCommandNameIndex.hasFunctionCalls(functionDef)) {
+                    holder.registerProblem(nameSymbol, "Unused function definition", ProblemHighlightType.LIKE_UNUSED_SYMBOL);
                 }
             }
         };
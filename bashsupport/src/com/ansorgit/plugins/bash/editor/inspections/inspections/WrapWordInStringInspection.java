@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: WrapWordInStringInspection.java, Class: WrapWordInStringInspection
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -68,7 +68,7 @@ public class WrapWordInStringInspection extends AbstractBashInspection {
 
     @NotNull
     @Override
-    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder problemsHolder, boolean b) {
+    protected PsiElementVisitor buildBashVisitor(@NotNull final ProblemsHolder problemsHolder, boolean b) {
         return new BashVisitor() {
             @Override
             public void visitCombinedWord(BashWord word) {
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintCache.java, Class: BashLintCache
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of previous lint runs, stored by the key of the checked content.
+ * <p/>
+ * The cache keeps at most the given number of entries, the least recently used entries are dropped first.
+ * It is stored in a compact binary file:
+ * <pre>
+ * int magic, int version
+ * varint stringCount, stringCount * UTF string
+ * varint entryCount, entryCount * entry (least recently used first)
+ * entry: 20 bytes key, varint lines, varint findingCount, findingCount * finding
+ * finding: varint line, varint column, byte severity, varint inspection string, varint message string
+ * </pre>
+ * A file which can not be read is ignored, the cache starts empty then.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashLintCache {
+    private static final int MAGIC = 0x42534c43;
+    private static final int VERSION = 1;
+    private static final int KEY_LENGTH = 20;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+
+    BashLintCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > BashLintCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Loads a cache file.
+     *
+     * @param file       The file, it does not have to exist
+     * @param maxEntries The maximum number of entries
+     * @return The cache, it is empty if the file does not exist or has an unsupported format
+     */
+    @NotNull
+    static BashLintCache load(@NotNull File file, int maxEntries) {
+        final BashLintCache cache = new BashLintCache(maxEntries);
+        if (!file.isFile()) {
+            return cache;
+        }
+
+        try {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                cache.read(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            cache.clear();
+        } catch (RuntimeException e) {
+            //a damaged file, e.g. an invalid string index
+            cache.clear();
+        }
+
+        return cache;
+    }
+
+    /**
+     * Writes the cache. The data is written to a temporary file which replaces the given file.
+     *
+     * @param file The target file
+     * @throws IOException If the file could not be written
+     */
+    void save(@NotNull File file) throws IOException {
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            write(output);
+        } finally {
+            output.close();
+        }
+
+        if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file))) {
+            throw new IOException("Unable to replace " + file.getPath());
+        }
+    }
+
+    @Nullable
+    synchronized Entry get(@NotNull String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(@NotNull String key, @NotNull Entry entry) {
+        entries.put(key, entry);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void write(DataOutputStream output) throws IOException {
+        final Map<String, Integer> stringIndex = Maps.newHashMap();
+        final List<String> strings = Lists.newArrayList();
+        for (Entry entry : entries.values()) {
+            for (BashLintReport.Finding finding : entry.findings) {
+                addString(finding.inspection, stringIndex, strings);
+                addString(finding.message, stringIndex, strings);
+            }
+        }
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+
+        writeVarInt(output, strings.size());
+        for (String value : strings) {
+            output.writeUTF(value);
+        }
+
+        writeVarInt(output, entries.size());
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            output.write(fromHex(mapEntry.getKey()));
+
+            final Entry entry = mapEntry.getValue();
+            writeVarInt(output, entry.lines);
+            writeVarInt(output, entry.findings.size());
+
+            for (BashLintReport.Finding finding : entry.findings) {
+                writeVarInt(output, finding.line);
+                writeVarInt(output, finding.column);
+                output.writeByte(finding.severity.ordinal());
+                writeVarInt(output, stringIndex.get(finding.inspection));
+                writeVarInt(output, stringIndex.get(finding.message));
+            }
+        }
+    }
+
+    private synchronized void read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            return;
+        }
+
+        final int stringCount = readVarInt(input);
+        final String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = input.readUTF();
+        }
+
+        final BashLintReport.Severity[] severities = BashLintReport.Severity.values();
+        final byte[] key = new byte[KEY_LENGTH];
+
+        final int entryCount = readVarInt(input);
+        for (int i = 0; i < entryCount; i++) {
+            input.readFully(key);
+
+            final int lines = readVarInt(input);
+            final int findingCount = readVarInt(input);
+
+            final List<BashLintReport.Finding> findings = Lists.newArrayListWithCapacity(findingCount);
+            for (int j = 0; j < findingCount; j++) {
+                final int line = readVarInt(input);
+                final int column = readVarInt(input);
+                final BashLintReport.Severity severity = severities[input.readUnsignedByte()];
+                final String inspection = strings[readVarInt(input)];
+                final String message = strings[readVarInt(input)];
+
+                findings.add(new BashLintReport.Finding("", line, column, severity, inspection, message));
+            }
+
+            entries.put(BashLintCacheKeys.toHex(key), new Entry(lines, findings));
+        }
+    }
+
+    private static void addString(String value, Map<String, Integer> stringIndex, List<String> strings) {
+        if (!stringIndex.containsKey(value)) {
+            stringIndex.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream input) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = input.readUnsignedByte();
+            result |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new IOException("Invalid number");
+    }
+
+    private static byte[] fromHex(String key) {
+        final byte[] result = new byte[KEY_LENGTH];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            result[i] = (byte) Integer.parseInt(key.substring(i * 2, i * 2 + 2), 16);
+        }
+
+        return result;
+    }
+
+    /**
+     * The result of a file. The paths of the findings are not stored, the same content at different
+     * locations shares the same entry.
+     */
+    static final class Entry {
+        final int lines;
+        final List<BashLintReport.Finding> findings;
+
+        Entry(int lines, @NotNull List<BashLintReport.Finding> findings) {
+            this.lines = lines;
+            this.findings = Collections.unmodifiableList(findings);
+        }
+
+        /**
+         * @param path The path of the file
+         * @return The findings, with the given path
+         */
+        @NotNull
+        List<BashLintReport.Finding> getFindings(@NotNull String path) {
+            final List<BashLintReport.Finding> result = Lists.newArrayListWithCapacity(findings.size());
+            for (BashLintReport.Finding finding : findings) {
+                result.add(new BashLintReport.Finding(path, finding.line, finding.column, finding.severity, finding.inspection, finding.message));
+            }
+
+            return result;
+        }
+    }
+}
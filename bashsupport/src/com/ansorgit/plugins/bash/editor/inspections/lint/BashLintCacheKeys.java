@@ -0,0 +1,263 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintCacheKeys.java, Class: BashLintCacheKeys
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the cache keys of the linted files.
+ * <p/>
+ * A key is a SHA-1 hash of the file's text, the language level, the enabled inspections and the hashes of the
+ * statically included files. The hash of an included file covers its own includes, a change in any file of the
+ * include tree changes the keys of all files which include it.
+ * <p/>
+ * The hashes of the included files are computed once per lint run. Included files are read as UTF-8.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashLintCacheKeys {
+    //increase if the cached results of an unchanged file may change, e.g. after changes of the inspections
+    private static final String VERSION = "2";
+    private static final String MISSING_FILE = "-";
+    private static final String INCLUDE_CYCLE = "cycle";
+
+    private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 is not available", e);
+            }
+        }
+    };
+
+    private final String settingsPrefix;
+    private final Map<String, String> includeHashes = new ConcurrentHashMap<String, String>();
+
+    /**
+     * @param supportBash4  The language level
+     * @param inspectionIds The ids of the enabled inspections
+     */
+    BashLintCacheKeys(boolean supportBash4, @NotNull Collection<String> inspectionIds) {
+        final List<String> sortedIds = Lists.newArrayList(inspectionIds);
+        Collections.sort(sortedIds);
+
+        final StringBuilder prefix = new StringBuilder(VERSION).append('\n').append(supportBash4).append('\n');
+        for (String id : sortedIds) {
+            prefix.append(id).append(',');
+        }
+
+        this.settingsPrefix = prefix.append('\n').toString();
+    }
+
+    /**
+     * @param file The file
+     * @param text The text of the file
+     * @return The key of the file, as hex string
+     */
+    @NotNull
+    String keyFor(@NotNull File file, @NotNull String text) {
+        return hash(settingsPrefix, file, text, Sets.<String>newHashSet());
+    }
+
+    private String hash(String prefix, File file, String text, Set<String> visiting) {
+        //the include hashes are computed first, the recursive calls use the same digest
+        final StringBuilder includes = new StringBuilder();
+        for (String include : findIncludes(text)) {
+            includes.append('\n').append(include).append('=').append(includeHash(resolve(file, include), visiting));
+        }
+
+        final MessageDigest digest = digests.get();
+        digest.reset();
+        digest.update(bytes(prefix));
+        digest.update(bytes(text));
+        digest.update(bytes(includes.toString()));
+
+        return toHex(digest.digest());
+    }
+
+    private String includeHash(File file, Set<String> visiting) {
+        final String path = file.getAbsolutePath();
+
+        final String cached = includeHashes.get(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (!visiting.add(path)) {
+            return INCLUDE_CYCLE;
+        }
+
+        try {
+            final String result = file.isFile() ? hash("", file, loadText(file), visiting) : MISSING_FILE;
+
+            //a nested hash may contain the cycle marker of a file which is not part of its own include tree,
+            //only the hashes which were computed without an including file on the stack are stored
+            if (visiting.size() == 1) {
+                includeHashes.put(path, result);
+            }
+
+            return result;
+        } catch (IOException e) {
+            return MISSING_FILE;
+        } finally {
+            visiting.remove(path);
+        }
+    }
+
+    private static File resolve(File file, String include) {
+        final File includeFile = new File(include);
+        if (includeFile.isAbsolute()) {
+            return includeFile;
+        }
+
+        return new File(file.getAbsoluteFile().getParentFile(), include);
+    }
+
+    /**
+     * Finds the static includes of a script. These are the <code>.</code> and <code>source</code> commands at the
+     * start of a line whose file name does not contain a variable or a subshell.
+     *
+     * @param text The script
+     * @return The file names of the includes, in the order of the text
+     */
+    @NotNull
+    static List<String> findIncludes(@NotNull String text) {
+        List<String> result = null;
+
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+
+            int pos = lineStart;
+            while (pos < lineEnd && (text.charAt(pos) == ' ' || text.charAt(pos) == '\t')) {
+                pos++;
+            }
+
+            int nameStart = -1;
+            if (text.startsWith(". ", pos) || text.startsWith(".\t", pos)) {
+                nameStart = pos + 2;
+            } else if (text.startsWith("source ", pos) || text.startsWith("source\t", pos)) {
+                nameStart = pos + 7;
+            }
+
+            if (nameStart >= 0) {
+                final String name = parseFileName(text, nameStart, lineEnd);
+                if (name != null) {
+                    if (result == null) {
+                        result = Lists.newArrayList();
+                    }
+                    result.add(name);
+                }
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return result != null ? result : Collections.<String>emptyList();
+    }
+
+    private static String parseFileName(String text, int start, int end) {
+        int pos = start;
+        while (pos < end && (text.charAt(pos) == ' ' || text.charAt(pos) == '\t')) {
+            pos++;
+        }
+
+        if (pos == end) {
+            return null;
+        }
+
+        final char quote = text.charAt(pos);
+        final int nameEnd;
+        if (quote == '\'' || quote == '"') {
+            nameEnd = text.indexOf(quote, ++pos);
+            if (nameEnd < 0 || nameEnd > end) {
+                return null;
+            }
+        } else {
+            int wordEnd = pos;
+            while (wordEnd < end && " \t;&|)#\r".indexOf(text.charAt(wordEnd)) < 0) {
+                wordEnd++;
+            }
+            nameEnd = wordEnd;
+        }
+
+        final String name = text.substring(pos, nameEnd);
+        if (name.length() == 0 || name.indexOf('$') >= 0 || name.indexOf('`') >= 0 || (quote != '\'' && name.indexOf('\\') >= 0)) {
+            return null;
+        }
+
+        return name;
+    }
+
+    static String loadText(File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+        try {
+            final byte[] data = new byte[(int) file.length()];
+
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = input.read(data, offset, data.length - offset)) > 0) {
+                offset += read;
+            }
+
+            return new String(data, 0, offset, "UTF-8");
+        } finally {
+            input.close();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] data) {
+        final char[] result = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            result[i * 2] = Character.forDigit((data[i] >> 4) & 0xf, 16);
+            result[i * 2 + 1] = Character.forDigit(data[i] & 0xf, 16);
+        }
+
+        return new String(result);
+    }
+}
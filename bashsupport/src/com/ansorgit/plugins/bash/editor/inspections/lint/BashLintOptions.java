@@ -0,0 +1,218 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintOptions.java, Class: BashLintOptions
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.ansorgit.plugins.bash.runner.batch.BashScriptFileSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The command line options of the linter.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashLintOptions {
+    static final String USAGE = "Usage: bashlint [--format json|checkstyle] [--output <file>] [--threads <count>]\n" +
+            "                [--pattern <glob>] [--fail-on info|warning|error] [--cache <file>] [--cache-size <entries>]\n" +
+            "                [--stats] <directory|file|glob>...\n" +
+            "Directories are searched for files which match the pattern, the default pattern is **/*.sh.\n" +
+            "With --cache the results of unchanged files are reused from the given cache file.";
+
+    enum Format {
+        JSON, CHECKSTYLE
+    }
+
+    private Format format = Format.JSON;
+    private String outputPath;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String pattern = "**/*.sh";
+    private BashLintReport.Severity failSeverity = BashLintReport.Severity.INFO;
+    private boolean stats = false;
+    private String cachePath;
+    private int cacheSize = 100000;
+    private final List<String> paths = Lists.newArrayList();
+
+    private BashLintOptions() {
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The arguments, without the command name
+     * @return The options
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    @NotNull
+    static BashLintOptions parse(@NotNull String[] args) {
+        final BashLintOptions options = new BashLintOptions();
+
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+
+            if ("--format".equals(arg)) {
+                final String value = value(args, ++i, arg);
+                if ("json".equals(value)) {
+                    options.format = Format.JSON;
+                } else if ("checkstyle".equals(value)) {
+                    options.format = Format.CHECKSTYLE;
+                } else {
+                    throw new IllegalArgumentException("Unknown format: " + value);
+                }
+            } else if ("--output".equals(arg)) {
+                options.outputPath = value(args, ++i, arg);
+            } else if ("--threads".equals(arg)) {
+                try {
+                    options.threads = Integer.parseInt(value(args, ++i, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid number of threads: " + args[i]);
+                }
+
+                if (options.threads < 1) {
+                    throw new IllegalArgumentException("At least one thread is required");
+                }
+            } else if ("--pattern".equals(arg)) {
+                options.pattern = value(args, ++i, arg);
+            } else if ("--fail-on".equals(arg)) {
+                final String value = value(args, ++i, arg);
+                try {
+                    options.failSeverity = BashLintReport.Severity.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown severity: " + value);
+                }
+            } else if ("--cache".equals(arg)) {
+                options.cachePath = value(args, ++i, arg);
+            } else if ("--cache-size".equals(arg)) {
+                try {
+                    options.cacheSize = Integer.parseInt(value(args, ++i, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cache size: " + args[i]);
+                }
+
+                if (options.cacheSize < 1) {
+                    throw new IllegalArgumentException("The cache size has to be positive");
+                }
+            } else if ("--stats".equals(arg)) {
+                options.stats = true;
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else {
+                options.paths.add(arg);
+            }
+        }
+
+        if (options.paths.isEmpty()) {
+            throw new IllegalArgumentException("No files given");
+        }
+
+        return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+
+        return args[index];
+    }
+
+    /**
+     * Collects the files of the given paths. A path is either a file, a directory which is searched with the
+     * pattern or a glob pattern like <code>scripts/**&#47;*.bash</code>.
+     *
+     * @return The files, in the order of the paths. Files which are matched by several paths are only returned once.
+     */
+    @NotNull
+    List<File> collectFiles() {
+        final Set<File> result = Sets.newLinkedHashSet();
+
+        for (String path : paths) {
+            final int globStart = findGlobStart(path);
+            if (globStart >= 0) {
+                final int baseEnd = path.lastIndexOf('/', globStart);
+                final File baseDirectory = new File(baseEnd < 0 ? "." : baseEnd == 0 ? "/" : path.substring(0, baseEnd));
+
+                addFiles(result, baseDirectory, new BashScriptFileSet(baseDirectory, path.substring(baseEnd + 1)));
+            } else {
+                final File file = new File(path);
+                if (file.isDirectory()) {
+                    addFiles(result, file, new BashScriptFileSet(file, pattern));
+                } else {
+                    result.add(file);
+                }
+            }
+        }
+
+        return Lists.newArrayList(result);
+    }
+
+    private static void addFiles(Set<File> result, File baseDirectory, BashScriptFileSet fileSet) {
+        for (File file : fileSet.collectFiles()) {
+            result.add(new File(baseDirectory, fileSet.relativePath(file)));
+        }
+    }
+
+    static int findGlobStart(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @NotNull
+    Format getFormat() {
+        return format;
+    }
+
+    @Nullable
+    String getOutputPath() {
+        return outputPath;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    @NotNull
+    BashLintReport.Severity getFailSeverity() {
+        return failSeverity;
+    }
+
+    boolean isStats() {
+        return stats;
+    }
+
+    @Nullable
+    String getCachePath() {
+        return cachePath;
+    }
+
+    int getCacheSize() {
+        return cacheSize;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintReport.java, Class: BashLintReport
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The findings of a lint run. It can be exported as JSON or in the XML format of Checkstyle.
+ * <p/>
+ * The findings are sorted by file, line and column, the output does not depend on the order in which the
+ * files were checked.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashLintReport {
+    public enum Severity {
+        //sorted by increasing severity
+        INFO("info"), WARNING("warning"), ERROR("error");
+
+        private final String checkstyleName;
+
+        Severity(String checkstyleName) {
+            this.checkstyleName = checkstyleName;
+        }
+
+        public String getCheckstyleName() {
+            return checkstyleName;
+        }
+    }
+
+    private static final Comparator<Finding> FINDING_ORDER = new Comparator<Finding>() {
+        public int compare(Finding a, Finding b) {
+            int result = a.path.compareTo(b.path);
+            if (result == 0) {
+                result = a.line - b.line;
+            }
+            if (result == 0) {
+                result = a.column - b.column;
+            }
+            if (result == 0) {
+                result = a.inspection.compareTo(b.inspection);
+            }
+
+            return result;
+        }
+    };
+
+    private final List<Finding> findings = Lists.newArrayList();
+    private int fileCount;
+    private int cachedFileCount;
+    private long lineCount;
+    private long durationMillis;
+
+    /**
+     * Adds the results of a single file.
+     *
+     * @param lines        The number of lines of the file
+     * @param fileFindings The findings in the file
+     */
+    public synchronized void addFile(int lines, @NotNull List<Finding> fileFindings) {
+        fileCount++;
+        lineCount += lines;
+        findings.addAll(fileFindings);
+    }
+
+    /**
+     * Adds the results of a single file which were taken from the cache.
+     *
+     * @param lines        The number of lines of the file
+     * @param fileFindings The findings in the file
+     */
+    public synchronized void addCachedFile(int lines, @NotNull List<Finding> fileFindings) {
+        addFile(lines, fileFindings);
+        cachedFileCount++;
+    }
+
+    /**
+     * @return The findings, sorted by file, line and column
+     */
+    @NotNull
+    public synchronized List<Finding> getFindings() {
+        final List<Finding> result = Lists.newArrayList(findings);
+        Collections.sort(result, FINDING_ORDER);
+
+        return result;
+    }
+
+    public synchronized int getFileCount() {
+        return fileCount;
+    }
+
+    public synchronized int getCachedFileCount() {
+        return cachedFileCount;
+    }
+
+    public synchronized long getLineCount() {
+        return lineCount;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @param minimumSeverity The minimum severity to count
+     * @return The number of findings with at least the given severity
+     */
+    public synchronized int count(@NotNull Severity minimumSeverity) {
+        int count = 0;
+        for (Finding finding : findings) {
+            if (finding.severity.compareTo(minimumSeverity) >= 0) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return A summary of the throughput of this run
+     */
+    @NotNull
+    public String formatThroughput() {
+        final double seconds = Math.max(durationMillis, 1) / 1000.0;
+
+        return String.format("Checked %d files (%d lines, %d cached) in %d ms: %.1f files/s, %.1f lines/s",
+                getFileCount(), getLineCount(), getCachedFileCount(), durationMillis, getFileCount() / seconds, getLineCount() / seconds);
+    }
+
+    public void writeJson(@NotNull Writer writer) throws IOException {
+        writer.write("{\"files\":" + getFileCount() + ",\"lines\":" + getLineCount() + ",\"durationMillis\":" + durationMillis + ",\"findings\":[");
+
+        boolean first = true;
+        for (Finding finding : getFindings()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            writer.write("{\"file\":");
+            writer.write(jsonValue(finding.path));
+            writer.write(",\"line\":" + finding.line);
+            writer.write(",\"column\":" + finding.column);
+            writer.write(",\"severity\":\"" + finding.severity.getCheckstyleName() + "\"");
+            writer.write(",\"inspection\":");
+            writer.write(jsonValue(finding.inspection));
+            writer.write(",\"message\":");
+            writer.write(jsonValue(finding.message));
+            writer.write('}');
+        }
+
+        writer.write("]}\n");
+    }
+
+    public void writeCheckstyle(@NotNull Writer writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<checkstyle version=\"4.3\">\n");
+
+        String currentPath = null;
+        for (Finding finding : getFindings()) {
+            if (!finding.path.equals(currentPath)) {
+                if (currentPath != null) {
+                    writer.write("  </file>\n");
+                }
+
+                currentPath = finding.path;
+                writer.write("  <file name=\"" + xmlValue(currentPath) + "\">\n");
+            }
+
+            writer.write("    <error line=\"" + finding.line + "\" column=\"" + finding.column + "\"");
+            writer.write(" severity=\"" + finding.severity.getCheckstyleName() + "\"");
+            writer.write(" message=\"" + xmlValue(finding.message) + "\"");
+            writer.write(" source=\"" + xmlValue(finding.inspection) + "\"/>\n");
+        }
+
+        if (currentPath != null) {
+            writer.write("  </file>\n");
+        }
+
+        writer.write("</checkstyle>\n");
+    }
+
+    private static String jsonValue(String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.append('"').toString();
+    }
+
+    private static String xmlValue(String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 16);
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    result.append("&lt;");
+                    break;
+                case '>':
+                    result.append("&gt;");
+                    break;
+                case '&':
+                    result.append("&amp;");
+                    break;
+                case '"':
+                    result.append("&quot;");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        result.append("&#").append((int) c).append(';');
+                    } else {
+                        result.append(c);
+                    }
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * A problem which was reported by an inspection. Line and column start at 1.
+     */
+    public static final class Finding {
+        final String path;
+        final int line;
+        final int column;
+        final Severity severity;
+        final String inspection;
+        final String message;
+
+        public Finding(String path, int line, int column, Severity severity, String inspection, String message) {
+            this.path = path;
+            this.line = line;
+            this.column = column;
+            this.severity = severity;
+            this.inspection = inspection;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintStarter.java, Class: BashLintStarter
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.project.ProjectManager;
+import org.jetbrains.annotations.NonNls;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line entry point of the Bash linter. It runs the Bash inspections on scripts without opening a project.
+ * <p/>
+ * Start the IDE in headless mode with the command <code>bashlint</code>, e.g.
+ * <code>idea.sh -Djava.awt.headless=true bashlint --format checkstyle --output report.xml scripts/</code>.
+ * The report is written to stdout if no output file is given, the statistics are printed to stderr.
+ * <p/>
+ * The exit code is 0 if no problems were found, 1 if there were findings and 2 if the arguments were invalid or
+ * if the report could not be written.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashLintStarter implements ApplicationStarter {
+    @NonNls
+    public String getCommandName() {
+        return "bashlint";
+    }
+
+    public void premain(String[] args) {
+    }
+
+    public void main(String[] args) {
+        System.exit(run(Arrays.copyOfRange(args, 1, args.length)));
+    }
+
+    private static int run(String[] args) {
+        final BashLintOptions options;
+        try {
+            options = BashLintOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BashLintOptions.USAGE);
+            return 2;
+        }
+
+        final List<File> files = options.collectFiles();
+
+        final File cacheFile = options.getCachePath() != null ? new File(options.getCachePath()) : null;
+        final BashLintCache cache = cacheFile != null ? BashLintCache.load(cacheFile, options.getCacheSize()) : null;
+
+        final BashLintReport report;
+        try {
+            report = new BashLinter(ProjectManager.getInstance().getDefaultProject(), options.getThreads(), cache).lint(files);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            return 2;
+        }
+
+        if (cache != null) {
+            try {
+                cache.save(cacheFile);
+            } catch (IOException e) {
+                //the results are still valid without a cache
+                System.err.println("Unable to write the cache: " + e.getMessage());
+            }
+        }
+
+        try {
+            writeReport(report, options);
+        } catch (IOException e) {
+            System.err.println("Unable to write the report: " + e.getMessage());
+            return 2;
+        }
+
+        if (options.isStats()) {
+            System.err.println(report.formatThroughput() + " with " + options.getThreads() + " threads");
+        }
+
+        return report.count(options.getFailSeverity()) > 0 ? 1 : 0;
+    }
+
+    private static void writeReport(BashLintReport report, BashLintOptions options) throws IOException {
+        final String outputPath = options.getOutputPath();
+        final Writer writer = outputPath != null
+                ? new OutputStreamWriter(new FileOutputStream(outputPath), "UTF-8")
+                : new OutputStreamWriter(System.out, "UTF-8");
+
+        try {
+            if (options.getFormat() == BashLintOptions.Format.CHECKSTYLE) {
+                report.writeCheckstyle(writer);
+            } else {
+                report.writeJson(writer);
+            }
+        } finally {
+            if (outputPath != null) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLinter.java, Class: BashLinter
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import com.ansorgit.plugins.bash.editor.inspections.InspectionProvider;
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
+import com.ansorgit.plugins.bash.settings.BashProjectSettings;
+import com.google.common.collect.Lists;
+import com.intellij.codeHighlighting.HighlightDisplayLevel;
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the Bash inspections on a set of files without an editor.
+ * <p/>
+ * Each file is parsed and checked by all inspections of the {@link InspectionProvider} in a single task,
+ * the tasks are executed by a pool of threads. Inspections which are disabled by default are not run.
+ * The files are checked in read actions, several files are checked at the same time.
+ * <p/>
+ * If a cache is given, the results of files whose content, includes and settings did not change since they
+ * were cached are reused without parsing the file.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashLinter {
+    private static final String INTERNAL_INSPECTION = "bashlint";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    private final Project project;
+    private final int threads;
+    private final List<LocalInspectionTool> tools;
+    private final BashLintCache cache;
+    private final BashLintCacheKeys cacheKeys;
+
+    public BashLinter(@NotNull Project project, int threads, @Nullable BashLintCache cache) {
+        this.project = project;
+        this.threads = threads;
+        this.tools = createInspections();
+        this.cache = cache;
+
+        if (cache != null) {
+            final List<String> inspectionIds = Lists.newArrayListWithCapacity(tools.size());
+            for (LocalInspectionTool tool : tools) {
+                inspectionIds.add(tool.getID());
+            }
+
+            this.cacheKeys = new BashLintCacheKeys(BashProjectSettings.storedSettings(project).isSupportBash4(), inspectionIds);
+        } else {
+            this.cacheKeys = null;
+        }
+    }
+
+    /**
+     * Checks the given files.
+     *
+     * @param files The files to check
+     * @return The report with the findings of all files
+     * @throws InterruptedException If the current thread was interrupted
+     */
+    @NotNull
+    public BashLintReport lint(@NotNull List<File> files) throws InterruptedException {
+        final BashLintReport report = new BashLintReport();
+        final long start = System.currentTimeMillis();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = Lists.newArrayListWithCapacity(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        lintFile(file, report);
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    final String message = "Internal error: " + e.getCause();
+                    report.addFile(0, Collections.singletonList(newFinding(files.get(i), 1, 1, BashLintReport.Severity.ERROR, INTERNAL_INSPECTION, message)));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private void lintFile(final File file, BashLintReport report) throws IOException {
+        //the encoding configured for the file in the IDE, files outside of the project are read as UTF-8
+        final VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(file);
+        final String encoding = virtualFile != null ? virtualFile.getCharset().name() : DEFAULT_ENCODING;
+        final String text = new String(FileUtil.loadFileText(file, encoding));
+
+        final String cacheKey = cacheKeys != null ? cacheKeys.keyFor(file, text) : null;
+        if (cacheKey != null) {
+            final BashLintCache.Entry cached = cache.get(cacheKey);
+            if (cached != null) {
+                report.addCachedFile(cached.lines, cached.getFindings(file.getPath()));
+                return;
+            }
+        }
+
+        final List<BashLintReport.Finding> findings = ApplicationManager.getApplication().runReadAction(new Computable<List<BashLintReport.Finding>>() {
+            public List<BashLintReport.Finding> compute() {
+                return inspect(file, findPsiFile(file, virtualFile, text));
+            }
+        });
+
+        final int lines = countLines(text);
+        if (cacheKey != null) {
+            cache.put(cacheKey, new BashLintCache.Entry(lines, findings));
+        }
+
+        report.addFile(lines, findings);
+    }
+
+    /**
+     * Returns the PSI of a file on disk. The PSI of the virtual file is used to resolve includes relative to the file,
+     * files which are not known as Bash files are parsed from the given text.
+     */
+    private PsiFile findPsiFile(File file, @Nullable VirtualFile virtualFile, String text) {
+        if (virtualFile != null) {
+            final PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if (psiFile instanceof BashFile) {
+                return psiFile;
+            }
+        }
+
+        return PsiFileFactory.getInstance(project).createFileFromText(file.getName(), BashFileType.BASH_FILE_TYPE, text);
+    }
+
+    private List<BashLintReport.Finding> inspect(File file, PsiFile psiFile) {
+        final List<BashLintReport.Finding> findings = Lists.newArrayList();
+        final int[] lineStarts = lineStarts(psiFile.getText());
+        final InspectionManager manager = InspectionManager.getInstance(project);
+
+        for (LocalInspectionTool tool : tools) {
+            final ProblemsHolder holder = new ProblemsHolder(manager, psiFile);
+            final PsiElementVisitor visitor = tool.buildVisitor(holder, false);
+
+            psiFile.accept(new PsiRecursiveElementVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    element.accept(visitor);
+                    super.visitElement(element);
+                }
+            });
+
+            final List<ProblemDescriptor> problems = holder.getResults();
+            if (problems == null) {
+                continue;
+            }
+
+            final BashLintReport.Severity severity = toSeverity(tool.getDefaultLevel());
+            for (ProblemDescriptor problem : problems) {
+                final PsiElement element = problem.getPsiElement();
+                final int offset = element != null ? element.getTextOffset() : 0;
+
+                int line = Arrays.binarySearch(lineStarts, offset);
+                if (line < 0) {
+                    //the offset is inside of the line which starts before the insertion point
+                    line = -line - 2;
+                }
+
+                findings.add(newFinding(file, line + 1, offset - lineStarts[line] + 1, severity, tool.getID(), describe(problem)));
+            }
+        }
+
+        return findings;
+    }
+
+    private static String describe(ProblemDescriptor problem) {
+        final PsiElement element = problem.getPsiElement();
+        final String reference = element != null ? element.getText() : "";
+
+        return problem.getDescriptionTemplate().replace("#ref", reference).replace("#loc", "").trim();
+    }
+
+    private static BashLintReport.Finding newFinding(File file, int line, int column, BashLintReport.Severity severity, String inspection, String message) {
+        return new BashLintReport.Finding(file.getPath(), line, column, severity, inspection, message);
+    }
+
+    private static BashLintReport.Severity toSeverity(HighlightDisplayLevel level) {
+        if (level == HighlightDisplayLevel.ERROR) {
+            return BashLintReport.Severity.ERROR;
+        }
+
+        if (level == HighlightDisplayLevel.WARNING) {
+            return BashLintReport.Severity.WARNING;
+        }
+
+        return BashLintReport.Severity.INFO;
+    }
+
+    /**
+     * @return The offsets of the first characters of the lines in the text, in ascending order
+     */
+    private static int[] lineStarts(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+
+        final int[] result = new int[count];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                result[line++] = i + 1;
+            }
+        }
+
+        return result;
+    }
+
+    private static int countLines(String text) {
+        int lines = text.length() > 0 && text.charAt(text.length() - 1) != '\n' ? 1 : 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+
+        return lines;
+    }
+
+    private static List<LocalInspectionTool> createInspections() {
+        final List<LocalInspectionTool> result = Lists.newArrayList();
+
+        for (Class inspectionClass : new InspectionProvider().getInspectionClasses()) {
+            try {
+                final Object inspection = inspectionClass.newInstance();
+                if (inspection instanceof LocalInspectionTool && ((LocalInspectionTool) inspection).isEnabledByDefault()) {
+                    result.add((LocalInspectionTool) inspection);
+                }
+            } catch (InstantiationException e) {
+                throw new IllegalStateException("Unable to create inspection " + inspectionClass.getName(), e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to create inspection " + inspectionClass.getName(), e);
+            }
+        }
+
+        return result;
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AbstractBashQuickfix.java, Class: AbstractBashQuickfix
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,9 @@
 package com.ansorgit.plugins.bash.editor.inspections.quickfix;
 
 import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
+import com.ansorgit.plugins.bash.runner.pool.BashProcessPool;
+import com.ansorgit.plugins.bash.runner.pool.BashWorkerProtocol;
+import com.ansorgit.plugins.bash.settings.BashProjectSettings;
 import com.intellij.codeInsight.intention.IntentionAction;
 import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemDescriptor;
@@ -26,6 +29,7 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Abstract base class for Bash quickfixes.
@@ -35,6 +39,9 @@ import org.jetbrains.annotations.NotNull;
  * Time: 10:47:27
  */
 abstract class AbstractBashQuickfix implements LocalQuickFix, IntentionAction {
+    //the maximum time to wait for the bash interpreter, the quickfix is applied in the UI thread
+    private static final long EVALUATION_TIMEOUT = 250;
+
     @NotNull
     public final String getText() {
         return getName();
@@ -46,7 +53,16 @@ abstract class AbstractBashQuickfix implements LocalQuickFix, IntentionAction {
     }
 
     public boolean isAvailable(@NotNull Project project, Editor editor, PsiFile file) {
-        return file instanceof BashFile;
+        if (!(file instanceof BashFile)) {
+            return false;
+        }
+
+        //the workers are started in the background, the fix then most likely finds a running interpreter
+        if (isEvaluatedWithInterpreter(project)) {
+            BashProcessPool.getInstance().warmUp();
+        }
+
+        return true;
     }
 
     public boolean startInWriteAction() {
@@ -56,4 +72,30 @@ abstract class AbstractBashQuickfix implements LocalQuickFix, IntentionAction {
     public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
         invoke(project, null, descriptor.getPsiElement().getContainingFile());
     }
+
+    /**
+     * @return True if the quickfixes evaluate with the bash interpreter
+     */
+    static boolean isEvaluatedWithInterpreter(@NotNull Project project) {
+        return BashProjectSettings.storedSettings(project).isEvaluateWithInterpreter();
+    }
+
+    /**
+     * Evaluates a command with one of the pooled bash interpreters, if this is enabled in the project settings.
+     * Only an interpreter which is already running is used, the caller has to evaluate the command itself if no
+     * result is returned.
+     *
+     * @param project The current project
+     * @param command The command to evaluate
+     * @return The output of the command or null if the command was not evaluated successfully
+     */
+    @Nullable
+    static String evaluateWithInterpreter(@NotNull Project project, @NotNull String command) {
+        if (!isEvaluatedWithInterpreter(project)) {
+            return null;
+        }
+
+        final BashWorkerProtocol.Response response = BashProcessPool.getInstance().evaluate(command, EVALUATION_TIMEOUT);
+        return response != null && response.isSuccessful() ? response.getOutput() : null;
+    }
 }
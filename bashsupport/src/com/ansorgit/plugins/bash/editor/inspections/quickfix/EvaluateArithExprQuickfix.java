@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: EvaluateArithExprQuickfix.java, Class: EvaluateArithExprQuickfix
- * Last modified: 2010-05-11
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,12 +42,18 @@ public class EvaluateArithExprQuickfix extends AbstractBashQuickfix {
 
     @NotNull
     public String getName() {
-        return "Replace '" + expression.getText() + "' with the result '" + expression.computeNumericValue() + "'";
+        //the name is shown in the UI thread, the expression is only evaluated if the fix is applied
+        return "Replace '" + expression.getText() + "' with the evaluated result";
     }
 
     public void invoke(@NotNull Project project, Editor editor, PsiFile file) throws IncorrectOperationException {
         TextRange r = expression.getTextRange();
-        String replacement = String.valueOf(expression.computeNumericValue());
+
+        String replacement = evaluateWithInterpreter(project, "echo $((" + expression.getText() + "))");
+        if (replacement == null) {
+            replacement = String.valueOf(expression.computeNumericValue());
+        }
+
         editor.getDocument().replaceString(r.getStartOffset(), r.getEndOffset(), replacement);
     }
 }
\ No newline at end of file
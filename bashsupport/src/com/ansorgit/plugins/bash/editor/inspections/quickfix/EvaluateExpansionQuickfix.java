@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: EvaluateExpansionQuickfix.java, Class: EvaluateExpansionQuickfix
- * Last modified: 2010-05-13
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,21 +46,20 @@ public class EvaluateExpansionQuickfix extends AbstractBashQuickfix {
 
     @NotNull
     public String getName() {
-        boolean supportBash4 = BashProjectSettings.storedSettings(project).isSupportBash4();
-        String replacement = ValueExpansionUtil.expand(expansion.getText(), supportBash4);
-
-        if (replacement.length() < 20) {
-            return "Replace with the result '" + replacement + "'";
-        }
-
+        //the name is shown in the UI thread, the expansion is only evaluated if the fix is applied
         return "Replace with evaluated expansion";
     }
 
     public void invoke(@NotNull Project project, Editor editor, PsiFile file) throws IncorrectOperationException {
         TextRange r = expansion.getTextRange();
 
-        boolean supportBash4 = BashProjectSettings.storedSettings(project).isSupportBash4();
-        String replacement = ValueExpansionUtil.expand(expansion.getText(), supportBash4);
+        //the words are joined by a single space, as in the result of ValueExpansionUtil
+        String replacement = evaluateWithInterpreter(project, "__bashsupport_words=(" + expansion.getText() + "); printf '%s' \"${__bashsupport_words[*]}\"");
+        if (replacement == null) {
+            boolean supportBash4 = BashProjectSettings.storedSettings(project).isSupportBash4();
+            replacement = ValueExpansionUtil.expand(expansion.getText(), supportBash4);
+        }
+
         if (replacement != null) {
             editor.getDocument().replaceString(r.getStartOffset(), r.getEndOffset(), replacement);
         }
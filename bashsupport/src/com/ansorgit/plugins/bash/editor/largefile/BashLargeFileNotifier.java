@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLargeFileNotifier.java, Class: BashLargeFileNotifier
+ * Last modified: 2011-02-19
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.largefile;
+
+import com.ansorgit.plugins.bash.BashComponents;
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditor;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerAdapter;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileEditor.TextEditor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.ui.HyperlinkLabel;
+import com.intellij.ui.LightColors;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.event.HyperlinkListener;
+import java.awt.*;
+
+/**
+ * Shows a panel above the editors of large Bash files. The panel tells whether the file is analysed in the limited
+ * mode and switches between the limited and the full analysis of the file.
+ * <p/>
+ * The panel is updated when a file is opened and when the user switches the mode.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashLargeFileNotifier implements ProjectComponent {
+    private static final Key<JComponent> PANEL_KEY = Key.create("bash.largeFilePanel");
+
+    private final Project project;
+    private MessageBusConnection connection;
+
+    public BashLargeFileNotifier(Project project) {
+        this.project = project;
+    }
+
+    public void projectOpened() {
+        connection = project.getMessageBus().connect();
+        connection.subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerAdapter() {
+            @Override
+            public void fileOpened(FileEditorManager source, VirtualFile file) {
+                updatePanels(file);
+            }
+        });
+    }
+
+    public void projectClosed() {
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+    }
+
+    @NonNls
+    @NotNull
+    public String getComponentName() {
+        return BashComponents.LargeFileNotifier;
+    }
+
+    public void initComponent() {
+    }
+
+    public void disposeComponent() {
+    }
+
+    private void updatePanels(VirtualFile file) {
+        if (!file.isValid() || file.getFileType() != BashFileType.BASH_FILE_TYPE) {
+            return;
+        }
+
+        final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        final boolean large = psiFile != null && BashLargeFiles.isLarge(psiFile);
+
+        final FileEditorManager manager = FileEditorManager.getInstance(project);
+        for (FileEditor editor : manager.getEditors(file)) {
+            if (!(editor instanceof TextEditor)) {
+                continue;
+            }
+
+            final JComponent oldPanel = editor.getUserData(PANEL_KEY);
+            if (oldPanel != null) {
+                manager.removeTopComponent(editor, oldPanel);
+                editor.putUserData(PANEL_KEY, null);
+            }
+
+            if (large) {
+                final JComponent panel = createPanel(file, !BashLargeFiles.hasFullAnalysis(project, file));
+                manager.addTopComponent(editor, panel);
+                editor.putUserData(PANEL_KEY, panel);
+            }
+        }
+    }
+
+    private JComponent createPanel(final VirtualFile file, final boolean limited) {
+        final JLabel label = new JLabel(limited
+                ? "This file is large. Only the syntax is highlighted, the inspections are disabled."
+                : "This file is large. The full analysis of it may be slow.");
+
+        final HyperlinkLabel link = new HyperlinkLabel(limited ? "Analyze fully" : "Limit analysis");
+        link.setBackground(LightColors.YELLOW);
+        link.addHyperlinkListener(new HyperlinkListener() {
+            public void hyperlinkUpdate(HyperlinkEvent e) {
+                if (e.getEventType() == HyperlinkEvent.EventType.ACTIVATED) {
+                    BashLargeFiles.setFullAnalysis(project, file, limited);
+                    updatePanels(file);
+
+                    DaemonCodeAnalyzer.getInstance(project).restart();
+                }
+            }
+        });
+
+        final JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(LightColors.YELLOW);
+        panel.setBorder(BorderFactory.createEmptyBorder(3, 10, 3, 10));
+        panel.add(label, BorderLayout.CENTER);
+        panel.add(link, BorderLayout.EAST);
+
+        return panel;
+    }
+}
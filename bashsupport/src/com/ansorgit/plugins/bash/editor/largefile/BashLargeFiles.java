@@ -0,0 +1,149 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLargeFiles.java, Class: BashLargeFiles
+ * Last modified: 2011-02-19
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.largefile;
+
+import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
+import com.ansorgit.plugins.bash.settings.BashProjectSettings;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides whether a file is analysed in the limited mode.
+ * <p/>
+ * A Bash file which is larger than the size or has more lines than configured in the project settings is only
+ * highlighted by the lexer. The annotator and the inspections skip it, folding and the here-doc highlighting use the
+ * {@link BlockScanner}. The user may switch a large file back to the full analysis, this is stored in the
+ * project settings.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashLargeFiles {
+    private static final Key<LargeFileState> STATE_KEY = Key.create("bash.largeFileState");
+
+    private BashLargeFiles() {
+    }
+
+    /**
+     * @param file The file, may be null
+     * @return True if the file is a large Bash file which is analysed in the limited mode
+     */
+    public static boolean isLimited(@Nullable PsiFile file) {
+        if (!(file instanceof BashFile) || !isLarge(file)) {
+            return false;
+        }
+
+        final VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+        return virtualFile == null || !hasFullAnalysis(file.getProject(), virtualFile);
+    }
+
+    /**
+     * @param file The file
+     * @return True if the file exceeds the limits of the project settings
+     */
+    public static boolean isLarge(PsiFile file) {
+        final BashProjectSettings settings = BashProjectSettings.storedSettings(file.getProject());
+        final int size = settings.getLargeFileSize();
+        final int lines = settings.getLargeFileLines();
+        final long stamp = file.getModificationStamp();
+
+        //counting the lines is linear, the result is cached until the file is modified
+        LargeFileState state = file.getUserData(STATE_KEY);
+        if (state == null || !state.isFor(stamp, size, lines)) {
+            state = new LargeFileState(stamp, size, lines, exceedsLimits(file.getViewProvider().getContents(), size, lines));
+            file.putUserData(STATE_KEY, state);
+        }
+
+        return state.large;
+    }
+
+    /**
+     * @param text  The text
+     * @param size  The maximum size in kilobytes, 0 for no limit
+     * @param lines The maximum number of lines, 0 for no limit
+     * @return True if the text is larger or has more lines than allowed
+     */
+    static boolean exceedsLimits(CharSequence text, int size, int lines) {
+        if (size > 0 && text.length() > size * 1024L) {
+            return true;
+        }
+
+        if (lines <= 0) {
+            return false;
+        }
+
+        //there is one more line than line breaks
+        int lineBreaks = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (text.charAt(i) == '\n' && ++lineBreaks >= lines) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static boolean hasFullAnalysis(Project project, VirtualFile file) {
+        return BashProjectSettings.storedSettings(project).getFullAnalysisFiles().contains(file.getUrl());
+    }
+
+    /**
+     * Enables or disables the full analysis of a large file.
+     *
+     * @param project The project
+     * @param file    The file
+     * @param enabled True if the file should be analysed like all other files
+     */
+    public static void setFullAnalysis(Project project, VirtualFile file, boolean enabled) {
+        final BashProjectSettings settings = BashProjectSettings.storedSettings(project);
+
+        //the set is read by the highlighting threads, it is replaced instead of modified
+        final Set<String> files = new HashSet<String>(settings.getFullAnalysisFiles());
+        if (enabled) {
+            files.add(file.getUrl());
+        } else {
+            files.remove(file.getUrl());
+        }
+
+        settings.setFullAnalysisFiles(files);
+    }
+
+    private static final class LargeFileState {
+        private final long stamp;
+        private final int size;
+        private final int lines;
+        private final boolean large;
+
+        LargeFileState(long stamp, int size, int lines, boolean large) {
+            this.stamp = stamp;
+            this.size = size;
+            this.lines = lines;
+            this.large = large;
+        }
+
+        boolean isFor(long stamp, int size, int lines) {
+            return this.stamp == stamp && this.size == size && this.lines == lines;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BlockScanner.java, Class: BlockScanner
+ * Last modified: 2011-02-19
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.largefile;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.util.TextRange;
+
+import java.util.List;
+
+/**
+ * Finds the blocks and here-docs of a script without lexing or parsing it.
+ * <p/>
+ * The scanner is used for large files, which are not analysed with the PSI. It makes a single pass over the text and
+ * only knows about quotes, comments, here-docs and the words which open and close a block: <code>then ... fi</code>,
+ * <code>do ... done</code>, <code>case ... esac</code> and <code>{ ... }</code>. A keyword is only recognized at the
+ * position of a command, e.g. the <code>done</code> of <code>echo done</code> does not close a loop.
+ * <p/>
+ * The result is a good guess, but not exact. Unbalanced blocks are dropped.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BlockScanner {
+    public static final int BLOCK = 0;
+    public static final int HEREDOC = 1;
+
+    private static final int THEN = 0;
+    private static final int ELSE = 1;
+    private static final int DO = 2;
+    private static final int CASE = 3;
+    private static final int BRACE = 4;
+
+    /**
+     * A block or here-doc which was found by the scanner.
+     */
+    public static final class Region {
+        private final int kind;
+        private final int anchorOffset;
+        private final TextRange range;
+
+        Region(int kind, int anchorOffset, TextRange range) {
+            this.kind = kind;
+            this.anchorOffset = anchorOffset;
+            this.range = range;
+        }
+
+        /**
+         * @return {@link #BLOCK} or {@link #HEREDOC}
+         */
+        public int getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The offset of the keyword which opened the block or the start of the here-doc content
+         */
+        public int getAnchorOffset() {
+            return anchorOffset;
+        }
+
+        /**
+         * @return The content of the block or here-doc, without the final line break of a here-doc
+         */
+        public TextRange getRange() {
+            return range;
+        }
+    }
+
+    private static final class Opener {
+        final int type;
+        final int anchor;
+        int start;
+
+        Opener(int type, int anchor, int start) {
+            this.type = type;
+            this.anchor = anchor;
+            this.start = start;
+        }
+    }
+
+    private final CharSequence text;
+    private final int length;
+    private final List<Region> regions = Lists.newArrayList();
+    private final List<Opener> openers = Lists.newArrayList();
+    private final List<String> hereDocMarkers = Lists.newArrayList();
+    private final List<Boolean> hereDocTabs = Lists.newArrayList();
+
+    //state of the current line
+    private boolean commandPosition = true;
+    private boolean functionName = false;
+    private boolean afterFunctionName = false;
+
+    private BlockScanner(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    /**
+     * Scans the text.
+     *
+     * @param text The script
+     * @return The regions in the order of their end offsets
+     */
+    public static List<Region> scan(CharSequence text) {
+        BlockScanner scanner = new BlockScanner(text);
+        scanner.scan();
+
+        return scanner.regions;
+    }
+
+    private void scan() {
+        int wordStart = -1;
+        boolean plainWord = true;
+
+        int i = 0;
+        while (i < length) {
+            final char c = text.charAt(i);
+
+            if (c == '\n' || c == ' ' || c == '\t' || c == ';' || c == '&' || c == '|' || c == '(' || c == ')' || c == '<' || c == '>') {
+                if (wordStart >= 0) {
+                    endWord(wordStart, i, plainWord);
+                    wordStart = -1;
+                    plainWord = true;
+                }
+
+                if (c == '\n') {
+                    i = endLine(i);
+                    continue;
+                }
+
+                if (c == '<' && i + 1 < length && text.charAt(i + 1) == '<') {
+                    i = readHereDocMarker(i + 2);
+                    continue;
+                }
+
+                if (c != ' ' && c != '\t') {
+                    commandPosition = c != '<' && c != '>';
+                    afterFunctionName = false;
+                }
+
+                i++;
+                continue;
+            }
+
+            if (wordStart < 0) {
+                if (c == '#') {
+                    i = lineEnd(i);
+                    continue;
+                }
+
+                wordStart = i;
+            }
+
+            switch (c) {
+                case '\\':
+                    plainWord = false;
+                    i += 2;
+                    break;
+                case '\'':
+                    plainWord = false;
+                    i = skipQuoted(i + 1, '\'');
+                    break;
+                case '"':
+                case '`':
+                    plainWord = false;
+                    i = skipQuoted(i + 1, c);
+                    break;
+                default:
+                    i++;
+            }
+        }
+
+        if (wordStart >= 0) {
+            endWord(wordStart, length, plainWord);
+        }
+    }
+
+    private void endWord(int start, int end, boolean plainWord) {
+        final String word = plainWord ? text.subSequence(start, end).toString() : "";
+        final boolean keywordPosition = commandPosition;
+
+        if (functionName) {
+            //the name after "function"
+            functionName = false;
+            afterFunctionName = true;
+            commandPosition = false;
+            return;
+        }
+
+        final boolean braceAllowed = keywordPosition || afterFunctionName;
+        afterFunctionName = false;
+        commandPosition = false;
+
+        if ("{".equals(word) && braceAllowed) {
+            openers.add(new Opener(BRACE, start, start));
+            commandPosition = true;
+            return;
+        }
+
+        if (!keywordPosition) {
+            return;
+        }
+
+        if ("then".equals(word) || "do".equals(word)) {
+            openers.add(new Opener(word.equals("then") ? THEN : DO, start, end));
+            commandPosition = true;
+        } else if ("else".equals(word)) {
+            close(start, THEN, ELSE);
+            openers.add(new Opener(ELSE, start, end));
+            commandPosition = true;
+        } else if ("elif".equals(word)) {
+            close(start, THEN, ELSE);
+            commandPosition = true;
+        } else if ("fi".equals(word)) {
+            close(start, THEN, ELSE);
+        } else if ("done".equals(word)) {
+            close(start, DO, DO);
+        } else if ("esac".equals(word)) {
+            close(start, CASE, CASE);
+        } else if ("}".equals(word)) {
+            close(end, BRACE, BRACE);
+        } else if ("case".equals(word)) {
+            //the block starts after the line of the case keyword
+            openers.add(new Opener(CASE, start, -1));
+        } else if ("function".equals(word)) {
+            functionName = true;
+        } else if ("if".equals(word) || "while".equals(word) || "until".equals(word) || "!".equals(word) || "time".equals(word)) {
+            commandPosition = true;
+        }
+    }
+
+    private void close(int end, int type, int alternativeType) {
+        if (openers.isEmpty()) {
+            return;
+        }
+
+        final Opener opener = openers.get(openers.size() - 1);
+        if (opener.type != type && opener.type != alternativeType) {
+            return;
+        }
+
+        openers.remove(openers.size() - 1);
+        if (opener.start >= 0 && end > opener.start) {
+            regions.add(new Region(BLOCK, opener.anchor, new TextRange(opener.start, end)));
+        }
+    }
+
+    /**
+     * Handles the end of a line, i.e. skips the content of the here-docs which were started on the line.
+     *
+     * @return The offset after the line break and the here-docs
+     */
+    private int endLine(int lineFeed) {
+        commandPosition = true;
+        functionName = false;
+        afterFunctionName = false;
+
+        for (Opener opener : openers) {
+            if (opener.start < 0) {
+                opener.start = lineFeed;
+            }
+        }
+
+        int offset = lineFeed + 1;
+        for (int i = 0; i < hereDocMarkers.size(); i++) {
+            offset = skipHereDoc(offset, hereDocMarkers.get(i), hereDocTabs.get(i));
+        }
+
+        hereDocMarkers.clear();
+        hereDocTabs.clear();
+
+        return offset;
+    }
+
+    private int skipHereDoc(int contentStart, String marker, boolean stripTabs) {
+        int lineStart = contentStart;
+
+        while (lineStart < length) {
+            int markerStart = lineStart;
+            if (stripTabs) {
+                while (markerStart < length && text.charAt(markerStart) == '\t') {
+                    markerStart++;
+                }
+            }
+
+            final int lineEnd = lineEnd(lineStart);
+            if (lineEnd - markerStart == marker.length() && marker.contentEquals(text.subSequence(markerStart, lineEnd))) {
+                if (lineStart - 1 > contentStart) {
+                    regions.add(new Region(HEREDOC, contentStart, new TextRange(contentStart, lineStart - 1)));
+                }
+
+                return Math.min(length, lineEnd + 1);
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        //an unterminated here-doc contains the rest of the file
+        if (length > contentStart) {
+            regions.add(new Region(HEREDOC, contentStart, new TextRange(contentStart, length)));
+        }
+
+        return length;
+    }
+
+    /**
+     * Reads the marker of a here-doc, <code>offset</code> is the offset after the &lt;&lt;.
+     *
+     * @return The offset after the marker
+     */
+    private int readHereDocMarker(int offset) {
+        commandPosition = false;
+
+        //a here-string
+        if (offset < length && text.charAt(offset) == '<') {
+            return offset + 1;
+        }
+
+        boolean stripTabs = false;
+        if (offset < length && text.charAt(offset) == '-') {
+            stripTabs = true;
+            offset++;
+        }
+
+        while (offset < length && (text.charAt(offset) == ' ' || text.charAt(offset) == '\t')) {
+            offset++;
+        }
+
+        final StringBuilder marker = new StringBuilder();
+        while (offset < length) {
+            final char c = text.charAt(offset);
+            if (c == '\n' || c == ' ' || c == '\t' || c == ';' || c == '&' || c == '|' || c == '(' || c == ')' || c == '<' || c == '>') {
+                break;
+            }
+
+            if (c == '\\' && offset + 1 < length) {
+                marker.append(text.charAt(offset + 1));
+                offset += 2;
+            } else if (c == '\'' || c == '"') {
+                final int end = skipQuoted(offset + 1, c);
+                marker.append(text.subSequence(offset + 1, Math.max(offset + 1, end - 1)));
+                offset = end;
+            } else {
+                marker.append(c);
+                offset++;
+            }
+        }
+
+        if (marker.length() > 0) {
+            hereDocMarkers.add(marker.toString());
+            hereDocTabs.add(stripTabs);
+        }
+
+        return offset;
+    }
+
+    /**
+     * @return The offset after the closing quote
+     */
+    private int skipQuoted(int offset, char quote) {
+        while (offset < length) {
+            final char c = text.charAt(offset);
+            if (c == quote) {
+                return offset + 1;
+            }
+
+            offset += c == '\\' && quote != '\'' ? 2 : 1;
+        }
+
+        return length;
+    }
+
+    private int lineEnd(int offset) {
+        while (offset < length && text.charAt(offset) != '\n') {
+            offset++;
+        }
+
+        return offset;
+    }
+}
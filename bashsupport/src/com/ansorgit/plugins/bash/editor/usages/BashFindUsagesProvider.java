@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashFindUsagesProvider.java, Class: BashFindUsagesProvider
- * Last modified: 2010-03-24
+ * Last modified: 2011-02-24
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,33 +25,60 @@ import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
 import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDocMarker;
 import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
 import com.intellij.lang.cacheBuilder.DefaultWordsScanner;
+import com.intellij.lang.cacheBuilder.WordOccurrence;
 import com.intellij.lang.cacheBuilder.WordsScanner;
 import com.intellij.lang.findUsages.FindUsagesProvider;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.tree.TokenSet;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * The find usages provider implementation for Bash.
  * <p/>
+ * The words scanner is called for each file which is indexed. Each thread reuses its own scanner and lexer instead of
+ * creating new ones for each file.
+ * <p/>
  * Date: 06.05.2009
  * Time: 20:42:06
  *
  * @author Joachim Ansorg
  */
 public class BashFindUsagesProvider implements FindUsagesProvider, BashTokenTypes {
+    private static final ThreadLocal<BashWordsScanner> scanners = new ThreadLocal<BashWordsScanner>() {
+        @Override
+        protected BashWordsScanner initialValue() {
+            return new BashWordsScanner(new BashLexer());
+        }
+    };
+
     private static final class BashWordsScanner extends DefaultWordsScanner {
         private static final TokenSet literals = TokenSet.create(BashElementTypes.STRING_ELEMENT, STRING2, INTEGER_LITERAL);
+        //words have to be indexed, otherwise the calls of functions are not part of the word index
+        private static final TokenSet identifiers = TokenSet.orSet(identifierTokenSet, TokenSet.create(WORD));
 
-        public BashWordsScanner() {
-            super(new BashLexer(), identifierTokenSet, BashTokenTypes.comments, literals);
+        private final BashLexer lexer;
+
+        private BashWordsScanner(BashLexer lexer) {
+            super(lexer, identifiers, BashTokenTypes.comments, literals);
+            this.lexer = lexer;
             setMayHaveFileRefsInLiterals(true);
         }
+
+        @Override
+        public void processWords(CharSequence fileText, Processor<WordOccurrence> processor) {
+            try {
+                super.processWords(fileText, processor);
+            } finally {
+                //the scanner is kept by the thread, it must not keep the text of the file
+                lexer.start("");
+            }
+        }
     }
 
     public WordsScanner getWordsScanner() {
-        return new BashWordsScanner();
+        return scanners.get();
     }
 
     public boolean canFindUsagesFor(@NotNull PsiElement psiElement) {
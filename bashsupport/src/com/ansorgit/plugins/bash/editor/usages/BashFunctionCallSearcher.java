@@ -0,0 +1,63 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashFunctionCallSearcher.java, Class: BashFunctionCallSearcher
+ * Last modified: 2011-02-03
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.usages;
+
+import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.util.BashCommandNameIndex;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.PsiSearchScopeUtil;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.util.Processor;
+import com.intellij.util.QueryExecutor;
+
+/**
+ * Searches the calls of a Bash function. The command name index of the function's file is used to
+ * find the candidate commands, only these are resolved.
+ * <p/>
+ * Function calls are only resolved in the file which contains the function definition, thus
+ * the search does not need to look into other files.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashFunctionCallSearcher implements QueryExecutor<PsiReference, ReferencesSearch.SearchParameters> {
+    public boolean execute(final ReferencesSearch.SearchParameters queryParameters, final Processor<PsiReference> consumer) {
+        final PsiElement element = queryParameters.getElementToSearch();
+        if (!(element instanceof BashFunctionDef)) {
+            return true;
+        }
+
+        return ApplicationManager.getApplication().runReadAction(new Computable<Boolean>() {
+            public Boolean compute() {
+                if (!element.isValid() || !PsiSearchScopeUtil.isInScope(queryParameters.getScope(), element)) {
+                    return true;
+                }
+
+                return BashCommandNameIndex.processFunctionCalls((BashFunctionDef) element, new Processor<BashCommand>() {
+                    public boolean process(BashCommand command) {
+                        return consumer.process(command);
+                    }
+                });
+            }
+        });
+    }
+}
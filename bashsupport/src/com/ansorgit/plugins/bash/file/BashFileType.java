@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashFileType.java, Class: BashFileType
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-20
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@
 
 package com.ansorgit.plugins.bash.file;
 
+import com.ansorgit.plugins.bash.editor.highlighting.BashSyntaxHighlighter;
 import com.ansorgit.plugins.bash.lang.Bash;
 import com.ansorgit.plugins.bash.lang.BashLanguage;
 import com.ansorgit.plugins.bash.settings.facet.BashFacet;
@@ -28,6 +29,9 @@ import com.ansorgit.plugins.bash.util.content.BashContentUtil;
 import com.intellij.lang.Language;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileTypes.LanguageFileType;
+import com.intellij.openapi.fileTypes.SingleLazyInstanceSyntaxHighlighterFactory;
+import com.intellij.openapi.fileTypes.SyntaxHighlighter;
+import com.intellij.openapi.fileTypes.SyntaxHighlighterFactory;
 import com.intellij.openapi.fileTypes.ex.FileTypeIdentifiableByVirtualFile;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtil;
@@ -55,7 +59,7 @@ import java.util.List;
 public class BashFileType extends LanguageFileType implements FileTypeIdentifiableByVirtualFile {
     private static final Logger LOG = Logger.getInstance("#BashFileType");
     public static final BashFileType BASH_FILE_TYPE = new BashFileType();
-    public static final Language BASH_LANGUAGE = BASH_FILE_TYPE.getLanguage();
+    public static final Language BASH_LANGUAGE = BashLanguage.INSTANCE;
 
     /**
      * The default file extension of bash scripts.
@@ -73,7 +77,9 @@ public class BashFileType extends LanguageFileType implements FileTypeIdentifiab
     private static final double MIN_FILE_PROBABILIY = 0.75d;
 
     protected BashFileType() {
-        super(new BashLanguage());
+        super(BashLanguage.INSTANCE);
+
+        SyntaxHighlighterFactory.LANGUAGE_FACTORY.addExplicitExtension(BashLanguage.INSTANCE, new BashHighlighterFactory());
     }
 
     @NotNull
@@ -172,4 +178,11 @@ public class BashFileType extends LanguageFileType implements FileTypeIdentifiab
 
         return false;
     }
+
+    private static class BashHighlighterFactory extends SingleLazyInstanceSyntaxHighlighterFactory {
+        @NotNull
+        protected SyntaxHighlighter createHighlighter() {
+            return new BashSyntaxHighlighter();
+        }
+    }
 }
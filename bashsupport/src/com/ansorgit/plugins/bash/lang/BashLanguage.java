@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashLanguage.java, Class: BashLanguage
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-20
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,30 +18,20 @@
 
 package com.ansorgit.plugins.bash.lang;
 
-import com.ansorgit.plugins.bash.editor.highlighting.BashSyntaxHighlighter;
 import com.intellij.lang.Language;
-import com.intellij.openapi.fileTypes.SingleLazyInstanceSyntaxHighlighterFactory;
-import com.intellij.openapi.fileTypes.SyntaxHighlighter;
-import com.intellij.openapi.fileTypes.SyntaxHighlighterFactory;
-import org.jetbrains.annotations.NotNull;
 
 /**
+ * The Bash language. It is part of the lexer and parser core, the syntax highlighter is registered by the file type.
+ * <p/>
  * Date: 22.03.2009
  * Time: 11:12:46
  *
  * @author Joachim Ansorg
  */
 public class BashLanguage extends Language {
-    public BashLanguage() {
-        super("Bash", "application/x-bsh", "application/x-sh", "text/x-script.sh");
-
-        SyntaxHighlighterFactory.LANGUAGE_FACTORY.addExplicitExtension(this, new BashHighlighterFactory());
-    }
+    public static final BashLanguage INSTANCE = new BashLanguage();
 
-    private static class BashHighlighterFactory extends SingleLazyInstanceSyntaxHighlighterFactory {
-        @NotNull
-        protected SyntaxHighlighter createHighlighter() {
-            return new BashSyntaxHighlighter();
-        }
+    private BashLanguage() {
+        super("Bash", "application/x-bsh", "application/x-sh", "text/x-script.sh");
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashLoader.java, Class: BashLoader
- * Last modified: 2010-05-10
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,14 @@
 package com.ansorgit.plugins.bash.lang;
 
 import com.ansorgit.plugins.bash.BashComponents;
+import com.ansorgit.plugins.bash.runner.pool.BashProcessPool;
+import com.ansorgit.plugins.bash.settings.BashProjectSettings;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ApplicationComponent;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.project.ProjectManagerAdapter;
+import nu.studer.idea.errorreporting.PluginErrorReportSubmitter;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -45,12 +48,20 @@ public class BashLoader implements ApplicationComponent {
     }
 
     public void initComponent() {
+        //the error reports of the last session are sent in the background
+        PluginErrorReportSubmitter.sendPendingReports();
+
         ProjectManager.getInstance().addProjectManagerListener(new ProjectManagerAdapter() {
             public void projectOpened(final Project project) {
+                //the evaluation processes are only needed if the interpreter is used by the quickfixes
+                if (BashProjectSettings.storedSettings(project).isEvaluateWithInterpreter()) {
+                    BashProcessPool.getInstance().warmUp();
+                }
             }
         });
     }
 
     public void disposeComponent() {
+        BashProcessPool.shutdownInstance();
     }
 }
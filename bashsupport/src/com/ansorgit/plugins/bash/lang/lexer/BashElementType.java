@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashElementType.java, Class: BashElementType
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-20
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,7 @@
 
 package com.ansorgit.plugins.bash.lang.lexer;
 
-import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.BashLanguage;
 import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashElementType extends IElementType {
     public BashElementType(@NotNull String debugName) {
-        super(debugName, BashFileType.BASH_LANGUAGE);
+        super(debugName, BashLanguage.INSTANCE);
     }
 
     public String toString() {
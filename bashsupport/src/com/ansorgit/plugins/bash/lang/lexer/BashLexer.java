@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashLexer.java, Class: BashLexer
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-24
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@
 package com.ansorgit.plugins.bash.lang.lexer;
 
 import com.ansorgit.plugins.bash.lang.BashVersion;
-import com.intellij.lexer.FlexAdapter;
-import com.intellij.psi.tree.TokenSet;
+import com.intellij.lexer.LexerBase;
+import com.intellij.psi.tree.IElementType;
+
+import java.io.IOException;
 
 /**
  * The actual Bash lexer. This lexer is based on te JFlex lexer generated by the bash.flex lexer definition.
@@ -29,19 +31,132 @@ import com.intellij.psi.tree.TokenSet;
  * This lexer merges string characters into words, thus string parsing is made a bit easier and Ctrl+W
  * works a bit better for plain text words inside of strings.
  * <p/>
+ * The merge of the STRING_CHAR tokens is done directly on top of the JFlex lexer. There is no
+ * additional adapter and no generic merging lexer in between, the token of the JFlex lexer which follows
+ * a run of STRING_CHAR tokens is kept in fields until it is requested. Only the positions returned
+ * by {@link #getCurrentPosition()} are allocated.
+ * <p/>
+ * A call of start() resets all state of the lexer, thus an instance may be reused for any number of texts. It must not
+ * be used by several threads at the same time.
+ * <p/>
  * Date: 22.03.2009
  * Time: 12:31:22
  *
  * @author Joachim Ansorg
  */
-public class BashLexer extends MergingLexer implements BashTokenTypes {
+public class BashLexer extends LexerBase implements BashTokenTypes {
+    private final _BashLexer flex;
+
+    private CharSequence buffer;
+    private int bufferEnd;
+
+    //the current, possibly merged token
+    private boolean located;
+    private IElementType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+    private int state;
+
+    //the token of the JFlex lexer which was read after a run of STRING_CHAR tokens
+    private boolean pending;
+    private IElementType pendingType;
+    private int pendingStart;
+    private int pendingEnd;
+    private int pendingState;
+
     public BashLexer() {
         this(BashVersion.Bash_v3);
     }
 
     public BashLexer(BashVersion bashVersion) {
-        super(new FlexAdapter(
-                new _BashLexer(bashVersion, null)),
-                MergeTuple.create(TokenSet.create(STRING_CHAR), WORD));
+        flex = new _BashLexer(bashVersion, null);
+    }
+
+    public void start(CharSequence buffer, int startOffset, int endOffset, int initialState) {
+        this.buffer = buffer;
+        this.bufferEnd = endOffset;
+
+        flex.reset(buffer, startOffset, endOffset, initialState);
+        flex.resetState();
+        located = false;
+        pending = false;
+    }
+
+    public CharSequence getBufferSequence() {
+        return buffer;
+    }
+
+    public int getBufferEnd() {
+        return bufferEnd;
+    }
+
+    public int getState() {
+        locateToken();
+        return state;
+    }
+
+    public IElementType getTokenType() {
+        locateToken();
+        return tokenType;
+    }
+
+    public int getTokenStart() {
+        locateToken();
+        return tokenStart;
+    }
+
+    public int getTokenEnd() {
+        locateToken();
+        return tokenEnd;
+    }
+
+    public void advance() {
+        locateToken();
+        located = false;
+    }
+
+    private void locateToken() {
+        if (located) {
+            return;
+        }
+
+        if (!pending) {
+            readFlexToken();
+        }
+        pending = false;
+
+        tokenType = pendingType;
+        tokenStart = pendingStart;
+        tokenEnd = pendingEnd;
+        state = pendingState;
+        located = true;
+
+        if (tokenType == STRING_CHAR) {
+            tokenType = WORD;
+
+            //merge all upcoming string characters, the first other token is kept for the next call
+            while (true) {
+                readFlexToken();
+                if (pendingType != STRING_CHAR) {
+                    pending = true;
+                    break;
+                }
+
+                tokenEnd = pendingEnd;
+            }
+        }
+    }
+
+    private void readFlexToken() {
+        pendingState = flex.yystate();
+        try {
+            pendingType = flex.advance();
+        } catch (IOException e) {
+            //can't happen, the lexer works on a CharSequence
+            throw new IllegalStateException(e);
+        }
+
+        pendingStart = flex.getTokenStart();
+        pendingEnd = flex.getTokenEnd();
     }
 }
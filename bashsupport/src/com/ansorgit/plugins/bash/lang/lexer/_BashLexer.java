@@ -14,8 +14,8 @@
     Another problem is that string can contain unescaped substrings, e.g.
         "$(echo hello "$(echo "world")")" is just one string. But this string contains
     two levels of embedded strings in the embedded subshell command.
-    The lexer parses a string as STRING_BEGIN, STRING_CHAR and STRING_END. These
-    tokens are mapped to a STRING later on by the lexer.MergingLexer class.
+    The lexer parses a string as STRING_BEGIN, STRING_CHAR and STRING_END. The
+    STRING_CHAR tokens are merged into WORD tokens later on by the lexer.BashLexer class.
 
     Lexing all as a STRING token was the way to go. This worked, but for some strange
     reason the lexer got wrong offsets for this complex setup (returning the string only at the
@@ -1008,6 +1008,20 @@ public class _BashLexer implements FlexLexer {
   //Help data to parse (nested) strings.
   private final StringParsingState string = new StringParsingState();
 
+  /**
+  * Clears the state which is not covered by the state number of JFlex, i.e. the stack of states,
+  * the state of the strings, the flags and the counters. reset() only resets the JFlex state, thus this has
+  * to be called before a lexer instance is reused.
+  */
+  public void resetState() {
+    lastStates.clear();
+    openParenths = 0;
+    inCaseBody = false;
+    expectArithExpression = false;
+    string.reset();
+    yychar = 0;
+  }
+
   //helper
   long yychar = 0;
 
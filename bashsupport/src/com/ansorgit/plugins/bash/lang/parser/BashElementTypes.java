@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashElementTypes.java, Class: BashElementTypes
- * Last modified: 2010-07-10
+ * Last modified: 2011-02-20
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,7 @@
 
 package com.ansorgit.plugins.bash.lang.parser;
 
-import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.BashLanguage;
 import com.ansorgit.plugins.bash.lang.lexer.BashElementType;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.tree.IFileElementType;
@@ -32,7 +32,7 @@ import com.intellij.psi.tree.IFileElementType;
  * @author Joachim Ansorg
  */
 public interface BashElementTypes {
-    IFileElementType FILE = new IFileElementType(BashFileType.BASH_LANGUAGE);
+    IFileElementType FILE = new IFileElementType(BashLanguage.INSTANCE);
 
     IElementType SHEBANG_ELEMENT = new BashElementType("shebang element");
 
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashParser.java, Class: BashParser
- * Last modified: 2010-03-09
+ * Last modified: 2011-02-21
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,6 +49,20 @@ public class BashParser implements PsiParser {
 
     @NotNull
     public ASTNode parse(final IElementType root, final PsiBuilder psiBuilder) {
+        parse(root, psiBuilder, version);
+
+        return psiBuilder.getTreeBuilt();
+    }
+
+    /**
+     * Parses the tokens of the builder into a single root element. The builder may be the PsiBuilder of the platform
+     * or the {@link com.ansorgit.plugins.bash.lang.parser.standalone.StandalonePsiBuilder}.
+     *
+     * @param root       The type of the root element
+     * @param psiBuilder The builder which provides the tokens and receives the markers
+     * @param version    The Bash version of the script
+     */
+    public static void parse(IElementType root, PsiBuilder psiBuilder, BashVersion version) {
         final BashPsiBuilder builder = new BashPsiBuilder(psiBuilder, version);
 
         if (debugMode) {
@@ -57,10 +71,16 @@ public class BashParser implements PsiParser {
 
         builder.setDebugMode(debugMode);
 
+        //the profile is only created on demand, the hooks check the constant flag first
+        final ParserProfile profile = ParserProfile.ENABLED ? new ParserProfile() : null;
+        builder.setProfile(profile);
+
         final PsiBuilder.Marker rootMarker = builder.mark();
         Parsing.file.parseFile(builder);
         rootMarker.done(root);
 
-        return builder.getTreeBuilt();
+        if (profile != null) {
+            log.info(profile.report());
+        }
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashParserDefinition.java, Class: BashParserDefinition
- * Last modified: 2010-04-16
+ * Last modified: 2011-02-24
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,7 +53,10 @@ public class BashParserDefinition implements ParserDefinition, BashElementTypes
         return new BashParser(findLanguageLevel(project));
     }
 
-    private BashVersion findLanguageLevel(Project project) {
+    /**
+     * @return The version of Bash which is supported in the given project
+     */
+    public static BashVersion findLanguageLevel(Project project) {
         boolean supportBash4 = BashProjectSettings.storedSettings(project).isSupportBash4();
         return supportBash4 ? BashVersion.Bash_v4 : BashVersion.Bash_v3;
     }
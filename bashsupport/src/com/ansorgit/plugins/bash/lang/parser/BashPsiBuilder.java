@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashPsiBuilder.java, Class: BashPsiBuilder
- * Last modified: 2011-02-01
+ * Last modified: 2011-02-21
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,6 +45,7 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
     private final BashTokenRemapper tokenRemapper;
     private final BashVersion bashVersion;
     private boolean whitespaceEnabled = false;
+    private ParserProfile profile;
 
     /**
      * A hack to let whitespace tokens be delivered by the builder on demand.
@@ -151,18 +152,27 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
 
     public void advanceLexer(boolean useWhitespace) {
         if (!useWhitespace) {
-            super.advanceLexer();
+            advanceLexer();
             return;
         }
 
         enableWhitespace();
         try {
-            super.advanceLexer();
+            advanceLexer();
         } finally {
             disableWhitespace();
         }
     }
 
+    @Override
+    public void advanceLexer() {
+        if (ParserProfile.ENABLED && profile != null) {
+            profile.tokenConsumed();
+        }
+
+        super.advanceLexer();
+    }
+
     /**
      * Eats all the following newline tokens.
      *
@@ -240,6 +250,17 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
         return hereDocData;
     }
 
+    /**
+     * @return The profile of the current parser run, null if the profile is disabled
+     */
+    public ParserProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(ParserProfile profile) {
+        this.profile = profile;
+    }
+
     public synchronized ParsingStateData getParsingState() {
         return parsingStateData;
     }
@@ -274,6 +295,10 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
      */
     public void error(String message) {
         if (getErrorReportingStatus()) {
+            if (ParserProfile.ENABLED && profile != null) {
+                profile.errorMarker();
+            }
+
             getOriginalPsiBuilder().error(message);
         } else if (log.isDebugEnabled()) {
             log.debug("Supressed psi error: " + message);
@@ -289,6 +314,10 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
      * @return The new marker.
      */
     public Marker mark() {
+        if (ParserProfile.ENABLED && profile != null) {
+            profile.markerCreated();
+        }
+
         return new BashPsiMarker(getOriginalPsiBuilder().mark());
     }
 
@@ -311,9 +340,40 @@ public class BashPsiBuilder extends ForwardingPsiBuilder implements PsiBuilder {
             super(original);
         }
 
+        @Override
+        public Marker precede() {
+            if (ParserProfile.ENABLED && profile != null) {
+                profile.markerCreated();
+            }
+
+            return super.precede();
+        }
+
+        @Override
+        public void rollbackTo() {
+            if (ParserProfile.ENABLED && profile != null) {
+                profile.rollback();
+            }
+
+            super.rollbackTo();
+        }
+
+        @Override
+        public void doneBefore(IElementType type, Marker before, String errorMessage) {
+            if (ParserProfile.ENABLED && profile != null) {
+                profile.errorMarker();
+            }
+
+            super.doneBefore(type, before, errorMessage);
+        }
+
         @Override
         public void error(final String errorMessage) {
             if (BashPsiBuilder.this.getErrorReportingStatus()) {
+                if (ParserProfile.ENABLED && profile != null) {
+                    profile.errorMarker();
+                }
+
                 original.error(errorMessage);
             } else {
                 drop();
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ParserProfile.java, Class: ParserProfile
+ * Last modified: 2011-02-21
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the statistics of a single run of the parser. For each parsing function and each of its methods parse and
+ * isValid it counts the calls, the tokens which were consumed, the markers which were created, the rollbacks and
+ * the error markers. It also measures the time which was spent in the function itself, without the time of the
+ * functions it called.
+ * <p/>
+ * The profile is only created if the system property or the environment variable "bashsupport.parser.profile" is set
+ * to true. The report is logged at the end of {@link BashParser#parse}. The functions are recorded by the
+ * {@link ParsingChain}s, a function which is called directly by another function is part of the caller's statistics.
+ * <p/>
+ * All hooks check the constant {@link #ENABLED} first, there is no additional work if the profile is disabled.
+ *
+ * @author Joachim Ansorg
+ */
+public final class ParserProfile {
+    private static final String profileKey = "bashsupport.parser.profile";
+    public static final boolean ENABLED = "true".equals(System.getProperty(profileKey)) || "true".equals(System.getenv(profileKey));
+
+    public static final int PARSE = 0;
+    public static final int IS_VALID = 1;
+
+    private final Map<Class, Stats[]> functionStats = new HashMap<Class, Stats[]>();
+    private final Stats fileStats = new Stats("<file>", "parse");
+    private final long startTime;
+
+    private Stats[] stack = new Stats[32];
+    private long[] enterTimes = new long[32];
+    private long[] childTimes = new long[32];
+    private int depth;
+
+    private long totalTime = -1;
+
+    public ParserProfile() {
+        startTime = System.nanoTime();
+
+        stack[0] = fileStats;
+        enterTimes[0] = startTime;
+        depth = 1;
+
+        fileStats.calls = 1;
+    }
+
+    /**
+     * Starts a call of a parsing function. Each call has to be followed by a call of {@link #exit()}.
+     *
+     * @param function The called function
+     * @param kind     {@link #PARSE} or {@link #IS_VALID}
+     */
+    public void enter(ParsingFunction function, int kind) {
+        Stats[] stats = functionStats.get(function.getClass());
+        if (stats == null) {
+            final String name = function.getClass().getSimpleName();
+            stats = new Stats[]{new Stats(name, "parse"), new Stats(name, "isValid")};
+            functionStats.put(function.getClass(), stats);
+        }
+
+        if (depth == stack.length) {
+            final int size = depth * 2;
+
+            final Stats[] newStack = new Stats[size];
+            System.arraycopy(stack, 0, newStack, 0, depth);
+            stack = newStack;
+
+            final long[] newEnterTimes = new long[size];
+            System.arraycopy(enterTimes, 0, newEnterTimes, 0, depth);
+            enterTimes = newEnterTimes;
+
+            final long[] newChildTimes = new long[size];
+            System.arraycopy(childTimes, 0, newChildTimes, 0, depth);
+            childTimes = newChildTimes;
+        }
+
+        final Stats current = stats[kind];
+        current.calls++;
+
+        stack[depth] = current;
+        enterTimes[depth] = System.nanoTime();
+        childTimes[depth] = 0;
+        depth++;
+    }
+
+    /**
+     * Ends the call which was started last.
+     */
+    public void exit() {
+        if (depth <= 1) {
+            throw new IllegalStateException("exit() without enter()");
+        }
+
+        depth--;
+
+        final long time = System.nanoTime() - enterTimes[depth];
+        stack[depth].selfTime += time - childTimes[depth];
+        childTimes[depth - 1] += time;
+    }
+
+    public void tokenConsumed() {
+        stack[depth - 1].tokens++;
+    }
+
+    public void markerCreated() {
+        stack[depth - 1].markers++;
+    }
+
+    public void rollback() {
+        stack[depth - 1].rollbacks++;
+    }
+
+    public void errorMarker() {
+        stack[depth - 1].errors++;
+    }
+
+    /**
+     * Stops the measurement of the file. Calls which are still open are ignored.
+     */
+    public void finish() {
+        if (totalTime < 0) {
+            totalTime = System.nanoTime() - startTime;
+            fileStats.selfTime = totalTime - childTimes[0];
+        }
+    }
+
+    int getCalls(Class functionClass, int kind) {
+        final Stats[] stats = functionStats.get(functionClass);
+        return stats == null ? 0 : stats[kind].calls;
+    }
+
+    /**
+     * Creates the report, the functions with the largest self time come first.
+     *
+     * @return The report, one line per function and method
+     */
+    public String report() {
+        finish();
+
+        final List<Stats> all = new ArrayList<Stats>();
+        all.add(fileStats);
+        for (Stats[] stats : functionStats.values()) {
+            for (Stats s : stats) {
+                if (s.calls > 0) {
+                    all.add(s);
+                }
+            }
+        }
+
+        Collections.sort(all, new Comparator<Stats>() {
+            public int compare(Stats a, Stats b) {
+                return a.selfTime < b.selfTime ? 1 : (a.selfTime == b.selfTime ? 0 : -1);
+            }
+        });
+
+        final StringBuilder result = new StringBuilder();
+        result.append(String.format("Parser profile, total %.3f ms%n", totalTime / 1000000.0));
+        result.append(String.format("%-36s %-8s %9s %10s %9s %9s %9s %7s%n",
+                "function", "method", "calls", "self ms", "tokens", "markers", "rollbacks", "errors"));
+
+        for (Stats s : all) {
+            result.append(String.format("%-36s %-8s %9d %10.3f %9d %9d %9d %7d%n",
+                    s.name, s.method, s.calls, s.selfTime / 1000000.0, s.tokens, s.markers, s.rollbacks, s.errors));
+        }
+
+        return result.toString();
+    }
+
+    private static final class Stats {
+        private final String name;
+        private final String method;
+
+        private int calls;
+        private long selfTime;
+        private int tokens;
+        private int markers;
+        private int rollbacks;
+        private int errors;
+
+        Stats(String name, String method) {
+            this.name = name;
+            this.method = method;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: ParsingChain.java, Class: ParsingChain
- * Last modified: 2010-02-09
+ * Last modified: 2011-02-21
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,24 +40,81 @@ public abstract class ParsingChain implements ParsingFunction {
     }
 
     public boolean isValid(BashPsiBuilder builder) {
+        if (ParserProfile.ENABLED && builder.getProfile() != null) {
+            final ParserProfile profile = builder.getProfile();
+
+            profile.enter(this, ParserProfile.IS_VALID);
+            try {
+                return chainIsValid(builder, profile);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        return chainIsValid(builder, null);
+    }
+
+    public boolean parse(BashPsiBuilder builder) {
+        if (ParserProfile.ENABLED && builder.getProfile() != null) {
+            final ParserProfile profile = builder.getProfile();
+
+            profile.enter(this, ParserProfile.PARSE);
+            try {
+                return chainParse(builder, profile);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        return chainParse(builder, null);
+    }
+
+    private boolean chainIsValid(BashPsiBuilder builder, ParserProfile profile) {
         if (builder.eof()) return false;
 
         for (ParsingFunction f : parsingFunctions) {
-            if (f.isValid(builder))
+            if (isValid(f, builder, profile))
                 return true;
         }
 
         return false;
     }
 
-    public boolean parse(BashPsiBuilder builder) {
+    private boolean chainParse(BashPsiBuilder builder, ParserProfile profile) {
         if (builder.eof()) return false;
 
         for (ParsingFunction f : parsingFunctions) {
-            if (f.isValid(builder))
-                return f.parse(builder);
+            if (isValid(f, builder, profile))
+                return parse(f, builder, profile);
         }
 
         return false;
     }
+
+    //a chain records its own calls, other functions are recorded by the calling chain
+    private static boolean isValid(ParsingFunction f, BashPsiBuilder builder, ParserProfile profile) {
+        if (!ParserProfile.ENABLED || profile == null || f instanceof ParsingChain) {
+            return f.isValid(builder);
+        }
+
+        profile.enter(f, ParserProfile.IS_VALID);
+        try {
+            return f.isValid(builder);
+        } finally {
+            profile.exit();
+        }
+    }
+
+    private static boolean parse(ParsingFunction f, BashPsiBuilder builder, ParserProfile profile) {
+        if (!ParserProfile.ENABLED || profile == null || f instanceof ParsingChain) {
+            return f.parse(builder);
+        }
+
+        profile.enter(f, ParserProfile.PARSE);
+        try {
+            return f.parse(builder);
+        } finally {
+            profile.exit();
+        }
+    }
 }
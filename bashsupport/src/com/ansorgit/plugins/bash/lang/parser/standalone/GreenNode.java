@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: GreenNode.java, Class: GreenNode
+ * Last modified: 2011-02-20
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser.standalone;
+
+import com.intellij.psi.tree.IElementType;
+
+/**
+ * An immutable node of the syntax tree which is built by the {@link StandalonePsiBuilder}.
+ * <p/>
+ * A node only knows its type, the length of its text and its children. It does not know its parent or its offset,
+ * thus equal subtrees may be shared. The offset of a node is the sum of the lengths of the nodes before it.
+ * A leaf is a token, a composite node is an element which was created by a marker. Error elements are composite
+ * nodes with an error message.
+ *
+ * @author Joachim Ansorg
+ */
+public final class GreenNode {
+    private static final GreenNode[] NO_CHILDREN = new GreenNode[0];
+
+    private final IElementType type;
+    private final int textLength;
+    private final GreenNode[] children;
+    private final String errorMessage;
+
+    private GreenNode(IElementType type, int textLength, GreenNode[] children, String errorMessage) {
+        this.type = type;
+        this.textLength = textLength;
+        this.children = children;
+        this.errorMessage = errorMessage;
+    }
+
+    static GreenNode leaf(IElementType type, int textLength) {
+        return new GreenNode(type, textLength, null, null);
+    }
+
+    static GreenNode composite(IElementType type, GreenNode[] children, String errorMessage) {
+        int textLength = 0;
+        for (GreenNode child : children) {
+            textLength += child.textLength;
+        }
+
+        return new GreenNode(type, textLength, children.length == 0 ? NO_CHILDREN : children, errorMessage);
+    }
+
+    public IElementType getType() {
+        return type;
+    }
+
+    public int getTextLength() {
+        return textLength;
+    }
+
+    /**
+     * @return True if this node is a token
+     */
+    public boolean isLeaf() {
+        return children == null;
+    }
+
+    public int getChildCount() {
+        return children == null ? 0 : children.length;
+    }
+
+    public GreenNode getChild(int index) {
+        if (children == null) {
+            throw new IndexOutOfBoundsException("A leaf has no children");
+        }
+
+        return children[index];
+    }
+
+    /**
+     * @return The message of an error element, null for all other nodes
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Prints the subtree, one node per line.
+     *
+     * @param text   The text of the parsed script
+     * @param offset The offset of this node in the text
+     * @return The tree
+     */
+    public String toDebugString(CharSequence text, int offset) {
+        final StringBuilder result = new StringBuilder();
+        appendDebugString(result, text, offset, 0);
+
+        return result.toString();
+    }
+
+    private void appendDebugString(StringBuilder result, CharSequence text, int offset, int indent) {
+        for (int i = 0; i < indent; i++) {
+            result.append("  ");
+        }
+
+        result.append(type);
+        if (errorMessage != null) {
+            result.append(": ").append(errorMessage);
+        } else if (isLeaf()) {
+            result.append(" '").append(text.subSequence(offset, offset + textLength).toString().replace("\n", "\\n")).append('\'');
+        }
+        result.append('\n');
+
+        int childOffset = offset;
+        for (int i = 0; i < getChildCount(); i++) {
+            children[i].appendDebugString(result, text, childOffset, indent + 1);
+            childOffset += children[i].textLength;
+        }
+    }
+}
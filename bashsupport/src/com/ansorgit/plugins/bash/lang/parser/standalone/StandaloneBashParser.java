@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: StandaloneBashParser.java, Class: StandaloneBashParser
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser.standalone;
+
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
+import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashParser;
+
+/**
+ * Parses Bash scripts without a running IDE, e.g. in build tools or on a server.
+ * <p/>
+ * The parser uses the lexer and the parsing functions of the plugin and returns the immutable tree of the script.
+ * Each call lexes the script with its own lexer and builder, the class can be used by several threads.
+ * The parser sets the index of the whitespace token type while a script is parsed, like in the IDE. This state is
+ * global, the trees are therefore built one after another. Lexing is done in parallel.
+ *
+ * @author Joachim Ansorg
+ */
+public final class StandaloneBashParser {
+    private static final Object PARSE_LOCK = new Object();
+
+    private StandaloneBashParser() {
+    }
+
+    /**
+     * Parses a script.
+     *
+     * @param text    The text of the script
+     * @param version The Bash version of the script
+     * @return The root node of the tree, its type is {@link BashElementTypes#FILE}
+     */
+    public static GreenNode parse(CharSequence text, BashVersion version) {
+        final StandalonePsiBuilder builder = new StandalonePsiBuilder(new BashLexer(version), text, BashTokenTypes.whitespace, BashTokenTypes.comments);
+        synchronized (PARSE_LOCK) {
+            BashParser.parse(BashElementTypes.FILE, builder, version);
+
+            //the whitespace at the edges of the elements is bound with the token sets, which depend on the index
+            return builder.getGreenTree();
+        }
+    }
+}
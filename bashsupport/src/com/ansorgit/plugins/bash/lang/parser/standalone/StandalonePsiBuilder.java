@@ -0,0 +1,468 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: StandalonePsiBuilder.java, Class: StandalonePsiBuilder
+ * Last modified: 2011-02-20
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser.standalone;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.ITokenTypeRemapper;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.WhitespacesAndCommentsProcessor;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.util.diff.FlyweightCapableTreeStructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A PsiBuilder which does not need a running IDE. It builds an immutable tree of {@link GreenNode}s instead of
+ * the AST of the platform.
+ * <p/>
+ * The builder follows the behaviour of the builder of the platform: whitespace and comment tokens are skipped,
+ * remapped token types are stored, markers are kept in a list of start and done markers which is turned into a tree
+ * at the end. An element does not contain the whitespace and comments at its start and end, these belong to the
+ * parent element. The custom edge processors of markers are not supported.
+ * <p/>
+ * The tree is available by {@link #getGreenTree()}, {@link #getTreeBuilt()} is not supported.
+ *
+ * @author Joachim Ansorg
+ */
+public class StandalonePsiBuilder implements PsiBuilder {
+    private final CharSequence text;
+    private final TokenSet whitespaceTokens;
+    private TokenSet commentTokens;
+
+    private IElementType[] lexTypes;
+    private int[] lexStarts;
+    private int lexemeCount;
+
+    private int currentLexeme;
+    private ITokenTypeRemapper remapper;
+    private boolean debugMode;
+
+    private final List<ProductionMarker> production = new ArrayList<ProductionMarker>();
+    private Map<Key, Object> userData;
+    private GreenNode tree;
+
+    /**
+     * @param lexer            The lexer of the language
+     * @param text             The text to parse
+     * @param whitespaceTokens The tokens which are skipped as whitespace
+     * @param commentTokens    The tokens which are skipped as comments
+     */
+    public StandalonePsiBuilder(Lexer lexer, CharSequence text, TokenSet whitespaceTokens, TokenSet commentTokens) {
+        this.text = text;
+        this.whitespaceTokens = whitespaceTokens;
+        this.commentTokens = commentTokens;
+
+        lex(lexer);
+    }
+
+    private void lex(Lexer lexer) {
+        lexTypes = new IElementType[Math.max(16, text.length() / 4)];
+        lexStarts = new int[lexTypes.length + 1];
+
+        lexer.start(text, 0, text.length(), 0);
+
+        int count = 0;
+        for (IElementType type = lexer.getTokenType(); type != null; type = lexer.getTokenType()) {
+            if (count == lexTypes.length) {
+                final IElementType[] types = new IElementType[count * 2];
+                System.arraycopy(lexTypes, 0, types, 0, count);
+                lexTypes = types;
+
+                final int[] starts = new int[count * 2 + 1];
+                System.arraycopy(lexStarts, 0, starts, 0, count);
+                lexStarts = starts;
+            }
+
+            lexTypes[count] = type;
+            lexStarts[count] = lexer.getTokenStart();
+            count++;
+
+            lexer.advance();
+        }
+
+        lexStarts[count] = text.length();
+        lexemeCount = count;
+    }
+
+    /**
+     * Returns the tree of the markers. All markers have to be done, the first marker has to be the root marker which
+     * was done as last marker.
+     *
+     * @return The root node
+     */
+    public GreenNode getGreenTree() {
+        if (tree == null) {
+            tree = buildTree();
+        }
+
+        return tree;
+    }
+
+    public CharSequence getOriginalText() {
+        return text;
+    }
+
+    public void advanceLexer() {
+        if (!eof()) {
+            currentLexeme++;
+        }
+    }
+
+    public IElementType getTokenType() {
+        if (eof()) {
+            return null;
+        }
+
+        if (remapper != null) {
+            //the remapped type replaces the original type, like in the builder of the platform
+            lexTypes[currentLexeme] = remapper.filter(lexTypes[currentLexeme], lexStarts[currentLexeme], lexStarts[currentLexeme + 1], text);
+        }
+
+        return lexTypes[currentLexeme];
+    }
+
+    public void setTokenTypeRemapper(ITokenTypeRemapper remapper) {
+        this.remapper = remapper;
+    }
+
+    public String getTokenText() {
+        if (eof()) {
+            return null;
+        }
+
+        return text.subSequence(lexStarts[currentLexeme], lexStarts[currentLexeme + 1]).toString();
+    }
+
+    public int getCurrentOffset() {
+        if (eof()) {
+            return text.length();
+        }
+
+        return lexStarts[currentLexeme];
+    }
+
+    public Marker mark() {
+        if (!production.isEmpty()) {
+            skipWhitespace();
+        }
+
+        final StartMarker marker = new StartMarker(currentLexeme);
+        production.add(marker);
+
+        return marker;
+    }
+
+    public void error(String messageText) {
+        final ProductionMarker last = production.isEmpty() ? null : production.get(production.size() - 1);
+        if (last instanceof ErrorItem && last.lexemeIndex == currentLexeme) {
+            return;
+        }
+
+        production.add(new ErrorItem(currentLexeme, messageText));
+    }
+
+    public boolean eof() {
+        skipWhitespace();
+        return currentLexeme >= lexemeCount;
+    }
+
+    public ASTNode getTreeBuilt() {
+        throw new UnsupportedOperationException("The standalone builder does not create an AST, use getGreenTree()");
+    }
+
+    public FlyweightCapableTreeStructure<LighterASTNode> getLightTree() {
+        throw new UnsupportedOperationException("The standalone builder does not create a light tree, use getGreenTree()");
+    }
+
+    public void setDebugMode(boolean debugMode) {
+        this.debugMode = debugMode;
+    }
+
+    public void enforceCommentTokens(TokenSet tokens) {
+        this.commentTokens = tokens;
+    }
+
+    public LighterASTNode getLatestDoneMarker() {
+        return null;
+    }
+
+    public Project getProject() {
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getUserData(Key<T> key) {
+        return userData == null ? null : (T) userData.get(key);
+    }
+
+    public <T> void putUserData(Key<T> key, T value) {
+        if (userData == null) {
+            userData = new HashMap<Key, Object>();
+        }
+
+        userData.put(key, value);
+    }
+
+    private void skipWhitespace() {
+        while (currentLexeme < lexemeCount && isWhitespaceOrComment(lexTypes[currentLexeme])) {
+            currentLexeme++;
+        }
+    }
+
+    private boolean isWhitespaceOrComment(IElementType type) {
+        return whitespaceTokens.contains(type) || commentTokens.contains(type);
+    }
+
+    private int indexOf(Marker marker) {
+        final int index = production.lastIndexOf(marker);
+        if (index < 0) {
+            throw new IllegalStateException("The marker was already dropped or rolled back");
+        }
+
+        return index;
+    }
+
+    private GreenNode buildTree() {
+        if (production.isEmpty() || !(production.get(0) instanceof StartMarker)) {
+            throw new IllegalStateException("The parser did not create a root marker");
+        }
+
+        final StartMarker root = (StartMarker) production.get(0);
+        if (root.doneMarker == null || production.get(production.size() - 1) != root.doneMarker) {
+            throw new IllegalStateException("The root marker has to be done after all other markers");
+        }
+
+        final List<List<GreenNode>> children = new ArrayList<List<GreenNode>>();
+        final Map<Integer, GreenNode> leaves = new HashMap<Integer, GreenNode>();
+
+        GreenNode result = null;
+        int token = 0;
+
+        for (int i = 0; i < production.size(); i++) {
+            final ProductionMarker item = production.get(i);
+
+            if (item instanceof StartMarker) {
+                final StartMarker marker = (StartMarker) item;
+                if (marker.doneMarker == null) {
+                    throw new IllegalStateException("A marker was not done: " + text.subSequence(lexStarts[marker.lexemeIndex], text.length()));
+                }
+
+                if (i > 0) {
+                    //the whitespace and comments at the start belong to the parent
+                    int start = marker.lexemeIndex;
+                    while (start < marker.doneMarker.lexemeIndex && isWhitespaceOrComment(lexTypes[start])) {
+                        start++;
+                    }
+
+                    token = appendLeaves(children.get(children.size() - 1), token, start, leaves);
+                }
+
+                children.add(new ArrayList<GreenNode>());
+            } else if (item instanceof DoneMarker) {
+                final StartMarker marker = ((DoneMarker) item).startMarker;
+                final List<GreenNode> nodes = children.remove(children.size() - 1);
+
+                //the whitespace and comments at the end belong to the parent, the root contains all tokens
+                int end = marker == root ? lexemeCount : item.lexemeIndex;
+                if (marker != root) {
+                    while (end > token && isWhitespaceOrComment(lexTypes[end - 1])) {
+                        end--;
+                    }
+                }
+
+                token = appendLeaves(nodes, token, end, leaves);
+
+                final GreenNode node;
+                if (marker.collapsed) {
+                    int length = 0;
+                    for (GreenNode child : nodes) {
+                        length += child.getTextLength();
+                    }
+
+                    node = GreenNode.leaf(marker.type, length);
+                } else {
+                    node = GreenNode.composite(marker.type, nodes.toArray(new GreenNode[nodes.size()]), marker.errorMessage);
+                }
+
+                if (children.isEmpty()) {
+                    result = node;
+                } else {
+                    children.get(children.size() - 1).add(node);
+                }
+            } else {
+                //an error element follows the previous token
+                int end = item.lexemeIndex;
+                while (end > token && isWhitespaceOrComment(lexTypes[end - 1])) {
+                    end--;
+                }
+
+                final List<GreenNode> nodes = children.get(children.size() - 1);
+                token = appendLeaves(nodes, token, end, leaves);
+                nodes.add(GreenNode.composite(TokenType.ERROR_ELEMENT, new GreenNode[0], ((ErrorItem) item).message));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the tokens from <code>from</code> to <code>to</code> to the nodes. Equal tokens share a single node.
+     *
+     * @return The index of the next token
+     */
+    private int appendLeaves(List<GreenNode> nodes, int from, int to, Map<Integer, GreenNode> leaves) {
+        for (int i = from; i < to; i++) {
+            final IElementType type = lexTypes[i];
+            final int length = lexStarts[i + 1] - lexStarts[i];
+
+            if (length < 0x10000 && type.getIndex() >= 0) {
+                final Integer key = type.getIndex() << 16 | length;
+
+                GreenNode leaf = leaves.get(key);
+                if (leaf == null) {
+                    leaf = GreenNode.leaf(type, length);
+                    leaves.put(key, leaf);
+                }
+
+                nodes.add(leaf);
+            } else {
+                nodes.add(GreenNode.leaf(type, length));
+            }
+        }
+
+        return Math.max(from, to);
+    }
+
+    private static class ProductionMarker {
+        final int lexemeIndex;
+
+        ProductionMarker(int lexemeIndex) {
+            this.lexemeIndex = lexemeIndex;
+        }
+    }
+
+    private static final class ErrorItem extends ProductionMarker {
+        final String message;
+
+        ErrorItem(int lexemeIndex, String message) {
+            super(lexemeIndex);
+            this.message = message;
+        }
+    }
+
+    private static final class DoneMarker extends ProductionMarker {
+        final StartMarker startMarker;
+
+        DoneMarker(StartMarker startMarker, int lexemeIndex) {
+            super(lexemeIndex);
+            this.startMarker = startMarker;
+        }
+    }
+
+    private final class StartMarker extends ProductionMarker implements Marker {
+        IElementType type;
+        DoneMarker doneMarker;
+        String errorMessage;
+        boolean collapsed;
+
+        StartMarker(int lexemeIndex) {
+            super(lexemeIndex);
+        }
+
+        public Marker precede() {
+            final StartMarker marker = new StartMarker(lexemeIndex);
+            production.add(indexOf(this), marker);
+
+            return marker;
+        }
+
+        public void drop() {
+            production.remove(indexOf(this));
+        }
+
+        public void rollbackTo() {
+            final int index = indexOf(this);
+
+            currentLexeme = lexemeIndex;
+            production.subList(index, production.size()).clear();
+        }
+
+        public void done(IElementType type) {
+            doneAt(type, currentLexeme, production.size());
+        }
+
+        public void doneBefore(IElementType type, Marker before) {
+            doneAt(type, ((StartMarker) before).lexemeIndex, indexOf(before));
+        }
+
+        public void doneBefore(IElementType type, Marker before, String errorMessage) {
+            final StartMarker beforeMarker = (StartMarker) before;
+            production.add(indexOf(before), new ErrorItem(beforeMarker.lexemeIndex, errorMessage));
+
+            doneBefore(type, before);
+        }
+
+        public void error(String message) {
+            errorMessage = message;
+            done(TokenType.ERROR_ELEMENT);
+        }
+
+        public void errorBefore(String message, Marker before) {
+            errorMessage = message;
+            doneBefore(TokenType.ERROR_ELEMENT, before);
+        }
+
+        public void collapse(IElementType type) {
+            done(type);
+            collapsed = true;
+        }
+
+        public void setCustomEdgeProcessors(WhitespacesAndCommentsProcessor left, WhitespacesAndCommentsProcessor right) {
+            //not supported, the default edges are used
+        }
+
+        private void doneAt(IElementType type, int lexemeIndex, int productionIndex) {
+            if (doneMarker != null) {
+                throw new IllegalStateException("The marker is already done");
+            }
+
+            if (debugMode) {
+                for (int i = productionIndex - 1; i >= 0 && production.get(i) != this; i--) {
+                    final ProductionMarker item = production.get(i);
+                    if (item instanceof StartMarker && ((StartMarker) item).doneMarker == null) {
+                        throw new IllegalStateException("Another marker was added after this one and is not done yet");
+                    }
+                }
+            }
+
+            this.type = type;
+            this.doneMarker = new DoneMarker(this, lexemeIndex);
+            production.add(productionIndex, doneMarker);
+        }
+    }
+}
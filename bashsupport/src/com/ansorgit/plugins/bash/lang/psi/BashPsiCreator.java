@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashPsiCreator.java, Class: BashPsiCreator
- * Last modified: 2010-07-13
+ * Last modified: 2011-02-25
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,9 +49,15 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.tree.IElementType;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Static factory class which creates PsiElements for the different token / element types.
  * <p/>
+ * The factories are kept in an array which is indexed by the index of the element type, the lookup of the factory
+ * does not depend on the number of known element types.
+ * <p/>
  * Date: 11.04.2009
  * Time: 23:12:51
  *
@@ -60,223 +66,343 @@ import com.intellij.psi.tree.IElementType;
 public class BashPsiCreator implements BashElementTypes {
     private static final Logger log = Logger.getInstance("#BashPsiCreator");
 
+    private static final ElementFactory[] factories = createFactories();
+
+    /**
+     * Creates a PsiElement for a single element type.
+     */
+    private interface ElementFactory {
+        PsiElement create(ASTNode node);
+    }
+
     public static PsiElement createElement(ASTNode node) {
-        final IElementType elementType = node.getElementType();
+        final int typeIndex = node.getElementType().getIndex();
+        final ElementFactory factory = typeIndex < factories.length ? factories[typeIndex] : null;
+        if (factory != null) {
+            return factory.create(node);
+        }
+
+        log.warn("MISSING PSI for" + node);
+
+        return new ASTWrapperPsiElement(node);
+    }
+
+    private static ElementFactory[] createFactories() {
+        final Map<IElementType, ElementFactory> byType = new LinkedHashMap<IElementType, ElementFactory>();
 
         //Bash shebang line
-        if (elementType == SHEBANG_ELEMENT) {
-            return new BashShebangImpl(node);
-        }
+        register(byType, SHEBANG_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashShebangImpl(node);
+            }
+        });
 
         //Block
-        if (elementType == BLOCK_ELEMENT) {
-            return new BashBlockImpl(node);
-        }
-        if (elementType == GROUP_COMMAND) {
-            return new BashBlockImpl(node);
-        }
+        register(byType, BLOCK_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashBlockImpl(node);
+            }
+        });
+        register(byType, GROUP_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashBlockImpl(node);
+            }
+        });
 
         //shell command elements
-        if (elementType == FUNCTION_DEF_COMMAND) {
-            return new BashFunctionDefImpl(node);
-        }
-        if (elementType == BACKQUOTE_COMMAND) {
-            return new BashBackquoteImpl(node);
-        }
-        if (elementType == SUBSHELL_COMMAND) {
-            return new BashSubshellCommandImpl(node);
-        }
-        if (elementType == PIPELINE_COMMAND) {
-            return new BashPipelineImpl(node);
-        }
-        if (elementType == COMPOSED_COMMAND) {
-            return new BashComposedCommandImpl(node);
-        }
+        register(byType, FUNCTION_DEF_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashFunctionDefImpl(node);
+            }
+        });
+        register(byType, BACKQUOTE_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashBackquoteImpl(node);
+            }
+        });
+        register(byType, SUBSHELL_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashSubshellCommandImpl(node);
+            }
+        });
+        register(byType, PIPELINE_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashPipelineImpl(node);
+            }
+        });
+        register(byType, COMPOSED_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashComposedCommandImpl(node);
+            }
+        });
 
         //loops
-        if (elementType == FOR_COMMAND) {
-            return new BashForImpl(node);
-        }
-        if (elementType == WHILE_COMMAND) {
-            return new BashWhileImpl(node);
-        }
-        if (elementType == SELECT_COMMAND) {
-            return new BashSelectImpl(node);
-        }
-        if (elementType == UNTIL_COMMAND) {
-            return new BashUntilImpl(node);
-        }
+        register(byType, FOR_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashForImpl(node);
+            }
+        });
+        register(byType, WHILE_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashWhileImpl(node);
+            }
+        });
+        register(byType, SELECT_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashSelectImpl(node);
+            }
+        });
+        register(byType, UNTIL_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashUntilImpl(node);
+            }
+        });
 
         //other shell things
-        if (elementType == IF_COMMAND) {
-            return new BashIfImpl(node);
-        }
-        if (elementType == CONDITIONAL_COMMAND) {
-            return new BashConditionalCommandImpl(node);
-        }
-        if (elementType == CASE_COMMAND) {
-            return new BashCaseImpl(node);
-        }
-        if (elementType == CASE_PATTERN_ELEMENT) {
-            return new BashCasePatternImpl(node);
-        }
-        if (elementType == CASE_PATTERN_LIST_ELEMENT) {
-            return new BashCasePatternListElementImpl(node);
-        }
-        if (elementType == TIME_COMMAND) {
-            return new BashTimeCommandImpl(node);
-        }
-        if (elementType == REDIRECT_ELEMENT) {
-            return new BashRedirectExprImpl(node);
-        }
-        if (elementType == REDIRECT_LIST_ELEMENT) {
-            return new BashRedirectListImpl(node);
-        }
-        if (elementType == BashTokenTypes.FILEDESCRIPTOR) {
-            return new BashFiledescriptorImpl(node);
-        }
+        register(byType, IF_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashIfImpl(node);
+            }
+        });
+        register(byType, CONDITIONAL_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashConditionalCommandImpl(node);
+            }
+        });
+        register(byType, CASE_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashCaseImpl(node);
+            }
+        });
+        register(byType, CASE_PATTERN_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashCasePatternImpl(node);
+            }
+        });
+        register(byType, CASE_PATTERN_LIST_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashCasePatternListElementImpl(node);
+            }
+        });
+        register(byType, TIME_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashTimeCommandImpl(node);
+            }
+        });
+        register(byType, REDIRECT_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashRedirectExprImpl(node);
+            }
+        });
+        register(byType, REDIRECT_LIST_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashRedirectListImpl(node);
+            }
+        });
+        register(byType, BashTokenTypes.FILEDESCRIPTOR, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashFiledescriptorImpl(node);
+            }
+        });
 
         //vars
-        if (elementType == VAR_DEF_ELEMENT) {
-            return new BashVarDefImpl(node);
-        }
-        if (elementType == VAR_ELEMENT) {
-            return new BashVarImpl(node);
-        }
-        if (elementType == VAR_SUBSTITUTION_ELEMENT) {
-            return new BashVarSubstitutionImpl(node);
-        }
-        if (elementType == VAR_COMPOSED_VAR_ELEMENT) {
-            return new BashComposedVarImpl(node);
-        }
+        register(byType, VAR_DEF_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashVarDefImpl(node);
+            }
+        });
+        register(byType, VAR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashVarImpl(node);
+            }
+        });
+        register(byType, VAR_SUBSTITUTION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashVarSubstitutionImpl(node);
+            }
+        });
+        register(byType, VAR_COMPOSED_VAR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashComposedVarImpl(node);
+            }
+        });
 
         //commands
-        if (elementType == SIMPLE_COMMAND_ELEMENT) {
-            return new BashCommandImpl(node);
-        }
+        register(byType, SIMPLE_COMMAND_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashCommandImpl(node);
+            }
+        });
 
         //misc elements
-        if (elementType == STRING_ELEMENT) {
-            return new BashStringImpl(node);
-        }
-        if (elementType == SYMBOL_ELEMENT) {
-            return new BashSymbolImpl(node);
-        }
-
-        if (elementType == PARSED_WORD_ELEMENT) {
-            return new BashWordImpl(node);
-        }
-
-        if (elementType == EXPANSION_ELEMENT) {
-            return new BashExpansionImpl(node);
-        }
-
-        if (elementType == ARITHMETIC_COMMAND) {
-            return new BashCommandImpl(node);
-        }
-
-        if (elementType == INTERNAL_COMMAND_ELEMENT) {
-            return new BashInternalCommandImpl(node);
-        }
-
-        if (elementType == GENERIC_COMMAND_ELEMENT) {
-            return new BashGenericCommandImpl(node);
-        }
-
-        if (elementType == HEREDOC_START_MARKER_ELEMENT) {
-            return new BashHereDocStartMarkerImpl(node);
-        }
-
-        if (elementType == HEREDOC_ELEMENT) {
-            return new BashHereDocImpl(node);
-        }
-
-        if (elementType == HEREDOC_END_MARKER_ELEMENT) {
-            return new BashHereDocEndMarkerImpl(node);
-        }
-
-        if (elementType == ARITH_ASSIGNMENT_ELEMENT) {
-            return new AssignmentExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_BIT_AND_ELEMENT) {
-            return new BitwiseAndExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_BIT_OR_ELEMENT) {
-            return new BitwiseOrExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_BIT_XOR_ELEMENT) {
-            return new BitwiseXorExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_EQUALITY_ELEMENT) {
-            return new EqualityExprImpl(node);
-        }
-
-        if (elementType == ARITH_LOGIC_AND_ELEMENT) {
-            return new LogicalAndImpl(node);
-        }
-
-        if (elementType == ARITH_LOGIC_OR_ELEMENT) {
-            return new LogicalOrmpl(node);
-        }
-
-        if (elementType == ARITH_COMPUND_COMPARISION_ELEMENT) {
-            return new CompoundComparisionExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_EXPONENT_ELEMENT) {
-            return new ExponentExprImpl(node);
-        }
-
-        if (elementType == ARITH_NEGATION_ELEMENT) {
-            return new NegationExpressionImpl(node);
-        }
-
-        if (elementType == ARITH_PARENS_ELEMENT) {
-            return new ParenthesesExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_POST_INCR_ELEMENT) {
-            return new PostIncrementExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_PRE_INC_ELEMENT) {
-            return new PreIncrementExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_MULTIPLICACTION_ELEMENT) {
-            return new ProductExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_SHIFT_ELEMENT) {
-            return new ShiftExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_SIMPLE_ELEMENT) {
-            return new SimpleExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_SUM_ELEMENT) {
-            return new SumExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_TERNERAY_ELEMENT) {
-            return new TernaryExpressionsImpl(node);
-        }
-
-        if (elementType == ARITH_ASSIGNMENT_CHAIN_ELEMENT) {
-            return new AssignmentChainImpl(node);
-        }
+        register(byType, STRING_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashStringImpl(node);
+            }
+        });
+        register(byType, SYMBOL_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashSymbolImpl(node);
+            }
+        });
+        register(byType, PARSED_WORD_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashWordImpl(node);
+            }
+        });
+        register(byType, EXPANSION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashExpansionImpl(node);
+            }
+        });
+        register(byType, ARITHMETIC_COMMAND, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashCommandImpl(node);
+            }
+        });
+        register(byType, INTERNAL_COMMAND_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashInternalCommandImpl(node);
+            }
+        });
+        register(byType, GENERIC_COMMAND_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashGenericCommandImpl(node);
+            }
+        });
+        register(byType, HEREDOC_START_MARKER_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashHereDocStartMarkerImpl(node);
+            }
+        });
+        register(byType, HEREDOC_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashHereDocImpl(node);
+            }
+        });
+        register(byType, HEREDOC_END_MARKER_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashHereDocEndMarkerImpl(node);
+            }
+        });
+        register(byType, ARITH_ASSIGNMENT_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new AssignmentExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_BIT_AND_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BitwiseAndExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_BIT_OR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BitwiseOrExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_BIT_XOR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BitwiseXorExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_EQUALITY_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new EqualityExprImpl(node);
+            }
+        });
+        register(byType, ARITH_LOGIC_AND_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new LogicalAndImpl(node);
+            }
+        });
+        register(byType, ARITH_LOGIC_OR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new LogicalOrmpl(node);
+            }
+        });
+        register(byType, ARITH_COMPUND_COMPARISION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new CompoundComparisionExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_EXPONENT_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new ExponentExprImpl(node);
+            }
+        });
+        register(byType, ARITH_NEGATION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new NegationExpressionImpl(node);
+            }
+        });
+        register(byType, ARITH_PARENS_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new ParenthesesExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_POST_INCR_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new PostIncrementExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_PRE_INC_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new PreIncrementExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_MULTIPLICACTION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new ProductExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_SHIFT_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new ShiftExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_SIMPLE_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new SimpleExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_SUM_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new SumExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_TERNERAY_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new TernaryExpressionsImpl(node);
+            }
+        });
+        register(byType, ARITH_ASSIGNMENT_CHAIN_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new AssignmentChainImpl(node);
+            }
+        });
+        register(byType, PROCESS_SUBSTITUTION_ELEMENT, new ElementFactory() {
+            public PsiElement create(ASTNode node) {
+                return new BashProcessSubstitutionImpl(node);
+            }
+        });
+
+        int maxIndex = 0;
+        for (IElementType type : byType.keySet()) {
+            maxIndex = Math.max(maxIndex, type.getIndex());
+        }
+
+        final ElementFactory[] result = new ElementFactory[maxIndex + 1];
+        for (Map.Entry<IElementType, ElementFactory> entry : byType.entrySet()) {
+            result[entry.getKey().getIndex()] = entry.getValue();
+        }
+
+        return result;
+    }
 
-        if (elementType == PROCESS_SUBSTITUTION_ELEMENT) {
-            return new BashProcessSubstitutionImpl(node);
+    private static void register(Map<IElementType, ElementFactory> byType, IElementType type, ElementFactory factory) {
+        //the first factory of a type wins, as in a chain of comparisons
+        if (!byType.containsKey(type)) {
+            byType.put(type, factory);
         }
-
-        log.warn("MISSING PSI for" + node);
-
-        return new ASTWrapperPsiElement(node);
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashBackquoteImpl.java, Class: BashBackquoteImpl
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashBackquoteImpl extends BashPsiElementImpl implements BashBackquote {
     public BashBackquoteImpl(ASTNode astNode) {
-        super(astNode, "bash backquote");
+        super(astNode);
     }
 
     public String getCommandText() {
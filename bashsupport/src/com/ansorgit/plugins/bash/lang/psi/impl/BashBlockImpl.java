@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashBlockImpl.java, Class: BashBlockImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,7 +34,7 @@ public class BashBlockImpl extends BashPsiElementImpl implements BashBlock {
     private static final Logger log = Logger.getInstance("#BashBlockImpl");
 
     public BashBlockImpl(ASTNode astNode) {
-        super(astNode, "bash block impl");
+        super(astNode);
     }
 
     public boolean isCommandGroup() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashKeywordDefaultImpl.java, Class: BashKeywordDefaultImpl
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,10 +41,6 @@ public abstract class BashKeywordDefaultImpl extends BashPsiElementImpl implemen
         super(astNode);
     }
 
-    public BashKeywordDefaultImpl(final ASTNode astNode, final String name) {
-        super(astNode, name);
-    }
-
     @Override
     public PsiReference getReference() {
         return this;
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashPsiElementImpl.java, Class: BashPsiElementImpl
- * Last modified: 2010-07-08
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,15 +39,8 @@ import org.jetbrains.annotations.NotNull;
  * @author Joachim Ansorg
  */
 public abstract class BashPsiElementImpl extends ASTWrapperPsiElement implements BashPsiElement {
-    private final String name;
-
     public BashPsiElementImpl(final ASTNode astNode) {
-        this(astNode, null);
-    }
-
-    public BashPsiElementImpl(final ASTNode astNode, final String name) {
         super(astNode);
-        this.name = name;
     }
 
     @NotNull
@@ -58,7 +51,8 @@ public abstract class BashPsiElementImpl extends ASTWrapperPsiElement implements
 
     @Override
     public String toString() {
-        return name == null ? super.toString() : name;
+        //the debug name is stored once in the element type and not in every element
+        return getNode().getElementType().toString();
     }
 
     @NotNull
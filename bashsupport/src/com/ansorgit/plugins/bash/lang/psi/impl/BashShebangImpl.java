@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashShebangImpl.java, Class: BashShebangImpl
- * Last modified: 2010-03-28
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,7 +40,7 @@ public class BashShebangImpl extends BashPsiElementImpl implements BashShebang {
     private final static Logger log = Logger.getInstance("#bash.BashShebang");
 
     public BashShebangImpl(final ASTNode astNode) {
-        super(astNode, "bash shebang");
+        super(astNode);
         log.debug("Created BashShebangImpl");
     }
 
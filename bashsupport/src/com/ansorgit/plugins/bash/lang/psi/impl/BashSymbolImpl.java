@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashSymbolImpl.java, Class: BashSymbolImpl
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashSymbolImpl extends BashPsiElementImpl implements BashSymbol {
     public BashSymbolImpl(ASTNode astNode) {
-        super(astNode, "BashSymbol");
+        super(astNode);
     }
 
     @NotNull
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AbstractExpression.java, Class: AbstractExpression
- * Last modified: 2010-06-05
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,11 +40,16 @@ import java.util.List;
  * Time: 12:14:33 PM
  */
 public abstract class AbstractExpression extends BashPsiElementImpl implements ArithmeticExpression {
+    private static final byte FLAGS_VALID = 1;
+    private static final byte STATIC = 2;
+
     private final Type type;
-    private Boolean isStatic = null;
 
-    public AbstractExpression(final ASTNode astNode, final String name, Type type) {
-        super(astNode, name);
+    //the lazily computed properties of this expression, reset if the subtree changes
+    private volatile byte flags;
+
+    public AbstractExpression(final ASTNode astNode, Type type) {
+        super(astNode);
         this.type = type;
     }
 
@@ -61,31 +66,37 @@ public abstract class AbstractExpression extends BashPsiElementImpl implements A
         }
     }
 
-    public boolean isStatic() {
-        if (isStatic == null) {
-            //fixme smarten up this implementation
-            List<ArithmeticExpression> arithmeticExpressionList = subexpressions();
+    public final boolean isStatic() {
+        byte current = flags;
+        if (current == 0) {
+            current = computeStatic() ? FLAGS_VALID | STATIC : FLAGS_VALID;
+            flags = current;
+        }
 
-            for (ArithmeticExpression e : arithmeticExpressionList) {
-                if (!e.isStatic()) {
-                    isStatic = false;
-                    break;
-                }
-            }
+        return (current & STATIC) != 0;
+    }
+
+    /**
+     * @return True if the value of this expression can be computed without evaluating variables
+     */
+    protected boolean computeStatic() {
+        //fixme smarten up this implementation
+        List<ArithmeticExpression> arithmeticExpressionList = subexpressions();
 
-            if (isStatic == null) {
-                isStatic = arithmeticExpressionList.size() >= 1;
+        for (ArithmeticExpression e : arithmeticExpressionList) {
+            if (!e.isStatic()) {
+                return false;
             }
         }
 
-        return isStatic;
+        return arithmeticExpressionList.size() >= 1;
     }
 
     @Override
     public void subtreeChanged() {
         super.subtreeChanged();
 
-        this.isStatic = null;
+        flags = 0;
     }
 
     public List<ArithmeticExpression> subexpressions() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AssignmentChainImpl.java, Class: AssignmentChainImpl
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,7 +37,7 @@ public class AssignmentChainImpl extends AbstractExpression implements Assignmen
     }
 
     public AssignmentChainImpl(final ASTNode astNode) {
-        super(astNode, "ArithAssignmentExpr", Type.Unsupported);
+        super(astNode, Type.Unsupported);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AssignmentExpressionsImpl.java, Class: AssignmentExpressionsImpl
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class AssignmentExpressionsImpl extends AbstractExpression implements AssignmentExpression {
     public AssignmentExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithmeticAssignmentChain", Type.Unsupported);
+        super(astNode, Type.Unsupported);
     }
 
     @Override
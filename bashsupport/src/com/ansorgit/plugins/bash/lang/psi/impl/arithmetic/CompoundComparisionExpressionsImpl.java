@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: CompoundComparisionExpressionsImpl.java, Class: CompoundComparisionExpressionsImpl
- * Last modified: 2010-02-07
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class CompoundComparisionExpressionsImpl extends AbstractExpression implements CompoundComparision {
     public CompoundComparisionExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "Compound comparision", Type.TwoOperands);
+        super(astNode, Type.TwoOperands);
     }
 
     @Override
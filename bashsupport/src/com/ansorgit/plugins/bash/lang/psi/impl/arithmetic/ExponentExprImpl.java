@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: ExponentExprImpl.java, Class: ExponentExprImpl
- * Last modified: 2010-05-26
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class ExponentExprImpl extends AbstractExpression implements ExponentExpr {
     public ExponentExprImpl(final ASTNode astNode) {
-        super(astNode, "ExponentExpr", Type.TwoOperands);
+        super(astNode, Type.TwoOperands);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: LogicalAndImpl.java, Class: LogicalAndImpl
- * Last modified: 2010-02-07
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class LogicalAndImpl extends AbstractExpression implements LogicalAnd {
     public LogicalAndImpl(final ASTNode astNode) {
-        super(astNode, "LogicalAndExpr", Type.TwoOperands);
+        super(astNode, Type.TwoOperands);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: NegationExpressionImpl.java, Class: NegationExpressionImpl
- * Last modified: 2010-02-07
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class NegationExpressionImpl extends AbstractExpression implements NegationExpression {
     public NegationExpressionImpl(final ASTNode astNode) {
-        super(astNode, "NegationExpr", Type.PrefixOperand);
+        super(astNode, Type.PrefixOperand);
     }
 
     @Override
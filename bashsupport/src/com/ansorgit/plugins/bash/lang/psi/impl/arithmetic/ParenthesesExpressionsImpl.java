@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: ParenthesesExpressionsImpl.java, Class: ParenthesesExpressionsImpl
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import java.util.List;
  */
 public class ParenthesesExpressionsImpl extends AbstractExpression implements ParenthesesExpression {
     public ParenthesesExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithParenExpr", Type.NoOperands);
+        super(astNode, Type.NoOperands);
     }
 
     @Override
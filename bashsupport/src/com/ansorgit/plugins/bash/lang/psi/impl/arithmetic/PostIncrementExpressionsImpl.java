@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: PostIncrementExpressionsImpl.java, Class: PostIncrementExpressionsImpl
- * Last modified: 2010-04-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,7 +28,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class PostIncrementExpressionsImpl extends AbstractExpression {
     public PostIncrementExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithPostIncrement", Type.Unsupported);
+        super(astNode, Type.Unsupported);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: PreIncrementExpressionsImpl.java, Class: PreIncrementExpressionsImpl
- * Last modified: 2010-04-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class PreIncrementExpressionsImpl extends AbstractExpression {
     public PreIncrementExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithPreIncrement", Type.PrefixOperand);
+        super(astNode, Type.PrefixOperand);
     }
 
     @Override
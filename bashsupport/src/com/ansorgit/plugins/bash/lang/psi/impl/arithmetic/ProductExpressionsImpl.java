@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: ProductExpressionsImpl.java, Class: ProductExpressionsImpl
- * Last modified: 2010-05-08
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,7 +33,7 @@ import java.util.List;
  */
 public class ProductExpressionsImpl extends AbstractExpression implements ProductExpression {
     public ProductExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithProductExpr", Type.TwoOperands);
+        super(astNode, Type.TwoOperands);
     }
 
     @Override
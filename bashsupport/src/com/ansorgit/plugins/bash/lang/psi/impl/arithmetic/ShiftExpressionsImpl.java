@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: ShiftExpressionsImpl.java, Class: ShiftExpressionsImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,7 @@ import com.intellij.psi.tree.IElementType;
  */
 public class ShiftExpressionsImpl extends AbstractExpression implements ShiftExpression {
     public ShiftExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "AritShiftExpr", Type.TwoOperands);
+        super(astNode, Type.TwoOperands);
     }
 
     @Override
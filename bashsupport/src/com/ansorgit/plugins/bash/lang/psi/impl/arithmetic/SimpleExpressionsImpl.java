@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: SimpleExpressionsImpl.java, Class: SimpleExpressionsImpl
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,10 +34,8 @@ import java.util.List;
  * Time: 12:13:49 PM
  */
 public class SimpleExpressionsImpl extends AbstractExpression implements SimpleExpression {
-    private Boolean isStatic = null;
-
     public SimpleExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithSimpleExpr", Type.NoOperands);
+        super(astNode, Type.NoOperands);
     }
 
     public LiteralType literalType() {
@@ -66,35 +64,23 @@ public class SimpleExpressionsImpl extends AbstractExpression implements SimpleE
     }
 
     @Override
-    public boolean isStatic() {
-        //fixme check if we need thread-safety
-
-        if (isStatic == null) {
-            //it can have one operator in front followed by a simple expression
-            //or just contain a number
-
-            ASTNode[] children = getNode().getChildren(null);
-            isStatic = false;
-
-            if (children.length > 0) {
-                IElementType first = BashPsiUtils.nodeType(getFirstChild());
-
-                if (children.length == 2 && BashTokenTypes.arithmeticAdditionOps.contains(first)) {
-                    List<ArithmeticExpression> subexpressions = subexpressions();
-                    isStatic = (subexpressions.size() == 1) && subexpressions.get(0).isStatic();
-                } else if (children.length == 1) {
-                    isStatic = BashTokenTypes.arithLiterals.contains(first);
-                }
+    protected boolean computeStatic() {
+        //it can have one operator in front followed by a simple expression
+        //or just contain a number
+
+        ASTNode[] children = getNode().getChildren(null);
+        if (children.length > 0) {
+            IElementType first = BashPsiUtils.nodeType(getFirstChild());
+
+            if (children.length == 2 && BashTokenTypes.arithmeticAdditionOps.contains(first)) {
+                List<ArithmeticExpression> subexpressions = subexpressions();
+                return (subexpressions.size() == 1) && subexpressions.get(0).isStatic();
+            } else if (children.length == 1) {
+                return BashTokenTypes.arithLiterals.contains(first);
             }
         }
 
-        return isStatic;
-    }
-
-    @Override
-    public void subtreeChanged() {
-        super.subtreeChanged();
-        isStatic = null;
+        return false;
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: TernaryExpressionsImpl.java, Class: TernaryExpressionsImpl
- * Last modified: 2010-05-11
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class TernaryExpressionsImpl extends AbstractExpression implements TernaryExpression {
     public TernaryExpressionsImpl(final ASTNode astNode) {
-        super(astNode, "ArithTernaryExpr", Type.Unsupported);
+        super(astNode, Type.Unsupported);
     }
 
     @NotNull
@@ -56,7 +56,7 @@ public class TernaryExpressionsImpl extends AbstractExpression implements Ternar
     }
 
     @Override
-    public boolean isStatic() {
+    protected boolean computeStatic() {
         ArithmeticExpression condition = findCondition();
         ArithmeticExpression mainBranch = findMainBranch();
         ArithmeticExpression elseBranch = findElseBranch();
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashCommandImpl.java, Class: BashCommandImpl
- * Last modified: 2010-07-08
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,13 @@ import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
 import com.ansorgit.plugins.bash.lang.psi.BashVisitor;
 import com.ansorgit.plugins.bash.lang.psi.api.BashPsiElement;
 import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
 import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
 import com.ansorgit.plugins.bash.lang.psi.impl.BashPsiElementImpl;
 import com.ansorgit.plugins.bash.lang.psi.util.BashChangeUtil;
+import com.ansorgit.plugins.bash.lang.psi.util.BashFunctionDefTable;
+import com.ansorgit.plugins.bash.lang.psi.util.BuiltinLookupElements;
+import com.ansorgit.plugins.bash.metrics.BashMetrics;
 import com.ansorgit.plugins.bash.settings.BashProjectSettings;
 import com.google.common.collect.Lists;
 import com.intellij.lang.ASTNode;
@@ -54,29 +58,39 @@ import java.util.List;
 public class BashCommandImpl extends BashPsiElementImpl implements BashCommand {
     private static final Logger log = Logger.getInstance("#bash.BashCommandImpl");
 
-    private boolean isInternal;
-    private boolean isExternal;
+    private static final byte FLAGS_VALID = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte EXTERNAL = 4;
+
+    //the lazily computed properties of this command, reset if the subtree changes
+    private volatile byte flags;
 
     public BashCommandImpl(ASTNode astNode) {
-        this(astNode, "bash command");
+        super(astNode);
     }
 
-    public BashCommandImpl(ASTNode astNode, String name) {
-        super(astNode, name);
+    private byte flags() {
+        byte current = flags;
+        if (current == 0) {
+            current = FLAGS_VALID;
+            if (findChildByType(BashElementTypes.INTERNAL_COMMAND_ELEMENT) != null) {
+                current |= INTERNAL;
+            }
+            if (findChildByType(BashElementTypes.GENERIC_COMMAND_ELEMENT) != null) {
+                current |= EXTERNAL;
+            }
 
-        updateCache();
-    }
+            flags = current;
+        }
 
-    private void updateCache() {
-        isInternal = findChildByType(BashElementTypes.INTERNAL_COMMAND_ELEMENT) != null;
-        isExternal = findChildByType(BashElementTypes.GENERIC_COMMAND_ELEMENT) != null;
+        return current;
     }
 
     @Override
     public void subtreeChanged() {
         super.subtreeChanged();
 
-        updateCache();
+        flags = 0;
     }
 
     public boolean isFunctionCall() {
@@ -89,7 +103,7 @@ public class BashCommandImpl extends BashPsiElementImpl implements BashCommand {
     }
 
     public boolean isInternalCommand() {
-        return isInternal;
+        return (flags() & INTERNAL) != 0;
     }
 
     public boolean isExternalCommand() {
@@ -97,7 +111,7 @@ public class BashCommandImpl extends BashPsiElementImpl implements BashCommand {
         //we have to listen to psi changes in the file, though
         //otherwise we might still have isExternal set to true even if a
         //a target exists now, e.g. a bash function witht the right name
-        return isExternal && (internalResolve() == null);
+        return (flags() & EXTERNAL) != 0 && (internalResolve() == null);
     }
 
     public boolean isPureAssignment() {
@@ -192,18 +206,23 @@ public class BashCommandImpl extends BashPsiElementImpl implements BashCommand {
     }
 
     public PsiElement resolve() {
-        if (isInternalCommand()) {
-            return this;
-        }
+        final long start = BashMetrics.start();
+        try {
+            if (isInternalCommand()) {
+                return this;
+            }
 
-        PsiElement result = internalResolve();
-        if (isExternal && result == null) {
-            return null;
-        }
+            PsiElement result = internalResolve();
+            if ((flags() & EXTERNAL) != 0 && result == null) {
+                return null;
+            }
 
-        return result;
-        //fixme for doc provider we should return null for internal commands
-        //fixme or better: add own implemenation for internal commands
+            return result;
+            //fixme for doc provider we should return null for internal commands
+            //fixme or better: add own implemenation for internal commands
+        } finally {
+            BashMetrics.record(BashMetrics.Category.RESOLVE, "command", this, start);
+        }
     }
 
     public String getCanonicalText() {
@@ -239,22 +258,53 @@ public class BashCommandImpl extends BashPsiElementImpl implements BashCommand {
     public Object[] getVariants() {
         List<Object> variants = Lists.newArrayList();
 
-        BashFunctionVariantsProcessor processor = new BashFunctionVariantsProcessor();
-        PsiTreeUtil.treeWalkUp(processor, this, this.getContainingFile(), ResolveState.initial());
+        //the completion only shows the elements which start with the typed prefix, no need to create the other elements
+        final String prefix = BuiltinLookupElements.findCompletionPrefix(getReferencedName());
+        final BashProjectSettings settings = BashProjectSettings.storedSettings(getProject());
 
-        variants.addAll(processor.getFunctionDefs());
+        //one definition per function name, the one which a call at this place resolves to
+        final BashFunctionDefTable functionTable = BashFunctionDefTable.forFile(getContainingFile());
+        for (String name : functionTable.getNames(prefix)) {
+            final BashFunctionDef definition = findVisibleDefinition(functionTable.getDefinitions(name));
+            if (definition != null) {
+                variants.add(definition);
+            }
+        }
 
-        if (BashProjectSettings.storedSettings(getProject()).isAutocompleteBuiltinCommands()) {
-            variants.addAll(LanguageBuiltins.commands);
+        if (settings.isAutocompleteBuiltinCommands()) {
+            BuiltinLookupElements.commands().addPrefixMatches(prefix, variants);
         }
 
-        if (BashProjectSettings.storedSettings(getProject()).isSupportBash4()) {
-            variants.addAll(LanguageBuiltins.commands_v4);
+        if (settings.isSupportBash4()) {
+            BuiltinLookupElements.bash4Commands().addPrefixMatches(prefix, variants);
         }
 
         return variants.toArray();
     }
 
+    /**
+     * Returns the definition a call at this place would resolve to. The resolve walks up the tree from this command,
+     * the definition which has the innermost common parent with this command is found first. Of the definitions with
+     * the same common parent the first one in the file is found first.
+     *
+     * @param definitions The definitions of a function name, sorted by their offset
+     * @return The definition, null if the list is empty
+     */
+    private BashFunctionDef findVisibleDefinition(List<BashFunctionDef> definitions) {
+        BashFunctionDef result = null;
+        PsiElement resultParent = null;
+
+        for (BashFunctionDef definition : definitions) {
+            final PsiElement commonParent = PsiTreeUtil.findCommonParent(definition, this);
+            if (result == null || commonParent != null && resultParent != null && PsiTreeUtil.isAncestor(resultParent, commonParent, true)) {
+                result = definition;
+                resultParent = commonParent;
+            }
+        }
+
+        return result;
+    }
+
     public boolean isSoft() {
         return false;
     }
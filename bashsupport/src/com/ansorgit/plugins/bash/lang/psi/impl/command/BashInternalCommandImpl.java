@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashInternalCommandImpl.java, Class: BashInternalCommandImpl
- * Last modified: 2010-04-14
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import com.intellij.psi.PsiElement;
  */
 public class BashInternalCommandImpl extends BashCommandImpl implements BashInternalCommand {
     public BashInternalCommandImpl(ASTNode astNode) {
-        super(astNode, "BashInternalCommand");
+        super(astNode);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashPipelineImpl.java, Class: BashPipelineImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import com.intellij.lang.ASTNode;
  */
 public class BashPipelineImpl extends BashPsiElementImpl implements BashPipeline {
     public BashPipelineImpl(final ASTNode astNode) {
-        super(astNode, "pipeline command");
+        super(astNode);
     }
 
 }
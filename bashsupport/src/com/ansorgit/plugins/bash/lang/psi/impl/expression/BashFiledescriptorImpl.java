@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashFiledescriptorImpl.java, Class: BashFiledescriptorImpl
- * Last modified: 2010-05-10
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,7 +33,7 @@ import org.jetbrains.annotations.Nullable;
  */
 public class BashFiledescriptorImpl extends BashPsiElementImpl implements BashFiledescriptor {
     public BashFiledescriptorImpl(ASTNode astNode) {
-        super(astNode, "Bash filedescriptor");
+        super(astNode);
     }
 
     @Override
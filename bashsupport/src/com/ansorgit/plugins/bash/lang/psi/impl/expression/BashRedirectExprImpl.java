@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashRedirectExprImpl.java, Class: BashRedirectExprImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashRedirectExprImpl extends BashPsiElementImpl implements BashRedirectExpr {
     public BashRedirectExprImpl(final ASTNode astNode) {
-        super(astNode, "BashRedirectExpr");
+        super(astNode);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashSubshellCommandImpl.java, Class: BashSubshellCommandImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashSubshellCommandImpl extends BashPsiElementImpl implements BashSubshellCommand {
     public BashSubshellCommandImpl(final ASTNode astNode) {
-        super(astNode, "bash subshell command");
+        super(astNode);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashFunctionDefImpl.java, Class: BashFunctionDefImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,7 +58,7 @@ public class BashFunctionDefImpl extends BashPsiElementImpl implements BashFunct
     private static TokenSet ignorableCommentTrailerTokens = TokenSet.create(BashTokenTypes.LINE_FEED);
 
     public BashFunctionDefImpl(ASTNode astNode) {
-        super(astNode, "bash function()");
+        super(astNode);
     }
 
     public PsiElement setName(@NotNull @NonNls String name) throws IncorrectOperationException {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: AbstractHeredocMarker.java, Class: AbstractHeredocMarker
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -44,13 +44,13 @@ import org.jetbrains.annotations.NotNull;
  * Time: 12:48:49 PM
  */
 abstract class AbstractHeredocMarker extends BashPsiElementImpl implements BashHereDocMarker, PsiReference {
-    private final Object[] EMPTY = new Object[0];
+    private static final Object[] EMPTY = new Object[0];
     private final Class<? extends BashPsiElement> otherEndsType;
     private final boolean expectLater;
 
 
-    public AbstractHeredocMarker(ASTNode astNode, String name, @NotNull Class<? extends BashPsiElement> otherEndsType, boolean expectLater) {
-        super(astNode, name);
+    public AbstractHeredocMarker(ASTNode astNode, @NotNull Class<? extends BashPsiElement> otherEndsType, boolean expectLater) {
+        super(astNode);
         this.otherEndsType = otherEndsType;
         this.expectLater = expectLater;
     }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashHereDocEndMarkerImpl.java, Class: BashHereDocEndMarkerImpl
- * Last modified: 2010-01-31
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashHereDocEndMarkerImpl extends AbstractHeredocMarker implements BashHereDocEndMarker {
     public BashHereDocEndMarkerImpl(final ASTNode astNode) {
-        super(astNode, "Bash heredoc end marker", BashHereDocStartMarker.class, false);
+        super(astNode, BashHereDocStartMarker.class, false);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashHereDocImpl.java, Class: BashHereDocImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,7 +37,7 @@ import org.jetbrains.annotations.Nullable;
  */
 public class BashHereDocImpl extends BashPsiElementImpl implements BashHereDoc {
     public BashHereDocImpl(ASTNode astNode) {
-        super(astNode, "bash hereDoc");
+        super(astNode);
     }
 
     @Override
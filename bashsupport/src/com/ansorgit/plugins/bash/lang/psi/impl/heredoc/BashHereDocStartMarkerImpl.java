@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashHereDocStartMarkerImpl.java, Class: BashHereDocStartMarkerImpl
- * Last modified: 2010-01-31
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,7 +34,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashHereDocStartMarkerImpl extends AbstractHeredocMarker implements BashHereDocStartMarker {
     public BashHereDocStartMarkerImpl(final ASTNode astNode) {
-        super(astNode, "Bash heredoc start marker", BashHereDocEndMarker.class, true);
+        super(astNode, BashHereDocEndMarker.class, true);
     }
 
     @Override
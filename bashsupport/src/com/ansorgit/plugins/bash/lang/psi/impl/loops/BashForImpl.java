@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashForImpl.java, Class: BashForImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,7 +35,7 @@ public class BashForImpl extends BashKeywordDefaultImpl implements BashFor {
     //private Logger log = Logger.getInstance("#Bash.BashForImpl");
 
     public BashForImpl(ASTNode astNode) {
-        super(astNode, "bash for command");
+        super(astNode);
     }
 
     public PsiElement keywordElement() {
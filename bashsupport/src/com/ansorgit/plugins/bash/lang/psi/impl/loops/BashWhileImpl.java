@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashWhileImpl.java, Class: BashWhileImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import com.intellij.psi.PsiElement;
  */
 public class BashWhileImpl extends BashKeywordDefaultImpl implements BashWhile {
     public BashWhileImpl(final ASTNode astNode) {
-        super(astNode, "bash while loop");
+        super(astNode);
     }
 
     public PsiElement keywordElement() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashCasePatternImpl.java, Class: BashCasePatternImpl
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,6 @@ import com.intellij.lang.ASTNode;
  */
 public class BashCasePatternImpl extends BashPsiElementImpl implements BashCasePattern {
     public BashCasePatternImpl(final ASTNode astNode) {
-        super(astNode, "BashCasePattern");
+        super(astNode);
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashConditionalCommandImpl.java, Class: BashConditionalCommandImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,6 @@ import com.intellij.lang.ASTNode;
  */
 public class BashConditionalCommandImpl extends BashPsiElementImpl implements BashConditionalCommand {
     public BashConditionalCommandImpl(final ASTNode astNode) {
-        super(astNode, "Bash conditional command");
+        super(astNode);
     }
 }
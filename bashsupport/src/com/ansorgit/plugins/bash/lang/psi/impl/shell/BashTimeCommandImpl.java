@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashTimeCommandImpl.java, Class: BashTimeCommandImpl
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import com.intellij.psi.PsiElement;
  */
 public class BashTimeCommandImpl extends BashKeywordDefaultImpl implements BashTimeCommand {
     public BashTimeCommandImpl(final ASTNode astNode) {
-        super(astNode, "bash time command");
+        super(astNode);
     }
 
     public PsiElement keywordElement() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashVarDefImpl.java, Class: BashVarDefImpl
- * Last modified: 2010-07-13
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,7 +61,7 @@ public class BashVarDefImpl extends BashPsiElementImpl implements BashVarDef, Ba
 
 
     public BashVarDefImpl(ASTNode astNode) {
-        super(astNode, "Bash var def");
+        super(astNode);
     }
 
     public String getName() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashVarImpl.java, Class: BashVarImpl
- * Last modified: 2010-07-12
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,24 +27,21 @@ import com.ansorgit.plugins.bash.lang.psi.impl.BashPsiElementImpl;
 import com.ansorgit.plugins.bash.lang.psi.util.BashChangeUtil;
 import com.ansorgit.plugins.bash.lang.psi.util.BashIdentifierUtil;
 import com.ansorgit.plugins.bash.lang.psi.util.BashPsiUtils;
+import com.ansorgit.plugins.bash.lang.psi.util.BashVarDefTable;
+import com.ansorgit.plugins.bash.lang.psi.util.BuiltinLookupElements;
+import com.ansorgit.plugins.bash.metrics.BashMetrics;
 import com.ansorgit.plugins.bash.settings.BashProjectSettings;
 import com.ansorgit.plugins.bash.util.BashIcons;
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
-import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.lang.ASTNode;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.*;
 import com.intellij.psi.scope.PsiScopeProcessor;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.IncorrectOperationException;
 import org.jetbrains.annotations.NotNull;
 
-import javax.swing.*;
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -55,7 +52,7 @@ import java.util.List;
  */
 public class BashVarImpl extends BashPsiElementImpl implements BashVar {
     public BashVarImpl(final ASTNode astNode) {
-        super(astNode, "Bash-var");
+        super(astNode);
     }
 
     @Override
@@ -95,6 +92,15 @@ public class BashVarImpl extends BashPsiElementImpl implements BashVar {
     }
 
     public PsiElement resolve() {
+        final long start = BashMetrics.start();
+        try {
+            return resolveVariable();
+        } finally {
+            BashMetrics.record(BashMetrics.Category.RESOLVE, "variable", this, start);
+        }
+    }
+
+    private PsiElement resolveVariable() {
         final String varName = getName();
         if (varName == null) {
             return null;
@@ -148,38 +154,38 @@ public class BashVarImpl extends BashPsiElementImpl implements BashVar {
     public Object[] getVariants() {
         List<Object> variants = Lists.newArrayList();
 
-        //collect the previously declared variables
-        final BashVarVariantsProcessor processor = new BashVarVariantsProcessor(this);
-        PsiTreeUtil.treeWalkUp(processor, this, this.getContainingFile(), ResolveState.initial());
-
-        variants.addAll(createPsiItems(processor.getVariables()));
-
-        if (BashProjectSettings.storedSettings(getProject()).isAutocompleteBuiltinVars()) {
-            variants.addAll(createItems(LanguageBuiltins.bashShellVars, BashIcons.BASH_VAR_ICON));
-            variants.addAll(createItems(LanguageBuiltins.bourneShellVars, BashIcons.BOURNE_VAR_ICON));
+        //the completion only shows the elements which start with the typed prefix, no need to create the other elements
+        final String prefix = BuiltinLookupElements.findCompletionPrefix(getReferencedName());
+        final BashProjectSettings settings = BashProjectSettings.storedSettings(getProject());
+
+        //collect the declared variables from the variable table of the file
+        //the variable is only resolved once, a completion variable never resolves
+        final PsiElement resolvedElement = prefix == null ? resolve() : null;
+        final BashVarDef resolvedDef = resolvedElement instanceof BashVarDef ? (BashVarDef) resolvedElement : null;
+
+        final BashVarDefTable varDefTable = BashVarDefTable.forFile(getContainingFile());
+        for (String name : varDefTable.getNames(prefix)) {
+            for (BashVarDef varDef : varDefTable.getDefinitions(name)) {
+                if (!varDef.isCommandLocal() && BashVarUtils.isInDefinedScope(this, resolvedDef, varDef)) {
+                    variants.add(LookupElementBuilder.create(varDef).setCaseSensitive(true));
+                    break;
+                }
+            }
         }
 
-        if (BashProjectSettings.storedSettings(getProject()).isAutcompleteGlobalVars()) {
-            variants.addAll(createItems(BashProjectSettings.storedSettings(getProject()).getGlobalVariables(), BashIcons.GLOBAL_VAR_ICON));
+        if (settings.isAutocompleteBuiltinVars()) {
+            BuiltinLookupElements.variables().addPrefixMatches(prefix, variants);
         }
 
-        return variants.toArray();
-    }
-
-    private static Collection<LookupElement> createPsiItems(Collection<? extends PsiNamedElement> elements) {
-        return Collections2.transform(elements, new Function<PsiNamedElement, LookupElement>() {
-            public LookupElement apply(PsiNamedElement from) {
-                return LookupElementBuilder.create(from).setCaseSensitive(true);
+        if (settings.isAutcompleteGlobalVars()) {
+            for (String globalVar : settings.getGlobalVariables()) {
+                if (prefix == null || globalVar.startsWith(prefix)) {
+                    variants.add(LookupElementBuilder.create(globalVar).setCaseSensitive(true).setIcon(BashIcons.GLOBAL_VAR_ICON));
+                }
             }
-        });
-    }
+        }
 
-    private static Collection<LookupElement> createItems(Collection<String> globalVars, final Icon icon) {
-        return Lists.transform(Lists.newArrayList(globalVars), new Function<String, LookupElement>() {
-            public LookupElement apply(String from) {
-                return LookupElementBuilder.create(from).setCaseSensitive(true).setIcon(icon);
-            }
-        });
+        return variants.toArray();
     }
 
     public boolean isSoft() {
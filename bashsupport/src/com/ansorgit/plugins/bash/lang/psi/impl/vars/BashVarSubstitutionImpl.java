@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashVarSubstitutionImpl.java, Class: BashVarSubstitutionImpl
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,6 @@ import com.intellij.lang.ASTNode;
  */
 public class BashVarSubstitutionImpl extends BashPsiElementImpl implements BashVarSubstitution {
     public BashVarSubstitutionImpl(final ASTNode astNode) {
-        super(astNode, "Var substitution");
+        super(astNode);
     }
 }
@@ -24,6 +24,7 @@ import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
 import com.ansorgit.plugins.bash.lang.psi.util.BashPsiUtils;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * User: jansorg
@@ -49,27 +50,45 @@ public class BashVarUtils {
             return PsiTreeUtil.isAncestor(variableDefinition.findFunctionScope(), childCandidate, false);
         } else if (childCandidate instanceof BashVar) {
             BashVar var = (BashVar) childCandidate;
-            BashVarDef childCandidateDef = (BashVarDef) var.resolve();
+            return isInDefinedScope(var, (BashVarDef) var.resolve(), variableDefinition);
+        }
 
-            if (childCandidateDef != null && childCandidateDef.isFunctionScopeLocal()) {
-                return isInDefinedScope(childCandidateDef, variableDefinition);
-            }
+        //none is a local variable
+        return true;
+    }
+
+    /**
+     * Checks whether the given variable is a valid reference to the variable definition. The variable
+     * has already been resolved by the caller, this avoids repeated resolving if several definitions have
+     * to be checked for the same variable.
+     *
+     * @param var                The variable to check
+     * @param varDefinition      The definition the variable resolves to, may be null
+     * @param variableDefinition The reference definition
+     * @return True if the variable is a valid reference to the definition
+     */
+    public static boolean isInDefinedScope(BashVar var, @Nullable BashVarDef varDefinition, BashVarDef variableDefinition) {
+        if (variableDefinition.isFunctionScopeLocal()) {
+            return PsiTreeUtil.isAncestor(variableDefinition.findFunctionScope(), var, false);
+        }
 
-            //variableDefinition may be otherwise valid but may be defined after the variable, i.e. it's invalid
-            if (variableDefinition.getTextOffset() > var.getTextOffset()) {
-                //it's an invalid reference if both variables are global and the definition is after
-                //the variable usage
-                
-                BashFunctionDef varScope = BashPsiUtils.findBroadestVarDefFunctionDefScope(var);
-                BashFunctionDef varDefScope = BashPsiUtils.findBroadestVarDefFunctionDefScope(variableDefinition);
+        if (varDefinition != null && varDefinition.isFunctionScopeLocal()) {
+            return isInDefinedScope(varDefinition, variableDefinition);
+        }
+
+        //variableDefinition may be otherwise valid but may be defined after the variable, i.e. it's invalid
+        if (variableDefinition.getTextOffset() > var.getTextOffset()) {
+            //it's an invalid reference if both variables are global and the definition is after
+            //the variable usage
 
-                if (varScope == null && varDefScope == null) {
-                    return false;
-                }
+            BashFunctionDef varScope = BashPsiUtils.findBroadestVarDefFunctionDefScope(var);
+            BashFunctionDef varDefScope = BashPsiUtils.findBroadestVarDefFunctionDefScope(variableDefinition);
+
+            if (varScope == null && varDefScope == null) {
+                return false;
             }
         }
 
-        //none is a local variable
         return true;
     }
 }
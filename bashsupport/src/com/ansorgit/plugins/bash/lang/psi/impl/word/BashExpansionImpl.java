@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashExpansionImpl.java, Class: BashExpansionImpl
- * Last modified: 2010-01-27
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class BashExpansionImpl extends BashPsiElementImpl implements BashExpansion {
     public BashExpansionImpl(ASTNode astNode) {
-        super(astNode, "Bash expansion");
+        super(astNode);
     }
 
     @Override
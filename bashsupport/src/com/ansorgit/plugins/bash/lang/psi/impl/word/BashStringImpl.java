@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashStringImpl.java, Class: BashStringImpl
- * Last modified: 2010-06-05
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,7 +40,7 @@ public class BashStringImpl extends BashPsiElementImpl implements BashString, Ba
     private static final Logger log = Logger.getInstance("#bash.BashStringImpl");
 
     public BashStringImpl(ASTNode node) {
-        super(node, "Bash tring");
+        super(node);
     }
 
     public String getUnwrappedCharSequence() {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashWordImpl.java, Class: BashWordImpl
- * Last modified: 2010-06-05
+ * Last modified: 2011-02-18
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,7 +39,7 @@ public class BashWordImpl extends BashPsiElementImpl implements BashWord {
             BashElementTypes.STRING_ELEMENT, BashTokenTypes.STRING2, BashTokenTypes.WORD);
 
     public BashWordImpl(final ASTNode astNode) {
-        super(astNode, "bash combined word");
+        super(astNode);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashChangeUtil.java, Class: BashChangeUtil
- * Last modified: 2010-04-21
+ * Last modified: 2011-02-27
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,8 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Date: 16.04.2009
  * Time: 16:48:49
+ * <p/>
+ * The elements which replace names are created from cached templates, see {@link BashPsiElementFactory}.
  *
  * @author Joachim Ansorg
  */
@@ -64,33 +66,23 @@ public class BashChangeUtil {
     }
 
     public static PsiElement createSymbol(Project project, String name) {
-        final PsiElement functionElement = createDummyBashFile(project, name + "() { x; }");
-        return functionElement.getFirstChild().getFirstChild();
+        return BashPsiElementFactory.create(project, BashPsiElementFactory.Shape.SYMBOL, name);
     }
 
     public static PsiElement createWord(Project project, String name) {
-        return createDummyBashFile(project, name).getFirstChild();
+        return BashPsiElementFactory.create(project, BashPsiElementFactory.Shape.WORD, name);
     }
 
     public static PsiElement createAssignmentWord(Project project, String name) {
-        final PsiElement assignmentCommand = createDummyBashFile(project, name + "=a").getFirstChild();
-
-        return assignmentCommand.getFirstChild().getFirstChild();
+        return BashPsiElementFactory.create(project, BashPsiElementFactory.Shape.ASSIGNMENT_WORD, name);
     }
 
     public static PsiElement createVariable(Project project, String name, boolean withBraces) {
         if (withBraces) {
-            String text = "${" + name + "}";
-            PsiElement command = createDummyBashFile(project, text).getFirstChild();
-
-            //fixme terrible code
-            return command.getFirstChild().getFirstChild().getFirstChild().getNextSibling().getFirstChild().getNextSibling();
+            return BashPsiElementFactory.create(project, BashPsiElementFactory.Shape.BRACED_VARIABLE, name);
         }
 
-        String text = "$" + name;
-        PsiElement command = createDummyBashFile(project, text).getFirstChild();
-
-        return command.getFirstChild().getFirstChild();
+        return BashPsiElementFactory.create(project, BashPsiElementFactory.Shape.VARIABLE, name);
     }
 
     public static PsiElement createShebang(Project project, String command, boolean addNewline) {
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashCommandNameIndex.java, Class: BashCommandNameIndex
+ * Last modified: 2011-02-03
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
+import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of all words of a file which may be the name of a called command.
+ * <p/>
+ * The index is built from the lexer tokens of the file, in the same way the words scanner of the
+ * find usages provider scans the words. It is cached on the file and rebuilt after the file was modified.
+ * <p/>
+ * Lookups of function calls only have to resolve the commands at the indexed offsets instead of
+ * walking the whole tree for each function definition.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashCommandNameIndex {
+    private static final Key<CachedValue<BashCommandNameIndex>> INDEX_KEY = Key.create("bash.commandNameIndex");
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, int[]> occurrences;
+
+    private BashCommandNameIndex(Map<String, int[]> occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * Returns the index of the given file. The index is computed on the first call and
+     * then cached until the file is changed.
+     *
+     * @param file The file to lookup
+     * @return The index of the file, never null
+     */
+    @NotNull
+    public static BashCommandNameIndex forFile(@NotNull final PsiFile file) {
+        CachedValue<BashCommandNameIndex> cachedIndex = file.getUserData(INDEX_KEY);
+        if (cachedIndex == null) {
+            cachedIndex = CachedValuesManager.getManager(file.getProject()).createCachedValue(new CachedValueProvider<BashCommandNameIndex>() {
+                public Result<BashCommandNameIndex> compute() {
+                    return Result.create(build(file), file);
+                }
+            }, false);
+
+            file.putUserData(INDEX_KEY, cachedIndex);
+        }
+
+        return cachedIndex.getValue();
+    }
+
+    /**
+     * Returns the start offsets of all the words in the file which have the given text.
+     *
+     * @param name The name to lookup
+     * @return The offsets, in ascending order. An empty array if the name is not used in the file.
+     */
+    @NotNull
+    public int[] getOccurrences(String name) {
+        final int[] result = occurrences.get(name);
+        return result != null ? result : EMPTY;
+    }
+
+    public boolean containsName(String name) {
+        return occurrences.containsKey(name);
+    }
+
+    /**
+     * Feeds all the commands to the processor which call the given function. Only the commands at the
+     * offsets stored in the index are resolved.
+     *
+     * @param functionDef The function definition
+     * @param processor   The processor which receives the calls
+     * @return False if the processor stopped the processing, true otherwise
+     */
+    public static boolean processFunctionCalls(@NotNull BashFunctionDef functionDef, @NotNull Processor<BashCommand> processor) {
+        final String name = functionDef.getName();
+        final PsiFile file = functionDef.getContainingFile();
+        if (name == null || file == null) {
+            return true;
+        }
+
+        for (int offset : forFile(file).getOccurrences(name)) {
+            final BashCommand command = findCommandAt(file, offset);
+            if (command != null && command.isReferenceTo(functionDef) && !processor.process(command)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static boolean hasFunctionCalls(@NotNull BashFunctionDef functionDef) {
+        return !processFunctionCalls(functionDef, new Processor<BashCommand>() {
+            public boolean process(BashCommand command) {
+                return false;
+            }
+        });
+    }
+
+    private static BashCommand findCommandAt(PsiFile file, int offset) {
+        final PsiElement leaf = file.findElementAt(offset);
+        final BashCommand command = PsiTreeUtil.getParentOfType(leaf, BashCommand.class);
+        if (command == null) {
+            return null;
+        }
+
+        //only accept the word if it is the called command, not one of the parameters
+        final PsiElement commandElement = command.commandElement();
+        if (commandElement == null || commandElement.getTextRange().getStartOffset() != offset) {
+            return null;
+        }
+
+        return command;
+    }
+
+    private static BashCommandNameIndex build(PsiFile file) {
+        final Lexer lexer = LanguageParserDefinitions.INSTANCE.forLanguage(BashFileType.BASH_LANGUAGE).createLexer(file.getProject());
+        final CharSequence text = file.getViewProvider().getContents();
+
+        final Map<String, List<Integer>> words = Maps.newHashMap();
+
+        lexer.start(text, 0, text.length(), 0);
+        while (lexer.getTokenType() != null) {
+            if (lexer.getTokenType() == BashTokenTypes.WORD) {
+                final String word = text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString();
+
+                List<Integer> offsets = words.get(word);
+                if (offsets == null) {
+                    offsets = Lists.newArrayList();
+                    words.put(word, offsets);
+                }
+
+                offsets.add(lexer.getTokenStart());
+            }
+
+            lexer.advance();
+        }
+
+        if (words.isEmpty()) {
+            return new BashCommandNameIndex(Collections.<String, int[]>emptyMap());
+        }
+
+        final Map<String, int[]> occurrences = Maps.newHashMapWithExpectedSize(words.size());
+        for (Map.Entry<String, List<Integer>> entry : words.entrySet()) {
+            final List<Integer> offsets = entry.getValue();
+
+            final int[] offsetArray = new int[offsets.size()];
+            for (int i = 0; i < offsetArray.length; i++) {
+                offsetArray[i] = offsets.get(i);
+            }
+
+            occurrences.put(entry.getKey(), offsetArray);
+        }
+
+        return new BashCommandNameIndex(occurrences);
+    }
+}
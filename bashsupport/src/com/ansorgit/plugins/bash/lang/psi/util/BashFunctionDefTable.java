@@ -0,0 +1,204 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashFunctionDefTable.java, Class: BashFunctionDefTable
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.lang.psi.api.command.BashComposedCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.expression.BashSubshellCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.api.loops.BashLoop;
+import com.ansorgit.plugins.bash.lang.psi.api.loops.BashSelect;
+import com.ansorgit.plugins.bash.lang.psi.api.shell.BashCase;
+import com.ansorgit.plugins.bash.lang.psi.api.shell.BashIf;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of all function definitions of a file, mapped by the function name.
+ * The definitions of a name are sorted by their offset in the file.
+ * <p/>
+ * The table is computed with a single walk of the file's tree. It is cached on the file and rebuilt after
+ * the file was modified.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashFunctionDefTable {
+    private static final Key<CachedValue<BashFunctionDefTable>> TABLE_KEY = Key.create("bash.functionDefTable");
+
+    private final Map<String, List<BashFunctionDef>> definitions;
+    private final String[] sortedNames;
+
+    private BashFunctionDefTable(Map<String, List<BashFunctionDef>> definitions) {
+        this.definitions = definitions;
+        this.sortedNames = definitions.keySet().toArray(new String[definitions.size()]);
+
+        Arrays.sort(sortedNames);
+    }
+
+    /**
+     * Returns the function table of the given file. The table is computed on the first call and
+     * then cached until the file is changed.
+     *
+     * @param file The file to lookup
+     * @return The table, never null
+     */
+    @NotNull
+    public static BashFunctionDefTable forFile(@NotNull final PsiFile file) {
+        CachedValue<BashFunctionDefTable> cachedTable = file.getUserData(TABLE_KEY);
+        if (cachedTable == null) {
+            cachedTable = CachedValuesManager.getManager(file.getProject()).createCachedValue(new CachedValueProvider<BashFunctionDefTable>() {
+                public Result<BashFunctionDefTable> compute() {
+                    return Result.create(build(file), file);
+                }
+            }, false);
+
+            file.putUserData(TABLE_KEY, cachedTable);
+        }
+
+        return cachedTable.getValue();
+    }
+
+    /**
+     * Returns the definitions of the given function name.
+     *
+     * @param name The function name
+     * @return The definitions, sorted by their offset in the file. An empty list if the name is not defined.
+     */
+    @NotNull
+    public List<BashFunctionDef> getDefinitions(String name) {
+        final List<BashFunctionDef> result = definitions.get(name);
+        return result != null ? Collections.unmodifiableList(result) : Collections.<BashFunctionDef>emptyList();
+    }
+
+    /**
+     * Returns the defined function names which start with the given prefix.
+     *
+     * @param prefix The prefix, if null all names are returned
+     * @return The names, sorted in natural order
+     */
+    @NotNull
+    public List<String> getNames(@Nullable String prefix) {
+        return BashStringUtils.findPrefixMatches(sortedNames, prefix);
+    }
+
+    /**
+     * Returns the first definition of the same function name which is located before the given definition
+     * and which is always executed before the given definition. Definitions in conditional commands,
+     * loops, subshells or function bodies are only taken into account if the given definition is in the same
+     * conditional branch.
+     *
+     * @param functionDef The definition to check
+     * @return The previous definition, if available. Null otherwise.
+     */
+    @Nullable
+    public BashFunctionDef findPreviousDefinition(@NotNull BashFunctionDef functionDef) {
+        final int offset = functionDef.getTextOffset();
+
+        for (BashFunctionDef candidate : getDefinitions(functionDef.getName())) {
+            if (candidate.getTextOffset() >= offset) {
+                //the list is sorted, no more definitions in front of the given one
+                return null;
+            }
+
+            //a function which redefines itself in its own body is not a duplicate definition
+            if (!PsiTreeUtil.isAncestor(candidate, functionDef, true) && !isConditionalDefinition(candidate, functionDef)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether the definition is only conditionally executed before the reference element is executed.
+     *
+     * @param definition The definition to check
+     * @param reference  The element which is executed later
+     * @return True if there is a conditional command in between
+     */
+    private static boolean isConditionalDefinition(BashFunctionDef definition, PsiElement reference) {
+        final PsiElement commonParent = PsiTreeUtil.findCommonParent(definition, reference);
+
+        PsiElement current = definition.getParent();
+        while (current != null && !(current instanceof PsiFile)) {
+            if (current == commonParent) {
+                //both definitions are in the same container, only different branches or && / || operands are alternatives
+                return current instanceof BashIf || current instanceof BashCase || current instanceof BashComposedCommand;
+            }
+
+            if (isConditionalContainer(current)) {
+                return true;
+            }
+
+            current = current.getParent();
+        }
+
+        return false;
+    }
+
+    private static boolean isConditionalContainer(PsiElement element) {
+        return element instanceof BashIf
+                || element instanceof BashCase
+                || element instanceof BashLoop
+                || element instanceof BashSelect
+                || element instanceof BashComposedCommand
+                || element instanceof BashSubshellCommand
+                || element instanceof BashFunctionDef;
+    }
+
+    private static BashFunctionDefTable build(PsiFile file) {
+        final Map<String, List<BashFunctionDef>> definitions = Maps.newHashMap();
+
+        //the recursive visitor visits the elements in the order of the text, no sorting necessary
+        file.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof BashFunctionDef) {
+                    final BashFunctionDef functionDef = (BashFunctionDef) element;
+
+                    List<BashFunctionDef> list = definitions.get(functionDef.getName());
+                    if (list == null) {
+                        list = Lists.newArrayListWithCapacity(1);
+                        definitions.put(functionDef.getName(), list);
+                    }
+
+                    list.add(functionDef);
+                }
+
+                super.visitElement(element);
+            }
+        });
+
+        return new BashFunctionDefTable(definitions);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashPsiElementFactory.java, Class: BashPsiElementFactory
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
+import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashParserDefinition;
+import com.google.common.collect.Lists;
+import com.intellij.lang.ASTFactory;
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates the elements which replace the names of variables, functions and commands, see {@link BashChangeUtil}.
+ * <p/>
+ * Each shape of element is parsed only once with a placeholder name. The templates are kept per project and
+ * Bash version. A new element is a copy of the template in which the leaf of the placeholder is replaced by a leaf
+ * with the new name. This is only done if the text with the new name is lexed into the same tokens as the text
+ * of the template, the parser then builds the same tree. Other names are parsed in a dummy file.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashPsiElementFactory {
+    private static final Key<ConcurrentMap<String, Template>> TEMPLATES = Key.create("bash.elementTemplates");
+    @NonNls
+    private static final String PLACEHOLDER = "placeholder";
+
+    private static final ThreadLocal<BashLexer[]> lexers = new ThreadLocal<BashLexer[]>() {
+        @Override
+        protected BashLexer[] initialValue() {
+            return new BashLexer[BashVersion.values().length];
+        }
+    };
+
+    /**
+     * The shapes of the created elements. The text of a shape is the prefix, the name and the suffix, the element is
+     * found in the file which was parsed from the text.
+     */
+    enum Shape {
+        SYMBOL("", "() { x; }") {
+            PsiElement find(PsiFile file) {
+                return file.getFirstChild().getFirstChild();
+            }
+        },
+        WORD("", "") {
+            PsiElement find(PsiFile file) {
+                return file.getFirstChild();
+            }
+        },
+        ASSIGNMENT_WORD("", "=a") {
+            PsiElement find(PsiFile file) {
+                return file.getFirstChild().getFirstChild().getFirstChild();
+            }
+        },
+        VARIABLE("$", "") {
+            PsiElement find(PsiFile file) {
+                return file.getFirstChild().getFirstChild().getFirstChild();
+            }
+        },
+        BRACED_VARIABLE("${", "}") {
+            PsiElement find(PsiFile file) {
+                //the variable inside of the curly brackets
+                final ASTNode substitution = findFirstNode(file.getNode(), BashElementTypes.VAR_SUBSTITUTION_ELEMENT);
+                final ASTNode variable = substitution != null ? substitution.findChildByType(BashElementTypes.VAR_ELEMENT) : null;
+
+                return variable != null ? variable.getPsi() : null;
+            }
+        };
+
+        private final String prefix;
+        private final String suffix;
+
+        Shape(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        String text(String name) {
+            return prefix + name + suffix;
+        }
+
+        abstract PsiElement find(PsiFile file);
+    }
+
+    /**
+     * @return The first node of the given type in the tree of the node, in the order of the text
+     */
+    @Nullable
+    private static ASTNode findFirstNode(ASTNode node, IElementType type) {
+        if (node.getElementType() == type) {
+            return node;
+        }
+
+        for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+            final ASTNode result = findFirstNode(child, type);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    private BashPsiElementFactory() {
+    }
+
+    @NotNull
+    static PsiElement create(Project project, Shape shape, String name) {
+        final BashVersion version = BashParserDefinition.findLanguageLevel(project);
+
+        final Template template = findTemplate(project, shape, version);
+        if (template.accepts(name, threadLexer(version))) {
+            return template.create(name);
+        }
+
+        return shape.find(BashChangeUtil.createDummyBashFile(project, shape.text(name)));
+    }
+
+    private static Template findTemplate(Project project, Shape shape, BashVersion version) {
+        ConcurrentMap<String, Template> templates = project.getUserData(TEMPLATES);
+        if (templates == null) {
+            synchronized (TEMPLATES) {
+                templates = project.getUserData(TEMPLATES);
+                if (templates == null) {
+                    templates = new ConcurrentHashMap<String, Template>();
+                    project.putUserData(TEMPLATES, templates);
+                }
+            }
+        }
+
+        final String key = shape.name() + ":" + version.name();
+        Template template = templates.get(key);
+        if (template == null) {
+            template = Template.parse(project, shape, threadLexer(version));
+
+            final Template existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+
+        return template;
+    }
+
+    private static BashLexer threadLexer(BashVersion version) {
+        final BashLexer[] threadLexers = lexers.get();
+
+        BashLexer lexer = threadLexers[version.ordinal()];
+        if (lexer == null) {
+            lexer = new BashLexer(version);
+            threadLexers[version.ordinal()] = lexer;
+        }
+
+        return lexer;
+    }
+
+    /**
+     * A parsed shape and the tokens of its text.
+     */
+    private static final class Template {
+        private final Shape shape;
+        //null if the placeholder is not part of a single leaf of the element
+        @Nullable
+        private final PsiElement element;
+        private final int leafOffset;
+        private final String leafText;
+        private final int nameOffsetInLeaf;
+        private final IElementType[] tokenTypes;
+        private final int[] tokenStarts;
+
+        private Template(Shape shape, @Nullable PsiElement element, int leafOffset, String leafText, int nameOffsetInLeaf,
+                         IElementType[] tokenTypes, int[] tokenStarts) {
+            this.shape = shape;
+            this.element = element;
+            this.leafOffset = leafOffset;
+            this.leafText = leafText;
+            this.nameOffsetInLeaf = nameOffsetInLeaf;
+            this.tokenTypes = tokenTypes;
+            this.tokenStarts = tokenStarts;
+        }
+
+        static Template parse(Project project, Shape shape, BashLexer lexer) {
+            final String text = shape.text(PLACEHOLDER);
+
+            final List<IElementType> types = Lists.newArrayList();
+            final List<Integer> starts = Lists.newArrayList();
+            lexer.start(text);
+            for (; lexer.getTokenType() != null; lexer.advance()) {
+                types.add(lexer.getTokenType());
+                starts.add(lexer.getTokenStart());
+            }
+            lexer.start("");
+
+            final int[] tokenStarts = new int[starts.size()];
+            for (int i = 0; i < tokenStarts.length; i++) {
+                tokenStarts[i] = starts.get(i);
+            }
+            final IElementType[] tokenTypes = types.toArray(new IElementType[types.size()]);
+
+            final PsiElement element = shape.find(BashChangeUtil.createDummyBashFile(project, text));
+            final int nameOffset = shape.prefix.length() - element.getTextRange().getStartOffset();
+            final ASTNode leaf = element.getNode().findLeafElementAt(nameOffset);
+            if (leaf == null) {
+                return new Template(shape, null, 0, "", 0, tokenTypes, tokenStarts);
+            }
+
+            final int leafOffset = leaf.getTextRange().getStartOffset() - element.getTextRange().getStartOffset();
+            final int nameOffsetInLeaf = nameOffset - leafOffset;
+            if (nameOffsetInLeaf + PLACEHOLDER.length() > leaf.getTextLength()) {
+                return new Template(shape, null, 0, "", 0, tokenTypes, tokenStarts);
+            }
+
+            return new Template(shape, element, leafOffset, leaf.getText(), nameOffsetInLeaf, tokenTypes, tokenStarts);
+        }
+
+        /**
+         * The name is accepted if the tokens of the text with the name have the types of the template's tokens and
+         * start at the same offsets, only moved by the different length of the name.
+         */
+        boolean accepts(String name, BashLexer lexer) {
+            if (element == null) {
+                return false;
+            }
+
+            final int nameStart = shape.prefix.length();
+            final int delta = name.length() - PLACEHOLDER.length();
+
+            lexer.start(shape.text(name));
+            try {
+                int index = 0;
+                for (; lexer.getTokenType() != null; lexer.advance(), index++) {
+                    if (index >= tokenTypes.length || lexer.getTokenType() != tokenTypes[index]) {
+                        return false;
+                    }
+
+                    final int start = tokenStarts[index] > nameStart ? tokenStarts[index] + delta : tokenStarts[index];
+                    if (lexer.getTokenStart() != start) {
+                        return false;
+                    }
+                }
+
+                return index == tokenTypes.length;
+            } finally {
+                //the lexer of the thread must not keep the text
+                lexer.start("");
+            }
+        }
+
+        PsiElement create(String name) {
+            assert element != null;
+
+            final ASTNode copy = element.getNode().copyElement();
+            final ASTNode leaf = copy.findLeafElementAt(leafOffset);
+            assert leaf != null;
+
+            final String text = leafText.substring(0, nameOffsetInLeaf) + name + leafText.substring(nameOffsetInLeaf + PLACEHOLDER.length());
+            final ASTNode newLeaf = ASTFactory.leaf(leaf.getElementType(), text);
+            leaf.getTreeParent().replaceChild(leaf, newLeaf);
+
+            return leaf == copy ? newLeaf.getPsi() : copy.getPsi();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashStringUtils.java, Class: BashStringUtils
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-06
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,12 @@
 
 package com.ansorgit.plugins.bash.lang.psi.util;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * User: jansorg
  * Date: Dec 2, 2009
@@ -36,4 +42,39 @@ public class BashStringUtils {
         return count;
     }
 
+    /**
+     * Returns the entries of a sorted array which start with the given prefix. A binary search is used to find
+     * the first match, no other entries are compared.
+     *
+     * @param sortedValues The values, sorted in natural order and without duplicates
+     * @param prefix       The prefix, if null all values are returned
+     * @return A view of the matching values
+     */
+    public static List<String> findPrefixMatches(String[] sortedValues, @Nullable String prefix) {
+        if (prefix == null || prefix.length() == 0) {
+            return Arrays.asList(sortedValues);
+        }
+
+        final int start = prefixStartIndex(sortedValues, prefix);
+
+        int end = start;
+        while (end < sortedValues.length && sortedValues[end].startsWith(prefix)) {
+            end++;
+        }
+
+        return start == end ? Collections.<String>emptyList() : Arrays.asList(sortedValues).subList(start, end);
+    }
+
+    /**
+     * Returns the index of the first entry of the sorted array which is equal to or greater than the prefix.
+     * All entries starting with the prefix follow this index.
+     *
+     * @param sortedValues The values, sorted in natural order and without duplicates
+     * @param prefix       The prefix
+     * @return The index, sortedValues.length if all entries are smaller than the prefix
+     */
+    public static int prefixStartIndex(String[] sortedValues, String prefix) {
+        final int index = Arrays.binarySearch(sortedValues, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashVarDefTable.java, Class: BashVarDefTable
+ * Last modified: 2011-02-06
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of all variable definitions of a file, mapped by the variable name.
+ * The definitions of a name are sorted by their offset in the file.
+ * <p/>
+ * The table is computed with a single walk of the file's tree. It is cached on the file and rebuilt after
+ * the file was modified.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashVarDefTable {
+    private static final Key<CachedValue<BashVarDefTable>> TABLE_KEY = Key.create("bash.varDefTable");
+
+    private final Map<String, List<BashVarDef>> definitions;
+    private final String[] sortedNames;
+
+    private BashVarDefTable(Map<String, List<BashVarDef>> definitions) {
+        this.definitions = definitions;
+        this.sortedNames = definitions.keySet().toArray(new String[definitions.size()]);
+
+        Arrays.sort(sortedNames);
+    }
+
+    /**
+     * Returns the variable table of the given file. The table is computed on the first call and
+     * then cached until the file is changed.
+     *
+     * @param file The file to lookup
+     * @return The table, never null
+     */
+    @NotNull
+    public static BashVarDefTable forFile(@NotNull final PsiFile file) {
+        CachedValue<BashVarDefTable> cachedTable = file.getUserData(TABLE_KEY);
+        if (cachedTable == null) {
+            cachedTable = CachedValuesManager.getManager(file.getProject()).createCachedValue(new CachedValueProvider<BashVarDefTable>() {
+                public Result<BashVarDefTable> compute() {
+                    return Result.create(build(file), file);
+                }
+            }, false);
+
+            file.putUserData(TABLE_KEY, cachedTable);
+        }
+
+        return cachedTable.getValue();
+    }
+
+    /**
+     * Returns the defined variable names which start with the given prefix.
+     *
+     * @param prefix The prefix, if null all names are returned
+     * @return The names, sorted in natural order
+     */
+    @NotNull
+    public List<String> getNames(@Nullable String prefix) {
+        return BashStringUtils.findPrefixMatches(sortedNames, prefix);
+    }
+
+    /**
+     * Returns the definitions of the given variable name.
+     *
+     * @param name The variable name
+     * @return The definitions, sorted by their offset in the file. An empty list if the name is not defined.
+     */
+    @NotNull
+    public List<BashVarDef> getDefinitions(String name) {
+        final List<BashVarDef> result = definitions.get(name);
+        return result != null ? Collections.unmodifiableList(result) : Collections.<BashVarDef>emptyList();
+    }
+
+    private static BashVarDefTable build(PsiFile file) {
+        final Map<String, List<BashVarDef>> definitions = Maps.newHashMap();
+
+        file.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof BashVarDef && ((BashVarDef) element).getName() != null) {
+                    final BashVarDef varDef = (BashVarDef) element;
+
+                    List<BashVarDef> list = definitions.get(varDef.getName());
+                    if (list == null) {
+                        list = Lists.newArrayListWithCapacity(1);
+                        definitions.put(varDef.getName(), list);
+                    }
+
+                    list.add(varDef);
+                }
+
+                super.visitElement(element);
+            }
+        });
+
+        return new BashVarDefTable(definitions);
+    }
+}
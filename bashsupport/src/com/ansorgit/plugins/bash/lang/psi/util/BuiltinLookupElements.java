@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BuiltinLookupElements.java, Class: BuiltinLookupElements
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.lang.LanguageBuiltins;
+import com.ansorgit.plugins.bash.util.BashIcons;
+import com.google.common.collect.Maps;
+import com.intellij.codeInsight.completion.CompletionUtil;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Immutable, precomputed lookup elements of the builtin variables and commands.
+ * The elements are sorted by their lookup string, a prefix lookup only creates the result list.
+ * <p/>
+ * The commands of Bash 4 are kept separately, they are only offered if Bash 4 is supported.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BuiltinLookupElements {
+    private static final BuiltinLookupElements variables = new Builder()
+            .add(LanguageBuiltins.bashShellVars, BashIcons.BASH_VAR_ICON)
+            .add(LanguageBuiltins.bourneShellVars, BashIcons.BOURNE_VAR_ICON)
+            .build();
+
+    private static final BuiltinLookupElements commands = new Builder()
+            .add(LanguageBuiltins.commands, null)
+            .build();
+
+    private static final BuiltinLookupElements commands_v4 = new Builder()
+            .add(LanguageBuiltins.commands_v4, null)
+            .build();
+
+    private final String[] names;
+    private final LookupElement[] elements;
+
+    private BuiltinLookupElements(String[] names, LookupElement[] elements) {
+        this.names = names;
+        this.elements = elements;
+    }
+
+    @NotNull
+    public static BuiltinLookupElements variables() {
+        return variables;
+    }
+
+    @NotNull
+    public static BuiltinLookupElements commands() {
+        return commands;
+    }
+
+    @NotNull
+    public static BuiltinLookupElements bash4Commands() {
+        return commands_v4;
+    }
+
+    /**
+     * Adds the elements whose lookup string starts with the given prefix.
+     *
+     * @param prefix The prefix, if null all elements are added
+     * @param target The collection which receives the elements
+     */
+    public void addPrefixMatches(@Nullable String prefix, Collection<Object> target) {
+        final int start = prefix != null ? BashStringUtils.prefixStartIndex(names, prefix) : 0;
+
+        for (int i = start; i < names.length && (prefix == null || names[i].startsWith(prefix)); i++) {
+            target.add(elements[i]);
+        }
+    }
+
+    /**
+     * Returns the text which was typed by the user in front of the caret, if the given reference text
+     * is part of a completion. The completion inserts a dummy identifier at the caret position.
+     *
+     * @param referenceText The text of the reference which is completed
+     * @return The prefix of the completion or null if the reference is not part of a completion
+     */
+    @Nullable
+    public static String findCompletionPrefix(@Nullable String referenceText) {
+        if (referenceText == null) {
+            return null;
+        }
+
+        final int dummyOffset = referenceText.indexOf(CompletionUtil.DUMMY_IDENTIFIER_TRIMMED);
+        return dummyOffset >= 0 ? referenceText.substring(0, dummyOffset) : null;
+    }
+
+    private static final class Builder {
+        private final SortedMap<String, Icon> entries = Maps.newTreeMap();
+
+        Builder add(Collection<String> names, @Nullable Icon icon) {
+            for (String name : names) {
+                entries.put(name, icon);
+            }
+
+            return this;
+        }
+
+        BuiltinLookupElements build() {
+            final String[] names = new String[entries.size()];
+            final LookupElement[] elements = new LookupElement[entries.size()];
+
+            int i = 0;
+            for (Map.Entry<String, Icon> entry : entries.entrySet()) {
+                names[i] = entry.getKey();
+                elements[i] = entry.getValue() != null
+                        ? LookupElementBuilder.create(entry.getKey()).setCaseSensitive(true).setIcon(entry.getValue())
+                        : LookupElementBuilder.create(entry.getKey()).setCaseSensitive(true);
+                i++;
+            }
+
+            return new BuiltinLookupElements(names, elements);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetrics.java, Class: BashMetrics
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures the time which is spent in the inspections, the branches of the annotator, the resolving of variables and
+ * commands and the documentation lookups.
+ * <p/>
+ * The measurements are disabled by default. A measured call is wrapped like this:
+ * <pre>
+ * final long start = BashMetrics.start();
+ * try {
+ *     ...
+ * } finally {
+ *     BashMetrics.record(BashMetrics.Category.RESOLVE, "variable", element, start);
+ * }
+ * </pre>
+ * If the metrics are disabled {@link #start()} returns {@link #NOT_RECORDED} and the record call returns at once.
+ * The counters are striped and the latencies are kept in histograms, the recording threads do not lock.
+ * Each measurement is added to the total of its name and to the total of its file.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashMetrics implements BashMetricsMBean {
+    public static final long NOT_RECORDED = Long.MIN_VALUE;
+    public static final String OBJECT_NAME = "com.ansorgit.plugins.bash:type=Metrics";
+
+    private static final BashMetrics instance = new BashMetrics();
+
+    private static final Comparator<Metric> TOTAL_TIME_ORDER = new Comparator<Metric>() {
+        public int compare(Metric a, Metric b) {
+            final long first = a.getTotalNanos();
+            final long second = b.getTotalNanos();
+
+            return first < second ? 1 : (first == second ? 0 : -1);
+        }
+    };
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+    private final ConcurrentMap<String, Metric> fileMetrics = new ConcurrentHashMap<String, Metric>();
+    private volatile boolean enabled;
+
+    BashMetrics() {
+    }
+
+    public static BashMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return The start time of a measurement, {@link #NOT_RECORDED} if the metrics are disabled
+     */
+    public static long start() {
+        return instance.enabled ? System.nanoTime() : NOT_RECORDED;
+    }
+
+    /**
+     * Records a measurement which was started by {@link #start()}.
+     *
+     * @param category The kind of the measured call
+     * @param name     The name of the inspection, the annotator branch or the kind of reference
+     * @param element  The element which was processed, its file is used for the file statistics
+     * @param start    The value returned by {@link #start()}
+     */
+    public static void record(Category category, String name, @Nullable PsiElement element, long start) {
+        if (start == NOT_RECORDED) {
+            return;
+        }
+
+        final long duration = System.nanoTime() - start;
+        instance.add(category, name, element != null && element.isValid() ? fileName(element.getContainingFile()) : null, duration);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void add(Category category, String name, @Nullable String file, long nanos) {
+        metric(metrics, category.getName() + '/' + name, category, name).add(nanos);
+
+        if (file != null) {
+            metric(fileMetrics, category.getName() + '/' + file, category, file).add(nanos);
+        }
+    }
+
+    /**
+     * @return The measurements of the inspections, annotator branches, resolves and documentation lookups, the most
+     *         expensive first
+     */
+    public List<Metric> getMetrics() {
+        return sorted(metrics.values());
+    }
+
+    /**
+     * @return The measurements per file and category, the most expensive first
+     */
+    public List<Metric> getFileMetrics() {
+        return sorted(fileMetrics.values());
+    }
+
+    public void reset() {
+        metrics.clear();
+        fileMetrics.clear();
+    }
+
+    public String[] getSummary() {
+        return summary(getMetrics());
+    }
+
+    public String[] getFileSummary() {
+        return summary(getFileMetrics());
+    }
+
+    public String getJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return writer.toString();
+    }
+
+    public void writeJson(@NotNull Writer writer) throws IOException {
+        writer.write("{\"enabled\":" + enabled + ",\"metrics\":");
+        writeJson(writer, getMetrics(), "name");
+        writer.write(",\"files\":");
+        writeJson(writer, getFileMetrics(), "file");
+        writer.write("}\n");
+    }
+
+    private static void writeJson(Writer writer, List<Metric> metrics, String nameKey) throws IOException {
+        writer.write('[');
+
+        boolean first = true;
+        for (Metric metric : metrics) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            writer.write("{\"category\":\"" + metric.getCategory().getName() + "\"");
+            writer.write(",\"" + nameKey + "\":" + jsonValue(metric.getName()));
+            writer.write(",\"calls\":" + metric.getCalls());
+            writer.write(",\"totalMicros\":" + metric.getTotalNanos() / 1000);
+            writer.write(",\"p50Micros\":" + metric.getPercentileNanos(50) / 1000);
+            writer.write(",\"p90Micros\":" + metric.getPercentileNanos(90) / 1000);
+            writer.write(",\"p99Micros\":" + metric.getPercentileNanos(99) / 1000);
+            writer.write(",\"maxMicros\":" + metric.getMaxNanos() / 1000);
+            writer.write('}');
+        }
+
+        writer.write(']');
+    }
+
+    private static String[] summary(List<Metric> metrics) {
+        final String[] result = new String[metrics.size()];
+        for (int i = 0; i < result.length; i++) {
+            final Metric metric = metrics.get(i);
+            result[i] = String.format("%s %s: %d calls, %.3f ms total, p50 %d us, p99 %d us, max %d us",
+                    metric.getCategory().getName(), metric.getName(), metric.getCalls(), metric.getTotalNanos() / 1000000.0,
+                    metric.getPercentileNanos(50) / 1000, metric.getPercentileNanos(99) / 1000, metric.getMaxNanos() / 1000);
+        }
+
+        return result;
+    }
+
+    private static Metric metric(ConcurrentMap<String, Metric> map, String key, Category category, String name) {
+        Metric metric = map.get(key);
+        if (metric == null) {
+            final Metric newMetric = new Metric(category, name);
+            metric = map.putIfAbsent(key, newMetric);
+            if (metric == null) {
+                metric = newMetric;
+            }
+        }
+
+        return metric;
+    }
+
+    private static List<Metric> sorted(Collection<Metric> values) {
+        final List<Metric> result = new ArrayList<Metric>(values);
+        Collections.sort(result, TOTAL_TIME_ORDER);
+
+        return result;
+    }
+
+    @Nullable
+    private static String fileName(@Nullable PsiFile file) {
+        if (file == null) {
+            return null;
+        }
+
+        final VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+        return virtualFile != null ? virtualFile.getPath() : file.getName();
+    }
+
+    private static String jsonValue(String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.append('"').toString();
+    }
+
+    /**
+     * The kinds of measured calls.
+     */
+    public enum Category {
+        INSPECTION("inspection"), ANNOTATOR("annotator"), RESOLVE("resolve"), DOCUMENTATION("documentation");
+
+        private final String name;
+
+        Category(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The measurements of a single inspection, annotator branch, reference kind or file.
+     */
+    public static final class Metric {
+        private final Category category;
+        private final String name;
+        private final StripedCounter calls = new StripedCounter();
+        private final StripedCounter totalNanos = new StripedCounter();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Metric(Category category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        void add(long nanos) {
+            calls.increment();
+            totalNanos.add(nanos);
+            histogram.record(nanos);
+        }
+
+        public Category getCategory() {
+            return category;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getPercentileNanos(double percentile) {
+            return histogram.getValueAtPercentile(percentile);
+        }
+
+        public long getMaxNanos() {
+            return histogram.getMax();
+        }
+    }
+}
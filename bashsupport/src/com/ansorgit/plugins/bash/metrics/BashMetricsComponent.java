@@ -0,0 +1,69 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetricsComponent.java, Class: BashMetricsComponent
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.ansorgit.plugins.bash.BashComponents;
+import com.intellij.openapi.components.ApplicationComponent;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the {@link BashMetrics} at the platform MBean server.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashMetricsComponent implements ApplicationComponent {
+    private static final Logger log = Logger.getInstance("#bash.BashMetricsComponent");
+
+    @NotNull
+    public String getComponentName() {
+        return BashComponents.MetricsComponent;
+    }
+
+    public void initComponent() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(BashMetrics.OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(BashMetrics.getInstance(), name);
+            }
+        } catch (JMException e) {
+            log.warn("Unable to register the Bash metrics MBean", e);
+        }
+    }
+
+    public void disposeComponent() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(BashMetrics.OBJECT_NAME);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.warn("Unable to unregister the Bash metrics MBean", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetricsMBean.java, Class: BashMetricsMBean
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+/**
+ * The JMX interface of the {@link BashMetrics}, it is registered as "com.ansorgit.plugins.bash:type=Metrics".
+ *
+ * @author Joachim Ansorg
+ */
+public interface BashMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return One line per inspection, annotator branch, resolve and documentation lookup
+     */
+    String[] getSummary();
+
+    /**
+     * @return One line per file and kind of measurement
+     */
+    String[] getFileSummary();
+
+    /**
+     * @return All measurements as JSON
+     */
+    String getJson();
+
+    void reset();
+}
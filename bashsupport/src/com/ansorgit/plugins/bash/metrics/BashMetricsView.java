@@ -0,0 +1,207 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetricsView.java, Class: BashMetricsView
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.ansorgit.plugins.bash.util.BashIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowAnchor;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Displays the measurements of the {@link BashMetrics} in a tool window. The tables are refreshed every two seconds
+ * while the view is open.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashMetricsView extends JPanel implements Disposable {
+    static final String TOOL_WINDOW_ID = "Bash Metrics";
+    private static final int REFRESH_MILLIS = 2000;
+
+    private final Project project;
+    private final MetricTableModel metricsModel = new MetricTableModel("Name");
+    private final MetricTableModel filesModel = new MetricTableModel("File");
+    private final Timer timer;
+
+    private BashMetricsView(Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        add(createToolbar(), BorderLayout.NORTH);
+
+        final JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Inspections, annotator, resolve", new JScrollPane(createTable(metricsModel)));
+        tabs.addTab("Files", new JScrollPane(createTable(filesModel)));
+        add(tabs, BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_MILLIS, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        timer.start();
+
+        refresh();
+    }
+
+    /**
+     * Shows the metrics in the tool window, the tool window is registered on first use.
+     */
+    static void show(Project project) {
+        final ToolWindowManager manager = ToolWindowManager.getInstance(project);
+
+        ToolWindow window = manager.getToolWindow(TOOL_WINDOW_ID);
+        if (window == null) {
+            window = manager.registerToolWindow(TOOL_WINDOW_ID, true, ToolWindowAnchor.BOTTOM);
+            window.setIcon(BashIcons.BASH_FILE_ICON);
+        }
+
+        final ContentManager contentManager = window.getContentManager();
+        if (contentManager.getContentCount() == 0) {
+            final BashMetricsView view = new BashMetricsView(project);
+
+            final Content content = ContentFactory.SERVICE.getInstance().createContent(view, "", false);
+            content.setDisposer(view);
+            contentManager.addContent(content);
+        }
+
+        window.activate(null);
+    }
+
+    public void dispose() {
+        timer.stop();
+    }
+
+    private JComponent createToolbar() {
+        final BashMetrics metrics = BashMetrics.getInstance();
+
+        final JCheckBox enabled = new JCheckBox("Record", metrics.isEnabled());
+        enabled.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                BashMetrics.getInstance().setEnabled(enabled.isSelected());
+            }
+        });
+
+        final JButton reset = new JButton("Reset");
+        reset.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                BashMetrics.getInstance().reset();
+                refresh();
+            }
+        });
+
+        final JButton dump = new JButton("Export JSON");
+        dump.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                DumpBashMetricsAction.dump(project);
+            }
+        });
+
+        final JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(enabled);
+        toolbar.add(reset);
+        toolbar.add(dump);
+
+        return toolbar;
+    }
+
+    private static JTable createTable(MetricTableModel model) {
+        final JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        return table;
+    }
+
+    private void refresh() {
+        final BashMetrics metrics = BashMetrics.getInstance();
+
+        metricsModel.setMetrics(metrics.getMetrics());
+        filesModel.setMetrics(metrics.getFileMetrics());
+    }
+
+    private static final class MetricTableModel extends AbstractTableModel {
+        private static final Class[] COLUMN_CLASSES = {String.class, String.class, Long.class, Double.class, Long.class, Long.class, Long.class, Long.class};
+
+        private final String[] columnNames;
+        private List<BashMetrics.Metric> metrics = Collections.emptyList();
+
+        private MetricTableModel(String nameColumn) {
+            columnNames = new String[]{"Kind", nameColumn, "Calls", "Total ms", "p50 us", "p90 us", "p99 us", "Max us"};
+        }
+
+        void setMetrics(List<BashMetrics.Metric> metrics) {
+            this.metrics = metrics;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+            return metrics.size();
+        }
+
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return COLUMN_CLASSES[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            final BashMetrics.Metric metric = metrics.get(row);
+
+            switch (column) {
+                case 0:
+                    return metric.getCategory().getName();
+                case 1:
+                    return metric.getName();
+                case 2:
+                    return metric.getCalls();
+                case 3:
+                    return metric.getTotalNanos() / 1000000.0;
+                case 4:
+                    return metric.getPercentileNanos(50) / 1000;
+                case 5:
+                    return metric.getPercentileNanos(90) / 1000;
+                case 6:
+                    return metric.getPercentileNanos(99) / 1000;
+                default:
+                    return metric.getMaxNanos() / 1000;
+            }
+        }
+    }
+}
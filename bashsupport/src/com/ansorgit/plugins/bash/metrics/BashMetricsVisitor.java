@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetricsVisitor.java, Class: BashMetricsVisitor
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+
+/**
+ * Measures the visitor of an inspection. Each visited element is passed to the visitor of the inspection, the time
+ * of each visit is recorded.
+ * <p/>
+ * The visitor is only used while the metrics are enabled.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashMetricsVisitor extends PsiElementVisitor {
+    private final PsiElementVisitor delegate;
+    private final String inspectionName;
+    private final PsiFile file;
+
+    public BashMetricsVisitor(PsiElementVisitor delegate, String inspectionName, PsiFile file) {
+        this.delegate = delegate;
+        this.inspectionName = inspectionName;
+        this.file = file;
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        //the other visit methods of PsiElementVisitor end up here, accept() calls the right method of the delegate
+        final long start = BashMetrics.start();
+        try {
+            element.accept(delegate);
+        } finally {
+            BashMetrics.record(BashMetrics.Category.INSPECTION, inspectionName, file, start);
+        }
+    }
+}
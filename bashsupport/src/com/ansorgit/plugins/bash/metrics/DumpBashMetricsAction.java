@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: DumpBashMetricsAction.java, Class: DumpBashMetricsAction
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes the current Bash metrics as JSON into the log directory of the IDE.
+ *
+ * @author Joachim Ansorg
+ */
+public class DumpBashMetricsAction extends AnAction {
+    public void actionPerformed(AnActionEvent e) {
+        dump(e.getData(LangDataKeys.PROJECT));
+    }
+
+    static void dump(@Nullable Project project) {
+        final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        final File file = new File(PathManager.getLogPath(), "bash-metrics-" + timestamp + ".json");
+
+        try {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                BashMetrics.getInstance().writeJson(writer);
+            } finally {
+                writer.close();
+            }
+
+            Messages.showInfoMessage(project, "The Bash metrics were written to " + file.getPath(), "Bash Metrics");
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, "The Bash metrics could not be written: " + e.getMessage(), "Bash Metrics");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ShowBashMetricsAction.java, Class: ShowBashMetricsAction
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.project.Project;
+
+/**
+ * Opens the tool window with the Bash metrics.
+ *
+ * @author Joachim Ansorg
+ */
+public class ShowBashMetricsAction extends AnAction {
+    @Override
+    public void update(AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getData(LangDataKeys.PROJECT) != null);
+    }
+
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getData(LangDataKeys.PROJECT);
+        if (project != null) {
+            BashMetricsView.show(project);
+        }
+    }
+}
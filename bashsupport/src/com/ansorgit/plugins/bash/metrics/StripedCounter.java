@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: StripedCounter.java, Class: StripedCounter
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which is updated by many threads. Each thread updates one of several cells, the cells are summed up
+ * when the value is read. The cells are placed in separate cache lines.
+ *
+ * @author Joachim Ansorg
+ */
+public final class StripedCounter {
+    //eight longs fill a cache line of 64 bytes
+    private static final int PADDING = 8;
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long value) {
+        cells.addAndGet(index(), value);
+    }
+
+    public long sum() {
+        long result = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            result += cells.get(i * PADDING);
+        }
+
+        return result;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+
+    /**
+     * @param processors The number of processors
+     * @return The power of two which is at least twice the number of processors, at most 64
+     */
+    static int stripes(int processors) {
+        int result = 1;
+        while (result < 2 * processors && result < 64) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    private static int index() {
+        //the ids of threads are assigned in sequence, the last bits spread them
+        final long id = Thread.currentThread().getId();
+        return (int) (id & (STRIPES - 1)) * PADDING;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashRenamePsiElementProcessor.java, Class: BashRenamePsiElementProcessor
+ * Last modified: 2011-02-27
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.refactoring;
+
+import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
+import com.ansorgit.plugins.bash.lang.psi.util.BashIdentifierUtil;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiNameIdentifierOwner;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.refactoring.listeners.RefactoringElementListener;
+import com.intellij.refactoring.rename.RenamePsiElementProcessor;
+import com.intellij.usageView.UsageInfo;
+import com.intellij.util.IncorrectOperationException;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Renames variables and functions with one change of the document per file.
+ * <p/>
+ * The default rename replaces the PSI element of each usage, every replacement is a change of the PSI and of the
+ * document. This processor replaces the text of the name in all usages of a file, starting at the last usage, and
+ * commits the document once afterwards. The result is the same text.
+ * If a usage is not a reference in a Bash file or if the text of a usage is not the old name the default rename is used.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashRenamePsiElementProcessor extends RenamePsiElementProcessor {
+    private static final Comparator<TextRange> BY_START = new Comparator<TextRange>() {
+        public int compare(TextRange a, TextRange b) {
+            return a.getStartOffset() - b.getStartOffset();
+        }
+    };
+
+    @Override
+    public boolean canProcessElement(PsiElement element) {
+        return element instanceof BashVarDef || element instanceof BashFunctionDef;
+    }
+
+    @Override
+    public void renameElement(PsiElement element, String newName, UsageInfo[] usages, RefactoringElementListener listener) throws IncorrectOperationException {
+        final PsiElement nameIdentifier = ((PsiNameIdentifierOwner) element).getNameIdentifier();
+        final String oldName = ((PsiNameIdentifierOwner) element).getName();
+
+        final Map<PsiFile, TreeSet<TextRange>> ranges = BashIdentifierUtil.isValidIdentifier(newName) && nameIdentifier != null && oldName != null
+                ? collectRanges(element, nameIdentifier, oldName, usages)
+                : null;
+        if (ranges == null) {
+            super.renameElement(element, newName, usages, listener);
+            return;
+        }
+
+        final PsiFile declarationFile = element.getContainingFile();
+        final int declarationOffset = nameIdentifier.getTextRange().getStartOffset();
+        final Class<? extends PsiElement> declarationType = element instanceof BashVarDef ? BashVarDef.class : BashFunctionDef.class;
+
+        final PsiDocumentManager documentManager = PsiDocumentManager.getInstance(element.getProject());
+        int newDeclarationOffset = declarationOffset;
+
+        for (Map.Entry<PsiFile, TreeSet<TextRange>> entry : ranges.entrySet()) {
+            final Document document = documentManager.getDocument(entry.getKey());
+            assert document != null;
+
+            for (TextRange range : entry.getValue()) {
+                if (entry.getKey() == declarationFile && range.getEndOffset() <= declarationOffset) {
+                    newDeclarationOffset += newName.length() - oldName.length();
+                }
+            }
+
+            //the last usage first, the offsets of the other usages stay valid
+            final TextRange[] fileRanges = entry.getValue().toArray(new TextRange[entry.getValue().size()]);
+            for (int i = fileRanges.length - 1; i >= 0; i--) {
+                document.replaceString(fileRanges[i].getStartOffset(), fileRanges[i].getEndOffset(), newName);
+            }
+
+            documentManager.commitDocument(document);
+        }
+
+        final PsiElement renamed = PsiTreeUtil.getParentOfType(declarationFile.findElementAt(newDeclarationOffset), declarationType, false);
+        if (renamed != null) {
+            listener.elementRenamed(renamed);
+        }
+    }
+
+    /**
+     * @return The ranges of the old name in the documents of the files, null if the default rename has to be used
+     */
+    private static Map<PsiFile, TreeSet<TextRange>> collectRanges(PsiElement element, PsiElement nameIdentifier, String oldName, UsageInfo[] usages) {
+        final Map<PsiFile, TreeSet<TextRange>> result = Maps.newLinkedHashMap();
+        if (!addRange(result, element.getContainingFile(), nameIdentifier.getTextRange(), oldName)) {
+            return null;
+        }
+
+        for (UsageInfo usage : usages) {
+            final PsiReference reference = usage.getReference();
+            final PsiElement usageElement = usage.getElement();
+            if (reference == null || usageElement == null) {
+                return null;
+            }
+
+            final TextRange range = reference.getRangeInElement().shiftRight(usageElement.getTextRange().getStartOffset());
+            if (!addRange(result, usageElement.getContainingFile(), range, oldName)) {
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean addRange(Map<PsiFile, TreeSet<TextRange>> ranges, PsiFile file, TextRange range, String oldName) {
+        if (!(file instanceof BashFile) || !file.isPhysical()) {
+            return false;
+        }
+
+        final PsiDocumentManager documentManager = PsiDocumentManager.getInstance(file.getProject());
+        final Document document = documentManager.getDocument(file);
+        if (document == null || documentManager.isUncommited(document) || range.getEndOffset() > document.getTextLength()) {
+            return false;
+        }
+
+        if (!oldName.equals(document.getCharsSequence().subSequence(range.getStartOffset(), range.getEndOffset()).toString())) {
+            return false;
+        }
+
+        TreeSet<TextRange> fileRanges = ranges.get(file);
+        if (fileRanges == null) {
+            fileRanges = new TreeSet<TextRange>(BY_START);
+            ranges.put(file, fileRanges);
+        }
+
+        //the same usage may be found twice, overlapping usages can not be replaced one by one
+        final TextRange previous = fileRanges.lower(range);
+        final TextRange next = fileRanges.ceiling(range);
+        if (previous != null && previous.getEndOffset() > range.getStartOffset()
+                || next != null && next.getStartOffset() < range.getEndOffset() && !next.equals(range)) {
+            return false;
+        }
+
+        fileRanges.add(range);
+        return true;
+    }
+}
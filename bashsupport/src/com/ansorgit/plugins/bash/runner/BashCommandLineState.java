@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashCommandLineState.java, Class: BashCommandLineState
- * Last modified: 2010-05-13
+ * Last modified: 2011-02-10
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -54,24 +54,52 @@ public class BashCommandLineState extends CommandLineState {
         return osProcessHandler;
     }
 
-    private GeneralCommandLine generateCommandLine() {
-        GeneralCommandLine commandLine = new GeneralCommandLine();
-        commandLine.setExePath(runConfiguration.getInterpreterPath());
-        commandLine.getParametersList().addParametersString(runConfiguration.getInterpreterOptions());
+    protected BashRunConfiguration getRunConfiguration() {
+        return runConfiguration;
+    }
 
-        if (!StringUtil.isEmptyOrSpaces(runConfiguration.getScriptName())) {
-            commandLine.addParameter(runConfiguration.getScriptName());
-        }
+    private GeneralCommandLine generateCommandLine() throws ExecutionException {
+        GeneralCommandLine commandLine = createInterpreterCommandLine(runConfiguration, runConfiguration.isPassParentEnvs());
+
+        addScriptParameter(commandLine);
 
         commandLine.getParametersList().addParametersString(runConfiguration.getScriptParameters());
 
-        if (!StringUtil.isEmptyOrSpaces(runConfiguration.getWorkingDirectory())) {
-            commandLine.setWorkDirectory(runConfiguration.getWorkingDirectory());
+        return commandLine;
+    }
+
+    /**
+     * Creates a command line which calls the interpreter with the interpreter options, the working directory
+     * and the environment of the given parameters. The script and its parameters have to be added by the caller.
+     *
+     * @param params         The common parameters of a Bash run configuration
+     * @param passParentEnvs If the environment of the IDE should be passed to the interpreter
+     * @return The new command line
+     */
+    public static GeneralCommandLine createInterpreterCommandLine(CommonBashRunConfigurationParams params, boolean passParentEnvs) {
+        GeneralCommandLine commandLine = new GeneralCommandLine();
+        commandLine.setExePath(params.getInterpreterPath());
+        commandLine.getParametersList().addParametersString(params.getInterpreterOptions());
+
+        if (!StringUtil.isEmptyOrSpaces(params.getWorkingDirectory())) {
+            commandLine.setWorkDirectory(params.getWorkingDirectory());
         }
 
-        commandLine.setEnvParams(runConfiguration.getEnvs());
-        commandLine.setPassParentEnvs(runConfiguration.isPassParentEnvs());
+        commandLine.setEnvParams(params.getEnvs());
+        commandLine.setPassParentEnvs(passParentEnvs);
 
         return commandLine;
     }
+
+    /**
+     * Adds the script to the command line. It is added between the interpreter options and the script parameters.
+     *
+     * @param commandLine The command line to modify
+     * @throws ExecutionException If the script can not be executed
+     */
+    protected void addScriptParameter(GeneralCommandLine commandLine) throws ExecutionException {
+        if (!StringUtil.isEmptyOrSpaces(runConfiguration.getScriptName())) {
+            commandLine.addParameter(runConfiguration.getScriptName());
+        }
+    }
 }
\ No newline at end of file
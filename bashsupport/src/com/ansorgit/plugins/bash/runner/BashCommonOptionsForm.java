@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashCommonOptionsForm.java, Class: BashCommonOptionsForm
- * Last modified: 2010-05-13
+ * Last modified: 2011-02-10
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@
 package com.ansorgit.plugins.bash.runner;
 
 import com.intellij.execution.configuration.EnvironmentVariablesComponent;
+import com.intellij.execution.configurations.RunConfiguration;
 import com.intellij.ide.util.BrowseFilesListener;
 import com.intellij.openapi.ui.TextFieldWithBrowseButton;
 import com.intellij.ui.RawCommandLineEditor;
@@ -37,12 +38,12 @@ public class BashCommonOptionsForm implements CommonBashRunConfigurationParams {
     private EnvironmentVariablesComponent environmentVariablesEdit;
     private TextFieldWithBrowseButton bashInterpreterEdit;
     private TextFieldWithBrowseButton workingDirEdit;
-    private BashRunConfiguration bashRunConfiguration;
+    private RunConfiguration runConfiguration;
 
-    public BashCommonOptionsForm(BashRunConfiguration bashRunConfiguration) {
-        this.bashRunConfiguration = bashRunConfiguration;
-        bashInterpreterEdit.addBrowseFolderListener("Select Bash Interpreter", "", bashRunConfiguration.getProject(), BrowseFilesListener.SINGLE_FILE_DESCRIPTOR);
-        workingDirEdit.addBrowseFolderListener("Select Working Directory", "", bashRunConfiguration.getProject(), BrowseFilesListener.SINGLE_DIRECTORY_DESCRIPTOR);
+    public BashCommonOptionsForm(RunConfiguration runConfiguration) {
+        this.runConfiguration = runConfiguration;
+        bashInterpreterEdit.addBrowseFolderListener("Select Bash Interpreter", "", runConfiguration.getProject(), BrowseFilesListener.SINGLE_FILE_DESCRIPTOR);
+        workingDirEdit.addBrowseFolderListener("Select Working Directory", "", runConfiguration.getProject(), BrowseFilesListener.SINGLE_DIRECTORY_DESCRIPTOR);
     }
 
     public String getInterpreterOptions() {
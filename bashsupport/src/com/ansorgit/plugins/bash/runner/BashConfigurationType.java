@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashConfigurationType.java, Class: BashConfigurationType
- * Last modified: 2010-05-13
+ * Last modified: 2011-02-10
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@
 
 package com.ansorgit.plugins.bash.runner;
 
+import com.ansorgit.plugins.bash.runner.batch.BashBatchRunConfiguration;
 import com.ansorgit.plugins.bash.util.BashIcons;
 import com.ansorgit.plugins.bash.util.BashInterpreterDetection;
 import com.intellij.execution.configurations.ConfigurationFactory;
@@ -66,7 +67,7 @@ public class BashConfigurationType implements ConfigurationType {
     }
 
     public ConfigurationFactory[] getConfigurationFactories() {
-        return new ConfigurationFactory[]{new BashConfigurationFactory(this)};
+        return new ConfigurationFactory[]{new BashConfigurationFactory(this), new BashBatchConfigurationFactory(this)};
     }
 
     private static class BashConfigurationFactory extends ConfigurationFactory {
@@ -82,4 +83,22 @@ public class BashConfigurationType implements ConfigurationType {
             return configuration;
         }
     }
+
+    private static class BashBatchConfigurationFactory extends ConfigurationFactory {
+        public BashBatchConfigurationFactory(BashConfigurationType configurationType) {
+            super(configurationType);
+        }
+
+        @Override
+        public String getName() {
+            return "Bash batch";
+        }
+
+        @Override
+        public RunConfiguration createTemplateConfiguration(Project project) {
+            BashBatchRunConfiguration configuration = new BashBatchRunConfiguration(new RunConfigurationModule(project), this, "");
+            configuration.setInterpreterPath(new BashInterpreterDetection().findBestLocation());
+            return configuration;
+        }
+    }
 }
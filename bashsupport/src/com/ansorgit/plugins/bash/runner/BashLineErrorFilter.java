@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashLineErrorFilter.java, Class: BashLineErrorFilter
- * Last modified: 2010-06-05
+ * Last modified: 2011-02-08
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,24 +19,157 @@
 package com.ansorgit.plugins.bash.runner;
 
 import com.intellij.execution.filters.Filter;
-import com.intellij.execution.filters.RegexpFilter;
+import com.intellij.execution.filters.OpenFileHyperlinkInfo;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This is a custom line filter to insert hyperlinks to the line which has a problem.
  * Bash reports the errors in this format:
+ * <code>/home/user/test.sh: line 13: notHere: command not found</code>
+ * <p/>
+ * The filter is applied on every line of the console output. The lines are checked by a hand-written scanner
+ * which does not allocate for lines without an error location. The file lookup is only done for lines which
+ * match and the looked up files are cached.
  * <p/>
  * User: jansorg
  * Date: Oct 31, 2009
  * Time: 10:36:04 PM
  */
-public class BashLineErrorFilter extends RegexpFilter implements Filter {
-    //e.g. /home/user/test.sh: line 13: notHere: command not found
-    private static final String FILTER_REGEXP =
-            RegexpFilter.FILE_PATH_MACROS + ": [a-zA-Z]+ " + RegexpFilter.LINE_MACROS + ": .+";
+public class BashLineErrorFilter implements Filter {
+    private static final int MAX_CACHED_FILES = 64;
+
+    private final Project project;
+
+    //the paths which were looked up, files which do not exist are stored as null value
+    private final Map<String, VirtualFile> fileCache = new LinkedHashMap<String, VirtualFile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VirtualFile> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
 
     public BashLineErrorFilter(Project project) {
-        //: line (\d+):
-        super(project, FILTER_REGEXP);
+        this.project = project;
+    }
+
+    public Result applyFilter(String line, int entireLength) {
+        final ErrorLocation location = findErrorLocation(line);
+        if (location == null) {
+            return null;
+        }
+
+        final VirtualFile file = findFile(line.substring(location.pathStart, location.pathEnd));
+        if (file == null) {
+            return null;
+        }
+
+        final int lineStartOffset = entireLength - line.length();
+        return new Result(lineStartOffset + location.pathStart, lineStartOffset + location.end,
+                new OpenFileHyperlinkInfo(project, file, Math.max(0, location.lineNumber - 1)));
+    }
+
+    @Nullable
+    private VirtualFile findFile(String path) {
+        synchronized (fileCache) {
+            final VirtualFile cached = fileCache.get(path);
+            if (cached != null && cached.isValid()) {
+                return cached;
+            }
+
+            if (cached == null && fileCache.containsKey(path)) {
+                return null;
+            }
+        }
+
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path.replace(File.separatorChar, '/'));
+
+        synchronized (fileCache) {
+            fileCache.put(path, file);
+        }
+
+        return file;
+    }
+
+    /**
+     * Scans a line for an error location in the format <code>path: line 13: message</code>.
+     * Every colon of the line is checked at most once, the time to scan a line is linear to its length.
+     *
+     * @param line The line to scan
+     * @return The location or null if the line does not report an error location
+     */
+    @Nullable
+    static ErrorLocation findErrorLocation(String line) {
+        final int length = line.length();
+
+        int pathStart = 0;
+        while (pathStart < length && Character.isWhitespace(line.charAt(pathStart))) {
+            pathStart++;
+        }
+
+        for (int colon = line.indexOf(':', pathStart + 1); colon > 0; colon = line.indexOf(':', colon + 1)) {
+            int pos = colon + 1;
+            if (pos >= length || line.charAt(pos) != ' ') {
+                continue;
+            }
+
+            //the word, e.g. "line"
+            final int wordStart = ++pos;
+            while (pos < length && isAsciiLetter(line.charAt(pos))) {
+                pos++;
+            }
+
+            if (pos == wordStart || pos >= length || line.charAt(pos) != ' ') {
+                continue;
+            }
+
+            //the line number, it is limited to 9 digits to prevent an overflow
+            final int numberStart = ++pos;
+            int lineNumber = 0;
+            while (pos < length && pos - numberStart < 9 && isDigit(line.charAt(pos))) {
+                lineNumber = lineNumber * 10 + (line.charAt(pos) - '0');
+                pos++;
+            }
+
+            //the number has to be followed by ": " and the message
+            if (pos == numberStart || pos + 2 >= length || line.charAt(pos) != ':' || line.charAt(pos + 1) != ' ') {
+                continue;
+            }
+
+            return new ErrorLocation(pathStart, colon, lineNumber, pos);
+        }
+
+        return null;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * The location of a reported error in a console line.
+     */
+    static final class ErrorLocation {
+        final int pathStart;
+        final int pathEnd;
+        final int lineNumber;
+        final int end;
+
+        ErrorLocation(int pathStart, int pathEnd, int lineNumber, int end) {
+            this.pathStart = pathStart;
+            this.pathEnd = pathEnd;
+            this.lineNumber = lineNumber;
+            this.end = end;
+        }
     }
 }
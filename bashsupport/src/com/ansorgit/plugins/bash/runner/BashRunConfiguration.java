@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: BashRunConfiguration.java, Class: BashRunConfiguration
- * Last modified: 2010-03-01
+ * Last modified: 2011-02-09
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@
 
 package com.ansorgit.plugins.bash.runner;
 
+import com.ansorgit.plugins.bash.runner.profiler.BashProfileCommandLineState;
+import com.ansorgit.plugins.bash.runner.profiler.BashProfileExecutor;
 import com.google.common.collect.Lists;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.Executor;
@@ -78,7 +80,9 @@ public class BashRunConfiguration extends ModuleBasedConfiguration<RunConfigurat
     }
 
     public RunProfileState getState(@NotNull Executor executor, @NotNull ExecutionEnvironment env) throws ExecutionException {
-        BashCommandLineState state = new BashCommandLineState(this, env);
+        BashCommandLineState state = BashProfileExecutor.EXECUTOR_ID.equals(executor.getId())
+                ? new BashProfileCommandLineState(this, env)
+                : new BashCommandLineState(this, env);
 
         TextConsoleBuilder textConsoleBuilder = new BashTextConsoleBuilder(getProject());
         textConsoleBuilder.addFilter(new BashLineErrorFilter(getProject()));
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashRunner.java, Class: BashRunner
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-10
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@
 
 package com.ansorgit.plugins.bash.runner;
 
+import com.ansorgit.plugins.bash.runner.batch.BashBatchRunConfiguration;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
 import com.intellij.execution.Executor;
@@ -45,7 +46,8 @@ public class BashRunner extends DefaultProgramRunner {
     }
 
     public boolean canRun(@NotNull String executorId, @NotNull RunProfile profile) {
-        return executorId.equals(DefaultRunExecutor.EXECUTOR_ID) && profile instanceof BashRunConfiguration;
+        return executorId.equals(DefaultRunExecutor.EXECUTOR_ID)
+                && (profile instanceof BashRunConfiguration || profile instanceof BashBatchRunConfiguration);
     }
 
 
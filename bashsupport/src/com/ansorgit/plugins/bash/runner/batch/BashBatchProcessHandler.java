@@ -0,0 +1,313 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchProcessHandler.java, Class: BashBatchProcessHandler
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.ansorgit.plugins.bash.runner.BashCommandLineState;
+import com.google.common.collect.Sets;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.OSProcessHandler;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process handler of a batch run. It runs the scripts on a pool of worker threads, at most the configured number
+ * of scripts is executed at the same time.
+ * <p/>
+ * The output of the scripts is passed on line by line, each line is prefixed with the name of its script.
+ * The batch terminates with exit code 0 if all scripts passed and with exit code 1 otherwise.
+ *
+ * @author Joachim Ansorg
+ */
+class BashBatchProcessHandler extends ProcessHandler {
+    private final BashBatchRunConfiguration runConfiguration;
+    private final BashScriptFileSet fileSet;
+    private final List<File> scripts;
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final Set<Process> runningProcesses = Collections.synchronizedSet(Sets.<Process>newHashSet());
+    private volatile ExecutorService workers;
+
+    BashBatchProcessHandler(BashBatchRunConfiguration runConfiguration, BashScriptFileSet fileSet, List<File> scripts) {
+        this.runConfiguration = runConfiguration;
+        this.fileSet = fileSet;
+        this.scripts = scripts;
+    }
+
+    @Override
+    public void startNotify() {
+        super.startNotify();
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            public void run() {
+                runBatch();
+            }
+        });
+    }
+
+    private void runBatch() {
+        final long startTime = System.currentTimeMillis();
+        final BashBatchReport.Result[] results = new BashBatchReport.Result[scripts.size()];
+
+        try {
+            workers = Executors.newFixedThreadPool(Math.max(1, Math.min(runConfiguration.getMaxParallelRuns(), scripts.size())));
+
+            for (int i = 0; i < scripts.size() && !stopped.get(); i++) {
+                final int index = i;
+                try {
+                    workers.execute(new Runnable() {
+                        public void run() {
+                            results[index] = runScript(scripts.get(index));
+
+                            if (runConfiguration.isFailFast() && results[index] != null && results[index].status == BashBatchReport.Status.FAILED) {
+                                stop();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    //the workers were shut down by stop(), the remaining scripts are skipped
+                    break;
+                }
+            }
+
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            stop();
+        } finally {
+            //scripts which were not submitted or not started are reported as skipped
+            final BashBatchReport report = new BashBatchReport();
+            for (int i = 0; i < scripts.size(); i++) {
+                report.add(results[i] != null
+                        ? results[i]
+                        : new BashBatchReport.Result(fileSet.relativePath(scripts.get(i)), BashBatchReport.Status.SKIPPED, -1, 0));
+            }
+            report.setDurationMillis(System.currentTimeMillis() - startTime);
+
+            printSummary(report);
+            writeReport(report);
+
+            notifyProcessTerminated(report.count(BashBatchReport.Status.PASSED) == scripts.size() ? 0 : 1);
+        }
+    }
+
+    /**
+     * Runs a single script and waits until it terminated.
+     *
+     * @return The result or null if the script was not started because the batch was stopped
+     */
+    @Nullable
+    private BashBatchReport.Result runScript(File script) {
+        if (stopped.get()) {
+            return null;
+        }
+
+        final String name = fileSet.relativePath(script);
+        final long startTime = System.currentTimeMillis();
+
+        final GeneralCommandLine commandLine = BashCommandLineState.createInterpreterCommandLine(runConfiguration, runConfiguration.isPassParentEnvs());
+        commandLine.addParameter(script.getPath());
+        commandLine.getParametersList().addParametersString(runConfiguration.getScriptParameters());
+
+        final Process process;
+        try {
+            process = commandLine.createProcess();
+        } catch (ExecutionException e) {
+            notifyTextAvailable("[" + name + "] " + e.getMessage() + "\n", ProcessOutputTypes.STDERR);
+            return new BashBatchReport.Result(name, BashBatchReport.Status.FAILED, -1, System.currentTimeMillis() - startTime);
+        }
+
+        runningProcesses.add(process);
+        if (stopped.get()) {
+            process.destroy();
+        }
+
+        int exitCode;
+        try {
+            final ScriptOutput output = new ScriptOutput("[" + name + "] ");
+
+            final OSProcessHandler scriptHandler = new OSProcessHandler(process, commandLine.getCommandLineString());
+            scriptHandler.addProcessListener(new ProcessAdapter() {
+                @Override
+                public void onTextAvailable(ProcessEvent event, Key outputType) {
+                    if (outputType != ProcessOutputTypes.SYSTEM) {
+                        output.append(event.getText(), outputType);
+                    }
+                }
+            });
+
+            scriptHandler.startNotify();
+            scriptHandler.waitFor();
+            exitCode = process.waitFor();
+
+            output.flush();
+        } catch (InterruptedException e) {
+            process.destroy();
+            exitCode = -1;
+        } finally {
+            runningProcesses.remove(process);
+        }
+
+        final long duration = System.currentTimeMillis() - startTime;
+        final BashBatchReport.Status status = exitCode == 0
+                ? BashBatchReport.Status.PASSED
+                : (stopped.get() ? BashBatchReport.Status.CANCELLED : BashBatchReport.Status.FAILED);
+
+        notifyTextAvailable(String.format("[%s] %s, exit code %d, %d ms\n", name, status.name().toLowerCase(), exitCode, duration), ProcessOutputTypes.SYSTEM);
+        return new BashBatchReport.Result(name, status, exitCode, duration);
+    }
+
+    /**
+     * Stops the batch. Scripts which were not yet started are skipped, the running scripts are destroyed.
+     */
+    private void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+
+        final ExecutorService currentWorkers = workers;
+        if (currentWorkers != null) {
+            currentWorkers.shutdownNow();
+        }
+
+        synchronized (runningProcesses) {
+            for (Process process : runningProcesses) {
+                process.destroy();
+            }
+        }
+    }
+
+    private void printSummary(BashBatchReport report) {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("\n%d scripts in %.1f s: %d passed, %d failed, %d cancelled, %d skipped\n",
+                scripts.size(), report.getDurationMillis() / 1000.0,
+                report.count(BashBatchReport.Status.PASSED), report.count(BashBatchReport.Status.FAILED),
+                report.count(BashBatchReport.Status.CANCELLED), report.count(BashBatchReport.Status.SKIPPED)));
+
+        for (BashBatchReport.Result result : report.getResults()) {
+            if (result.status == BashBatchReport.Status.FAILED) {
+                summary.append("Failed: ").append(result.script).append(" (exit code ").append(result.exitCode).append(")\n");
+            }
+        }
+
+        notifyTextAvailable(summary.toString(), ProcessOutputTypes.SYSTEM);
+    }
+
+    private void writeReport(BashBatchReport report) {
+        final String reportPath = runConfiguration.getReportPath();
+        if (StringUtil.isEmptyOrSpaces(reportPath)) {
+            return;
+        }
+
+        try {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(reportPath), "UTF-8");
+            try {
+                if (reportPath.toLowerCase().endsWith(".json")) {
+                    report.writeJson(writer);
+                } else {
+                    report.writeCsv(writer);
+                }
+            } finally {
+                writer.close();
+            }
+
+            notifyTextAvailable("Timing report written to " + reportPath + "\n", ProcessOutputTypes.SYSTEM);
+        } catch (IOException e) {
+            notifyTextAvailable("Unable to write the timing report: " + e.getMessage() + "\n", ProcessOutputTypes.STDERR);
+        }
+    }
+
+    @Override
+    protected void destroyProcessImpl() {
+        stop();
+    }
+
+    @Override
+    protected void detachProcessImpl() {
+        //the scripts are not left running without a console, they are stopped
+        stop();
+    }
+
+    @Override
+    public boolean detachIsDefault() {
+        return false;
+    }
+
+    @Override
+    public OutputStream getProcessInput() {
+        return null;
+    }
+
+    /**
+     * Collects the output of a script and passes it on in complete lines, prefixed with the script's name.
+     */
+    private final class ScriptOutput {
+        private final String prefix;
+        private final StringBuilder stdout = new StringBuilder();
+        private final StringBuilder stderr = new StringBuilder();
+
+        private ScriptOutput(String prefix) {
+            this.prefix = prefix;
+        }
+
+        synchronized void append(String text, Key outputType) {
+            final StringBuilder buffer = outputType == ProcessOutputTypes.STDERR ? stderr : stdout;
+            buffer.append(text);
+
+            int lineEnd;
+            while ((lineEnd = buffer.indexOf("\n")) >= 0) {
+                notifyTextAvailable(prefix + buffer.substring(0, lineEnd + 1), outputType);
+                buffer.delete(0, lineEnd + 1);
+            }
+        }
+
+        synchronized void flush() {
+            if (stdout.length() > 0) {
+                notifyTextAvailable(prefix + stdout + "\n", ProcessOutputTypes.STDOUT);
+                stdout.setLength(0);
+            }
+
+            if (stderr.length() > 0) {
+                notifyTextAvailable(prefix + stderr + "\n", ProcessOutputTypes.STDERR);
+                stderr.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchReport.java, Class: BashBatchReport
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a batch run. It can be exported as CSV or as JSON.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashBatchReport {
+    enum Status {
+        PASSED, FAILED, CANCELLED, SKIPPED
+    }
+
+    private final List<Result> results = Lists.newArrayList();
+    private long durationMillis;
+
+    synchronized void add(Result result) {
+        results.add(result);
+    }
+
+    synchronized List<Result> getResults() {
+        return Collections.unmodifiableList(Lists.newArrayList(results));
+    }
+
+    long getDurationMillis() {
+        return durationMillis;
+    }
+
+    void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    int count(Status status) {
+        int count = 0;
+        for (Result result : getResults()) {
+            if (result.status == status) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    void writeCsv(@NotNull Writer writer) throws IOException {
+        writer.write("script,status,exitCode,durationMillis\n");
+
+        for (Result result : getResults()) {
+            writer.write(csvValue(result.script));
+            writer.write(',');
+            writer.write(result.status.name());
+            writer.write(',');
+            writer.write(result.status == Status.SKIPPED ? "" : String.valueOf(result.exitCode));
+            writer.write(',');
+            writer.write(String.valueOf(result.durationMillis));
+            writer.write('\n');
+        }
+    }
+
+    void writeJson(@NotNull Writer writer) throws IOException {
+        writer.write("{\"durationMillis\":" + durationMillis + ",\"scripts\":[");
+
+        boolean first = true;
+        for (Result result : getResults()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            writer.write("{\"script\":");
+            writer.write(jsonValue(result.script));
+            writer.write(",\"status\":\"" + result.status.name() + "\"");
+            writer.write(",\"exitCode\":" + (result.status == Status.SKIPPED ? "null" : String.valueOf(result.exitCode)));
+            writer.write(",\"durationMillis\":" + result.durationMillis + "}");
+        }
+
+        writer.write("]}\n");
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonValue(String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.append('"').toString();
+    }
+
+    /**
+     * The result of a single script.
+     */
+    static final class Result {
+        final String script;
+        final Status status;
+        final int exitCode;
+        final long durationMillis;
+
+        Result(String script, Status status, int exitCode, long durationMillis) {
+            this.script = script;
+            this.status = status;
+            this.exitCode = exitCode;
+            this.durationMillis = durationMillis;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchRunConfiguration.java, Class: BashBatchRunConfiguration
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.ansorgit.plugins.bash.runner.BashRunConfiguration;
+import com.ansorgit.plugins.bash.runner.CommonBashRunConfigurationParams;
+import com.google.common.collect.Lists;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.Executor;
+import com.intellij.execution.configuration.EnvironmentVariablesComponent;
+import com.intellij.execution.configurations.*;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.options.SettingsEditor;
+import com.intellij.openapi.util.InvalidDataException;
+import com.intellij.openapi.util.JDOMExternalizerUtil;
+import com.intellij.openapi.util.WriteExternalException;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Run configuration which runs a set of scripts as one job. The scripts are executed with the same interpreter
+ * settings as a single Bash run configuration, a configurable number of scripts runs in parallel.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashBatchRunConfiguration extends ModuleBasedConfiguration<RunConfigurationModule> implements CommonBashRunConfigurationParams, BashBatchRunConfigurationParams {
+    static final String DEFAULT_PATTERN = "**/*.sh";
+
+    // common config
+    private String interpreterOptions = "";
+    private String workingDirectory = "";
+    private boolean passParentEnvs = true;
+    private Map<String, String> envs = new HashMap<String, String>();
+    private String interpreterPath = "";
+
+    // batch config
+    private String scriptDirectory = "";
+    private String scriptPattern = DEFAULT_PATTERN;
+    private String scriptParameters = "";
+    private int maxParallelRuns = Runtime.getRuntime().availableProcessors();
+    private boolean failFast;
+    private String reportPath = "";
+
+    public BashBatchRunConfiguration(RunConfigurationModule runConfigurationModule, ConfigurationFactory configurationFactory, String name) {
+        super(name, runConfigurationModule, configurationFactory);
+    }
+
+    @Override
+    public Collection<Module> getValidModules() {
+        Module[] allModules = ModuleManager.getInstance(getProject()).getModules();
+        return Lists.newArrayList(allModules);
+    }
+
+    @Override
+    protected ModuleBasedConfiguration createInstance() {
+        return new BashBatchRunConfiguration(getConfigurationModule(), getFactory(), getName());
+    }
+
+    public SettingsEditor<? extends RunConfiguration> getConfigurationEditor() {
+        return new BashBatchRunConfigurationEditor(this);
+    }
+
+    public RunProfileState getState(@NotNull Executor executor, @NotNull ExecutionEnvironment env) throws ExecutionException {
+        return new BashBatchRunProfileState(this, env);
+    }
+
+    @Override
+    public void checkConfiguration() throws RuntimeConfigurationException {
+        super.checkConfiguration();
+
+        if (StringUtil.isEmptyOrSpaces(interpreterPath)) {
+            throw new RuntimeConfigurationException("No interpreter path given.");
+        }
+
+        File interpreterFile = new File(interpreterPath);
+        if (!interpreterFile.isFile() || !interpreterFile.canRead()) {
+            throw new RuntimeConfigurationException("Interpreter path is invalid or not readable.");
+        }
+
+        if (StringUtil.isEmptyOrSpaces(scriptDirectory) || !new File(scriptDirectory).isDirectory()) {
+            throw new RuntimeConfigurationException("The script directory is invalid.");
+        }
+
+        if (StringUtil.isEmptyOrSpaces(scriptPattern)) {
+            throw new RuntimeConfigurationException("No script pattern given.");
+        }
+
+        if (maxParallelRuns < 1) {
+            throw new RuntimeConfigurationException("At least one script has to run at a time.");
+        }
+    }
+
+    @Override
+    public String suggestedName() {
+        return new File(scriptDirectory).getName() + " (" + scriptPattern + ")";
+    }
+
+    @Override
+    public void readExternal(Element element) throws InvalidDataException {
+        super.readExternal(element);
+
+        // common config
+        interpreterOptions = JDOMExternalizerUtil.readField(element, "INTERPRETER_OPTIONS");
+        interpreterPath = JDOMExternalizerUtil.readField(element, "INTERPRETER_PATH");
+        workingDirectory = JDOMExternalizerUtil.readField(element, "WORKING_DIRECTORY");
+
+        String str = JDOMExternalizerUtil.readField(element, "PARENT_ENVS");
+        if (str != null) {
+            passParentEnvs = Boolean.parseBoolean(str);
+        }
+
+        EnvironmentVariablesComponent.readExternal(element, envs);
+
+        getConfigurationModule().readExternal(element);
+
+        // batch config
+        scriptDirectory = JDOMExternalizerUtil.readField(element, "SCRIPT_DIRECTORY");
+        scriptPattern = JDOMExternalizerUtil.readField(element, "SCRIPT_PATTERN");
+        if (scriptPattern == null) {
+            scriptPattern = DEFAULT_PATTERN;
+        }
+
+        scriptParameters = JDOMExternalizerUtil.readField(element, "PARAMETERS");
+        reportPath = JDOMExternalizerUtil.readField(element, "REPORT_PATH");
+
+        str = JDOMExternalizerUtil.readField(element, "MAX_PARALLEL_RUNS");
+        if (str != null) {
+            try {
+                maxParallelRuns = Integer.parseInt(str);
+            } catch (NumberFormatException e) {
+                throw new InvalidDataException(e);
+            }
+        }
+
+        failFast = Boolean.parseBoolean(JDOMExternalizerUtil.readField(element, "FAIL_FAST"));
+    }
+
+    @Override
+    public void writeExternal(Element element) throws WriteExternalException {
+        super.writeExternal(element);
+
+        // common config
+        JDOMExternalizerUtil.writeField(element, "INTERPRETER_OPTIONS", interpreterOptions);
+        JDOMExternalizerUtil.writeField(element, "INTERPRETER_PATH", interpreterPath);
+        JDOMExternalizerUtil.writeField(element, "WORKING_DIRECTORY", workingDirectory);
+        JDOMExternalizerUtil.writeField(element, "PARENT_ENVS", Boolean.toString(passParentEnvs));
+        EnvironmentVariablesComponent.writeExternal(element, envs);
+
+        getConfigurationModule().writeExternal(element);
+
+        // batch config
+        JDOMExternalizerUtil.writeField(element, "SCRIPT_DIRECTORY", scriptDirectory);
+        JDOMExternalizerUtil.writeField(element, "SCRIPT_PATTERN", scriptPattern);
+        JDOMExternalizerUtil.writeField(element, "PARAMETERS", scriptParameters);
+        JDOMExternalizerUtil.writeField(element, "REPORT_PATH", reportPath);
+        JDOMExternalizerUtil.writeField(element, "MAX_PARALLEL_RUNS", String.valueOf(maxParallelRuns));
+        JDOMExternalizerUtil.writeField(element, "FAIL_FAST", Boolean.toString(failFast));
+    }
+
+    public static void copyParams(BashBatchRunConfigurationParams from, BashBatchRunConfigurationParams to) {
+        BashRunConfiguration.copyParams(from.getCommonParams(), to.getCommonParams());
+
+        to.setScriptDirectory(from.getScriptDirectory());
+        to.setScriptPattern(from.getScriptPattern());
+        to.setScriptParameters(from.getScriptParameters());
+        to.setMaxParallelRuns(from.getMaxParallelRuns());
+        to.setFailFast(from.isFailFast());
+        to.setReportPath(from.getReportPath());
+    }
+
+    public String getInterpreterOptions() {
+        return interpreterOptions;
+    }
+
+    public void setInterpreterOptions(String interpreterOptions) {
+        this.interpreterOptions = interpreterOptions;
+    }
+
+    public String getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    public void setWorkingDirectory(String workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    public boolean isPassParentEnvs() {
+        return passParentEnvs;
+    }
+
+    public void setPassParentEnvs(boolean passParentEnvs) {
+        this.passParentEnvs = passParentEnvs;
+    }
+
+    public Map<String, String> getEnvs() {
+        return envs;
+    }
+
+    public void setEnvs(Map<String, String> envs) {
+        this.envs = envs;
+    }
+
+    public String getInterpreterPath() {
+        return interpreterPath;
+    }
+
+    public void setInterpreterPath(String path) {
+        this.interpreterPath = path;
+    }
+
+    public CommonBashRunConfigurationParams getCommonParams() {
+        return this;
+    }
+
+    public String getScriptDirectory() {
+        return scriptDirectory;
+    }
+
+    public void setScriptDirectory(String scriptDirectory) {
+        this.scriptDirectory = scriptDirectory;
+    }
+
+    public String getScriptPattern() {
+        return scriptPattern;
+    }
+
+    public void setScriptPattern(String scriptPattern) {
+        this.scriptPattern = scriptPattern;
+    }
+
+    public String getScriptParameters() {
+        return scriptParameters;
+    }
+
+    public void setScriptParameters(String scriptParameters) {
+        this.scriptParameters = scriptParameters;
+    }
+
+    public int getMaxParallelRuns() {
+        return maxParallelRuns;
+    }
+
+    public void setMaxParallelRuns(int maxParallelRuns) {
+        this.maxParallelRuns = maxParallelRuns;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public String getReportPath() {
+        return reportPath;
+    }
+
+    public void setReportPath(String reportPath) {
+        this.reportPath = reportPath;
+    }
+}
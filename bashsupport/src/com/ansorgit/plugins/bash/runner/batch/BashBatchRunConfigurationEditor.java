@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchRunConfigurationEditor.java, Class: BashBatchRunConfigurationEditor
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.options.SettingsEditor;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+
+/**
+ * Settings editor of the batch run configuration.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashBatchRunConfigurationEditor extends SettingsEditor<BashBatchRunConfiguration> {
+    private BashBatchRunConfigurationForm myForm;
+
+    public BashBatchRunConfigurationEditor(BashBatchRunConfiguration runConfiguration) {
+        this.myForm = new BashBatchRunConfigurationForm(runConfiguration);
+    }
+
+    @Override
+    protected void resetEditorFrom(BashBatchRunConfiguration runConfiguration) {
+        BashBatchRunConfiguration.copyParams(runConfiguration, myForm);
+    }
+
+    @Override
+    protected void applyEditorTo(BashBatchRunConfiguration runConfiguration) throws ConfigurationException {
+        BashBatchRunConfiguration.copyParams(myForm, runConfiguration);
+    }
+
+    @Override
+    @NotNull
+    protected JComponent createEditor() {
+        return myForm.getRootPanel();
+    }
+
+    @Override
+    protected void disposeEditor() {
+        myForm = null;
+    }
+}
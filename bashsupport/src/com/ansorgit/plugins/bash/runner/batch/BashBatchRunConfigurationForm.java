@@ -0,0 +1,141 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchRunConfigurationForm.java, Class: BashBatchRunConfigurationForm
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.ansorgit.plugins.bash.runner.BashCommonOptionsForm;
+import com.ansorgit.plugins.bash.runner.CommonBashRunConfigurationParams;
+import com.intellij.ide.util.BrowseFilesListener;
+import com.intellij.openapi.ui.TextFieldWithBrowseButton;
+import com.intellij.ui.RawCommandLineEditor;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * The configuration user interface of a batch run configuration.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashBatchRunConfigurationForm implements BashBatchRunConfigurationParams {
+    private static final int MAX_PARALLEL_RUNS = 64;
+
+    private final JPanel rootPanel = new JPanel(new GridBagLayout());
+    private final TextFieldWithBrowseButton scriptDirectoryEdit = new TextFieldWithBrowseButton();
+    private final JTextField scriptPatternEdit = new JTextField();
+    private final RawCommandLineEditor commandLineEdit = new RawCommandLineEditor();
+    private final JSpinner maxParallelRunsEdit = new JSpinner(new SpinnerNumberModel(1, 1, MAX_PARALLEL_RUNS, 1));
+    private final JCheckBox failFastEdit = new JCheckBox("Stop the batch after the first failed script");
+    private final TextFieldWithBrowseButton reportPathEdit = new TextFieldWithBrowseButton();
+    private final BashCommonOptionsForm commonOptionsForm;
+
+    public BashBatchRunConfigurationForm(BashBatchRunConfiguration runConfiguration) {
+        commonOptionsForm = new BashCommonOptionsForm(runConfiguration);
+
+        scriptDirectoryEdit.addBrowseFolderListener("Select script directory", "", runConfiguration.getProject(), BrowseFilesListener.SINGLE_DIRECTORY_DESCRIPTOR);
+        reportPathEdit.addBrowseFolderListener("Select report file", "A file ending with .json is written as JSON, all others as CSV.", runConfiguration.getProject(), BrowseFilesListener.SINGLE_FILE_DESCRIPTOR);
+
+        addRow(0, "Script directory:", scriptDirectoryEdit);
+        addRow(1, "Script pattern:", scriptPatternEdit);
+        addRow(2, "Script parameters:", commandLineEdit);
+        addRow(3, "Parallel scripts:", maxParallelRunsEdit);
+        addRow(4, null, failFastEdit);
+        addRow(5, "Timing report (CSV or JSON):", reportPathEdit);
+
+        final GridBagConstraints constraints = new GridBagConstraints();
+        constraints.gridy = 6;
+        constraints.gridwidth = 2;
+        constraints.weightx = 1;
+        constraints.weighty = 1;
+        constraints.fill = GridBagConstraints.BOTH;
+        rootPanel.add(commonOptionsForm.getRootPanel(), constraints);
+    }
+
+    private void addRow(int row, String label, JComponent component) {
+        final GridBagConstraints constraints = new GridBagConstraints();
+        constraints.gridy = row;
+        constraints.insets = new Insets(2, 0, 2, 4);
+        constraints.anchor = GridBagConstraints.WEST;
+
+        if (label != null) {
+            constraints.gridx = 0;
+            rootPanel.add(new JLabel(label), constraints);
+        }
+
+        constraints.gridx = 1;
+        constraints.weightx = 1;
+        constraints.fill = component instanceof JSpinner ? GridBagConstraints.NONE : GridBagConstraints.HORIZONTAL;
+        rootPanel.add(component, constraints);
+    }
+
+    public CommonBashRunConfigurationParams getCommonParams() {
+        return commonOptionsForm;
+    }
+
+    public String getScriptDirectory() {
+        return scriptDirectoryEdit.getText();
+    }
+
+    public void setScriptDirectory(String scriptDirectory) {
+        scriptDirectoryEdit.setText(scriptDirectory);
+    }
+
+    public String getScriptPattern() {
+        return scriptPatternEdit.getText();
+    }
+
+    public void setScriptPattern(String scriptPattern) {
+        scriptPatternEdit.setText(scriptPattern);
+    }
+
+    public String getScriptParameters() {
+        return commandLineEdit.getText();
+    }
+
+    public void setScriptParameters(String scriptParameters) {
+        commandLineEdit.setText(scriptParameters);
+    }
+
+    public int getMaxParallelRuns() {
+        return (Integer) maxParallelRunsEdit.getValue();
+    }
+
+    public void setMaxParallelRuns(int maxParallelRuns) {
+        maxParallelRunsEdit.setValue(Math.max(1, Math.min(MAX_PARALLEL_RUNS, maxParallelRuns)));
+    }
+
+    public boolean isFailFast() {
+        return failFastEdit.isSelected();
+    }
+
+    public void setFailFast(boolean failFast) {
+        failFastEdit.setSelected(failFast);
+    }
+
+    public String getReportPath() {
+        return reportPathEdit.getText();
+    }
+
+    public void setReportPath(String reportPath) {
+        reportPathEdit.setText(reportPath);
+    }
+
+    public JComponent getRootPanel() {
+        return rootPanel;
+    }
+}
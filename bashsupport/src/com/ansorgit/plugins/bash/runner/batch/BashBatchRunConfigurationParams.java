@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchRunConfigurationParams.java, Class: BashBatchRunConfigurationParams
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.ansorgit.plugins.bash.runner.CommonBashRunConfigurationParams;
+
+/**
+ * The settings of a batch run configuration.
+ *
+ * @author Joachim Ansorg
+ */
+public interface BashBatchRunConfigurationParams {
+    CommonBashRunConfigurationParams getCommonParams();
+
+    String getScriptDirectory();
+
+    void setScriptDirectory(String scriptDirectory);
+
+    String getScriptPattern();
+
+    void setScriptPattern(String scriptPattern);
+
+    String getScriptParameters();
+
+    void setScriptParameters(String scriptParameters);
+
+    int getMaxParallelRuns();
+
+    void setMaxParallelRuns(int maxParallelRuns);
+
+    boolean isFailFast();
+
+    void setFailFast(boolean failFast);
+
+    String getReportPath();
+
+    void setReportPath(String reportPath);
+}
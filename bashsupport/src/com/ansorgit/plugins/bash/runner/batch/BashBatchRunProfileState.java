@@ -0,0 +1,79 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchRunProfileState.java, Class: BashBatchRunProfileState
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.ansorgit.plugins.bash.runner.BashTextConsoleBuilder;
+import com.intellij.execution.DefaultExecutionResult;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.ExecutionResult;
+import com.intellij.execution.Executor;
+import com.intellij.execution.configurations.ConfigurationPerRunnerSettings;
+import com.intellij.execution.configurations.RunProfileState;
+import com.intellij.execution.configurations.RunnerSettings;
+import com.intellij.execution.process.ProcessTerminatedListener;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.ProgramRunner;
+import com.intellij.execution.ui.ConsoleView;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The state of a batch run. The scripts are collected when the batch is started, the output of all scripts is
+ * displayed in a single console.
+ *
+ * @author Joachim Ansorg
+ */
+class BashBatchRunProfileState implements RunProfileState {
+    private final BashBatchRunConfiguration runConfiguration;
+    private final ExecutionEnvironment environment;
+
+    BashBatchRunProfileState(BashBatchRunConfiguration runConfiguration, ExecutionEnvironment environment) {
+        this.runConfiguration = runConfiguration;
+        this.environment = environment;
+    }
+
+    public ExecutionResult execute(Executor executor, @NotNull ProgramRunner runner) throws ExecutionException {
+        final BashScriptFileSet fileSet = new BashScriptFileSet(new File(runConfiguration.getScriptDirectory()), runConfiguration.getScriptPattern());
+
+        final List<File> scripts = fileSet.collectFiles();
+        if (scripts.isEmpty()) {
+            throw new ExecutionException("No scripts in " + runConfiguration.getScriptDirectory() + " match " + runConfiguration.getScriptPattern());
+        }
+
+        final BashBatchProcessHandler processHandler = new BashBatchProcessHandler(runConfiguration, fileSet, scripts);
+
+        //notifies in the status bar with a message and the exit code
+        ProcessTerminatedListener.attach(processHandler, runConfiguration.getProject());
+
+        final ConsoleView console = new BashTextConsoleBuilder(runConfiguration.getProject()).getConsole();
+        console.attachToProcess(processHandler);
+
+        return new DefaultExecutionResult(console, processHandler);
+    }
+
+    public RunnerSettings getRunnerSettings() {
+        return environment.getRunnerSettings();
+    }
+
+    public ConfigurationPerRunnerSettings getConfigurationSettings() {
+        return environment.getConfigurationSettings();
+    }
+}
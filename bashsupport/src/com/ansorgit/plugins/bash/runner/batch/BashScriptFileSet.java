@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashScriptFileSet.java, Class: BashScriptFileSet
+ * Last modified: 2011-02-12
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The scripts of a batch run. The scripts are the files below a base directory whose relative path matches
+ * a glob pattern.
+ * <p/>
+ * The pattern uses '/' as separator. '*' and '?' match within a single path element, '**' matches any number
+ * of directories. "**&#47;*.sh" matches all files with the extension .sh, "*.sh" only those in the base directory.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashScriptFileSet {
+    private final File baseDirectory;
+    private final Pattern pattern;
+
+    public BashScriptFileSet(@NotNull File baseDirectory, @NotNull String globPattern) {
+        this.baseDirectory = baseDirectory;
+        this.pattern = Pattern.compile(globToRegexp(globPattern.trim()));
+    }
+
+    public boolean matches(@NotNull String relativePath) {
+        return pattern.matcher(relativePath).matches();
+    }
+
+    /**
+     * Collects the matching files.
+     *
+     * @return The files, sorted by their relative path
+     */
+    @NotNull
+    public List<File> collectFiles() {
+        final List<File> result = Lists.newArrayList();
+        collectFiles(baseDirectory, "", result, Sets.<String>newHashSet());
+
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @return The path of the file relative to the base directory, the file has to be located below of it
+     */
+    @NotNull
+    public String relativePath(@NotNull File file) {
+        final String basePath = baseDirectory.getPath();
+        final String path = file.getPath();
+
+        return path.startsWith(basePath) && path.length() > basePath.length()
+                ? path.substring(basePath.length() + 1).replace(File.separatorChar, '/')
+                : file.getName();
+    }
+
+    private void collectFiles(File directory, String relativePath, List<File> result, Set<String> visitedDirectories) {
+        //symbolic links may create cycles
+        try {
+            if (!visitedDirectories.add(directory.getCanonicalPath())) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        final File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (File child : children) {
+            final String childPath = relativePath.length() == 0 ? child.getName() : relativePath + "/" + child.getName();
+
+            if (child.isDirectory()) {
+                collectFiles(child, childPath, result, visitedDirectories);
+            } else if (matches(childPath)) {
+                result.add(child);
+            }
+        }
+    }
+
+    static String globToRegexp(String glob) {
+        final StringBuilder result = new StringBuilder(glob.length() * 2);
+
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                    //"**/" matches no directory, too
+                    result.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    result.append(".*");
+                    i++;
+                }
+            } else if (c == '*') {
+                result.append("[^/]*");
+            } else if (c == '?') {
+                result.append("[^/]");
+            } else if (Character.isLetterOrDigit(c) || c == '/') {
+                result.append(c);
+            } else {
+                result.append('\\').append(c);
+            }
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProcessPool.java, Class: BashProcessPool
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.pool;
+
+import com.ansorgit.plugins.bash.util.BashInterpreterDetection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of bash processes which are started in advance.
+ * <p/>
+ * The pool keeps a few sandboxed workers which evaluate commands with the {@link BashWorkerProtocol}. The workers
+ * run as restricted shells without the user's environment and startup files in an empty directory. The PATH only
+ * contains this empty directory, thus the workers can only execute the builtin commands of bash. A worker is
+ * replaced if it did not answer in time and after {@link #MAX_WORKER_USES} requests.
+ * <p/>
+ * The pool also keeps a single spare process for the Bash console. It is started after a console was opened, with
+ * the working directory and the arguments of that console and the {@link #createConsoleEnvironment console environment}.
+ * The next console with the same working directory and arguments takes over this process instead of waiting for a
+ * new interpreter.
+ * <p/>
+ * Nothing is started in advance until the pool is used or warmed up. New processes are only started on a background
+ * thread of the pool, the callers never wait for a new interpreter.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashProcessPool {
+    static final int WORKER_COUNT = 2;
+    static final int MAX_WORKER_USES = 100;
+
+    //the variables of the IDE environment which are passed to the console processes
+    private static final String[] CONSOLE_VARIABLES = {"HOME", "USER", "LOGNAME", "PATH", "SHELL", "TERM", "LANG", "LC_ALL", "TMPDIR"};
+
+    private static BashProcessPool instance;
+
+    private final String interpreterPath;
+    private final BlockingQueue<BashWorker> idleWorkers = new LinkedBlockingQueue<BashWorker>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final ExecutorService spawnExecutor;
+    private final Object consoleLock = new Object();
+    private Process spareConsoleProcess;
+    private String spareWorkingDirectory;
+    private List<String> spareArguments;
+    private File sandboxDirectory;
+    private volatile boolean shutdown = false;
+
+    BashProcessPool(@NotNull String interpreterPath) {
+        this.interpreterPath = interpreterPath;
+        this.spawnExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "BashSupport process pool");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return The shared pool which uses the detected bash interpreter
+     */
+    @NotNull
+    public static synchronized BashProcessPool getInstance() {
+        if (instance == null) {
+            instance = new BashProcessPool(new BashInterpreterDetection().findBestLocation());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Shuts down the shared pool, if it was created.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * @return The path to the interpreter which is used by the processes of this pool
+     */
+    @NotNull
+    public String getInterpreterPath() {
+        return interpreterPath;
+    }
+
+    /**
+     * @return True if the interpreter is a bash which can run the evaluation workers
+     */
+    public boolean isEvaluationSupported() {
+        return interpreterPath.endsWith("bash") && new File(interpreterPath).isFile();
+    }
+
+    /**
+     * Starts the missing workers of the pool in the background.
+     */
+    public void warmUp() {
+        if (shutdown || interpreterPath.length() == 0) {
+            return;
+        }
+
+        try {
+            spawnExecutor.execute(new Runnable() {
+                public void run() {
+                    fillPool();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //the pool was shut down in the meantime
+        }
+    }
+
+    /**
+     * Evaluates a command in one of the sandboxed workers. The command is executed in a subshell, it can not
+     * change the state of the worker.
+     * <p/>
+     * Only a worker which is already running is used. If all workers are busy or not yet started the pool is warmed
+     * up in the background and no result is returned.
+     *
+     * @param command       The command to evaluate
+     * @param timeoutMillis The maximum time to wait for the result
+     * @return The response or null if no worker was available or if the command could not be evaluated in time
+     */
+    @Nullable
+    public BashWorkerProtocol.Response evaluate(@NotNull String command, long timeoutMillis) {
+        if (shutdown || !isEvaluationSupported()) {
+            return null;
+        }
+
+        final BashWorker worker = idleWorkers.poll();
+        if (worker == null) {
+            warmUp();
+            return null;
+        }
+
+        try {
+            final BashWorkerProtocol.Response response = worker.execute(command, timeoutMillis);
+            releaseWorker(worker);
+            return response;
+        } catch (IOException e) {
+            discardWorker(worker);
+        } catch (TimeoutException e) {
+            //a hung worker is not used again
+            discardWorker(worker);
+        }
+
+        return null;
+    }
+
+    /**
+     * Takes the spare console process if it was started with the given working directory and arguments. A new spare
+     * process with these settings is started in the background.
+     *
+     * @param workingDirectory The working directory of the console, may be null
+     * @param arguments        The arguments of the interpreter
+     * @return The process or null if no matching spare process was available
+     */
+    @Nullable
+    public Process takeConsoleProcess(@Nullable String workingDirectory, @NotNull List<String> arguments) {
+        Process process;
+        synchronized (consoleLock) {
+            process = spareConsoleProcess;
+            if (process != null && !(equal(spareWorkingDirectory, workingDirectory) && spareArguments.equals(arguments))) {
+                process.destroy();
+                process = null;
+            }
+
+            spareConsoleProcess = null;
+        }
+
+        startConsoleProcess(workingDirectory, new ArrayList<String>(arguments));
+
+        return process != null && isRunning(process) ? process : null;
+    }
+
+    /**
+     * Terminates all processes of the pool. Workers which are currently in use are terminated when they are released.
+     */
+    public void shutdown() {
+        shutdown = true;
+        spawnExecutor.shutdownNow();
+
+        BashWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            discardWorker(worker);
+        }
+
+        synchronized (consoleLock) {
+            if (spareConsoleProcess != null) {
+                spareConsoleProcess.destroy();
+                spareConsoleProcess = null;
+            }
+        }
+    }
+
+    /**
+     * The console processes do not inherit the environment of the IDE, it may contain variables which were only
+     * meant for the IDE, e.g. its library path. Only the variables of a login environment are passed on.
+     *
+     * @param parentEnvironment The environment of the IDE
+     * @return The environment of a new console process
+     */
+    @NotNull
+    public static Map<String, String> createConsoleEnvironment(@NotNull Map<String, String> parentEnvironment) {
+        final Map<String, String> result = new HashMap<String, String>();
+        for (String name : CONSOLE_VARIABLES) {
+            final String value = parentEnvironment.get(name);
+            if (value != null) {
+                result.put(name, value);
+            }
+        }
+
+        return result;
+    }
+
+    int getIdleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    boolean hasSpareConsoleProcess() {
+        synchronized (consoleLock) {
+            return spareConsoleProcess != null;
+        }
+    }
+
+    private void fillPool() {
+        while (!shutdown && isEvaluationSupported() && workerCount.get() < WORKER_COUNT) {
+            final BashWorker worker = startWorker();
+            if (worker == null) {
+                break;
+            }
+
+            releaseWorker(worker);
+        }
+    }
+
+    private void startConsoleProcess(final String workingDirectory, final List<String> arguments) {
+        if (shutdown || interpreterPath.length() == 0) {
+            return;
+        }
+
+        try {
+            spawnExecutor.execute(new Runnable() {
+                public void run() {
+                    final List<String> command = new ArrayList<String>();
+                    command.add(interpreterPath);
+                    command.addAll(arguments);
+
+                    final ProcessBuilder builder = new ProcessBuilder(command);
+                    if (workingDirectory != null) {
+                        builder.directory(new File(workingDirectory));
+                    }
+
+                    final Map<String, String> environment = builder.environment();
+                    final Map<String, String> consoleEnvironment = createConsoleEnvironment(environment);
+                    environment.clear();
+                    environment.putAll(consoleEnvironment);
+
+                    synchronized (consoleLock) {
+                        if (shutdown || spareConsoleProcess != null) {
+                            return;
+                        }
+
+                        try {
+                            spareConsoleProcess = builder.start();
+                            spareWorkingDirectory = workingDirectory;
+                            spareArguments = arguments;
+                        } catch (IOException e) {
+                            spareConsoleProcess = null;
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //the pool was shut down in the meantime
+        }
+    }
+
+    @Nullable
+    private BashWorker startWorker() {
+        final File directory = getSandboxDirectory();
+        if (directory == null) {
+            return null;
+        }
+
+        final ProcessBuilder builder = new ProcessBuilder(interpreterPath, "--norc", "--noprofile", "-r", "-c", BashWorkerProtocol.WORKER_SCRIPT);
+        builder.directory(directory);
+        builder.redirectErrorStream(true);
+
+        //the empty directory is the only entry of the PATH, no programs can be executed
+        final Map<String, String> environment = builder.environment();
+        final String lang = environment.get("LANG");
+        environment.clear();
+        environment.put("PATH", directory.getPath());
+        environment.put("HOME", directory.getPath());
+        if (lang != null) {
+            environment.put("LANG", lang);
+        }
+
+        try {
+            final BashWorker worker = new BashWorker(builder.start());
+            workerCount.incrementAndGet();
+            return worker;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void releaseWorker(BashWorker worker) {
+        if (shutdown || worker.isTerminated() || worker.getUses() >= MAX_WORKER_USES || workerCount.get() > WORKER_COUNT) {
+            discardWorker(worker);
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    private void discardWorker(BashWorker worker) {
+        worker.destroy();
+        workerCount.decrementAndGet();
+
+        warmUp();
+    }
+
+    @Nullable
+    private synchronized File getSandboxDirectory() {
+        if (sandboxDirectory == null) {
+            try {
+                final File directory = File.createTempFile("bashsupport-sandbox", "");
+                if (directory.delete() && directory.mkdir()) {
+                    directory.deleteOnExit();
+                    sandboxDirectory = directory;
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        return sandboxDirectory;
+    }
+
+    private static boolean isRunning(Process process) {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    private static boolean equal(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
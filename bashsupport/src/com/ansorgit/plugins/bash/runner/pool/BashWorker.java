@@ -0,0 +1,142 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashWorker.java, Class: BashWorker
+ * Last modified: 2011-02-11
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.pool;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A bash process which executes the requests of the {@link BashWorkerProtocol}.
+ * <p/>
+ * The responses are read by a daemon thread, a request waits at most for the given timeout.
+ * A worker is used by a single thread at a time.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashWorker {
+    //marks the end of the worker's output, compared by identity
+    private static final String END_OF_STREAM = new String("");
+
+    private final Process process;
+    private final Writer requestWriter;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<String>();
+    private volatile boolean terminated = false;
+    private int uses = 0;
+
+    BashWorker(@NotNull Process process) {
+        this.process = process;
+        this.requestWriter = new OutputStreamWriter(process.getOutputStream());
+
+        final Thread readerThread = new Thread(new Runnable() {
+            public void run() {
+                readResponses();
+            }
+        }, "BashSupport worker reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Executes a command in the worker.
+     *
+     * @param command       The command
+     * @param timeoutMillis The maximum time to wait for the response
+     * @return The response
+     * @throws IOException      If the worker terminated or sent an invalid response
+     * @throws TimeoutException If the worker did not respond in time. The worker must not be used anymore.
+     */
+    @NotNull
+    BashWorkerProtocol.Response execute(@NotNull String command, long timeoutMillis) throws IOException, TimeoutException {
+        if (terminated) {
+            throw new IOException("The worker is terminated");
+        }
+
+        uses++;
+
+        requestWriter.write(BashWorkerProtocol.encodeRequest(command));
+        requestWriter.write('\n');
+        requestWriter.flush();
+
+        final String line;
+        try {
+            line = responses.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for the worker");
+        }
+
+        if (line == null) {
+            throw new TimeoutException("The worker did not respond in " + timeoutMillis + " ms");
+        }
+
+        if (line == END_OF_STREAM) {
+            throw new IOException("The worker terminated");
+        }
+
+        try {
+            return BashWorkerProtocol.decodeResponse(line);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return The number of requests which were sent to this worker
+     */
+    int getUses() {
+        return uses;
+    }
+
+    boolean isTerminated() {
+        return terminated;
+    }
+
+    void destroy() {
+        terminated = true;
+        process.destroy();
+    }
+
+    private void readResponses() {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    responses.offer(line);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            //the process was destroyed
+        } finally {
+            terminated = true;
+            responses.offer(END_OF_STREAM);
+        }
+    }
+}
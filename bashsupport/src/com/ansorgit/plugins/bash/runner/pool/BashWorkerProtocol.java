@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashWorkerProtocol.java, Class: BashWorkerProtocol
+ * Last modified: 2011-02-11
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.pool;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The line framed protocol which is used to talk to a bash worker process.
+ * <p/>
+ * A request is a single line which contains the command, backslashes and line breaks are escaped.
+ * The worker evaluates the command in a subshell, the state of the worker is not changed by a request.
+ * The response is a single line with the exit status and the combined stdout and stderr output of the command.
+ * The output is escaped in the same way as the request.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashWorkerProtocol {
+    /**
+     * The script which is executed by a worker process. It reads requests from stdin until the stream is closed.
+     */
+    static final String WORKER_SCRIPT =
+            "while IFS= read -r __bashsupport_request; do\n" +
+                    "  __bashsupport_output=$(eval \"$(printf '%b' \"$__bashsupport_request\")\" 2>&1 </dev/null)\n" +
+                    "  __bashsupport_status=$?\n" +
+                    "  __bashsupport_output=${__bashsupport_output//\\\\/\\\\\\\\}\n" +
+                    "  __bashsupport_output=${__bashsupport_output//$'\\r'/\\\\r}\n" +
+                    "  printf '%s %s\\n' \"$__bashsupport_status\" \"${__bashsupport_output//$'\\n'/\\\\n}\"\n" +
+                    "done\n";
+
+    private BashWorkerProtocol() {
+    }
+
+    /**
+     * Encodes a command as a single request line.
+     *
+     * @param command The command
+     * @return The request line, without the line break
+     */
+    @NotNull
+    public static String encodeRequest(@NotNull String command) {
+        return escape(command);
+    }
+
+    /**
+     * Decodes a response line which was sent by a worker.
+     *
+     * @param line The response line, without the line break
+     * @return The response
+     * @throws IllegalArgumentException If the line is not a valid response
+     */
+    @NotNull
+    public static Response decodeResponse(@NotNull String line) {
+        final int separator = line.indexOf(' ');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid response: " + line);
+        }
+
+        final int status;
+        try {
+            status = Integer.parseInt(line.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid response status: " + line);
+        }
+
+        return new Response(status, unescape(line.substring(separator + 1)));
+    }
+
+    static String escape(String text) {
+        final StringBuilder result = new StringBuilder(text.length() + 16);
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\\') {
+                result.append("\\\\");
+            } else if (c == '\n') {
+                result.append("\\n");
+            } else if (c == '\r') {
+                result.append("\\r");
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+
+        final StringBuilder result = new StringBuilder(text.length());
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                final char next = text.charAt(++i);
+                if (next == 'n') {
+                    result.append('\n');
+                } else if (next == 'r') {
+                    result.append('\r');
+                } else {
+                    result.append(next);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * The result of a request.
+     */
+    public static final class Response {
+        private final int status;
+        private final String output;
+
+        Response(int status, String output) {
+            this.status = status;
+            this.output = output;
+        }
+
+        /**
+         * @return The exit status of the command
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return The output of the command on stdout and stderr. Trailing line breaks are removed.
+         */
+        @NotNull
+        public String getOutput() {
+            return output;
+        }
+
+        public boolean isSuccessful() {
+            return status == 0;
+        }
+    }
+}
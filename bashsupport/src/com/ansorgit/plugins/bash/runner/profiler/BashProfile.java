@@ -0,0 +1,184 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfile.java, Class: BashProfile
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a profiled script execution. It contains the wall time spent in each executed line and
+ * in each function.
+ * <p/>
+ * The entries of a source file are stored in an array indexed by the line number, adding a traced command
+ * does not allocate memory once its line was seen. Functions are identified by their source file and name, scripts
+ * may define functions with the same name in different files.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashProfile {
+    //lines with a larger number are treated as a broken trace
+    private static final int MAX_LINE = 1000 * 1000;
+
+    private static final Comparator<Entry> totalTimeComparator = new Comparator<Entry>() {
+        public int compare(Entry o1, Entry o2) {
+            return o1.totalMicros < o2.totalMicros ? 1 : (o1.totalMicros == o2.totalMicros ? 0 : -1);
+        }
+    };
+
+    private final Map<String, Entry[]> lineEntries = Maps.newHashMap();
+    private final Map<String, Map<String, Entry>> functionEntries = Maps.newHashMap();
+    private long totalMicros;
+
+    /**
+     * Adds the time of a single traced command.
+     *
+     * @param source   The source file of the command
+     * @param line     The line number of the command
+     * @param function The function which contains the command, an empty string for the main script
+     * @param micros   The wall time until the next command was traced
+     */
+    void add(@NotNull String source, int line, @NotNull String function, long micros) {
+        if (line <= 0 || line > MAX_LINE) {
+            return;
+        }
+
+        Entry[] entries = lineEntries.get(source);
+        if (entries == null || line >= entries.length) {
+            final Entry[] newEntries = new Entry[Math.max(line + 1, entries == null ? 64 : entries.length * 2)];
+            if (entries != null) {
+                System.arraycopy(entries, 0, newEntries, 0, entries.length);
+            }
+
+            entries = newEntries;
+            lineEntries.put(source, entries);
+        }
+
+        Entry lineEntry = entries[line];
+        if (lineEntry == null) {
+            lineEntry = new Entry(source, line, function);
+            entries[line] = lineEntry;
+        }
+        lineEntry.add(micros);
+
+        Map<String, Entry> sourceFunctions = functionEntries.get(source);
+        if (sourceFunctions == null) {
+            sourceFunctions = Maps.newHashMap();
+            functionEntries.put(source, sourceFunctions);
+        }
+
+        Entry functionEntry = sourceFunctions.get(function);
+        if (functionEntry == null) {
+            functionEntry = new Entry(source, line, function);
+            sourceFunctions.put(function, functionEntry);
+        }
+        functionEntry.add(micros);
+
+        totalMicros += micros;
+    }
+
+    /**
+     * @return The total wall time of all traced commands
+     */
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+
+    /**
+     * @return The entries of all executed lines, the most expensive line first
+     */
+    @NotNull
+    public List<Entry> getLineEntries() {
+        final List<Entry> result = Lists.newArrayList();
+        for (Entry[] entries : lineEntries.values()) {
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    result.add(entry);
+                }
+            }
+        }
+
+        Collections.sort(result, totalTimeComparator);
+        return result;
+    }
+
+    /**
+     * @return The entries of all executed functions, the most expensive function first. The commands outside
+     *         of a function are collected in an entry with an empty function name for each source file.
+     */
+    @NotNull
+    public List<Entry> getFunctionEntries() {
+        final List<Entry> result = Lists.newArrayList();
+        for (Map<String, Entry> sourceFunctions : functionEntries.values()) {
+            result.addAll(sourceFunctions.values());
+        }
+
+        Collections.sort(result, totalTimeComparator);
+
+        return result;
+    }
+
+    /**
+     * The aggregated time of a line or of a function. The source and line of a function entry are the location
+     * of the first traced command of the function.
+     */
+    public static final class Entry {
+        private final String source;
+        private final int line;
+        private final String function;
+        private long count;
+        private long totalMicros;
+
+        Entry(String source, int line, String function) {
+            this.source = source;
+            this.line = line;
+            this.function = function;
+        }
+
+        void add(long micros) {
+            count++;
+            totalMicros += micros;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+    }
+}
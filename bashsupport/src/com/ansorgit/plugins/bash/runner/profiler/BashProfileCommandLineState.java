@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfileCommandLineState.java, Class: BashProfileCommandLineState
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.ansorgit.plugins.bash.runner.BashCommandLineState;
+import com.ansorgit.plugins.bash.runner.BashRunConfiguration;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Command line state which runs the script with an execution trace.
+ * <p/>
+ * A small bootstrap command opens the trace file and executes the script with a new interpreter process, the script
+ * runs like an unprofiled script. A startup file in BASH_ENV sets a PS4 prompt with the timestamp, source file, line
+ * number and function of each traced command and then enables xtrace. Bash does not import PS4 from the environment
+ * if it runs as root, thus it is not exported by the bootstrap command.
+ * The trace is written to a separate file descriptor, the output of the script is not changed.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashProfileCommandLineState extends BashCommandLineState {
+    private static final Logger LOG = Logger.getInstance("#BashProfileCommandLineState");
+
+    //the file descriptor of the trace output, it is unlikely to be used by the profiled scripts
+    private static final int TRACE_FD = 19;
+
+    //BASH_SOURCE and FUNCNAME are unset at the top level, the defaults keep scripts with "set -u" running
+    private static final String TRACE_PROMPT = "+" + BashTraceParser.SEPARATOR
+            + "${EPOCHREALTIME:-$SECONDS}" + BashTraceParser.SEPARATOR
+            + "${BASH_SOURCE:-}" + BashTraceParser.SEPARATOR
+            + "${LINENO}" + BashTraceParser.SEPARATOR
+            + "${FUNCNAME:-}" + BashTraceParser.SEPARATOR;
+
+    private File traceFile;
+    private File startupFile;
+
+    public BashProfileCommandLineState(BashRunConfiguration runConfiguration, ExecutionEnvironment env) {
+        super(runConfiguration, env);
+    }
+
+    @Override
+    protected void addScriptParameter(GeneralCommandLine commandLine) throws ExecutionException {
+        final String scriptName = getRunConfiguration().getScriptName();
+        if (StringUtil.isEmptyOrSpaces(scriptName)) {
+            throw new ExecutionException("A script file is required to profile a run configuration.");
+        }
+
+        try {
+            traceFile = File.createTempFile("bashProfile", ".trace");
+            startupFile = File.createTempFile("bashProfile", ".sh");
+            FileUtil.writeToFile(startupFile, createStartupScript().getBytes("UTF-8"));
+        } catch (IOException e) {
+            throw new ExecutionException("Unable to create the trace file: " + e.getMessage());
+        }
+
+        commandLine.addParameter("-c");
+        commandLine.addParameter(createBootstrapCommand(traceFile.getAbsolutePath(), startupFile.getAbsolutePath()));
+
+        //the script name is passed as $0, the script parameters follow as $1..n
+        commandLine.addParameter(scriptPath(scriptName));
+    }
+
+    /**
+     * The interpreter process of the script is started with the options of the bootstrap shell, e.g. -e or -u of
+     * the interpreter options. The BASH_ENV value of the user is passed to the startup file.
+     */
+    static String createBootstrapCommand(String tracePath, String startupPath) {
+        return "exec " + TRACE_FD + ">>" + quote(tracePath) + "; "
+                + "export BASHSUPPORT_BASH_ENV=\"${BASH_ENV-}\" BASH_ENV=" + quote(startupPath) + "; "
+                + "exec \"$BASH\" \"-${-//c/}\" \"$0\" \"$@\"";
+    }
+
+    static String createStartupScript() {
+        return "if [ -n \"$BASHSUPPORT_BASH_ENV\" ]; then BASH_ENV=$BASHSUPPORT_BASH_ENV; . \"$BASH_ENV\"; else unset BASH_ENV; fi\n"
+                + "unset BASHSUPPORT_BASH_ENV\n"
+                + "BASH_XTRACEFD=" + TRACE_FD + "\n"
+                + "PS4=" + quote(TRACE_PROMPT) + "\n"
+                + "set -x\n";
+    }
+
+    /**
+     * Bash searches the PATH for a script name without a slash if it is not found in the working directory.
+     *
+     * @return The script name with a directory
+     */
+    static String scriptPath(String scriptName) {
+        return scriptName.indexOf('/') >= 0 ? scriptName : "./" + scriptName;
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * @return The working directory of the profiled script, relative source paths of the trace are relative to it
+     */
+    @Nullable
+    public String getWorkingDirectory() {
+        final String workingDirectory = getRunConfiguration().getWorkingDirectory();
+        return StringUtil.isEmptyOrSpaces(workingDirectory) ? null : workingDirectory;
+    }
+
+    /**
+     * Reads the trace which was written by the terminated process. The trace and the startup file are removed
+     * afterwards.
+     *
+     * @return The profile or null if no trace is available
+     */
+    @Nullable
+    public BashProfile readProfile() {
+        if (traceFile == null) {
+            return null;
+        }
+
+        try {
+            final Reader reader = new InputStreamReader(new FileInputStream(traceFile));
+            try {
+                return new BashTraceParser().parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to read the trace file " + traceFile, e);
+            return null;
+        } finally {
+            delete(traceFile);
+            delete(startupFile);
+
+            traceFile = null;
+            startupFile = null;
+        }
+    }
+
+    private static void delete(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfileExecutor.java, Class: BashProfileExecutor
+ * Last modified: 2011-02-09
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.ansorgit.plugins.bash.util.BashIcons;
+import com.intellij.execution.Executor;
+import com.intellij.openapi.util.IconLoader;
+import com.intellij.openapi.wm.ToolWindowId;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+
+/**
+ * Executor which runs a Bash run configuration with an execution trace and displays the time spent
+ * in each line and function of the script.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashProfileExecutor extends Executor {
+    @NonNls
+    public static final String EXECUTOR_ID = "BashProfile";
+
+    public String getToolWindowId() {
+        return ToolWindowId.RUN;
+    }
+
+    public Icon getToolWindowIcon() {
+        return BashIcons.BASH_FILE_ICON;
+    }
+
+    @NotNull
+    public Icon getIcon() {
+        return BashIcons.BASH_FILE_ICON;
+    }
+
+    public Icon getDisabledIcon() {
+        return IconLoader.getDisabledIcon(BashIcons.BASH_FILE_ICON);
+    }
+
+    public String getDescription() {
+        return "Profile the selected Bash script";
+    }
+
+    @NotNull
+    public String getActionName() {
+        return "Profile";
+    }
+
+    @NotNull
+    public String getId() {
+        return EXECUTOR_ID;
+    }
+
+    @NotNull
+    public String getStartActionText() {
+        return "Profile";
+    }
+
+    public String getContextActionId() {
+        return "BashProfileClass";
+    }
+
+    public String getHelpId() {
+        return null;
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfileView.java, Class: BashProfileView
+ * Last modified: 2011-02-09
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.util.BashFunctionDefTable;
+import com.ansorgit.plugins.bash.util.BashIcons;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.markup.HighlighterLayer;
+import com.intellij.openapi.editor.markup.LineMarkerRenderer;
+import com.intellij.openapi.editor.markup.MarkupModel;
+import com.intellij.openapi.editor.markup.RangeHighlighter;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowAnchor;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Displays the result of a profiled run. The executed lines and the functions are shown in sortable tables,
+ * the most expensive lines are marked in the gutter of the editors.
+ * <p/>
+ * The heat marks are removed when the view is closed or replaced by the next profile.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashProfileView extends JPanel implements Disposable {
+    static final String TOOL_WINDOW_ID = "Bash Profile";
+
+    //lines with a smaller share of the total time are not marked in the gutter
+    private static final double MIN_HEAT_SHARE = 0.005;
+
+    private final Project project;
+    private final long totalMicros;
+    private final Map<String, VirtualFile> files = Maps.newHashMap();
+    private final List<Pair<MarkupModel, RangeHighlighter>> highlighters = Lists.newArrayList();
+
+    private BashProfileView(Project project, BashProfile profile, @Nullable String workingDirectory) {
+        super(new BorderLayout());
+
+        this.project = project;
+        this.totalMicros = Math.max(1, profile.getTotalMicros());
+
+        final List<LineRow> lineRows = Lists.newArrayList();
+        for (BashProfile.Entry entry : profile.getLineEntries()) {
+            lineRows.add(createLineRow(entry, workingDirectory));
+        }
+
+        final List<FunctionRow> functionRows = Lists.newArrayList();
+        for (BashProfile.Entry entry : profile.getFunctionEntries()) {
+            functionRows.add(createFunctionRow(entry, workingDirectory));
+        }
+
+        final JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Lines", new JScrollPane(createTable(new LineTableModel(lineRows))));
+        tabs.addTab("Functions", new JScrollPane(createTable(new FunctionTableModel(functionRows))));
+        add(tabs, BorderLayout.CENTER);
+
+        addHeatMarks(lineRows);
+    }
+
+    /**
+     * Shows the profile in the profile tool window. A previously displayed profile is replaced.
+     */
+    static void show(Project project, String title, BashProfile profile, @Nullable String workingDirectory) {
+        final ToolWindowManager manager = ToolWindowManager.getInstance(project);
+
+        ToolWindow window = manager.getToolWindow(TOOL_WINDOW_ID);
+        if (window == null) {
+            window = manager.registerToolWindow(TOOL_WINDOW_ID, true, ToolWindowAnchor.BOTTOM);
+            window.setIcon(BashIcons.BASH_FILE_ICON);
+        }
+
+        final BashProfileView view = new BashProfileView(project, profile, workingDirectory);
+
+        final Content content = ContentFactory.SERVICE.getInstance().createContent(view, title, false);
+        content.setDisposer(view);
+
+        final ContentManager contentManager = window.getContentManager();
+        contentManager.removeAllContents(true);
+        contentManager.addContent(content);
+
+        window.activate(null);
+    }
+
+    public void dispose() {
+        for (Pair<MarkupModel, RangeHighlighter> highlighter : highlighters) {
+            highlighter.first.removeHighlighter(highlighter.second);
+        }
+
+        highlighters.clear();
+    }
+
+    private LineRow createLineRow(BashProfile.Entry entry, @Nullable String workingDirectory) {
+        final VirtualFile file = findFile(entry.getSource(), workingDirectory);
+        final Document document = file != null ? FileDocumentManager.getInstance().getDocument(file) : null;
+        final PsiFile psiFile = file != null ? PsiManager.getInstance(project).findFile(file) : null;
+
+        final int lineIndex = entry.getLine() - 1;
+        if (document == null || psiFile == null || lineIndex >= document.getLineCount()) {
+            return new LineRow(entry, file, null, "");
+        }
+
+        final CharSequence text = document.getCharsSequence();
+        final int lineEnd = document.getLineEndOffset(lineIndex);
+
+        int lineStart = document.getLineStartOffset(lineIndex);
+        while (lineStart < lineEnd && Character.isWhitespace(text.charAt(lineStart))) {
+            lineStart++;
+        }
+
+        final PsiElement element = findLineElement(psiFile, new TextRange(lineStart, lineEnd));
+        final CharSequence code = element != null ? element.getText() : text.subSequence(lineStart, lineEnd);
+
+        return new LineRow(entry, file, document, code.toString().trim());
+    }
+
+    private FunctionRow createFunctionRow(BashProfile.Entry entry, @Nullable String workingDirectory) {
+        if (entry.getFunction().length() == 0) {
+            return new FunctionRow(entry, null);
+        }
+
+        final VirtualFile file = findFile(entry.getSource(), workingDirectory);
+        final PsiFile psiFile = file != null ? PsiManager.getInstance(project).findFile(file) : null;
+        if (psiFile == null) {
+            return new FunctionRow(entry, null);
+        }
+
+        final List<BashFunctionDef> definitions = BashFunctionDefTable.forFile(psiFile).getDefinitions(entry.getFunction());
+        return new FunctionRow(entry, definitions.isEmpty() ? null : definitions.get(0));
+    }
+
+    /**
+     * Returns the outermost element which starts at the first token of the line and which ends in the line.
+     *
+     * @param file      The file
+     * @param lineRange The range of the line, starting at the first token
+     * @return The element or null if the line does not start a statement which ends in the same line
+     */
+    @Nullable
+    private static PsiElement findLineElement(PsiFile file, TextRange lineRange) {
+        PsiElement element = file.findElementAt(lineRange.getStartOffset());
+        if (element == null || element instanceof PsiWhiteSpace || !lineRange.contains(element.getTextRange())) {
+            return null;
+        }
+
+        while (element.getParent() != null && !(element.getParent() instanceof PsiFile)
+                && element.getParent().getTextRange().getStartOffset() == lineRange.getStartOffset()
+                && lineRange.contains(element.getParent().getTextRange())) {
+            element = element.getParent();
+        }
+
+        return element;
+    }
+
+    @Nullable
+    private VirtualFile findFile(String source, @Nullable String workingDirectory) {
+        if (files.containsKey(source)) {
+            return files.get(source);
+        }
+
+        File path = new File(source);
+        if (!path.isAbsolute() && workingDirectory != null) {
+            path = new File(workingDirectory, source);
+        }
+
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByIoFile(path);
+        files.put(source, file);
+
+        return file;
+    }
+
+    private void addHeatMarks(List<LineRow> rows) {
+        final long maxMicros = rows.isEmpty() ? 1 : Math.max(1, rows.get(0).entry.getTotalMicros());
+
+        for (LineRow row : rows) {
+            final double share = share(row.entry);
+            if (share < MIN_HEAT_SHARE) {
+                //the rows are sorted by time, no more hot lines
+                break;
+            }
+
+            if (row.document == null) {
+                continue;
+            }
+
+            final Color color = heatColor((float) row.entry.getTotalMicros() / maxMicros);
+
+            final MarkupModel markupModel = row.document.getMarkupModel(project);
+            final RangeHighlighter highlighter = markupModel.addLineHighlighter(row.entry.getLine() - 1, HighlighterLayer.ADDITIONAL_SYNTAX, null);
+            highlighter.setLineMarkerRenderer(new HeatMarkRenderer(color));
+            highlighter.setErrorStripeMarkColor(color);
+            highlighter.setErrorStripeTooltip(String.format("%.1f%% of the profiled time, %d executions", share * 100, row.entry.getCount()));
+
+            highlighters.add(Pair.create(markupModel, highlighter));
+        }
+    }
+
+    private double share(BashProfile.Entry entry) {
+        return (double) entry.getTotalMicros() / totalMicros;
+    }
+
+    private static Color heatColor(float heat) {
+        final float value = Math.max(0.15f, Math.min(1f, heat));
+        return new Color(1f, 1f - value * 0.8f, 0.2f * (1f - value));
+    }
+
+    private JTable createTable(final ProfileTableModel model) {
+        final JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                final int viewRow = table.getSelectedRow();
+                if (e.getClickCount() == 2 && viewRow >= 0) {
+                    model.navigate(table.convertRowIndexToModel(viewRow));
+                }
+            }
+        });
+
+        return table;
+    }
+
+    private static final class LineRow {
+        private final BashProfile.Entry entry;
+        private final VirtualFile file;
+        private final Document document;
+        private final String code;
+
+        private LineRow(BashProfile.Entry entry, @Nullable VirtualFile file, @Nullable Document document, String code) {
+            this.entry = entry;
+            this.file = file;
+            this.document = document;
+            this.code = code;
+        }
+    }
+
+    private static final class FunctionRow {
+        private final BashProfile.Entry entry;
+        private final BashFunctionDef definition;
+
+        private FunctionRow(BashProfile.Entry entry, @Nullable BashFunctionDef definition) {
+            this.entry = entry;
+            this.definition = definition;
+        }
+    }
+
+    private abstract class ProfileTableModel extends AbstractTableModel {
+        private final String[] columnNames;
+        private final Class[] columnClasses;
+
+        protected ProfileTableModel(String[] columnNames, Class[] columnClasses) {
+            this.columnNames = columnNames;
+            this.columnClasses = columnClasses;
+        }
+
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return columnClasses[column];
+        }
+
+        protected Object timeValue(BashProfile.Entry entry, int column) {
+            if (column == 0) {
+                return entry.getCount();
+            }
+
+            if (column == 1) {
+                return entry.getTotalMicros() / 1000.0;
+            }
+
+            return share(entry) * 100.0;
+        }
+
+        abstract void navigate(int row);
+    }
+
+    private final class LineTableModel extends ProfileTableModel {
+        private final List<LineRow> rows;
+
+        private LineTableModel(List<LineRow> rows) {
+            super(new String[]{"File", "Line", "Function", "Code", "Executions", "Time (ms)", "Share (%)"},
+                    new Class[]{String.class, Integer.class, String.class, String.class, Long.class, Double.class, Double.class});
+            this.rows = rows;
+        }
+
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            final LineRow row = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return row.file != null ? row.file.getName() : row.entry.getSource();
+                case 1:
+                    return row.entry.getLine();
+                case 2:
+                    return row.entry.getFunction();
+                case 3:
+                    return row.code;
+                default:
+                    return timeValue(row.entry, columnIndex - 4);
+            }
+        }
+
+        void navigate(int rowIndex) {
+            final LineRow row = rows.get(rowIndex);
+            if (row.file != null && row.file.isValid()) {
+                new OpenFileDescriptor(project, row.file, row.entry.getLine() - 1, 0).navigate(true);
+            }
+        }
+    }
+
+    private final class FunctionTableModel extends ProfileTableModel {
+        private final List<FunctionRow> rows;
+
+        private FunctionTableModel(List<FunctionRow> rows) {
+            super(new String[]{"Function", "File", "Executed commands", "Time (ms)", "Share (%)"},
+                    new Class[]{String.class, String.class, Long.class, Double.class, Double.class});
+            this.rows = rows;
+        }
+
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            final FunctionRow row = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return row.entry.getFunction().length() > 0 ? row.entry.getFunction() : "(main script)";
+                case 1:
+                    return new File(row.entry.getSource()).getName();
+                default:
+                    return timeValue(row.entry, columnIndex - 2);
+            }
+        }
+
+        void navigate(int rowIndex) {
+            final FunctionRow row = rows.get(rowIndex);
+            if (row.definition != null && row.definition.isValid() && row.definition.getContainingFile().getVirtualFile() != null) {
+                new OpenFileDescriptor(project, row.definition.getContainingFile().getVirtualFile(), row.definition.getTextOffset()).navigate(true);
+            }
+        }
+    }
+
+    /**
+     * Paints a colored bar in the gutter, the color depends on the time spent in the line.
+     */
+    private static final class HeatMarkRenderer implements LineMarkerRenderer {
+        private final Color color;
+
+        private HeatMarkRenderer(Color color) {
+            this.color = color;
+        }
+
+        public void paint(Editor editor, Graphics g, Rectangle r) {
+            g.setColor(color);
+            g.fillRect(r.x, r.y, Math.max(3, r.width), r.height);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfilerRunner.java, Class: BashProfilerRunner
+ * Last modified: 2011-02-09
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.ansorgit.plugins.bash.runner.BashRunConfiguration;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.ExecutionResult;
+import com.intellij.execution.Executor;
+import com.intellij.execution.configurations.RunProfile;
+import com.intellij.execution.configurations.RunProfileState;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.runners.DefaultProgramRunner;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.RunContentBuilder;
+import com.intellij.execution.ui.RunContentDescriptor;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Program runner of the profile executor. It runs the script like the {@link com.ansorgit.plugins.bash.runner.BashRunner}
+ * and displays the profile after the script terminated.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashProfilerRunner extends DefaultProgramRunner {
+    @NotNull
+    public String getRunnerId() {
+        return "BashProfilerRunner";
+    }
+
+    public boolean canRun(@NotNull String executorId, @NotNull RunProfile profile) {
+        return executorId.equals(BashProfileExecutor.EXECUTOR_ID) && profile instanceof BashRunConfiguration;
+    }
+
+    protected RunContentDescriptor doExecute(final Project project, final Executor executor, final RunProfileState state, final RunContentDescriptor contentToReuse,
+                                             final ExecutionEnvironment env) throws ExecutionException {
+
+        FileDocumentManager.getInstance().saveAllDocuments();
+
+        ExecutionResult executionResult = state.execute(executor, this);
+        if (executionResult == null) {
+            return null;
+        }
+
+        if (state instanceof BashProfileCommandLineState) {
+            final BashProfileCommandLineState profileState = (BashProfileCommandLineState) state;
+            final String title = env.getRunProfile().getName();
+
+            executionResult.getProcessHandler().addProcessListener(new ProcessAdapter() {
+                @Override
+                public void processTerminated(ProcessEvent event) {
+                    //the trace may be large, it is parsed in the background
+                    ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+                        public void run() {
+                            final BashProfile profile = profileState.readProfile();
+                            if (profile == null) {
+                                return;
+                            }
+
+                            ApplicationManager.getApplication().invokeLater(new Runnable() {
+                                public void run() {
+                                    if (!project.isDisposed()) {
+                                        BashProfileView.show(project, title, profile, profileState.getWorkingDirectory());
+                                    }
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+        }
+
+        final RunContentBuilder contentBuilder = new RunContentBuilder(project, this, executor);
+        contentBuilder.setExecutionResult(executionResult);
+        contentBuilder.setEnvironment(env);
+
+        return contentBuilder.showRunContent(contentToReuse);
+    }
+}
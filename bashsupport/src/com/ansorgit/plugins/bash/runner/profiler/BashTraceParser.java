@@ -0,0 +1,195 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashTraceParser.java, Class: BashTraceParser
+ * Last modified: 2011-02-09
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import com.google.common.collect.Maps;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Parses the execution trace of a profiled script.
+ * <p/>
+ * Each traced command starts with the prompt set by {@link BashProfileCommandLineState}:
+ * one or more '+' characters followed by the timestamp, source file, line number and function name, each
+ * terminated by the separator character. Lines without this prefix are continuation lines of multi-line
+ * commands and are skipped.
+ * <p/>
+ * The trace is read as a stream, the memory used by the parser only depends on the number of executed lines
+ * and not on the size of the trace. The time of a command is the time until the next command was traced.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashTraceParser {
+    static final char SEPARATOR = '\u001f';
+
+    private final BashProfile profile = new BashProfile();
+
+    //the strings of the trace are shared, there is only one instance per source file and function name
+    private final Map<String, String> names = Maps.newHashMap();
+    private String lastSource = "";
+    private String lastFunction = "";
+
+    private boolean hasPrevious;
+    private long previousTime;
+    private String previousSource;
+    private int previousLine;
+    private String previousFunction;
+
+    BashProfile parse(Reader reader) throws IOException {
+        final BufferedReader lineReader = new BufferedReader(reader, 64 * 1024);
+
+        String line;
+        while ((line = lineReader.readLine()) != null) {
+            parseLine(line);
+        }
+
+        if (hasPrevious) {
+            addPrevious(previousTime);
+        }
+
+        return profile;
+    }
+
+    void parseLine(String line) {
+        final int length = line.length();
+
+        int pos = 0;
+        while (pos < length && line.charAt(pos) == '+') {
+            pos++;
+        }
+
+        if (pos == 0 || pos >= length || line.charAt(pos) != SEPARATOR) {
+            return;
+        }
+
+        final int timeStart = pos + 1;
+        final int timeEnd = line.indexOf(SEPARATOR, timeStart);
+        final int sourceEnd = timeEnd < 0 ? -1 : line.indexOf(SEPARATOR, timeEnd + 1);
+        final int lineEnd = sourceEnd < 0 ? -1 : line.indexOf(SEPARATOR, sourceEnd + 1);
+        final int functionEnd = lineEnd < 0 ? -1 : line.indexOf(SEPARATOR, lineEnd + 1);
+        if (functionEnd < 0) {
+            return;
+        }
+
+        final long time = parseMicros(line, timeStart, timeEnd);
+        final int lineNumber = parseInt(line, sourceEnd + 1, lineEnd);
+        if (time < 0 || lineNumber < 0) {
+            return;
+        }
+
+        if (hasPrevious) {
+            addPrevious(time);
+        }
+
+        lastSource = share(line, timeEnd + 1, sourceEnd, lastSource);
+        lastFunction = share(line, lineEnd + 1, functionEnd, lastFunction);
+
+        hasPrevious = true;
+        previousTime = time;
+        previousSource = lastSource;
+        previousLine = lineNumber;
+        previousFunction = lastFunction;
+    }
+
+    private void addPrevious(long time) {
+        //commands of the bootstrap code have no source file
+        if (previousSource.length() > 0) {
+            profile.add(previousSource, previousLine, previousFunction, Math.max(0, time - previousTime));
+        }
+    }
+
+    private String share(String line, int start, int end, String last) {
+        final int length = end - start;
+        if (last.length() == length && line.regionMatches(start, last, 0, length)) {
+            return last;
+        }
+
+        final String value = line.substring(start, end);
+        final String shared = names.get(value);
+        if (shared != null) {
+            return shared;
+        }
+
+        names.put(value, value);
+        return value;
+    }
+
+    /**
+     * Parses a timestamp in seconds with an optional fraction, e.g. the value of $EPOCHREALTIME.
+     *
+     * @return The timestamp in microseconds or -1 if the value is invalid
+     */
+    static long parseMicros(String value, int start, int end) {
+        long seconds = 0;
+        int pos = start;
+        while (pos < end && Character.isDigit(value.charAt(pos))) {
+            seconds = seconds * 10 + (value.charAt(pos) - '0');
+            pos++;
+        }
+
+        if (pos == start) {
+            return -1;
+        }
+
+        long micros = 0;
+        int digits = 0;
+        //the decimal separator depends on the locale of the shell
+        if (pos < end && (value.charAt(pos) == '.' || value.charAt(pos) == ',')) {
+            pos++;
+            while (pos < end && Character.isDigit(value.charAt(pos))) {
+                if (digits < 6) {
+                    micros = micros * 10 + (value.charAt(pos) - '0');
+                    digits++;
+                }
+                pos++;
+            }
+        }
+
+        if (pos != end) {
+            return -1;
+        }
+
+        for (; digits < 6; digits++) {
+            micros *= 10;
+        }
+
+        return seconds * 1000000L + micros;
+    }
+
+    private static int parseInt(String value, int start, int end) {
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+
+        int result = 0;
+        for (int pos = start; pos < end; pos++) {
+            final char c = value.charAt(pos);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+}
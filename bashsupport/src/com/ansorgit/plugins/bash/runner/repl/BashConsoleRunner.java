@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashConsoleRunner.java, Class: BashConsoleRunner
- * Last modified: 2010-05-29
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,7 @@ package com.ansorgit.plugins.bash.runner.repl;
 
 import com.ansorgit.plugins.bash.file.BashFileType;
 import com.ansorgit.plugins.bash.lang.psi.api.BashFile;
-import com.ansorgit.plugins.bash.util.BashInterpreterDetection;
+import com.ansorgit.plugins.bash.runner.pool.BashProcessPool;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.console.LanguageConsoleViewImpl;
@@ -29,6 +29,7 @@ import com.intellij.execution.process.CommandLineArgumentsProvider;
 import com.intellij.execution.process.OSProcessHandler;
 import com.intellij.openapi.project.Project;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 
@@ -70,11 +71,17 @@ public class BashConsoleRunner extends AbstractConsoleRunnerWithHistory {
 
     @Override
     protected Process createProcess() throws ExecutionException {
+        //the pool has a running interpreter if a console with the same settings was opened before
+        final BashProcessPool processPool = BashProcessPool.getInstance();
+        final Process spareProcess = processPool.takeConsoleProcess(workingDir, Arrays.asList(myProvider.getArguments()));
+        if (spareProcess != null) {
+            return spareProcess;
+        }
+
         GeneralCommandLine commandLine = new GeneralCommandLine();
 
-        BashInterpreterDetection detect = new BashInterpreterDetection();
         //fixme make this configurable
-        commandLine.setExePath(detect.findBestLocation());
+        commandLine.setExePath(processPool.getInterpreterPath());
 
         if (workingDir != null) {
             commandLine.setWorkDirectory(workingDir);
@@ -82,6 +89,10 @@ public class BashConsoleRunner extends AbstractConsoleRunnerWithHistory {
 
         commandLine.addParameters(myProvider.getArguments());
 
+        //the same environment as the spare processes of the pool
+        commandLine.setEnvParams(BashProcessPool.createConsoleEnvironment(System.getenv()));
+        commandLine.setPassParentEnvs(false);
+
         return commandLine.createProcess();
     }
 
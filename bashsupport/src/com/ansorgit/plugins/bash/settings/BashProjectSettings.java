@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashProjectSettings.java, Class: BashProjectSettings
- * Last modified: 2010-03-30
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,12 @@ public class BashProjectSettings implements Serializable {
     private boolean autocompleteBuiltinCommands = true;
 
     private boolean formatterEnabled = false;
+    private boolean evaluateWithInterpreter = false;
+
+    //files which are larger are only analysed in the limited mode, 0 disables the limit
+    private int largeFileSize = 1024;
+    private int largeFileLines = 20000;
+    private Set<String> fullAnalysisFiles = new HashSet<String>();
 
     public boolean isAutocompleteBuiltinVars() {
         return autocompleteBuiltinVars;
@@ -101,4 +107,45 @@ public class BashProjectSettings implements Serializable {
     public void setFormatterEnabled(boolean formatterEnabled) {
         this.formatterEnabled = formatterEnabled;
     }
+
+    public boolean isEvaluateWithInterpreter() {
+        return evaluateWithInterpreter;
+    }
+
+    public void setEvaluateWithInterpreter(boolean evaluateWithInterpreter) {
+        this.evaluateWithInterpreter = evaluateWithInterpreter;
+    }
+
+    /**
+     * @return The size in kilobytes above which a file is only analysed in the limited mode
+     */
+    public int getLargeFileSize() {
+        return largeFileSize;
+    }
+
+    public void setLargeFileSize(int largeFileSize) {
+        this.largeFileSize = largeFileSize;
+    }
+
+    /**
+     * @return The number of lines above which a file is only analysed in the limited mode
+     */
+    public int getLargeFileLines() {
+        return largeFileLines;
+    }
+
+    public void setLargeFileLines(int largeFileLines) {
+        this.largeFileLines = largeFileLines;
+    }
+
+    /**
+     * @return The urls of the large files which are analysed like all other files
+     */
+    public Set<String> getFullAnalysisFiles() {
+        return fullAnalysisFiles;
+    }
+
+    public void setFullAnalysisFiles(Set<String> fullAnalysisFiles) {
+        this.fullAnalysisFiles = fullAnalysisFiles;
+    }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashProjectSettingsPane.java, Class: BashProjectSettingsPane
- * Last modified: 2010-06-30
+ * Last modified: 2011-02-19
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,9 @@ public class BashProjectSettingsPane implements Disposable {
     private JCheckBox autocompleteInternalVars;
     private JCheckBox autocompleteInternalCommands;
     private JCheckBox enableFormatterCheckbox;
+    private JCheckBox evaluateWithInterpreterCheckbox;
+    private JTextField largeFileSizeField;
+    private JTextField largeFileLinesField;
 
     public void dispose() {
     }
@@ -48,6 +51,9 @@ public class BashProjectSettingsPane implements Disposable {
         autocompleteInternalCommands.setSelected(settings.isAutocompleteBuiltinCommands());
         autocompleteInternalVars.setSelected(settings.isAutocompleteBuiltinVars());
         enableFormatterCheckbox.setSelected(settings.isFormatterEnabled());
+        evaluateWithInterpreterCheckbox.setSelected(settings.isEvaluateWithInterpreter());
+        largeFileSizeField.setText(String.valueOf(settings.getLargeFileSize()));
+        largeFileLinesField.setText(String.valueOf(settings.getLargeFileLines()));
     }
 
     public void storeSettings(BashProjectSettings settings) {
@@ -57,6 +63,9 @@ public class BashProjectSettingsPane implements Disposable {
         settings.setAutocompleteBuiltinCommands(autocompleteInternalCommands.isSelected());
         settings.setAutocompleteBuiltinVars(autocompleteInternalVars.isSelected());
         settings.setFormatterEnabled(enableFormatterCheckbox.isSelected());
+        settings.setEvaluateWithInterpreter(evaluateWithInterpreterCheckbox.isSelected());
+        settings.setLargeFileSize(parseLimit(largeFileSizeField.getText(), settings.getLargeFileSize()));
+        settings.setLargeFileLines(parseLimit(largeFileLinesField.getText(), settings.getLargeFileLines()));
     }
 
     public boolean isModified(BashProjectSettings settings) {
@@ -65,7 +74,10 @@ public class BashProjectSettingsPane implements Disposable {
                 bash4Support.isSelected() != settings.isSupportBash4() ||
                 autocompleteInternalVars.isSelected() != settings.isAutocompleteBuiltinVars() ||
                 autocompleteInternalCommands.isSelected() != settings.isAutocompleteBuiltinCommands() ||
-                enableFormatterCheckbox.isSelected() != settings.isFormatterEnabled();
+                enableFormatterCheckbox.isSelected() != settings.isFormatterEnabled() ||
+                evaluateWithInterpreterCheckbox.isSelected() != settings.isEvaluateWithInterpreter() ||
+                parseLimit(largeFileSizeField.getText(), settings.getLargeFileSize()) != settings.getLargeFileSize() ||
+                parseLimit(largeFileLinesField.getText(), settings.getLargeFileLines()) != settings.getLargeFileLines();
     }
 
     public JPanel getPanel() {
@@ -82,4 +94,16 @@ public class BashProjectSettingsPane implements Disposable {
         }
         return new HashSet<String>(Arrays.asList(data.split("\\n").clone()));
     }
+
+    /**
+     * @return The limit in the text or the default value if the text is not a valid limit
+     */
+    private int parseLimit(String text, int defaultValue) {
+        try {
+            final int value = Integer.parseInt(text.trim());
+            return value >= 0 ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashFileOutline.java, Class: BashFileOutline
+ * Last modified: 2011-02-05
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.structureview;
+
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The outline of a Bash file which is displayed in the structure view. It contains the function definitions
+ * with their nesting and the first definition of each global variable.
+ * <p/>
+ * The outline is computed with a single walk of the file's tree. It is cached on the file and rebuilt after
+ * the file was modified, expanding the structure view tree does not walk the tree again.
+ *
+ * @author Joachim Ansorg
+ */
+final class BashFileOutline {
+    private static final Key<CachedValue<BashFileOutline>> OUTLINE_KEY = Key.create("bash.fileOutline");
+
+    private final Map<PsiElement, List<PsiElement>> children;
+
+    private BashFileOutline(Map<PsiElement, List<PsiElement>> children) {
+        this.children = children;
+    }
+
+    @NotNull
+    static BashFileOutline forFile(@NotNull final PsiFile file) {
+        CachedValue<BashFileOutline> cachedOutline = file.getUserData(OUTLINE_KEY);
+        if (cachedOutline == null) {
+            cachedOutline = CachedValuesManager.getManager(file.getProject()).createCachedValue(new CachedValueProvider<BashFileOutline>() {
+                public Result<BashFileOutline> compute() {
+                    return Result.create(build(file), file);
+                }
+            }, false);
+
+            file.putUserData(OUTLINE_KEY, cachedOutline);
+        }
+
+        return cachedOutline.getValue();
+    }
+
+    /**
+     * Returns the elements which are displayed as children of the given element.
+     *
+     * @param parent The file or a function definition
+     * @return The children in the order of the file
+     */
+    @NotNull
+    List<PsiElement> getChildren(PsiElement parent) {
+        final List<PsiElement> result = children.get(parent);
+        return result != null ? result : Collections.<PsiElement>emptyList();
+    }
+
+    private static BashFileOutline build(final PsiFile file) {
+        final Map<PsiElement, List<PsiElement>> children = Maps.newHashMap();
+
+        file.accept(new PsiRecursiveElementVisitor() {
+            private final LinkedList<PsiElement> parents = Lists.newLinkedList(Collections.<PsiElement>singletonList(file));
+            private final Set<String> globalVarNames = Sets.newHashSet();
+
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof BashFunctionDef && ((BashFunctionDef) element).getNameSymbol() != null) {
+                    addChild(parents.getFirst(), element);
+
+                    parents.addFirst(element);
+                    super.visitElement(element);
+                    parents.removeFirst();
+
+                    return;
+                }
+
+                if (element instanceof BashVarDef && parents.getFirst() == file) {
+                    final BashVarDef varDef = (BashVarDef) element;
+                    if (!varDef.isCommandLocal() && globalVarNames.add(varDef.getName())) {
+                        addChild(file, element);
+                    }
+                }
+
+                super.visitElement(element);
+            }
+
+            private void addChild(PsiElement parent, PsiElement child) {
+                List<PsiElement> list = children.get(parent);
+                if (list == null) {
+                    list = Lists.newArrayList();
+                    children.put(parent, list);
+                }
+
+                list.add(child);
+            }
+        });
+
+        return new BashFileOutline(children);
+    }
+}
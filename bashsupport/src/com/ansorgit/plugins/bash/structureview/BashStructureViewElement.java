@@ -18,8 +18,6 @@
 
 package com.ansorgit.plugins.bash.structureview;
 
-import com.ansorgit.plugins.bash.lang.psi.api.BashPsiElement;
-import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
 import com.intellij.ide.structureView.StructureViewTreeElement;
 import com.intellij.ide.util.treeView.smartTree.TreeElement;
 import com.intellij.navigation.ItemPresentation;
@@ -28,14 +26,14 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.colors.TextAttributesKey;
 import com.intellij.openapi.util.Iconable;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiNamedElement;
 
 import javax.swing.*;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * A node of the structure view. The children are taken from the cached outline of the file.
+ * <p/>
  * Date: 12.04.2009
  * Time: 20:28:14
  *
@@ -55,7 +53,10 @@ class BashStructureViewElement implements StructureViewTreeElement {
 
     public ItemPresentation getPresentation() {
         if (myElement instanceof NavigationItem) {
-            return ((NavigationItem) myElement).getPresentation();
+            final ItemPresentation presentation = ((NavigationItem) myElement).getPresentation();
+            if (presentation != null) {
+                return presentation;
+            }
         }
 
         //fallback
@@ -79,16 +80,11 @@ class BashStructureViewElement implements StructureViewTreeElement {
     }
 
     public TreeElement[] getChildren() {
-        final List<BashPsiElement> childrenElements = new ArrayList<BashPsiElement>();
-        myElement.acceptChildren(new PsiElementVisitor() {
-            public void visitElement(PsiElement element) {
-                if (isBrowsableElement(element)) {
-                    childrenElements.add((BashPsiElement) element);
-                } else {
-                    element.acceptChildren(this);
-                }
-            }
-        });
+        if (!myElement.isValid()) {
+            return StructureViewTreeElement.EMPTY_ARRAY;
+        }
+
+        final List<PsiElement> childrenElements = BashFileOutline.forFile(myElement.getContainingFile()).getChildren(myElement);
 
         StructureViewTreeElement[] children = new StructureViewTreeElement[childrenElements.size()];
         final int length = children.length;
@@ -99,12 +95,6 @@ class BashStructureViewElement implements StructureViewTreeElement {
         return children;
     }
 
-    boolean isBrowsableElement(PsiElement element) {
-        //log.info("Checking element " + element);
-        return (element instanceof BashFunctionDef)
-                && (((BashFunctionDef) element).getNameSymbol() != null);
-    }
-
     public void navigate(boolean requestFocus) {
         ((NavigationItem) myElement).navigate(requestFocus);
     }
@@ -19,6 +19,7 @@
 package com.ansorgit.plugins.bash.structureview;
 
 import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.api.vars.BashVarDef;
 import com.intellij.ide.structureView.StructureViewModel;
 import com.intellij.ide.structureView.StructureViewTreeElement;
 import com.intellij.ide.structureView.TextEditorBasedStructureViewModel;
@@ -36,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
  */
 class BashStructureViewModel extends TextEditorBasedStructureViewModel implements StructureViewModel {
     private final PsiFile myFile;
-    private static final Class[] CLASSS = new Class[]{BashFunctionDef.class};
+    private static final Class[] CLASSS = new Class[]{BashFunctionDef.class, BashVarDef.class};
     private static final Sorter[] SORTERS = new Sorter[]{Sorter.ALPHA_SORTER};
 
     public BashStructureViewModel(PsiFile psiFile) {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: CompletionUtil.java, Class: CompletionUtil
- * Last modified: 2009-12-04
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,101 +18,99 @@
 
 package com.ansorgit.plugins.bash.util;
 
-import com.google.common.collect.Lists;
+import com.ansorgit.plugins.bash.lang.psi.util.BashStringUtils;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * Class to help with file path completions.
  * It can provide the possible matches for absolute and relative paths.
  * <p/>
+ * The matches are passed to a processor as soon as they are found. The directory listings are cached for a short
+ * time, the completion of the following keystrokes usually does not access the file system again.
+ * <p/>
  * User: jansorg
  * Date: Dec 3, 2009
  * Time: 3:51:37 PM
  */
 public class CompletionUtil {
+    /**
+     * The maximum number of paths which are passed to the processor for a single completion.
+     */
+    public static final int MAX_RESULTS = 500;
+
+    private static final DirectoryListingCache listingCache = new DirectoryListingCache();
+
     private CompletionUtil() {
     }
 
     /**
-     * Provide a list of absolute paths on the current system which match the given prefix.
+     * Provide the absolute paths on the current system which match the given prefix.
      * Prefix is path whose last entry may be a partial match. A match with "/etc/def" matches
-     * all files and directories in /etc which start with "def".
+     * all files and directories in /etc which start with "def". A prefix ending with a slash
+     * matches all entries of the directory.
+     * <p/>
+     * Directories are passed with a trailing slash. The lookup stops if the completion is cancelled,
+     * if the processor returns false or if {@link #MAX_RESULTS} paths were processed.
      *
-     * @param prefix A path which is used to collect matching files.
-     * @return A list of full paths which match the prefix.
+     * @param prefix    A path which is used to collect matching files.
+     * @param processor The processor which receives the full paths which match the prefix.
      */
-    public static
-    @NotNull
-    List<String> completeAbsolutePath(@NotNull String prefix) {
-        File base = new File(prefix);
-        if (!base.exists()) {
-            base = base.getParentFile();
-            if (base == null || !base.exists()) {
-                return Collections.emptyList();
-            }
+    public static void completeAbsolutePath(@NotNull String prefix, @NotNull Processor<String> processor) {
+        final int lastSlash = prefix.lastIndexOf('/');
+        if (lastSlash < 0) {
+            return;
         }
 
-        File basePath;
-        String matchPrefix;
-        if (base.isDirectory()) {
-            basePath = base;
-            matchPrefix = "";
-        } else {
-            basePath = base.getParentFile();
-            matchPrefix = base.getName();
+        final File directory = new File(lastSlash == 0 ? "/" : prefix.substring(0, lastSlash));
+        final String matchPrefix = prefix.substring(lastSlash + 1);
+
+        final DirectoryListingCache.Listing listing = listingCache.getListing(directory);
+        if (listing == null) {
+            return;
         }
 
+        final String directoryPath = listing.getDirectory().getPath();
+        final String pathPrefix = directoryPath.endsWith("/") ? directoryPath : directoryPath + "/";
+
+        //the indicator of the completion, the lookup stops as soon as the completion is cancelled
+        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+
+        final String[] names = listing.getNames();
+        final int start = matchPrefix.length() > 0 ? BashStringUtils.prefixStartIndex(names, matchPrefix) : 0;
 
-        List<File> files = collectFiles(basePath, matchPrefix);
-        List<String> result = Lists.newLinkedList();
-        for (File f : files) {
-            if (f.isDirectory()) {
-                result.add(f.getAbsolutePath() + "/");
-            } else {
-                result.add(f.getAbsolutePath());
+        int count = 0;
+        for (int i = start; i < names.length && names[i].startsWith(matchPrefix) && count < MAX_RESULTS; i++) {
+            if (indicator != null) {
+                indicator.checkCanceled();
             }
-        }
 
-        return result;
+            final String path = listing.isDirectory(i) ? pathPrefix + names[i] + "/" : pathPrefix + names[i];
+            if (!processor.process(path)) {
+                return;
+            }
+
+            count++;
+        }
     }
 
     /**
-     * Collect a list of relative paths. The start directory for the match is given as separate parameter.
+     * Collect relative paths. The start directory for the match is given as separate parameter.
      *
      * @param baseDir      The directory which is used as a starting point for the relative path matching.
      * @param shownBaseDir The prefix which is used in the results instead of the path given as baseDir. Can be used to display $HOME as prefix instead of the actual value on the current system.
      * @param relativePath The relative path prefix used for the matching.
-     * @return The list of files and directories which match an item in the subtree of baseDir. shownBaseDir is used as prefix, if set.
+     * @param processor    The processor which receives the files and directories which match an item in the subtree of baseDir. shownBaseDir is used as prefix, if set.
      */
-    @NotNull
-    public static List<String> completeRelativePath(@NotNull String baseDir, @NotNull String shownBaseDir, @NotNull String relativePath) {
-        List<String> result = Lists.newLinkedList();
-
-        for (String path : completeAbsolutePath(baseDir + "/" + relativePath)) {
-            if (path.startsWith(baseDir)) {
-                result.add(shownBaseDir + path.substring(baseDir.length()));
-            }
-        }
-
-        return result;
-    }
-
-    @NotNull
-    private static List<File> collectFiles(File basePath, @NotNull final String matchPart) {
-        File[] filtered = basePath.listFiles(new FileFilter() {
-            public boolean accept(File pathname) {
-                return !".".equals(pathname.getName()) &&
-                        (matchPart.isEmpty() || pathname.getName().startsWith(matchPart));
-
+    public static void completeRelativePath(@NotNull final String baseDir, @NotNull final String shownBaseDir, @NotNull String relativePath, @NotNull final Processor<String> processor) {
+        completeAbsolutePath(baseDir + "/" + relativePath, new Processor<String>() {
+            public boolean process(String path) {
+                return !path.startsWith(baseDir) || processor.process(shownBaseDir + path.substring(baseDir.length()));
             }
         });
-
-        return Arrays.asList(filtered);
     }
 }
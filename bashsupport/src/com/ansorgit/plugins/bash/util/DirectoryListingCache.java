@@ -0,0 +1,141 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: DirectoryListingCache.java, Class: DirectoryListingCache
+ * Last modified: 2011-02-07
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A short-lived cache of directory listings which is used by the path completion.
+ * <p/>
+ * A listing is served without any file system access if it was validated in the last few seconds. After that
+ * the modification time of the directory is checked, the directory is only listed again if it was modified.
+ * Listings are dropped after a maximum lifetime, the least recently used listings are dropped if too many
+ * directories are cached.
+ *
+ * @author Joachim Ansorg
+ */
+final class DirectoryListingCache {
+    private static final long UNCHECKED_AGE = 2 * 1000;
+    private static final long MAX_LIFETIME = 30 * 1000;
+    private static final int MAX_DIRECTORIES = 32;
+
+    private final Map<String, Listing> listings = new LinkedHashMap<String, Listing>(MAX_DIRECTORIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+            return size() > MAX_DIRECTORIES;
+        }
+    };
+
+    /**
+     * Returns the listing of the given directory.
+     *
+     * @param directory The directory
+     * @return The listing or null if the directory does not exist or can not be read
+     */
+    @Nullable
+    Listing getListing(@NotNull File directory) {
+        final String key = directory.getPath();
+        final long now = System.currentTimeMillis();
+
+        Listing cached;
+        synchronized (listings) {
+            cached = listings.get(key);
+        }
+
+        if (cached != null && now - cached.createdAt < MAX_LIFETIME) {
+            if (now - cached.checkedAt < UNCHECKED_AGE) {
+                return cached;
+            }
+
+            if (directory.lastModified() == cached.modified) {
+                cached.checkedAt = now;
+                return cached;
+            }
+        }
+
+        //the file system is accessed outside of the lock, a slow directory must not block the other lookups
+        final long modified = directory.lastModified();
+        final String[] names = modified != 0L ? directory.list() : null;
+        if (names == null) {
+            synchronized (listings) {
+                listings.remove(key);
+            }
+
+            return null;
+        }
+
+        Arrays.sort(names);
+
+        final Listing listing = new Listing(directory, names, modified, now);
+        synchronized (listings) {
+            listings.put(key, listing);
+        }
+
+        return listing;
+    }
+
+    /**
+     * The sorted entry names of a directory. The type of an entry is only looked up when it is requested and is
+     * then kept in the listing.
+     */
+    static final class Listing {
+        private final File directory;
+        private final String[] names;
+        private final Boolean[] directoryFlags;
+        private final long modified;
+        private final long createdAt;
+        private volatile long checkedAt;
+
+        private Listing(File directory, String[] names, long modified, long now) {
+            this.directory = directory;
+            this.names = names;
+            this.directoryFlags = new Boolean[names.length];
+            this.modified = modified;
+            this.createdAt = now;
+            this.checkedAt = now;
+        }
+
+        File getDirectory() {
+            return directory;
+        }
+
+        /**
+         * @return The names of the entries, sorted in natural order. The array must not be modified.
+         */
+        String[] getNames() {
+            return names;
+        }
+
+        boolean isDirectory(int index) {
+            Boolean flag = directoryFlags[index];
+            if (flag == null) {
+                flag = new File(directory, names[index]).isDirectory();
+                directoryFlags[index] = flag;
+            }
+
+            return flag;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: LexerHeuristic.java, Class: LexerHeuristic
- * Last modified: 2010-02-22
+ * Last modified: 2011-02-24
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,11 @@
 
 package com.ansorgit.plugins.bash.util.content;
 
-import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
 import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashParserDefinition;
 import com.google.common.collect.Sets;
-import com.intellij.lang.LanguageParserDefinitions;
-import com.intellij.lang.ParserDefinition;
-import com.intellij.lexer.Lexer;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.tree.IElementType;
 
@@ -34,11 +33,20 @@ import java.util.Set;
  * Lexes the file and evaluates the characteristics of the lexing process.
  * This operation is quite expensive in time and memory. If possible it should be executed very seldomly.
  * <p/>
+ * The lexers are kept per thread and per Bash version, a lexer is reset by each call of start().
+ * <p/>
  * User: jansorg
  * Date: Feb 20, 2010
  * Time: 5:32:41 PM
  */
 class LexerHeuristic implements ContentHeuristic {
+    private static final ThreadLocal<BashLexer[]> lexers = new ThreadLocal<BashLexer[]>() {
+        @Override
+        protected BashLexer[] initialValue() {
+            return new BashLexer[BashVersion.values().length];
+        }
+    };
+
     private final double badCharacterWeight;
     private final double tokenLimitWeight;
     private final double tokenWeight;
@@ -53,9 +61,7 @@ class LexerHeuristic implements ContentHeuristic {
     }
 
     public double isBashFile(File file, String data, Project project) {
-        ParserDefinition definition = LanguageParserDefinitions.INSTANCE.forLanguage(BashFileType.BASH_LANGUAGE);
-
-        Lexer lexer = definition.createLexer(project);
+        BashLexer lexer = threadLexer(BashParserDefinition.findLanguageLevel(project));
         lexer.start(data);
 
         int tokenCount = 0;
@@ -82,6 +88,21 @@ class LexerHeuristic implements ContentHeuristic {
         score += Math.min(0.45, (double) tokenSet.size() * tokenWeight);
         score += Math.min(0.45, (double) modeSet.size() * modeWeight);
 
+        //the lexer of the thread must not keep the data of the file
+        lexer.start("");
+
         return score;
     }
+
+    private static BashLexer threadLexer(BashVersion version) {
+        final BashLexer[] threadLexers = lexers.get();
+
+        BashLexer lexer = threadLexers[version.ordinal()];
+        if (lexer == null) {
+            lexer = new BashLexer(version);
+            threadLexers[version.ordinal()] = lexer;
+        }
+
+        return lexer;
+    }
 }
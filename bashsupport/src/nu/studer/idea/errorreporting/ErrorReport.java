@@ -0,0 +1,267 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ErrorReport.java, Class: ErrorReport
+ * Last modified: 2011-02-26
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nu.studer.idea.errorreporting;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An error report which is waiting in the {@link ErrorReportSpool} to be sent. It contains the data which is sent to
+ * the error receiving server and the number of times the same error was reported while it was waiting.
+ * <p/>
+ * The texts of the events are truncated, the protocol of the server does not accept strings of more than 64 kB.
+ *
+ * @author Joachim Ansorg
+ */
+public final class ErrorReport {
+    private static final int FORMAT_VERSION = 1;
+    static final int MAX_TEXT_LENGTH = 16000;
+
+    private final String pluginId;
+    private final String pluginName;
+    private final String pluginVersion;
+    private final String ideaBuild;
+    private final String[] emailTo;
+    private final String[] emailCc;
+    private final String user;
+    private final String description;
+    private final String[] messages;
+    private final String[] throwableTexts;
+    private final String fingerprint;
+    private int occurrences = 1;
+
+    public ErrorReport(@Nullable String pluginId, @Nullable String pluginName, @Nullable String pluginVersion, @Nullable String ideaBuild,
+                       @NotNull String[] emailTo, @NotNull String[] emailCc, @Nullable String user, @Nullable String description,
+                       @NotNull String[] messages, @NotNull String[] throwableTexts) {
+        if (messages.length != throwableTexts.length) {
+            throw new IllegalArgumentException("Each event needs a message and a throwable text");
+        }
+
+        this.pluginId = pluginId;
+        this.pluginName = pluginName;
+        this.pluginVersion = pluginVersion;
+        this.ideaBuild = ideaBuild;
+        this.emailTo = emailTo;
+        this.emailCc = emailCc;
+        this.user = user;
+        this.description = description;
+        this.messages = truncate(messages);
+        this.throwableTexts = truncate(throwableTexts);
+        this.fingerprint = fingerprint(this.messages, this.throwableTexts);
+    }
+
+    @Nullable
+    public String getPluginId() {
+        return pluginId;
+    }
+
+    @Nullable
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    @Nullable
+    public String getPluginVersion() {
+        return pluginVersion;
+    }
+
+    @Nullable
+    public String getIdeaBuild() {
+        return ideaBuild;
+    }
+
+    @NotNull
+    public String[] getEmailTo() {
+        return emailTo;
+    }
+
+    @NotNull
+    public String[] getEmailCc() {
+        return emailCc;
+    }
+
+    @Nullable
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * @return The description of the user, with a note if the error was reported more than once
+     */
+    @Nullable
+    public String getDescription() {
+        if (occurrences <= 1) {
+            return description;
+        }
+
+        final String note = "(reported " + occurrences + " times)";
+        return description == null || description.length() == 0 ? note : description + "\n\n" + note;
+    }
+
+    @NotNull
+    public String[] getMessages() {
+        return messages;
+    }
+
+    @NotNull
+    public String[] getThrowableTexts() {
+        return throwableTexts;
+    }
+
+    /**
+     * The fingerprint is the SHA-1 hash of the stack traces of the events. The messages are only used if an event
+     * has no stack trace. Line numbers are part of the stack traces, thus the same error of another version of the
+     * plugin has another fingerprint.
+     *
+     * @return The fingerprint, a hex string
+     */
+    @NotNull
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    void addOccurrences(int count) {
+        occurrences += count;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(occurrences);
+        writeString(out, pluginId);
+        writeString(out, pluginName);
+        writeString(out, pluginVersion);
+        writeString(out, ideaBuild);
+        writeStrings(out, emailTo);
+        writeStrings(out, emailCc);
+        writeString(out, user);
+        writeString(out, description);
+        writeStrings(out, messages);
+        writeStrings(out, throwableTexts);
+    }
+
+    static ErrorReport read(DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported version of the error report: " + version);
+        }
+
+        final int occurrences = in.readInt();
+
+        final ErrorReport report = new ErrorReport(readString(in), readString(in), readString(in), readString(in),
+                readStrings(in), readStrings(in), readString(in), readString(in), readStrings(in), readStrings(in));
+        report.occurrences = occurrences;
+
+        return report;
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of strings: " + count);
+        }
+
+        final String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = readString(in);
+        }
+
+        return result;
+    }
+
+    private static String[] truncate(String[] values) {
+        final String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            final String value = values[i];
+            result[i] = value != null && value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+        }
+
+        return result;
+    }
+
+    private static String fingerprint(String[] messages, String[] throwableTexts) {
+        final StringBuilder data = new StringBuilder();
+        for (int i = 0; i < messages.length; i++) {
+            final String frames = stackFrames(throwableTexts[i]);
+            data.append(frames.length() > 0 ? frames : String.valueOf(messages[i])).append('\n');
+        }
+
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(data.toString().getBytes("UTF-8"));
+
+            final StringBuilder result = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+    }
+
+    /**
+     * @return The lines of the stack frames, without the messages of the exceptions and the causes
+     */
+    private static String stackFrames(@Nullable String throwableText) {
+        if (throwableText == null) {
+            return "";
+        }
+
+        final StringBuilder result = new StringBuilder();
+        for (String line : throwableText.split("\r?\n")) {
+            final String trimmed = line.trim();
+            if (trimmed.startsWith("at ")) {
+                result.append(trimmed).append('\n');
+            }
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ErrorReportSender.java, Class: ErrorReportSender
+ * Last modified: 2011-02-26
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nu.studer.idea.errorreporting;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the reports of the {@link ErrorReportSpool} in a background thread. Each run sends all waiting reports. If the
+ * server can not be reached the remaining reports stay in the spool and the next run is scheduled after a delay, the
+ * delay is doubled after each failed run up to a maximum. A report which is rejected by the server is dropped.
+ * <p/>
+ * The address of the error receiving server is looked up at most once a day, the result is kept in the spool.
+ * If the lookup fails the last known address is used, then the fallback address.
+ *
+ * @author Joachim Ansorg
+ */
+public class ErrorReportSender {
+    private static final Logger LOGGER = Logger.getInstance(ErrorReportSender.class.getName());
+
+    private static final long SERVER_URL_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final int TIMEOUT_MILLIS = 15 * 1000;
+
+    private final ErrorReportSpool spool;
+    @Nullable
+    private final String configuredServerUrl;
+    @NonNls
+    private final String lookupUrl;
+    @NonNls
+    private final String fallbackServerUrl;
+    private final long initialDelay;
+    private final long maxDelay;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "Error report sender");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    //guarded by this
+    private boolean scheduled;
+    private boolean wakeUpRequested;
+    private long delay;
+
+    private final Runnable sendTask = new Runnable() {
+        public void run() {
+            synchronized (ErrorReportSender.this) {
+                wakeUpRequested = false;
+            }
+
+            boolean success;
+            try {
+                success = sendPending();
+            } catch (RuntimeException e) {
+                LOGGER.info("Unable to send the error reports", e);
+                success = false;
+            }
+
+            synchronized (ErrorReportSender.this) {
+                if (!success) {
+                    executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                    delay = Math.min(delay * 2, maxDelay);
+                } else if (wakeUpRequested) {
+                    //reports were added while this run was sending
+                    executor.execute(this);
+                } else {
+                    delay = initialDelay;
+                    scheduled = false;
+                }
+            }
+        }
+    };
+
+    /**
+     * @param spool               The waiting reports
+     * @param configuredServerUrl The address of the server, if it is configured. The lookup is not used then.
+     * @param lookupUrl           The address of the lookup, it returns the address of the server
+     * @param fallbackServerUrl   The address of the server which is used if no lookup succeeded yet
+     * @param initialDelay        The delay after the first failed run, in milliseconds
+     * @param maxDelay            The maximal delay between two runs, in milliseconds
+     */
+    public ErrorReportSender(@NotNull ErrorReportSpool spool, @Nullable String configuredServerUrl, @NotNull String lookupUrl,
+                             @NotNull String fallbackServerUrl, long initialDelay, long maxDelay) {
+        this.spool = spool;
+        this.configuredServerUrl = configuredServerUrl;
+        this.lookupUrl = lookupUrl;
+        this.fallbackServerUrl = fallbackServerUrl;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.delay = initialDelay;
+    }
+
+    /**
+     * Starts a run in the background. If a retry is already scheduled the reports are sent with the retry.
+     */
+    public synchronized void wakeUp() {
+        if (scheduled) {
+            wakeUpRequested = true;
+            return;
+        }
+
+        scheduled = true;
+        executor.execute(sendTask);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends all waiting reports.
+     *
+     * @return False if the server could not be reached
+     */
+    boolean sendPending() {
+        final List<ErrorReport> reports = spool.getReports();
+        if (reports.isEmpty()) {
+            return true;
+        }
+
+        final String serverUrl = findServerUrl();
+
+        for (ErrorReport report : reports) {
+            try {
+                prepareConnection(serverUrl);
+                createSubmitter(serverUrl, report).submit(report.getMessages(), report.getThrowableTexts(), report.getDescription(), report.getUser());
+
+                spool.markSent(report);
+            } catch (LoggingEventSubmitter.SubmitException e) {
+                if (e.getCause() != null) {
+                    LOGGER.info("Unable to send the error reports to " + serverUrl + ", retrying later", e);
+                    return false;
+                }
+
+                LOGGER.info("The server rejected the error report " + report.getFingerprint() + ": " + e.getMessage());
+                spool.remove(report);
+            } catch (IOException e) {
+                LOGGER.info("Unable to connect to " + serverUrl + ", retrying later", e);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Called before a connection to the given address is opened, e.g. to apply the proxy settings.
+     */
+    protected void prepareConnection(@NotNull String url) throws IOException {
+    }
+
+    @NotNull
+    String findServerUrl() {
+        if (configuredServerUrl != null) {
+            return configuredServerUrl;
+        }
+
+        final String cachedUrl = spool.getServerUrl(SERVER_URL_MAX_AGE);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
+
+        // the lookup allows to change the server address without a new version of the plugin
+        final String serverUrl = readUrlContent(lookupUrl);
+        if (serverUrl != null && serverUrl.length() > 0) {
+            LOGGER.debug("Server URL " + serverUrl);
+            spool.setServerUrl(serverUrl);
+            return serverUrl;
+        }
+
+        final String lastKnownUrl = spool.getServerUrl(Long.MAX_VALUE);
+        if (lastKnownUrl != null) {
+            return lastKnownUrl;
+        }
+
+        LOGGER.info("Cannot determine server URL, using default server URL " + fallbackServerUrl);
+        return fallbackServerUrl;
+    }
+
+    private static LoggingEventSubmitter createSubmitter(String serverUrl, ErrorReport report) {
+        final LoggingEventSubmitter submitter = new LoggingEventSubmitter(serverUrl);
+        submitter.setPluginId(report.getPluginId());
+        submitter.setPluginName(report.getPluginName());
+        submitter.setPluginVersion(report.getPluginVersion());
+        submitter.setIdeaBuild(report.getIdeaBuild());
+        submitter.setEmailTo(report.getEmailTo());
+        submitter.setEmailCc(report.getEmailCc());
+
+        return submitter;
+    }
+
+    @Nullable
+    private String readUrlContent(String urlString) {
+        final StringBuilder result = new StringBuilder();
+
+        try {
+            prepareConnection(urlString);
+
+            final URLConnection connection = new URL(urlString).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    result.append(line).append("\n");
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.info("Unable to read from URL " + urlString, e);
+            return null;
+        }
+
+        return result.toString().trim();
+    }
+}
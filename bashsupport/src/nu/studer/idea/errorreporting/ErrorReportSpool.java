@@ -0,0 +1,296 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ErrorReportSpool.java, Class: ErrorReportSpool
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nu.studer.idea.errorreporting;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The directory of the error reports which were not sent yet. Each report is stored in its own file, the name of the
+ * file is the fingerprint of the report. A report with the fingerprint of a waiting report is merged into it, a report
+ * with the fingerprint of a report which was already sent is dropped.
+ * <p/>
+ * The directory also keeps the server address which was found by the lookup, see {@link ErrorReportSender}.
+ * All methods are synchronized, the spool is used by the UI and the sender thread.
+ *
+ * @author Joachim Ansorg
+ */
+public class ErrorReportSpool {
+    private static final Logger LOGGER = Logger.getInstance(ErrorReportSpool.class.getName());
+
+    @NonNls
+    private static final String REPORT_SUFFIX = ".report";
+    @NonNls
+    private static final String SENT_FILE = "sent.txt";
+    @NonNls
+    private static final String SERVER_FILE = "server.txt";
+    private static final int MAX_SENT_FINGERPRINTS = 500;
+
+    /**
+     * The result of {@link ErrorReportSpool#add(ErrorReport)}.
+     */
+    public enum AddResult {
+        ADDED, MERGED, ALREADY_SENT
+    }
+
+    private final File directory;
+
+    public ErrorReportSpool(@NotNull File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Stores a report. If a report with the same fingerprint is waiting, the occurrences of the new report are added
+     * to it.
+     *
+     * @param report The new report
+     * @return The way the report was stored
+     * @throws IOException If the report could not be written
+     */
+    @NotNull
+    public synchronized AddResult add(@NotNull ErrorReport report) throws IOException {
+        if (readSentFingerprints().contains(report.getFingerprint())) {
+            return AddResult.ALREADY_SENT;
+        }
+
+        final File file = reportFile(report.getFingerprint());
+        final ErrorReport waiting = file.isFile() ? read(file) : null;
+        if (waiting != null) {
+            waiting.addOccurrences(report.getOccurrences());
+            write(waiting, file);
+
+            return AddResult.MERGED;
+        }
+
+        write(report, file);
+        return AddResult.ADDED;
+    }
+
+    /**
+     * @return The waiting reports, the oldest first. Files which can not be read are deleted.
+     */
+    @NotNull
+    public synchronized List<ErrorReport> getReports() {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return new ArrayList<ErrorReport>();
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            public int compare(File a, File b) {
+                final long first = a.lastModified();
+                final long second = b.lastModified();
+
+                return first < second ? -1 : (first == second ? a.getName().compareTo(b.getName()) : 1);
+            }
+        });
+
+        final List<ErrorReport> result = new ArrayList<ErrorReport>();
+        for (File file : files) {
+            if (file.getName().endsWith(REPORT_SUFFIX)) {
+                final ErrorReport report = read(file);
+                if (report != null) {
+                    result.add(report);
+                } else if (!file.delete()) {
+                    LOGGER.info("Unable to delete the invalid error report " + file);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return True if no report is waiting
+     */
+    public synchronized boolean isEmpty() {
+        final String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(REPORT_SUFFIX)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes a report which was sent. Its fingerprint is remembered, later reports of the same error are dropped.
+     * If the same error was merged into the stored report while it was sent, the stored report is kept with the
+     * occurrences which were not sent yet.
+     */
+    public synchronized void markSent(@NotNull ErrorReport report) {
+        final File file = reportFile(report.getFingerprint());
+        final ErrorReport stored = file.isFile() ? read(file) : null;
+        if (stored != null && stored.getOccurrences() > report.getOccurrences()) {
+            stored.addOccurrences(-report.getOccurrences());
+            try {
+                write(stored, file);
+            } catch (IOException e) {
+                LOGGER.info("Unable to update the error report " + file, e);
+            }
+        } else if (file.exists() && !file.delete()) {
+            LOGGER.info("Unable to delete the sent error report " + file);
+        }
+
+        final Set<String> sent = readSentFingerprints();
+        sent.add(report.getFingerprint());
+
+        final List<String> fingerprints = new ArrayList<String>(sent);
+        writeLines(new File(directory, SENT_FILE), fingerprints.subList(Math.max(0, fingerprints.size() - MAX_SENT_FINGERPRINTS), fingerprints.size()));
+    }
+
+    /**
+     * Removes a report which was rejected by the server.
+     */
+    public synchronized void remove(@NotNull ErrorReport report) {
+        final File file = reportFile(report.getFingerprint());
+        if (file.exists() && !file.delete()) {
+            LOGGER.info("Unable to delete the error report " + file);
+        }
+    }
+
+    /**
+     * @param maxAge The maximal age of the stored address in milliseconds
+     * @return The stored server address, null if there is none or if it is older than maxAge
+     */
+    @Nullable
+    public synchronized String getServerUrl(long maxAge) {
+        final File file = new File(directory, SERVER_FILE);
+        if (!file.isFile() || System.currentTimeMillis() - file.lastModified() > maxAge) {
+            return null;
+        }
+
+        final List<String> lines = readLines(file);
+        return lines.isEmpty() || lines.get(0).length() == 0 ? null : lines.get(0);
+    }
+
+    public synchronized void setServerUrl(@NotNull String serverUrl) {
+        writeLines(new File(directory, SERVER_FILE), Arrays.asList(serverUrl));
+    }
+
+    private File reportFile(String fingerprint) {
+        return new File(directory, fingerprint + REPORT_SUFFIX);
+    }
+
+    private Set<String> readSentFingerprints() {
+        return new LinkedHashSet<String>(readLines(new File(directory, SENT_FILE)));
+    }
+
+    private void write(ErrorReport report, File file) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the directory " + directory);
+        }
+
+        //the report is written to a temporary file first, a crash must not leave a partial report
+        final File tempFile = new File(directory, file.getName() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            report.write(out);
+        } finally {
+            out.close();
+        }
+
+        if (file.exists() && !file.delete() || !tempFile.renameTo(file)) {
+            throw new IOException("Unable to store the error report " + file);
+        }
+    }
+
+    @Nullable
+    private ErrorReport read(File file) {
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return ErrorReport.read(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.info("Unable to read the error report " + file, e);
+            return null;
+        }
+    }
+
+    private List<String> readLines(File file) {
+        final List<String> result = new ArrayList<String>();
+        if (!file.isFile()) {
+            return result;
+        }
+
+        try {
+            final BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().length() > 0) {
+                        result.add(line.trim());
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.info("Unable to read " + file, e);
+        }
+
+        return result;
+    }
+
+    private void writeLines(File file, List<String> lines) {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create the directory " + directory);
+            }
+
+            final Writer writer = new FileWriter(file);
+            try {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            LOGGER.info("Unable to write " + file, e);
+        }
+    }
+}
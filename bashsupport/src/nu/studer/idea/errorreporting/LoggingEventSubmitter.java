@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: LoggingEventSubmitter.java, Class: LoggingEventSubmitter
- * Last modified: 2006-12-22
+ * Last modified: 2011-02-26
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -90,8 +90,23 @@ public class LoggingEventSubmitter {
     }
 
     void submit(@NotNull IdeaLoggingEvent[] events, @Nullable String description, @Nullable String user) throws SubmitException {
+        String[] messages = new String[events.length];
+        String[] throwableTexts = new String[events.length];
+        for (int i = 0; i < events.length; i++) {
+            messages[i] = events[i].getMessage();
+            throwableTexts[i] = events[i].getThrowableText();
+        }
+
+        submit(messages, throwableTexts, description, user);
+    }
+
+    /**
+     * Sends the events, given as pairs of message and throwable text. A SubmitException without a cause means that the
+     * server rejected the events.
+     */
+    void submit(@NotNull String[] messages, @NotNull String[] throwableTexts, @Nullable String description, @Nullable String user) throws SubmitException {
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("About to send logging events " + Arrays.asList(events));
+            LOGGER.debug("About to send logging events " + Arrays.asList(messages));
         }
 
         // open connection
@@ -124,10 +139,10 @@ public class LoggingEventSubmitter {
             stream.writeUTF(emailCc != null ? StringUtil.join(emailCc, ":") : "");
             stream.writeUTF(user != null ? user : "");
             stream.writeUTF(description != null ? description : "");
-            stream.writeInt(events.length);
-            for (IdeaLoggingEvent event : events) {
-                stream.writeUTF(event.getMessage() != null ? event.getMessage() : "");
-                stream.writeUTF(event.getThrowableText() != null ? event.getThrowableText() : "");
+            stream.writeInt(messages.length);
+            for (int i = 0; i < messages.length; i++) {
+                stream.writeUTF(messages[i] != null ? messages[i] : "");
+                stream.writeUTF(throwableTexts[i] != null ? throwableTexts[i] : "");
             }
             stream.flush();
         } catch (IOException ioe) {
@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: PluginErrorReportSubmitter.java, Class: PluginErrorReportSubmitter
- * Last modified: 2010-06-03
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,32 +19,28 @@ package nu.studer.idea.errorreporting;
 
 import com.intellij.ide.plugins.IdeaPluginDescriptor;
 import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.diagnostic.ErrorReportSubmitter;
 import com.intellij.openapi.diagnostic.IdeaLoggingEvent;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.diagnostic.SubmittedReportInfo;
 import com.intellij.openapi.extensions.PluginDescriptor;
 import com.intellij.openapi.extensions.PluginId;
-import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.net.HttpConfigurable;
-import com.intellij.util.net.IOExceptionDialog;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is notified about errors caused by its owning plugin. It bundles the information to be sent to the error receiving server. Configuration
@@ -54,9 +50,13 @@ import java.util.Properties;
  * An indirection is applied when looking up the error receiving server address. This allows to change the location, i.e. address of the error
  * receiving server without having to reconfigure/recompile the plugin (all that needs to be changed is the server address returned by the lookup
  * server).
+ * <p/>
+ * The reports are not sent while the user waits. They are stored in a spool in the system directory and sent by a background thread, which
+ * retries until the server is reachable. An error whose stack trace was already stored or sent is not stored again.
  *
  * @author <a href="mailto:intellij@studer.nu">Etienne Studer</a>, May 17, 2006
  * @see LoggingEventSubmitter
+ * @see ErrorReportSender
  */
 @SuppressWarnings({"AnalyzingLoggingWithoutLogLevelCheck"})
 public class PluginErrorReportSubmitter extends ErrorReportSubmitter {
@@ -83,7 +83,12 @@ public class PluginErrorReportSubmitter extends ErrorReportSubmitter {
     private static final String SERVER_PROPERTY_KEY = "server.address";
 
     @NonNls
-    private String serverUrl;
+    private static final String SPOOL_PATH = "bashsupport/errorReports";
+    private static final long RETRY_INITIAL_DELAY = TimeUnit.MINUTES.toMillis(1);
+    private static final long RETRY_MAX_DELAY = TimeUnit.HOURS.toMillis(2);
+
+    private static ErrorReportSpool spool;
+    private static ErrorReportSender sender;
 
     public String getReportActionText() {
         return PluginErrorReportSubmitterBundle.message("report.error.to.plugin.vendor");
@@ -115,77 +120,87 @@ public class PluginErrorReportSubmitter extends ErrorReportSubmitter {
         // the properties that define the error report content/envelope
         final Properties properties = new Properties();
 
-        // set default server address (through look-up on intellij.net)
-        @NonNls final String defaultServerUrl = getServerUrl();
-        properties.put(SERVER_PROPERTY_KEY, defaultServerUrl);
-
         // first, query the plugin descriptor and try to extract as much information as possible
         queryPluginDescriptor(pluginDescriptor, properties);
         LOGGER.debug("Properties read from plugin descriptor: " + properties);
 
         // second, try to read the settings from the optional properties file (and override any previous properties)
-        queryPropertiesFile(pluginDescriptor, properties);
+        queryPropertiesFile(pluginDescriptor.getPluginClassLoader(), properties);
         LOGGER.debug("Final properties to be applied: " + properties);
 
-        // the final server address
-        @NonNls final String serverUrl = properties.getProperty(SERVER_PROPERTY_KEY);
+        String[] messages = new String[events.length];
+        String[] throwableTexts = new String[events.length];
+        for (int i = 0; i < events.length; i++) {
+            messages[i] = events[i].getMessage();
+            throwableTexts[i] = events[i].getThrowableText();
+        }
 
-        // check if connection to server can be established, i.e. proxy settings are correct
-        boolean tryAgain = false;
-        do {
-            try {
-                HttpConfigurable httpConfigurable = HttpConfigurable.getInstance();
-                httpConfigurable.prepareURL(serverUrl);
-            } catch (IOException ioe) {
-                LOGGER.info("Connection error", ioe);
-                tryAgain = IOExceptionDialog.showErrorDialog(PluginErrorReportSubmitterBundle.message("error.dialog.title"),
-                        PluginErrorReportSubmitterBundle.message("error.dialog.connection.0.error", serverUrl));
-
-                // abort if cannot connect to server and user does not want to try again
-                if (!tryAgain) {
-                    return null;
-                }
-            }
-        } while (tryAgain);
-
-        // submit error report
-        final LoggingEventSubmitter.SubmitException[] ex = new LoggingEventSubmitter.SubmitException[]{null};
-        Runnable runnable = new Runnable() {
-            public void run() {
-                try {
-                    ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
-                    indicator.setText(PluginErrorReportSubmitterBundle.message("progress.dialog.text"));
-                    indicator.setIndeterminate(true);
-
-                    LoggingEventSubmitter submitter = new LoggingEventSubmitter(serverUrl);
-                    submitter.setPluginId(properties.getProperty(PLUGIN_ID_PROPERTY_KEY));
-                    submitter.setPluginName(properties.getProperty(PLUGIN_NAME_PROPERTY_KEY));
-                    submitter.setPluginVersion(properties.getProperty(PLUGIN_VERSION_PROPERTY_KEY));
-                    submitter.setIdeaBuild(ApplicationInfo.getInstance().getBuildNumber());
-                    submitter.setEmailTo(splitByBlanks(properties.getProperty(EMAIL_TO_PROPERTY_KEY)));
-                    submitter.setEmailCc(splitByBlanks(properties.getProperty(EMAIL_CC_PROPERTY_KEY)));
-                    submitter.submit(events, description, user);
-                } catch (LoggingEventSubmitter.SubmitException se) {
-                    ex[0] = se;
-                }
-            }
-        };
-        ProgressManager progressManager = ProgressManager.getInstance();
-        progressManager.runProcessWithProgressSynchronously(runnable, PluginErrorReportSubmitterBundle.message("progress.dialog.title"), false, null);
-
-        // handle successful/failed submission
-        if (ex[0] != null) {
-            LOGGER.info("Error submission failed", ex[0]);
-            Messages.showErrorDialog(parentComponent, ex[0].getMessage(), PluginErrorReportSubmitterBundle.message("error.dialog.title"));
+        ErrorReport report = new ErrorReport(properties.getProperty(PLUGIN_ID_PROPERTY_KEY), properties.getProperty(PLUGIN_NAME_PROPERTY_KEY),
+                properties.getProperty(PLUGIN_VERSION_PROPERTY_KEY), ApplicationInfo.getInstance().getBuildNumber(),
+                splitByBlanks(properties.getProperty(EMAIL_TO_PROPERTY_KEY)), splitByBlanks(properties.getProperty(EMAIL_CC_PROPERTY_KEY)),
+                user, description, messages, throwableTexts);
+
+        // store the report, it is sent in the background
+        ErrorReportSpool.AddResult result;
+        try {
+            result = getSpool().add(report);
+        } catch (IOException ioe) {
+            LOGGER.info("Error report could not be stored", ioe);
+            Messages.showErrorDialog(parentComponent, ioe.getMessage(), PluginErrorReportSubmitterBundle.message("error.dialog.title"));
             return new SubmittedReportInfo(null, null, SubmittedReportInfo.SubmissionStatus.FAILED);
         }
 
-        LOGGER.info("Error submission successful");
+        if (result == ErrorReportSpool.AddResult.ALREADY_SENT) {
+            LOGGER.info("Error was already reported");
+            Messages.showInfoMessage(parentComponent, PluginErrorReportSubmitterBundle.message("duplicate.dialog.message"),
+                    PluginErrorReportSubmitterBundle.message("successful.dialog.title"));
+            return new SubmittedReportInfo(null, null, SubmittedReportInfo.SubmissionStatus.DUPLICATE);
+        }
+
+        getSender(properties.getProperty(SERVER_PROPERTY_KEY)).wakeUp();
+
+        LOGGER.info("Error report queued for submission");
         Messages.showInfoMessage(parentComponent, PluginErrorReportSubmitterBundle.message("successful.dialog.message"),
                 PluginErrorReportSubmitterBundle.message("successful.dialog.title"));
         return new SubmittedReportInfo(null, null, SubmittedReportInfo.SubmissionStatus.NEW_ISSUE);
     }
 
+    /**
+     * Starts to send the reports which were stored in an earlier session of the IDE. It is called when the
+     * application is started.
+     */
+    public static void sendPendingReports() {
+        if (!getSpool().isEmpty()) {
+            final Properties properties = new Properties();
+            queryPropertiesFile(PluginErrorReportSubmitter.class.getClassLoader(), properties);
+
+            getSender(properties.getProperty(SERVER_PROPERTY_KEY)).wakeUp();
+        }
+    }
+
+    private static synchronized ErrorReportSpool getSpool() {
+        if (spool == null) {
+            spool = new ErrorReportSpool(new File(PathManager.getSystemPath(), SPOOL_PATH));
+        }
+        return spool;
+    }
+
+    /**
+     * @param configuredServerUrl The server address of the properties file, if there is one
+     */
+    private static synchronized ErrorReportSender getSender(@Nullable String configuredServerUrl) {
+        if (sender == null) {
+            sender = new ErrorReportSender(getSpool(), configuredServerUrl, SERVER_LOOKUP_URL, FALLBACK_SERVER_URL, RETRY_INITIAL_DELAY, RETRY_MAX_DELAY) {
+                @Override
+                protected void prepareConnection(@NotNull String url) throws IOException {
+                    // apply the proxy settings
+                    HttpConfigurable.getInstance().prepareURL(url);
+                }
+            };
+        }
+        return sender;
+    }
+
     private void queryPluginDescriptor(@NotNull PluginDescriptor pluginDescriptor, @NotNull Properties properties) {
         PluginId descPluginId = pluginDescriptor.getPluginId();
         if (descPluginId != null) {
@@ -215,8 +230,7 @@ public class PluginErrorReportSubmitter extends ErrorReportSubmitter {
         }
     }
 
-    private void queryPropertiesFile(@NotNull PluginDescriptor pluginDescriptor, @NotNull Properties properties) {
-        ClassLoader loader = pluginDescriptor.getPluginClassLoader();
+    private static void queryPropertiesFile(@NotNull ClassLoader loader, @NotNull Properties properties) {
         InputStream stream = loader.getResourceAsStream(ERROR_SUBMITTER_PROPERTIES_PATH);
         if (stream != null) {
             LOGGER.debug("Reading errorReporter.properties from file system: " + ERROR_SUBMITTER_PROPERTIES_PATH);
@@ -238,83 +252,4 @@ public class PluginErrorReportSubmitter extends ErrorReportSubmitter {
         List<String> strings = StringUtil.split(s, " ");
         return strings.toArray(new String[strings.size()]);
     }
-
-    @NotNull
-    private String getServerUrl() {
-        // determine server URL only once per lifetime of the error report submitter instance
-        if (serverUrl == null) {
-            // try to query server URL from lookup location --> this indirection allows to change the
-            // server URL without having to redistribute a new version of the error report submitter
-            @NonNls String serverUrl = readUrlContentWithProxy(SERVER_LOOKUP_URL);
-            if (serverUrl == null) {
-                // as a last resort, fallback to hard-coded server URL
-                serverUrl = FALLBACK_SERVER_URL;
-                LOGGER.warn("Cannot determine server URL, using default server URL " + serverUrl);
-            }
-            this.serverUrl = serverUrl;
-            LOGGER.debug("Server URL " + this.serverUrl);
-        }
-        return serverUrl;
-    }
-
-    @Nullable
-    private String readUrlContentWithProxy(String urlString) {
-        // first, check if connection to server can be established, i.e. proxy settings are correct
-        boolean tryAgain = false;
-        do {
-            try {
-                HttpConfigurable httpConfigurable = HttpConfigurable.getInstance();
-                httpConfigurable.prepareURL(urlString);
-            } catch (IOException ioe) {
-                LOGGER.info("Connection error", ioe);
-                tryAgain = IOExceptionDialog.showErrorDialog(PluginErrorReportSubmitterBundle.message("error.dialog.title"),
-                        PluginErrorReportSubmitterBundle.message("error.dialog.connection.0.error", urlString));
-
-                // abort if cannot connect to server and user does not want to try again
-                if (!tryAgain) {
-                    return null;
-                }
-            }
-        } while (tryAgain);
-
-        // second, connect to server and read content
-        return readUrlContent(urlString);
-    }
-
-    @Nullable
-    private String readUrlContent(String urlString) {
-        URL url;
-        try {
-            url = new URL(urlString);
-        } catch (MalformedURLException e) {
-            LOGGER.info("Invalid URL", e);
-            return null;
-        }
-
-        StringBuffer sb = new StringBuffer();
-
-        BufferedReader bufferedReader = null;
-        try {
-            InputStream stream = url.openStream();
-            InputStreamReader reader = new InputStreamReader(stream);
-            bufferedReader = new BufferedReader(reader);
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
-        } catch (IOException ioe) {
-            LOGGER.info("Unable to read from URL", ioe);
-            return null;
-        } finally {
-            if (bufferedReader != null) {
-                try {
-                    bufferedReader.close();
-                } catch (IOException ioe) {
-                    LOGGER.info("Unable to disconnect from URL", ioe);
-                }
-            }
-        }
-
-        return sb.toString().trim();
-    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashSpacingProcessorBasicTest.java, Class: BashSpacingProcessorBasicTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.formatting.processor;
+
+import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
+import com.ansorgit.plugins.bash.lang.psi.api.BashBackquote;
+import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
+import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDoc;
+import com.ansorgit.plugins.bash.lang.psi.api.heredoc.BashHereDocMarker;
+import com.ansorgit.plugins.bash.lang.psi.api.shell.BashCase;
+import com.ansorgit.plugins.bash.lang.psi.api.shell.BashIf;
+import com.ansorgit.plugins.bash.lang.psi.api.word.BashWord;
+import com.ansorgit.plugins.bash.lang.psi.impl.BashBackquoteImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.command.BashCommandImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.command.BashGenericCommandImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.command.BashInternalCommandImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.function.BashFunctionDefImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.heredoc.BashHereDocEndMarkerImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.heredoc.BashHereDocImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.heredoc.BashHereDocStartMarkerImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.shell.BashCaseImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.shell.BashIfImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.word.BashExpansionImpl;
+import com.ansorgit.plugins.bash.lang.psi.impl.word.BashWordImpl;
+import com.google.common.collect.Maps;
+import com.intellij.psi.tree.IElementType;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.ansorgit.plugins.bash.editor.formatting.processor.BashSpacingProcessorBasic.*;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashSpacingProcessorBasicTest implements BashElementTypes, BashTokenTypes {
+    private static final IElementType[] types = {
+            WORD, WHITESPACE, FILE, STRING_CHAR, STRING_BEGIN, STRING_END, HEREDOC_START_MARKER_ELEMENT,
+            HEREDOC_END_MARKER_ELEMENT, EXPR_CONDITIONAL, _EXPR_CONDITIONAL, BRACKET_KEYWORD, _BRACKET_KEYWORD, DOLLAR,
+            SUBSHELL_COMMAND, ARITHMETIC_COMMAND, VAR_SUBSTITUTION_ELEMENT, VAR_COMPOSED_VAR_ELEMENT, LEFT_CURLY,
+            RIGHT_CURLY, BACKQUOTE, LEFT_PAREN, RIGHT_PAREN, COMMA, FUNCTION_DEF_COMMAND, IF_COMMAND, THEN_KEYWORD,
+            ELIF_KEYWORD, ELSE_KEYWORD, FI_KEYWORD, ASSIGNMENT_WORD, EQ, SEMI, CASE_PATTERN_ELEMENT, IN_KEYWORD,
+            DO_KEYWORD, DONE_KEYWORD, SHEBANG_ELEMENT, HEREDOC_ELEMENT, PARSED_WORD_ELEMENT, EXPANSION_ELEMENT,
+            BACKQUOTE_COMMAND, CASE_COMMAND, SIMPLE_COMMAND_ELEMENT, INTERNAL_COMMAND_ELEMENT, GENERIC_COMMAND_ELEMENT
+    };
+
+    //the psi classes which BashPsiCreator creates for the types, the old rules checked these with instanceof
+    private static final Map<IElementType, Class<?>> psiClasses = Maps.newHashMap();
+
+    static {
+        psiClasses.put(HEREDOC_ELEMENT, BashHereDocImpl.class);
+        psiClasses.put(HEREDOC_START_MARKER_ELEMENT, BashHereDocStartMarkerImpl.class);
+        psiClasses.put(HEREDOC_END_MARKER_ELEMENT, BashHereDocEndMarkerImpl.class);
+        psiClasses.put(PARSED_WORD_ELEMENT, BashWordImpl.class);
+        psiClasses.put(EXPANSION_ELEMENT, BashExpansionImpl.class);
+        psiClasses.put(BACKQUOTE_COMMAND, BashBackquoteImpl.class);
+        psiClasses.put(FUNCTION_DEF_COMMAND, BashFunctionDefImpl.class);
+        psiClasses.put(IF_COMMAND, BashIfImpl.class);
+        psiClasses.put(CASE_COMMAND, BashCaseImpl.class);
+        psiClasses.put(SIMPLE_COMMAND_ELEMENT, BashCommandImpl.class);
+        psiClasses.put(ARITHMETIC_COMMAND, BashCommandImpl.class);
+        psiClasses.put(INTERNAL_COMMAND_ELEMENT, BashInternalCommandImpl.class);
+        psiClasses.put(GENERIC_COMMAND_ELEMENT, BashGenericCommandImpl.class);
+    }
+
+    /**
+     * Compares the table with the rules as they were implemented before the table was introduced. These rules checked
+     * the psi elements of the nodes and of their parent with instanceof.
+     */
+    @Test
+    public void testTableMatchesRules() {
+        for (IElementType parent : types) {
+            for (IElementType left : types) {
+                for (IElementType right : types) {
+                    final int entry = lookup(parent, left, right);
+                    final String pair = parent + ": " + left + " / " + right;
+
+                    Assert.assertEquals(pair, psiSpacing(parent, left, right, false), entry & 0xf);
+                    Assert.assertEquals(pair, psiSpacing(parent, left, right, true), entry >> 4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBraceExpansion() {
+        Assert.assertEquals(NO_SPACING, lookup(EXPANSION_ELEMENT, WORD, LEFT_CURLY) & 0xf);
+        Assert.assertEquals(NO_SPACING, lookup(EXPANSION_ELEMENT, WORD, COMMA) & 0xf);
+        Assert.assertEquals(NO_SPACING, lookup(EXPANSION_ELEMENT, RIGHT_CURLY, WORD) & 0xf);
+    }
+
+    @Test
+    public void testRules() {
+        Assert.assertEquals(COMMON_SPACING, lookup(FILE, WORD, WORD));
+        Assert.assertEquals(NO_SPACING, lookup(FILE, ASSIGNMENT_WORD, EQ) & 0xf);
+        Assert.assertEquals(NO_SPACING, lookup(FILE, WORD, SEMI) & 0xf);
+        Assert.assertEquals(NO_SPACING, lookup(PARSED_WORD_ELEMENT, WORD, WORD) & 0xf);
+        Assert.assertEquals(READ_ONLY_SPACING, lookup(HEREDOC_ELEMENT, WORD, WORD) & 0xf);
+        Assert.assertEquals(FUNCTION_DEF_SPACING, lookup(FILE, FUNCTION_DEF_COMMAND, WORD) & 0xf);
+        Assert.assertEquals(COMMON_SPACING_WITH_NL, lookup(IF_COMMAND, THEN_KEYWORD, WORD) & 0xf);
+        Assert.assertEquals(COMMON_SPACING, lookup(FILE, THEN_KEYWORD, WORD) & 0xf);
+        Assert.assertEquals(NO_SPACING, lookup(VAR_COMPOSED_VAR_ELEMENT, DOLLAR, LEFT_CURLY) & 0xf);
+    }
+
+    @Test
+    public void testContextRules() {
+        //an equals sign after an assignment word
+        final int eq = lookup(FILE, EQ, WORD);
+        Assert.assertEquals(COMMON_SPACING, eq & 0xf);
+        Assert.assertEquals(NO_SPACING, eq >> 4);
+
+        //a semicolon between two commands
+        final int semi = lookup(FILE, SEMI, SIMPLE_COMMAND_ELEMENT);
+        Assert.assertEquals(COMMON_SPACING, semi & 0xf);
+        Assert.assertEquals(COMMON_SPACING_WITH_NL, semi >> 4);
+
+        //the context is not used for other pairs
+        final int word = lookup(FILE, SEMI, WORD);
+        Assert.assertEquals(word & 0xf, word >> 4);
+    }
+
+    /**
+     * The rules of the spacing processor before the table, the psi checks are replaced by checks of the psi classes.
+     * The string rule only covers the string characters, the caller handles the other nodes in strings.
+     */
+    private static int psiSpacing(IElementType parent, IElementType left, IElementType right, boolean leftContext) {
+        if (left == STRING_CHAR && right == STRING_CHAR) {
+            return NO_SPACING;
+        }
+
+        if (is(parent, BashHereDoc.class)) {
+            return READ_ONLY_SPACING;
+        }
+        if (left == STRING_BEGIN && is(right, BashHereDocMarker.class)) {
+            return NO_SPACING;
+        }
+        if (is(left, BashHereDocMarker.class) && right == STRING_END) {
+            return NO_SPACING;
+        }
+
+        if (is(parent, BashWord.class)) {
+            return NO_SPACING;
+        }
+
+        if (left == EXPR_CONDITIONAL || right == _EXPR_CONDITIONAL || left == BRACKET_KEYWORD || right == _BRACKET_KEYWORD) {
+            return NO_SPACING;
+        }
+
+        if (left == DOLLAR && (right == SUBSHELL_COMMAND || right == ARITHMETIC_COMMAND
+                || right == VAR_SUBSTITUTION_ELEMENT || right == VAR_COMPOSED_VAR_ELEMENT)) {
+            return NO_SPACING;
+        }
+        if (left == DOLLAR && right == LEFT_CURLY && parent == VAR_COMPOSED_VAR_ELEMENT) {
+            return NO_SPACING;
+        }
+        if ((left == LEFT_CURLY || right == RIGHT_CURLY) && (parent == VAR_SUBSTITUTION_ELEMENT || parent == VAR_COMPOSED_VAR_ELEMENT)) {
+            return NO_SPACING;
+        }
+
+        if ((left == BACKQUOTE || right == BACKQUOTE) && is(parent, BashBackquote.class)) {
+            return NO_SPACING;
+        }
+
+        if ((right == LEFT_PAREN || right == RIGHT_PAREN) && parent == FUNCTION_DEF_COMMAND) {
+            return NO_SPACING;
+        }
+        if (left == FUNCTION_DEF_COMMAND) {
+            return FUNCTION_DEF_SPACING;
+        }
+
+        if (left == IF_COMMAND) {
+            return COMMON_SPACING_WITH_NL;
+        }
+        if (is(parent, BashIf.class) && (left == THEN_KEYWORD || right == ELIF_KEYWORD || left == ELSE_KEYWORD
+                || right == ELSE_KEYWORD || left == FI_KEYWORD || right == FI_KEYWORD)) {
+            return COMMON_SPACING_WITH_NL;
+        }
+
+        if (left == ASSIGNMENT_WORD && right == EQ || left == EQ && leftContext) {
+            return NO_SPACING;
+        }
+
+        if (is(left, BashCommand.class) && right == SEMI || right == SEMI) {
+            return NO_SPACING;
+        }
+
+        if (left == CASE_PATTERN_ELEMENT || right == CASE_PATTERN_ELEMENT) {
+            return NO_SPACING;
+        }
+        if (left == IN_KEYWORD && is(parent, BashCase.class)) {
+            return COMMON_SPACING_WITH_NL;
+        }
+
+        if (left == DO_KEYWORD || right == DONE_KEYWORD || left == SHEBANG_ELEMENT) {
+            return COMMON_SPACING_WITH_NL;
+        }
+
+        if (left == SEMI && leftContext && is(right, BashCommand.class)) {
+            return COMMON_SPACING_WITH_NL;
+        }
+
+        return COMMON_SPACING;
+    }
+
+    private static boolean is(IElementType type, Class<?> psiClass) {
+        final Class<?> typeClass = psiClasses.get(type);
+        return typeClass != null && psiClass.isAssignableFrom(typeClass);
+    }
+}
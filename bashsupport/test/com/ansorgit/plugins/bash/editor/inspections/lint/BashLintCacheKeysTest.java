@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintCacheKeysTest.java, Class: BashLintCacheKeysTest
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashLintCacheKeysTest {
+    @Test
+    public void testFindIncludes() throws Exception {
+        Assert.assertEquals(Arrays.asList("a.sh", "lib/b.sh", "c d.sh", "/etc/e"), BashLintCacheKeys.findIncludes(
+                ". a.sh\n" +
+                        "  source lib/b.sh # comment\n" +
+                        "\t. 'c d.sh'\n" +
+                        "source \"/etc/e\"; echo\n" +
+                        ". $HOME/dynamic.sh\n" +
+                        "echo . x.sh\n" +
+                        "..\n"));
+
+        Assert.assertEquals(Collections.<String>emptyList(), BashLintCacheKeys.findIncludes(""));
+    }
+
+    @Test
+    public void testKeys() throws Exception {
+        File dir = File.createTempFile("bashlint", "");
+        Assert.assertTrue(dir.delete() && dir.mkdir());
+
+        File script = new File(dir, "script.sh");
+        File include = new File(dir, "include.sh");
+        try {
+            write(include, "a=1\n");
+
+            String text = "#!/bin/bash\n. include.sh\necho $a\n";
+            String key = new BashLintCacheKeys(false, Arrays.asList("a", "b")).keyFor(script, text);
+
+            Assert.assertEquals(40, key.length());
+            Assert.assertEquals(key, new BashLintCacheKeys(false, Arrays.asList("b", "a")).keyFor(script, text));
+            Assert.assertFalse(key.equals(new BashLintCacheKeys(true, Arrays.asList("a", "b")).keyFor(script, text)));
+            Assert.assertFalse(key.equals(new BashLintCacheKeys(false, Arrays.asList("a")).keyFor(script, text)));
+            Assert.assertFalse(key.equals(new BashLintCacheKeys(false, Arrays.asList("a", "b")).keyFor(script, text + "\n")));
+
+            //a changed include changes the key
+            write(include, "a=2\n");
+            Assert.assertFalse(key.equals(new BashLintCacheKeys(false, Arrays.asList("a", "b")).keyFor(script, text)));
+
+            //a cycle of includes
+            write(include, ". script.sh\n");
+            Assert.assertEquals(40, new BashLintCacheKeys(false, Arrays.asList("a", "b")).keyFor(script, text).length());
+
+            Assert.assertTrue(include.delete());
+            Assert.assertFalse(key.equals(new BashLintCacheKeys(false, Arrays.asList("a", "b")).keyFor(script, text)));
+        } finally {
+            include.delete();
+            dir.delete();
+        }
+    }
+
+    private static void write(File file, String content) throws Exception {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintCacheTest.java, Class: BashLintCacheTest
+ * Last modified: 2011-02-13
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashLintCacheTest {
+    private static final String KEY_A = "00112233445566778899aabbccddeeff00112233";
+    private static final String KEY_B = "ffeeddccbbaa99887766554433221100ffeeddcc";
+    private static final String KEY_C = "0123456789abcdef0123456789abcdef01234567";
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = File.createTempFile("bashlint", ".cache");
+        try {
+            BashLintCache cache = new BashLintCache(10);
+            cache.put(KEY_A, new BashLintCache.Entry(300, Arrays.asList(
+                    new BashLintReport.Finding("a.sh", 200, 130, BashLintReport.Severity.ERROR, "unresolvedVariableInspection", "Unresolved variable"),
+                    new BashLintReport.Finding("a.sh", 210, 1, BashLintReport.Severity.INFO, "unresolvedVariableInspection", "Unresolved variable"))));
+            cache.put(KEY_B, new BashLintCache.Entry(2, Collections.<BashLintReport.Finding>emptyList()));
+            cache.save(file);
+
+            BashLintCache loaded = BashLintCache.load(file, 10);
+            Assert.assertEquals(2, loaded.size());
+            Assert.assertEquals(0, loaded.get(KEY_B).findings.size());
+
+            BashLintCache.Entry entry = loaded.get(KEY_A);
+            Assert.assertEquals(300, entry.lines);
+
+            List<BashLintReport.Finding> findings = entry.getFindings("b.sh");
+            Assert.assertEquals(2, findings.size());
+            Assert.assertEquals("b.sh", findings.get(0).path);
+            Assert.assertEquals(200, findings.get(0).line);
+            Assert.assertEquals(130, findings.get(0).column);
+            Assert.assertEquals(BashLintReport.Severity.ERROR, findings.get(0).severity);
+            Assert.assertEquals("Unresolved variable", findings.get(1).message);
+            Assert.assertEquals(BashLintReport.Severity.INFO, findings.get(1).severity);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        BashLintCache cache = new BashLintCache(2);
+        cache.put(KEY_A, new BashLintCache.Entry(1, Collections.<BashLintReport.Finding>emptyList()));
+        cache.put(KEY_B, new BashLintCache.Entry(1, Collections.<BashLintReport.Finding>emptyList()));
+
+        //A is now the most recently used entry
+        Assert.assertNotNull(cache.get(KEY_A));
+        cache.put(KEY_C, new BashLintCache.Entry(1, Collections.<BashLintReport.Finding>emptyList()));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(KEY_A));
+        Assert.assertNull(cache.get(KEY_B));
+        Assert.assertNotNull(cache.get(KEY_C));
+    }
+
+    @Test
+    public void testDamagedFile() throws Exception {
+        File file = File.createTempFile("bashlint", ".cache");
+        try {
+            FileOutputStream output = new FileOutputStream(file);
+            output.write(new byte[]{0x42, 0x53, 0x4c, 0x43, 0, 0, 0, 1, 5});
+            output.close();
+
+            Assert.assertEquals(0, BashLintCache.load(file, 10).size());
+            Assert.assertEquals(0, BashLintCache.load(new File(file.getPath() + ".missing"), 10).size());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintOptionsTest.java, Class: BashLintOptionsTest
+ * Last modified: 2011-02-12
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashLintOptionsTest {
+    @Test
+    public void testParse() throws Exception {
+        BashLintOptions options = BashLintOptions.parse(new String[]{"--format", "checkstyle", "--threads", "3", "--fail-on", "warning", "--stats", "a", "b"});
+
+        Assert.assertEquals(BashLintOptions.Format.CHECKSTYLE, options.getFormat());
+        Assert.assertEquals(3, options.getThreads());
+        Assert.assertEquals(BashLintReport.Severity.WARNING, options.getFailSeverity());
+        Assert.assertTrue(options.isStats());
+        Assert.assertNull(options.getOutputPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPaths() throws Exception {
+        BashLintOptions.parse(new String[]{"--format", "json"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFormat() throws Exception {
+        BashLintOptions.parse(new String[]{"--format", "html", "a"});
+    }
+
+    @Test
+    public void testCollectFiles() throws Exception {
+        File base = File.createTempFile("bashlint", "");
+        Assert.assertTrue(base.delete() && base.mkdir());
+
+        try {
+            File nested = new File(base, "nested");
+            Assert.assertTrue(nested.mkdir());
+            Assert.assertTrue(new File(base, "a.sh").createNewFile());
+            Assert.assertTrue(new File(base, "b.bash").createNewFile());
+            Assert.assertTrue(new File(nested, "c.sh").createNewFile());
+
+            List<File> files = BashLintOptions.parse(new String[]{base.getPath()}).collectFiles();
+            Assert.assertEquals(2, files.size());
+            Assert.assertEquals(new File(base, "a.sh"), files.get(0));
+            Assert.assertEquals(new File(nested, "c.sh"), files.get(1));
+
+            //a glob and a file which is matched twice
+            files = BashLintOptions.parse(new String[]{base.getPath() + "/*.bash", base.getPath() + "/b.bash"}).collectFiles();
+            Assert.assertEquals(1, files.size());
+            Assert.assertEquals(new File(base, "b.bash"), files.get(0));
+        } finally {
+            new File(base, "nested/c.sh").delete();
+            new File(base, "nested").delete();
+            new File(base, "a.sh").delete();
+            new File(base, "b.bash").delete();
+            base.delete();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLintReportTest.java, Class: BashLintReportTest
+ * Last modified: 2011-02-12
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.inspections.lint;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashLintReportTest {
+    @Test
+    public void testExport() throws Exception {
+        BashLintReport report = new BashLintReport();
+        report.addFile(10, Arrays.asList(
+                new BashLintReport.Finding("b.sh", 3, 1, BashLintReport.Severity.INFO, "ConvertBackquote", "Replace `a` <b>"),
+                new BashLintReport.Finding("a.sh", 7, 5, BashLintReport.Severity.ERROR, "unresolvedVariableInspection", "Unresolved \"x\"")));
+        report.addFile(5, Collections.<BashLintReport.Finding>emptyList());
+        report.setDurationMillis(20);
+
+        Assert.assertEquals(2, report.getFileCount());
+        Assert.assertEquals(15, report.getLineCount());
+        Assert.assertEquals(2, report.count(BashLintReport.Severity.INFO));
+        Assert.assertEquals(1, report.count(BashLintReport.Severity.WARNING));
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        Assert.assertEquals("{\"files\":2,\"lines\":15,\"durationMillis\":20,\"findings\":[" +
+                "{\"file\":\"a.sh\",\"line\":7,\"column\":5,\"severity\":\"error\",\"inspection\":\"unresolvedVariableInspection\",\"message\":\"Unresolved \\\"x\\\"\"}," +
+                "{\"file\":\"b.sh\",\"line\":3,\"column\":1,\"severity\":\"info\",\"inspection\":\"ConvertBackquote\",\"message\":\"Replace `a` <b>\"}]}\n", json.toString());
+
+        StringWriter xml = new StringWriter();
+        report.writeCheckstyle(xml);
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<checkstyle version=\"4.3\">\n" +
+                "  <file name=\"a.sh\">\n" +
+                "    <error line=\"7\" column=\"5\" severity=\"error\" message=\"Unresolved &quot;x&quot;\" source=\"unresolvedVariableInspection\"/>\n" +
+                "  </file>\n" +
+                "  <file name=\"b.sh\">\n" +
+                "    <error line=\"3\" column=\"1\" severity=\"info\" message=\"Replace `a` &lt;b&gt;\" source=\"ConvertBackquote\"/>\n" +
+                "  </file>\n" +
+                "</checkstyle>\n", xml.toString());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BlockScannerTest.java, Class: BlockScannerTest
+ * Last modified: 2011-02-19
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.editor.largefile;
+
+import com.ansorgit.plugins.bash.lang.BashScriptGenerator;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BlockScannerTest {
+    private static final String HEREDOCS = "cat <<EOF; if a; then\nfi\ndone\nEOF\nfi\ncat <<-'X' <<<b\n\tdo\n\tX\n";
+
+    @Test
+    public void testIf() {
+        assertRegions("if a; then\n  b\nelif c; then\n  d\nelse\n  e\nfi\n",
+                "\n  b\n", "\n  d\n", "\n  e\n");
+    }
+
+    @Test
+    public void testLoops() {
+        assertRegions("for a in b; do\n  while c; do\n    d\n  done\ndone",
+                "\n    d\n  ", "\n  while c; do\n    d\n  done\n");
+    }
+
+    @Test
+    public void testCase() {
+        assertRegions("case $a in\n  b) c;;\n  *) d;;\nesac\n", "\n  b) c;;\n  *) d;;\n");
+    }
+
+    @Test
+    public void testFunctions() {
+        assertRegions("function a {\n  b\n}\nc() {\n  d\n}\nfunction e() { f; }",
+                "{\n  b\n}", "{\n  d\n}", "{ f; }");
+    }
+
+    @Test
+    public void testKeywordsAsArguments() {
+        assertRegions("echo then do done fi esac }\necho ${a} {b,c}\n");
+        assertRegions("while a; do echo done; done", " echo done; ");
+    }
+
+    @Test
+    public void testQuotesAndComments() {
+        assertRegions("echo \"then\nfi\" 'do\ndone'\n# then\necho `do`\n");
+        assertRegions("if a; then # fi\n  b \\\nfi\nfi", " # fi\n  b \\\nfi\n");
+    }
+
+    @Test
+    public void testHereDocs() {
+        List<BlockScanner.Region> regions = BlockScanner.scan(HEREDOCS);
+        Assert.assertEquals(3, regions.size());
+
+        Assert.assertEquals(BlockScanner.HEREDOC, regions.get(0).getKind());
+        Assert.assertEquals("fi\ndone", text(regions.get(0)));
+        Assert.assertEquals(BlockScanner.BLOCK, regions.get(1).getKind());
+        Assert.assertEquals("\nfi\ndone\nEOF\n", text(regions.get(1)));
+        Assert.assertEquals(BlockScanner.HEREDOC, regions.get(2).getKind());
+        Assert.assertEquals("\tdo", text(regions.get(2)));
+    }
+
+    @Test
+    public void testAnchor() {
+        final String script = "if a\nthen\n  b\nfi";
+        final List<BlockScanner.Region> regions = BlockScanner.scan(script);
+
+        Assert.assertEquals(1, regions.size());
+        Assert.assertEquals(script.indexOf("then"), regions.get(0).getAnchorOffset());
+    }
+
+    @Test
+    public void testGeneratedScript() {
+        BashScriptGenerator generator = new BashScriptGenerator(42);
+        generator.setBlockNesting(0);
+        generator.setFunctionNesting(1);
+        generator.setFunctions(5);
+
+        final String script = generator.generate(200);
+
+        //all functions and here-docs are found, the generated here-docs contain no quotes or keywords
+        int braces = 0;
+        int hereDocs = 0;
+        for (BlockScanner.Region region : BlockScanner.scan(script)) {
+            if (region.getKind() == BlockScanner.HEREDOC) {
+                hereDocs++;
+            } else if (script.charAt(region.getRange().getStartOffset()) == '{') {
+                braces++;
+            }
+        }
+
+        Assert.assertEquals(5, braces);
+        Assert.assertEquals(count(script, "cat <<EOF_"), hereDocs);
+    }
+
+    private static void assertRegions(String script, String... expected) {
+        final List<BlockScanner.Region> regions = BlockScanner.scan(script);
+
+        Assert.assertEquals(script, expected.length, regions.size());
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(BlockScanner.BLOCK, regions.get(i).getKind());
+            Assert.assertEquals(expected[i], regions.get(i).getRange().substring(script));
+        }
+    }
+
+    private static String text(BlockScanner.Region region) {
+        return region.getRange().substring(HEREDOCS);
+    }
+
+    private static int count(String text, String part) {
+        int result = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            result++;
+        }
+
+        return result;
+    }
+}
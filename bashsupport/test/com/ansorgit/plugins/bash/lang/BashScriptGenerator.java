@@ -0,0 +1,355 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashScriptGenerator.java, Class: BashScriptGenerator
+ * Last modified: 2011-02-16
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang;
+
+import java.util.Random;
+
+/**
+ * Generates syntactically valid Bash scripts for stress tests and benchmarks.
+ * <p/>
+ * The output only depends on the seed, the shape settings and the number of statements. The same settings always
+ * generate the same script.
+ * <p/>
+ * A script defines all variables first, then all functions and then the requested number of statements.
+ * The statements are chosen randomly from simple commands, pipelines, nested command substitutions, arithmetic,
+ * here-docs, case statements, brace expansions, function calls and nested if, for and while blocks.
+ *
+ * @author Joachim Ansorg
+ */
+public final class BashScriptGenerator {
+    private static final String[] COMMANDS = {"echo", "printf", "ls", "grep", "cat", "test", "mkdir", "touch"};
+    private static final String[] FILTERS = {"grep -v x", "sort", "uniq -c", "wc -l", "cut -d: -f1", "tr a b", "head -n 5", "tail -n 2"};
+    private static final String[] ARITH_OPERATORS = {"+", "-", "*", "/", "%"};
+    private static final int STATEMENT_KINDS = 11;
+
+    private final long seed;
+    private Random random;
+
+    private int functionNesting = 3;
+    private int variables = 50;
+    private int functions = 20;
+    private int pipelineLength = 4;
+    private int substitutionNesting = 3;
+    private int arithmeticNesting = 1;
+    private int hereDocLines = 10;
+    private int caseBranches = 5;
+    private int braceExpansionItems = 5;
+    private int blockNesting = 3;
+
+    private int hereDocCount;
+
+    public BashScriptGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates a script.
+     *
+     * @param statements The number of statements after the variable and function definitions
+     * @return The script
+     */
+    public String generate(int statements) {
+        random = new Random(seed);
+        hereDocCount = 0;
+
+        final StringBuilder script = new StringBuilder();
+        script.append("#!/bin/bash\n");
+        script.append("# generated script, seed ").append(seed).append('\n');
+
+        for (int i = 0; i < variables; i++) {
+            script.append(varName(i)).append('=').append(value()).append('\n');
+        }
+
+        for (int i = 0; i < functions; i++) {
+            appendFunction(script, "", "fn_" + i, functionNesting);
+        }
+
+        for (int i = 0; i < statements; i++) {
+            appendStatement(script, "", blockNesting);
+        }
+
+        return script.toString();
+    }
+
+    private void appendFunction(StringBuilder script, String indent, String name, int nesting) {
+        script.append(indent).append(random.nextBoolean() ? "function " + name + "() {\n" : name + "() {\n");
+
+        final String bodyIndent = indent + "    ";
+        script.append(bodyIndent).append("local ").append(name).append("_arg=\"$1\"\n");
+
+        final int statements = 1 + random.nextInt(4);
+        for (int i = 0; i < statements; i++) {
+            appendStatement(script, bodyIndent, 1);
+        }
+
+        if (nesting > 1) {
+            appendFunction(script, bodyIndent, name + "_inner", nesting - 1);
+            script.append(bodyIndent).append(name).append("_inner \"$").append(name).append("_arg\"\n");
+        }
+
+        script.append(indent).append("}\n");
+    }
+
+    private void appendStatement(StringBuilder script, String indent, int nesting) {
+        //the last four kinds contain nested statements
+        final int kind = random.nextInt(nesting > 0 ? STATEMENT_KINDS : STATEMENT_KINDS - 4);
+
+        switch (kind) {
+            case 0:
+                script.append(indent).append(randomVar()).append('=').append(value()).append('\n');
+                break;
+            case 1:
+                script.append(indent).append(simpleCommand()).append('\n');
+                break;
+            case 2:
+                script.append(indent).append(pipeline()).append('\n');
+                break;
+            case 3:
+                script.append(indent).append(randomVar()).append("=\"$(").append(substitution(substitutionNesting)).append(")\"\n");
+                break;
+            case 4:
+                script.append(indent).append(randomVar()).append("=$((").append(arithmetic(arithmeticNesting)).append("))\n");
+                break;
+            case 5:
+                appendHereDoc(script, indent);
+                break;
+            case 6:
+                script.append(indent).append("echo ").append(braceExpansion()).append('\n');
+                break;
+            case 7:
+                appendCase(script, indent, nesting);
+                break;
+            case 8:
+                appendIf(script, indent, nesting);
+                break;
+            case 9:
+                appendFor(script, indent, nesting);
+                break;
+            default:
+                appendWhile(script, indent, nesting);
+                break;
+        }
+    }
+
+    private void appendBlock(StringBuilder script, String indent, int nesting) {
+        final int statements = 1 + random.nextInt(3);
+        for (int i = 0; i < statements; i++) {
+            appendStatement(script, indent, nesting);
+        }
+    }
+
+    private void appendIf(StringBuilder script, String indent, int nesting) {
+        script.append(indent).append("if [ \"$").append(randomVar()).append("\" = \"").append(word()).append("\" ]; then\n");
+        appendBlock(script, indent + "    ", nesting - 1);
+
+        if (random.nextBoolean()) {
+            script.append(indent).append("elif [ -n \"$").append(randomVar()).append("\" ]; then\n");
+            appendBlock(script, indent + "    ", nesting - 1);
+        }
+
+        if (random.nextBoolean()) {
+            script.append(indent).append("else\n");
+            appendBlock(script, indent + "    ", nesting - 1);
+        }
+
+        script.append(indent).append("fi\n");
+    }
+
+    private void appendFor(StringBuilder script, String indent, int nesting) {
+        script.append(indent).append("for item in ").append(word()).append(' ').append(word()).append(" \"$").append(randomVar()).append("\"; do\n");
+        appendBlock(script, indent + "    ", nesting - 1);
+        script.append(indent).append("done\n");
+    }
+
+    private void appendWhile(StringBuilder script, String indent, int nesting) {
+        script.append(indent).append("while [ \"$").append(randomVar()).append("\" -lt ").append(random.nextInt(100)).append(" ]; do\n");
+        appendBlock(script, indent + "    ", nesting - 1);
+        script.append(indent).append("    ").append(randomVar()).append("=$((").append(randomVar()).append(" + 1))\n");
+        script.append(indent).append("done\n");
+    }
+
+    private void appendHereDoc(StringBuilder script, String indent) {
+        final String marker = "EOF_" + hereDocCount++;
+
+        script.append(indent).append("cat <<").append(marker).append('\n');
+        for (int i = 0; i < hereDocLines; i++) {
+            script.append(word()).append(' ').append(word()).append(" $").append(randomVar()).append(' ').append(word()).append('\n');
+        }
+        script.append(marker).append('\n');
+    }
+
+    private void appendCase(StringBuilder script, String indent, int nesting) {
+        script.append(indent).append("case \"$").append(randomVar()).append("\" in\n");
+
+        for (int i = 0; i < caseBranches; i++) {
+            script.append(indent).append("    ").append(word()).append('_').append(i).append("|").append(i).append(")\n");
+            appendBlock(script, indent + "        ", nesting - 1);
+            script.append(indent).append("        ;;\n");
+        }
+
+        script.append(indent).append("    *)\n");
+        script.append(indent).append("        ").append(simpleCommand()).append('\n');
+        script.append(indent).append("        ;;\n");
+        script.append(indent).append("esac\n");
+    }
+
+    private String simpleCommand() {
+        final StringBuilder result = new StringBuilder(functions > 0 && random.nextInt(4) == 0
+                ? "fn_" + random.nextInt(functions)
+                : COMMANDS[random.nextInt(COMMANDS.length)]);
+
+        final int arguments = 1 + random.nextInt(4);
+        for (int i = 0; i < arguments; i++) {
+            result.append(' ').append(argument());
+        }
+
+        return result.toString();
+    }
+
+    private String pipeline() {
+        final StringBuilder result = new StringBuilder(simpleCommand());
+
+        final int length = 1 + random.nextInt(Math.max(1, pipelineLength - 1));
+        for (int i = 0; i < length; i++) {
+            result.append(" | ").append(FILTERS[random.nextInt(FILTERS.length)]);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * A command for a command substitution. The nested substitutions use $( ), the innermost one uses backquotes.
+     */
+    private String substitution(int depth) {
+        if (depth <= 1) {
+            return "echo `echo " + word() + "`";
+        }
+
+        return "echo " + word() + " $(" + substitution(depth - 1) + ")";
+    }
+
+    /**
+     * An arithmetic expression with operands which are nested up to the given depth, e.g. <code>a + (1 * (b - 2))</code>.
+     */
+    private String arithmetic(int depth) {
+        final String operator = ARITH_OPERATORS[random.nextInt(ARITH_OPERATORS.length)];
+        return arithmeticOperand(depth - 1) + " " + operator + " " + arithmeticOperand(depth - 1);
+    }
+
+    private String arithmeticOperand(int depth) {
+        if (depth <= 0 || random.nextInt(3) == 0) {
+            return random.nextBoolean() ? String.valueOf(1 + random.nextInt(1000)) : randomVar();
+        }
+
+        return "(" + arithmetic(depth) + ")";
+    }
+
+    private String braceExpansion() {
+        final StringBuilder result = new StringBuilder(word()).append('{');
+
+        for (int i = 0; i < braceExpansionItems; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(random.nextBoolean() ? word() : String.valueOf(i));
+        }
+
+        return result.append('}').toString();
+    }
+
+    private String argument() {
+        switch (random.nextInt(5)) {
+            case 0:
+                return "$" + randomVar();
+            case 1:
+                return "\"" + word() + " ${" + randomVar() + "}\"";
+            case 2:
+                return "'" + word() + " " + word() + "'";
+            case 3:
+                return "-" + (char) ('a' + random.nextInt(26));
+            default:
+                return word();
+        }
+    }
+
+    private String value() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return String.valueOf(random.nextInt(10000));
+            case 1:
+                return "\"" + word() + " " + word() + "\"";
+            case 2:
+                return "/tmp/" + word();
+            default:
+                return word();
+        }
+    }
+
+    private String word() {
+        return "word" + random.nextInt(1000);
+    }
+
+    private String randomVar() {
+        return varName(random.nextInt(Math.max(1, variables)));
+    }
+
+    private static String varName(int index) {
+        return "var_" + index;
+    }
+
+    public void setFunctionNesting(int functionNesting) {
+        this.functionNesting = functionNesting;
+    }
+
+    public void setVariables(int variables) {
+        this.variables = variables;
+    }
+
+    public void setFunctions(int functions) {
+        this.functions = functions;
+    }
+
+    public void setPipelineLength(int pipelineLength) {
+        this.pipelineLength = pipelineLength;
+    }
+
+    public void setSubstitutionNesting(int substitutionNesting) {
+        this.substitutionNesting = substitutionNesting;
+    }
+
+    public void setArithmeticNesting(int arithmeticNesting) {
+        this.arithmeticNesting = arithmeticNesting;
+    }
+
+    public void setHereDocLines(int hereDocLines) {
+        this.hereDocLines = hereDocLines;
+    }
+
+    public void setCaseBranches(int caseBranches) {
+        this.caseBranches = caseBranches;
+    }
+
+    public void setBraceExpansionItems(int braceExpansionItems) {
+        this.braceExpansionItems = braceExpansionItems;
+    }
+
+    public void setBlockNesting(int blockNesting) {
+        this.blockNesting = blockNesting;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashScriptGeneratorTest.java, Class: BashScriptGeneratorTest
+ * Last modified: 2011-02-16
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashScriptGeneratorTest {
+    @Test
+    public void testSameSeed() {
+        Assert.assertEquals(new BashScriptGenerator(42).generate(50), new BashScriptGenerator(42).generate(50));
+
+        //the generator can be reused
+        final BashScriptGenerator generator = new BashScriptGenerator(7);
+        Assert.assertEquals(generator.generate(20), generator.generate(20));
+    }
+
+    @Test
+    public void testDifferentSeed() {
+        Assert.assertFalse(new BashScriptGenerator(1).generate(50).equals(new BashScriptGenerator(2).generate(50)));
+    }
+
+    @Test
+    public void testShape() {
+        final BashScriptGenerator generator = new BashScriptGenerator(1);
+        generator.setVariables(1000);
+        generator.setFunctions(0);
+
+        final String script = generator.generate(0);
+        Assert.assertTrue(script.contains("\nvar_999="));
+        Assert.assertFalse(script.contains("fn_0"));
+
+        generator.setVariables(5);
+        generator.setFunctions(3);
+        generator.setFunctionNesting(4);
+        Assert.assertTrue(generator.generate(0).contains("fn_2_inner_inner_inner()"));
+    }
+
+    @Test
+    public void testHereDocs() {
+        final BashScriptGenerator generator = new BashScriptGenerator(3);
+        generator.setFunctions(0);
+        generator.setHereDocLines(2000);
+
+        final String script = generator.generate(50);
+        Assert.assertTrue(script.contains("<<EOF_0\n"));
+        Assert.assertTrue(script.split("\n").length > 2000);
+    }
+}
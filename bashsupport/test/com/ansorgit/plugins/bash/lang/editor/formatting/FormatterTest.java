@@ -1,7 +1,7 @@
 /*
  * Copyright 2009 Joachim Ansorg, mail@ansorg-it.com
  * File: FormatterTest.java, Class: FormatterTest
- * Last modified: 2010-02-10
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -100,6 +100,10 @@ public class FormatterTest extends BashFormatterTestCase {
         doTest();
     }
 
+    public void testBraceExpansion() throws Throwable {
+        doTest();
+    }
+
     public void doTest() throws Throwable {
         final List<String> data = TestUtils.readInput(getBasePath() + getTestName(true) + ".test");
         checkFormatting(data.get(0), data.get(1));
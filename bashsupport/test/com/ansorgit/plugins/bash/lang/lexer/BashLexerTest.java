@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashLexerTest.java, Class: BashLexerTest
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-24
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@
 
 package com.ansorgit.plugins.bash.lang.lexer;
 
+import com.ansorgit.plugins.bash.lang.BashScriptGenerator;
 import com.ansorgit.plugins.bash.lang.BashVersion;
 import com.intellij.psi.tree.IElementType;
 import org.junit.Assert;
@@ -605,6 +606,59 @@ public class BashLexerTest {
         testTokenization("$((35#abcdefghijkl))", DOLLAR, EXPR_ARITH, ARITH_BASE_NUMBER, _EXPR_ARITH);
     }
 
+    @Test
+    public void testGeneratedScripts() {
+        for (long seed = 1; seed <= 10; seed++) {
+            final String script = new BashScriptGenerator(seed).generate(100);
+
+            final BashLexer lexer = new BashLexer(BashVersion.Bash_v4);
+            lexer.start(script);
+
+            final StringBuilder tokens = new StringBuilder(script.length());
+            while (lexer.getTokenType() != null) {
+                Assert.assertFalse("Bad character in script of seed " + seed + " at " + lexer.getTokenStart(),
+                        lexer.getTokenType() == BAD_CHARACTER);
+
+                tokens.append(script, lexer.getTokenStart(), lexer.getTokenEnd());
+                lexer.advance();
+            }
+
+            Assert.assertEquals("The tokens do not cover the script of seed " + seed, script, tokens.toString());
+        }
+    }
+
+    @Test
+    public void testReusedLexer() {
+        //these scripts leave state behind which is not part of the JFlex state, e.g. open parentheses
+        String[] unfinished = {"$(( (", "$(( a ? (", "\"$(echo \"a", "a=( $("};
+        String[] scripts = {"echo $((1)) )", "a \"b\" c", "case a in a) b;; esac"};
+
+        BashLexer lexer = new BashLexer(BashVersion.Bash_v4);
+        for (String previous : unfinished) {
+            for (String script : scripts) {
+                lexer.start(previous);
+                while (lexer.getTokenType() != null) {
+                    lexer.advance();
+                }
+
+                Assert.assertEquals("Wrong tokens of '" + script + "' after '" + previous + "'",
+                        tokens(new BashLexer(BashVersion.Bash_v4), script), tokens(lexer, script));
+            }
+        }
+    }
+
+    private static String tokens(BashLexer lexer, String script) {
+        StringBuilder result = new StringBuilder();
+
+        lexer.start(script);
+        while (lexer.getTokenType() != null) {
+            result.append(lexer.getTokenType()).append(' ').append(lexer.getState()).append(' ').append(lexer.getTokenEnd()).append(", ");
+            lexer.advance();
+        }
+
+        return result.toString();
+    }
+
     private void testTokenization(String code, IElementType... expectedTokens) {
         testTokenization(BashVersion.Bash_v3, code, expectedTokens);
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: GeneratedScriptParsingTest.java, Class: GeneratedScriptParsingTest
+ * Last modified: 2011-02-16
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser;
+
+import com.ansorgit.plugins.bash.lang.BashScriptGenerator;
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
+import com.google.common.collect.Lists;
+import com.intellij.psi.tree.IElementType;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Parses the tokens of generated scripts, the scripts must be parsed without errors.
+ *
+ * @author Joachim Ansorg
+ */
+public class GeneratedScriptParsingTest extends MockPsiTest {
+    private static final MockFunction fileParsingTest = new MockFunction() {
+        @Override
+        public boolean apply(BashPsiBuilder builder) {
+            return Parsing.file.parseFile(builder);
+        }
+    };
+
+    @Test
+    public void testGeneratedScripts() {
+        for (long seed = 1; seed <= 5; seed++) {
+            final BashScriptGenerator generator = new BashScriptGenerator(seed);
+            generator.setFunctions(3);
+
+            parse(generator.generate(10));
+        }
+    }
+
+    @Test
+    public void testStressShapes() {
+        final BashScriptGenerator generator = new BashScriptGenerator(11);
+        generator.setVariables(2);
+        generator.setFunctions(1);
+        generator.setFunctionNesting(8);
+        generator.setPipelineLength(30);
+        generator.setSubstitutionNesting(6);
+        generator.setHereDocLines(200);
+        generator.setCaseBranches(30);
+        generator.setBraceExpansionItems(100);
+        generator.setBlockNesting(1);
+
+        parse(generator.generate(10));
+    }
+
+    private void parse(String script) {
+        final BashLexer lexer = new BashLexer(BashVersion.Bash_v4);
+        lexer.start(script);
+
+        final List<IElementType> types = Lists.newArrayList();
+        final List<String> texts = Lists.newArrayList();
+        while (lexer.getTokenType() != null) {
+            types.add(lexer.getTokenType());
+            texts.add(script.substring(lexer.getTokenStart(), lexer.getTokenEnd()));
+            lexer.advance();
+        }
+
+        mockTest(BashVersion.Bash_v4, fileParsingTest, types.size(), texts, types.toArray(new IElementType[types.size()]));
+    }
+}
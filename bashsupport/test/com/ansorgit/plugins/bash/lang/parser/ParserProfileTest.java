@@ -0,0 +1,79 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ParserProfileTest.java, Class: ParserProfileTest
+ * Last modified: 2011-02-21
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser;
+
+import com.ansorgit.plugins.bash.lang.parser.command.CommandParsing;
+import com.ansorgit.plugins.bash.lang.parser.variable.VarParsing;
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class ParserProfileTest {
+    @Test
+    public void testCounters() {
+        final ParserProfile profile = new ParserProfile();
+
+        profile.enter(Parsing.command, ParserProfile.IS_VALID);
+        profile.markerCreated();
+        profile.rollback();
+        profile.exit();
+
+        profile.enter(Parsing.command, ParserProfile.PARSE);
+        profile.tokenConsumed();
+        profile.enter(Parsing.var, ParserProfile.PARSE);
+        profile.tokenConsumed();
+        profile.errorMarker();
+        profile.exit();
+        profile.exit();
+
+        profile.enter(Parsing.var, ParserProfile.PARSE);
+        profile.exit();
+
+        Assert.assertEquals(1, profile.getCalls(CommandParsing.class, ParserProfile.IS_VALID));
+        Assert.assertEquals(1, profile.getCalls(CommandParsing.class, ParserProfile.PARSE));
+        Assert.assertEquals(2, profile.getCalls(VarParsing.class, ParserProfile.PARSE));
+        Assert.assertEquals(0, profile.getCalls(VarParsing.class, ParserProfile.IS_VALID));
+
+        final String report = profile.report();
+        Assert.assertTrue(report, report.contains("<file>"));
+        Assert.assertTrue(report, report.matches("(?s).*CommandParsing +isValid +1 +[0-9.,]+ +0 +1 +1 +0.*"));
+        Assert.assertTrue(report, report.matches("(?s).*CommandParsing +parse +1 +[0-9.,]+ +1 +0 +0 +0.*"));
+        Assert.assertTrue(report, report.matches("(?s).*VarParsing +parse +2 +[0-9.,]+ +1 +0 +0 +1.*"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbalancedExit() {
+        new ParserProfile().exit();
+    }
+
+    @Test
+    public void testDeepNesting() {
+        final ParserProfile profile = new ParserProfile();
+        for (int i = 0; i < 100; i++) {
+            profile.enter(Parsing.shellCommand, ParserProfile.PARSE);
+        }
+        for (int i = 0; i < 100; i++) {
+            profile.exit();
+        }
+
+        Assert.assertEquals(100, profile.getCalls(Parsing.shellCommand.getClass(), ParserProfile.PARSE));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: StandaloneBashParserTest.java, Class: StandaloneBashParserTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.parser.standalone;
+
+import com.ansorgit.plugins.bash.lang.BashScriptGenerator;
+import com.ansorgit.plugins.bash.lang.BashVersion;
+import com.ansorgit.plugins.bash.lang.lexer.BashLexer;
+import com.ansorgit.plugins.bash.lang.lexer.BashTokenTypes;
+import com.ansorgit.plugins.bash.lang.parser.BashElementTypes;
+import com.google.common.collect.Lists;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class StandaloneBashParserTest {
+    private static final IElementType OUTER = new IElementType("outer", null);
+    private static final IElementType INNER = new IElementType("inner", null);
+
+    @Test
+    public void testTree() {
+        final String script = "a=1\nfunction f() {\n  echo \"$a\" # comment\n}\nf | cat\n";
+        final GreenNode root = StandaloneBashParser.parse(script, BashVersion.Bash_v4);
+
+        Assert.assertEquals(BashElementTypes.FILE, root.getType());
+        Assert.assertEquals(script.length(), root.getTextLength());
+        Assert.assertEquals(script, leafText(root, script));
+        Assert.assertEquals(0, count(root, TokenType.ERROR_ELEMENT));
+        Assert.assertEquals(1, count(root, BashElementTypes.FUNCTION_DEF_COMMAND));
+        Assert.assertEquals(1, count(root, BashElementTypes.VAR_DEF_ELEMENT));
+    }
+
+    @Test
+    public void testErrors() {
+        final String script = "if a; then\n  b\n";
+        final GreenNode root = StandaloneBashParser.parse(script, BashVersion.Bash_v4);
+
+        Assert.assertEquals(script, leafText(root, script));
+        Assert.assertTrue(count(root, TokenType.ERROR_ELEMENT) > 0);
+    }
+
+    @Test
+    public void testGeneratedScripts() {
+        for (long seed = 1; seed <= 5; seed++) {
+            final BashScriptGenerator generator = new BashScriptGenerator(seed);
+            generator.setFunctions(3);
+
+            final String script = generator.generate(10);
+            final GreenNode root = StandaloneBashParser.parse(script, BashVersion.Bash_v4);
+
+            Assert.assertEquals(script, leafText(root, script));
+            Assert.assertEquals(root.toDebugString(script, 0), 0, count(root, TokenType.ERROR_ELEMENT));
+            Assert.assertTrue(count(root, BashElementTypes.FUNCTION_DEF_COMMAND) >= 3);
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final String[] scripts = new String[8];
+        final String[] expected = new String[scripts.length];
+        for (int i = 0; i < scripts.length; i++) {
+            final BashScriptGenerator generator = new BashScriptGenerator(i + 1);
+            generator.setFunctions(3);
+
+            scripts[i] = generator.generate(50);
+            expected[i] = StandaloneBashParser.parse(scripts[i], BashVersion.Bash_v4).toDebugString(scripts[i], 0);
+        }
+
+        final List<Future<String>> results = Lists.newArrayList();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 4; round++) {
+                for (final String script : scripts) {
+                    results.add(executor.submit(new Callable<String>() {
+                        public String call() {
+                            return StandaloneBashParser.parse(script, BashVersion.Bash_v4).toDebugString(script, 0);
+                        }
+                    }));
+                }
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(expected[i % scripts.length], results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMarkers() {
+        final String script = "a b c d";
+        final StandalonePsiBuilder builder = newBuilder(script);
+
+        final PsiBuilder.Marker root = builder.mark();
+
+        //a rolled back marker leaves no trace
+        final PsiBuilder.Marker rolledBack = builder.mark();
+        builder.advanceLexer();
+        builder.mark().done(INNER);
+        rolledBack.rollbackTo();
+        Assert.assertEquals("a", builder.getTokenText());
+
+        //the whitespace at the edges belongs to the parent
+        final PsiBuilder.Marker inner = builder.mark();
+        builder.advanceLexer();
+        builder.advanceLexer();
+        inner.done(INNER);
+        inner.precede().done(OUTER);
+
+        //the element ends before the marker of c
+        final PsiBuilder.Marker before = builder.mark();
+        final PsiBuilder.Marker beforeParent = before.precede();
+        builder.advanceLexer();
+        before.drop();
+        final PsiBuilder.Marker dropped = builder.mark();
+        beforeParent.doneBefore(INNER, dropped, "missing");
+        dropped.drop();
+
+        builder.advanceLexer();
+        Assert.assertTrue(builder.eof());
+        root.done(BashElementTypes.FILE);
+
+        final GreenNode tree = builder.getGreenTree();
+        Assert.assertEquals(script.length(), tree.getTextLength());
+        Assert.assertEquals(5, tree.getChildCount());
+
+        final GreenNode outer = tree.getChild(0);
+        Assert.assertEquals(OUTER, outer.getType());
+        Assert.assertEquals(1, outer.getChildCount());
+        Assert.assertEquals(INNER, outer.getChild(0).getType());
+        Assert.assertEquals("a b".length(), outer.getTextLength());
+
+        final GreenNode doneBefore = tree.getChild(2);
+        Assert.assertEquals(INNER, doneBefore.getType());
+        Assert.assertEquals(1, doneBefore.getTextLength());
+        Assert.assertEquals("missing", doneBefore.getChild(1).getErrorMessage());
+    }
+
+    @Test
+    public void testSharedLeaves() {
+        final String script = "echo a a";
+        final GreenNode root = StandaloneBashParser.parse(script, BashVersion.Bash_v4);
+
+        final GreenNode command = root.getChild(0);
+        final GreenNode first = command.getChild(command.getChildCount() - 3);
+        final GreenNode second = command.getChild(command.getChildCount() - 1);
+        Assert.assertEquals(first.getType(), second.getType());
+        Assert.assertSame(first, second);
+    }
+
+    private static StandalonePsiBuilder newBuilder(String script) {
+        return new StandalonePsiBuilder(new BashLexer(BashVersion.Bash_v4), script, BashTokenTypes.whitespace, BashTokenTypes.comments);
+    }
+
+    private static String leafText(GreenNode root, String script) {
+        final StringBuilder result = new StringBuilder();
+        appendLeaves(root, script, 0, result);
+
+        return result.toString();
+    }
+
+    private static int appendLeaves(GreenNode node, String script, int offset, StringBuilder result) {
+        if (node.isLeaf()) {
+            result.append(script, offset, offset + node.getTextLength());
+            return offset + node.getTextLength();
+        }
+
+        int childOffset = offset;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            childOffset = appendLeaves(node.getChild(i), script, childOffset, result);
+        }
+
+        return childOffset;
+    }
+
+    private static int count(GreenNode node, IElementType type) {
+        int result = node.getType() == type ? 1 : 0;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            result += count(node.getChild(i), type);
+        }
+
+        return result;
+    }
+}
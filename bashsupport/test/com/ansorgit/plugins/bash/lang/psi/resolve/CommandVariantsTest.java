@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: CommandVariantsTest.java, Class: CommandVariantsTest
- * Last modified: 2010-07-01
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,12 @@ public class CommandVariantsTest extends AbstractResolveTest {
         checkVariants(configure(), 6);
     }
 
+    @Test
+    public void testCommandVariantsDuplicates() throws Exception {
+        //each function name is offered once
+        checkVariants(configure(), 2);
+    }
+
     private void checkVariants(PsiReference commandRef, int expectedVariantsCount) {
         BashCommand command = (BashCommand) commandRef.getElement();
         Assert.assertNotNull(command);
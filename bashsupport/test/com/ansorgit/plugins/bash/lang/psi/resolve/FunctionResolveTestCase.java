@@ -21,6 +21,7 @@ package com.ansorgit.plugins.bash.lang.psi.resolve;
 import com.ansorgit.plugins.bash.BashTestUtils;
 import com.ansorgit.plugins.bash.lang.psi.api.command.BashCommand;
 import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.ansorgit.plugins.bash.lang.psi.util.BashCommandNameIndex;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
 import junit.framework.Assert;
@@ -46,6 +47,7 @@ public class FunctionResolveTestCase extends AbstractResolveTest {
         Assert.assertFalse(commandElement.isVarDefCommand());
         Assert.assertFalse(commandElement.isExternalCommand());
         Assert.assertTrue(commandElement.isReferenceTo(psiReference.resolve()));
+        Assert.assertTrue(BashCommandNameIndex.hasFunctionCalls((BashFunctionDef) psiReference.resolve()));
 
         return psiReference;
     }
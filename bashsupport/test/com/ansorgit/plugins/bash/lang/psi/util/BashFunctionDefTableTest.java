@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashFunctionDefTableTest.java, Class: BashFunctionDefTableTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.lang.psi.util;
+
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.psi.api.function.BashFunctionDef;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import junit.framework.Assert;
+
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashFunctionDefTableTest extends CodeInsightFixtureTestCase {
+    public void testDuplicateInSameBranch() throws Exception {
+        List<BashFunctionDef> definitions = definitions("if true; then\n  f() { echo 1; }\n  f() { echo 2; }\nfi\n");
+
+        Assert.assertSame(definitions.get(0), table().findPreviousDefinition(definitions.get(1)));
+    }
+
+    public void testDuplicateInDifferentBranches() throws Exception {
+        List<BashFunctionDef> definitions = definitions("if true; then\n  f() { echo 1; }\nelse\n  f() { echo 2; }\nfi\n");
+
+        Assert.assertNull(table().findPreviousDefinition(definitions.get(1)));
+    }
+
+    public void testDuplicateInAndOrList() throws Exception {
+        List<BashFunctionDef> definitions = definitions("a && f() { echo 1; } || f() { echo 2; }\n");
+
+        Assert.assertNull(table().findPreviousDefinition(definitions.get(1)));
+    }
+
+    public void testDuplicateAfterIf() throws Exception {
+        List<BashFunctionDef> definitions = definitions("if true; then\n  f() { echo 1; }\nfi\nf() { echo 2; }\n");
+
+        Assert.assertNull(table().findPreviousDefinition(definitions.get(1)));
+    }
+
+    public void testDuplicateAtTopLevel() throws Exception {
+        List<BashFunctionDef> definitions = definitions("f() { echo 1; }\necho\nf() { echo 2; }\n");
+
+        Assert.assertSame(definitions.get(0), table().findPreviousDefinition(definitions.get(1)));
+        Assert.assertNull(table().findPreviousDefinition(definitions.get(0)));
+    }
+
+    private List<BashFunctionDef> definitions(String text) {
+        myFixture.configureByText(BashFileType.BASH_FILE_TYPE, text);
+
+        List<BashFunctionDef> definitions = table().getDefinitions("f");
+        Assert.assertEquals(2, definitions.size());
+
+        return definitions;
+    }
+
+    private BashFunctionDefTable table() {
+        return BashFunctionDefTable.forFile(myFixture.getFile());
+    }
+}
@@ -21,6 +21,8 @@ package com.ansorgit.plugins.bash.lang.psi.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 /**
  * User: jansorg
  * Date: Dec 2, 2009
@@ -34,4 +36,19 @@ public class BashStringUtilsTest {
         Assert.assertEquals(3, BashStringUtils.countPrefixChars("0001", '0'));
         Assert.assertEquals(10, BashStringUtils.countPrefixChars("00000000001", '0'));
     }
+
+    @Test
+    public void testFindPrefixMatches() throws Exception {
+        String[] values = new String[]{"BASH", "BASHPID", "BASH_ENV", "HOME", "PATH"};
+
+        Assert.assertEquals(Arrays.asList("BASH", "BASHPID", "BASH_ENV"), BashStringUtils.findPrefixMatches(values, "BASH"));
+        Assert.assertEquals(Arrays.asList("BASH_ENV"), BashStringUtils.findPrefixMatches(values, "BASH_"));
+        Assert.assertEquals(Arrays.asList("PATH"), BashStringUtils.findPrefixMatches(values, "P"));
+        Assert.assertEquals(5, BashStringUtils.findPrefixMatches(values, null).size());
+        Assert.assertEquals(5, BashStringUtils.findPrefixMatches(values, "").size());
+
+        Assert.assertTrue(BashStringUtils.findPrefixMatches(values, "A").isEmpty());
+        Assert.assertTrue(BashStringUtils.findPrefixMatches(values, "X").isEmpty());
+        Assert.assertTrue(BashStringUtils.findPrefixMatches(new String[0], "X").isEmpty());
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashMetricsTest.java, Class: BashMetricsTest
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashMetricsTest {
+    @Test
+    public void testDisabled() {
+        final BashMetrics metrics = BashMetrics.getInstance();
+        metrics.setEnabled(false);
+
+        final long start = BashMetrics.start();
+        Assert.assertEquals(BashMetrics.NOT_RECORDED, start);
+
+        BashMetrics.record(BashMetrics.Category.RESOLVE, "variable", null, start);
+        Assert.assertTrue(metrics.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void testBreakdown() {
+        final BashMetrics metrics = new BashMetrics();
+        metrics.add(BashMetrics.Category.INSPECTION, "UnusedFunction", "/a.sh", 2000);
+        metrics.add(BashMetrics.Category.INSPECTION, "UnusedFunction", "/b.sh", 4000);
+        metrics.add(BashMetrics.Category.RESOLVE, "variable", "/a.sh", 9000);
+        metrics.add(BashMetrics.Category.ANNOTATOR, "command", null, 1000);
+
+        final List<BashMetrics.Metric> all = metrics.getMetrics();
+        Assert.assertEquals(3, all.size());
+        Assert.assertEquals("variable", all.get(0).getName());
+        Assert.assertEquals("UnusedFunction", all.get(1).getName());
+        Assert.assertEquals(2, all.get(1).getCalls());
+        Assert.assertEquals(6000, all.get(1).getTotalNanos());
+
+        final List<BashMetrics.Metric> files = metrics.getFileMetrics();
+        Assert.assertEquals(3, files.size());
+        Assert.assertEquals("/a.sh", files.get(0).getName());
+        Assert.assertEquals(BashMetrics.Category.RESOLVE, files.get(0).getCategory());
+
+        Assert.assertEquals(3, metrics.getSummary().length);
+        Assert.assertTrue(metrics.getSummary()[0], metrics.getSummary()[0].startsWith("resolve variable: 1 calls"));
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getMetrics().isEmpty());
+        Assert.assertTrue(metrics.getFileMetrics().isEmpty());
+    }
+
+    @Test
+    public void testJson() {
+        final BashMetrics metrics = new BashMetrics();
+        metrics.add(BashMetrics.Category.DOCUMENTATION, "generateDoc", "/a \"b\".sh", 3000);
+
+        Assert.assertEquals("{\"enabled\":false,\"metrics\":[{\"category\":\"documentation\",\"name\":\"generateDoc\",\"calls\":1," +
+                "\"totalMicros\":3,\"p50Micros\":3,\"p90Micros\":3,\"p99Micros\":3,\"maxMicros\":3}]," +
+                "\"files\":[{\"category\":\"documentation\",\"file\":\"/a \\\"b\\\".sh\",\"calls\":1," +
+                "\"totalMicros\":3,\"p50Micros\":3,\"p90Micros\":3,\"p99Micros\":3,\"maxMicros\":3}]}\n", metrics.getJson());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: LatencyHistogramTest.java, Class: LatencyHistogramTest
+ * Last modified: 2011-02-22
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.metrics;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void testBuckets() {
+        int lastIndex = -1;
+        for (long value : new long[]{0, 1, 31, 32, 34, 63, 64, 1000, 123456789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.indexOf(value);
+
+            Assert.assertTrue(String.valueOf(value), index > lastIndex && index < LatencyHistogram.BUCKETS);
+            Assert.assertTrue(String.valueOf(value), LatencyHistogram.highestValueAt(index) >= value);
+            Assert.assertTrue(String.valueOf(value), index == 0 || LatencyHistogram.highestValueAt(index - 1) < value);
+
+            lastIndex = index;
+        }
+
+        Assert.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPrecision() {
+        for (long value = 32; value < 100000000L; value = value * 3 + 7) {
+            final long highest = LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value));
+            Assert.assertTrue(String.valueOf(value), highest - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(100000, histogram.getMax());
+        assertNear(50000, histogram.getValueAtPercentile(50));
+        assertNear(99000, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testStripedCounter() {
+        Assert.assertEquals(1, StripedCounter.stripes(0));
+        Assert.assertEquals(8, StripedCounter.stripes(4));
+        Assert.assertEquals(64, StripedCounter.stripes(1000));
+
+        final StripedCounter counter = new StripedCounter();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Assert.fail();
+            }
+        }
+
+        Assert.assertEquals(4000, counter.sum());
+
+        counter.reset();
+        Assert.assertEquals(0, counter.sum());
+    }
+
+    private static void assertNear(long expected, long value) {
+        Assert.assertTrue(expected + " ~ " + value, value >= expected && value - expected <= expected / 16);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashRenameTest.java, Class: BashRenameTest
+ * Last modified: 2011-02-27
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.refactoring;
+
+import com.ansorgit.plugins.bash.file.BashFileType;
+import com.ansorgit.plugins.bash.lang.psi.util.BashChangeUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import junit.framework.Assert;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashRenameTest extends CodeInsightFixtureTestCase {
+    public void testCreatedElements() throws Exception {
+        final Project project = myFixture.getProject();
+
+        Assert.assertEquals("$newName", BashChangeUtil.createVariable(project, "newName", false).getText());
+        Assert.assertEquals("newName", BashChangeUtil.createVariable(project, "newName", true).getText());
+        Assert.assertEquals("newName", BashChangeUtil.createAssignmentWord(project, "newName").getText());
+        Assert.assertEquals("newName", BashChangeUtil.createSymbol(project, "newName").getText());
+        Assert.assertEquals("newName", BashChangeUtil.createWord(project, "newName").getText());
+
+        //each element is a new copy of the template
+        PsiElement first = BashChangeUtil.createVariable(project, "a", false);
+        PsiElement second = BashChangeUtil.createVariable(project, "b", false);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("$a", first.getText());
+        Assert.assertEquals(first.getNode().getElementType(), second.getNode().getElementType());
+
+        //names which are lexed differently than the template are parsed
+        Assert.assertEquals("a-b", BashChangeUtil.createWord(project, "a-b").getText());
+        Assert.assertEquals("a b", BashChangeUtil.createWord(project, "a b").getText());
+    }
+
+    public void testRenameVariable() throws Exception {
+        myFixture.configureByText(BashFileType.BASH_FILE_TYPE, "<caret>a=1\necho $a ${a} \"$a\"\necho $((a + 1))\n");
+        myFixture.renameElementAtCaret("renamed");
+        myFixture.checkResult("renamed=1\necho $renamed ${renamed} \"$renamed\"\necho $((renamed + 1))\n");
+    }
+
+    public void testRenameFunction() throws Exception {
+        myFixture.configureByText(BashFileType.BASH_FILE_TYPE, "a=1\n<caret>myFunction() {\n  echo $a\n}\nmyFunction\nmyFunction x\n");
+        myFixture.renameElementAtCaret("otherFunction");
+        myFixture.checkResult("a=1\notherFunction() {\n  echo $a\n}\notherFunction\notherFunction x\n");
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashLineErrorFilterTest.java, Class: BashLineErrorFilterTest
+ * Last modified: 2011-02-08
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashLineErrorFilterTest {
+    @Test
+    public void testErrorLocation() throws Exception {
+        String line = "/home/user/test.sh: line 13: notHere: command not found";
+        BashLineErrorFilter.ErrorLocation location = BashLineErrorFilter.findErrorLocation(line);
+
+        Assert.assertNotNull(location);
+        Assert.assertEquals("/home/user/test.sh", line.substring(location.pathStart, location.pathEnd));
+        Assert.assertEquals(13, location.lineNumber);
+        Assert.assertEquals("/home/user/test.sh: line 13", line.substring(location.pathStart, location.end));
+    }
+
+    @Test
+    public void testErrorLocationColonsInPath() throws Exception {
+        String line = "  C:\\test: dir/a: b.sh: line 2: syntax error";
+        BashLineErrorFilter.ErrorLocation location = BashLineErrorFilter.findErrorLocation(line);
+
+        Assert.assertNotNull(location);
+        Assert.assertEquals("C:\\test: dir/a: b.sh", line.substring(location.pathStart, location.pathEnd));
+        Assert.assertEquals(2, location.lineNumber);
+    }
+
+    @Test
+    public void testNoErrorLocation() throws Exception {
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation(""));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation("plain output"));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation(": line 13: no path"));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation("/home/user/test.sh: line 13"));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation("/home/user/test.sh: line 13:"));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation("/home/user/test.sh: line x: message"));
+        Assert.assertNull(BashLineErrorFilter.findErrorLocation("a:b:c:d: e: f 1 :: line :1: message"));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashBatchReportTest.java, Class: BashBatchReportTest
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashBatchReportTest {
+    @Test
+    public void testExport() throws Exception {
+        BashBatchReport report = new BashBatchReport();
+        report.add(new BashBatchReport.Result("a.sh", BashBatchReport.Status.PASSED, 0, 120));
+        report.add(new BashBatchReport.Result("b,\"c\".sh", BashBatchReport.Status.FAILED, 2, 30));
+        report.add(new BashBatchReport.Result("d.sh", BashBatchReport.Status.SKIPPED, -1, 0));
+        report.setDurationMillis(150);
+
+        Assert.assertEquals(1, report.count(BashBatchReport.Status.FAILED));
+
+        StringWriter csv = new StringWriter();
+        report.writeCsv(csv);
+        Assert.assertEquals("script,status,exitCode,durationMillis\n" +
+                "a.sh,PASSED,0,120\n" +
+                "\"b,\"\"c\"\".sh\",FAILED,2,30\n" +
+                "d.sh,SKIPPED,,0\n", csv.toString());
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        Assert.assertEquals("{\"durationMillis\":150,\"scripts\":[" +
+                "{\"script\":\"a.sh\",\"status\":\"PASSED\",\"exitCode\":0,\"durationMillis\":120}," +
+                "{\"script\":\"b,\\\"c\\\".sh\",\"status\":\"FAILED\",\"exitCode\":2,\"durationMillis\":30}," +
+                "{\"script\":\"d.sh\",\"status\":\"SKIPPED\",\"exitCode\":null,\"durationMillis\":0}]}\n", json.toString());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashScriptFileSetTest.java, Class: BashScriptFileSetTest
+ * Last modified: 2011-02-10
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.batch;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashScriptFileSetTest {
+    @Test
+    public void testPatternInBaseDirectory() throws Exception {
+        BashScriptFileSet fileSet = new BashScriptFileSet(new File("/tmp"), "*.sh");
+
+        Assert.assertTrue(fileSet.matches("a.sh"));
+        Assert.assertFalse(fileSet.matches("a.bash"));
+        Assert.assertFalse(fileSet.matches("sub/a.sh"));
+    }
+
+    @Test
+    public void testPatternInSubdirectories() throws Exception {
+        BashScriptFileSet fileSet = new BashScriptFileSet(new File("/tmp"), "**/*.sh");
+
+        Assert.assertTrue(fileSet.matches("a.sh"));
+        Assert.assertTrue(fileSet.matches("sub/a.sh"));
+        Assert.assertTrue(fileSet.matches("sub/dir/a.sh"));
+        Assert.assertFalse(fileSet.matches("sub/a.shx"));
+
+        fileSet = new BashScriptFileSet(new File("/tmp"), "hosts/**/smoke-?.sh");
+        Assert.assertTrue(fileSet.matches("hosts/smoke-1.sh"));
+        Assert.assertTrue(fileSet.matches("hosts/web/smoke-2.sh"));
+        Assert.assertFalse(fileSet.matches("hosts/web/smoke-12.sh"));
+        Assert.assertFalse(fileSet.matches("other/smoke-1.sh"));
+    }
+
+    @Test
+    public void testRelativePath() throws Exception {
+        BashScriptFileSet fileSet = new BashScriptFileSet(new File("/tmp/scripts"), "**/*.sh");
+
+        Assert.assertEquals("web/a.sh", fileSet.relativePath(new File("/tmp/scripts/web/a.sh")));
+        Assert.assertEquals("b.sh", fileSet.relativePath(new File("/other/b.sh")));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProcessPoolTest.java, Class: BashProcessPoolTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.pool;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the pool with the bash interpreter of the system, the tests do nothing if /bin/bash is not available.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashProcessPoolTest {
+    @Test
+    public void testEvaluate() throws Exception {
+        BashProcessPool pool = new BashProcessPool("/bin/bash");
+        if (!pool.isEvaluationSupported()) {
+            return;
+        }
+
+        try {
+            BashWorkerProtocol.Response response = evaluate(pool, "echo $((2**10))", 5000);
+            Assert.assertNotNull(response);
+            Assert.assertTrue(response.isSuccessful());
+            Assert.assertEquals("1024", response.getOutput());
+
+            response = evaluate(pool, "printf 'a\\\\b\\n\\r'; echo c; exit 3", 5000);
+            Assert.assertNotNull(response);
+            Assert.assertEquals(3, response.getStatus());
+            Assert.assertEquals("a\\b\n\rc", response.getOutput());
+
+            //the restricted shell must not write files
+            response = evaluate(pool, "echo a > file.txt", 5000);
+            Assert.assertNotNull(response);
+            Assert.assertFalse(response.isSuccessful());
+
+            //only builtin commands are available
+            response = evaluate(pool, "ls /", 5000);
+            Assert.assertNotNull(response);
+            Assert.assertEquals(127, response.getStatus());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluateWithoutWorker() throws Exception {
+        BashProcessPool pool = new BashProcessPool("/bin/bash");
+        if (!pool.isEvaluationSupported()) {
+            return;
+        }
+
+        try {
+            //no interpreter is started by the caller, the pool is warmed up in the background
+            Assert.assertNull(pool.evaluate("echo a", 5000));
+            waitForWorkers(pool);
+
+            Assert.assertEquals(BashProcessPool.WORKER_COUNT, pool.getIdleWorkerCount());
+            Assert.assertEquals("a", pool.evaluate("echo a", 5000).getOutput());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        BashProcessPool pool = new BashProcessPool("/bin/bash");
+        if (!pool.isEvaluationSupported()) {
+            return;
+        }
+
+        try {
+            Assert.assertNull(evaluate(pool, "while :; do :; done", 100));
+
+            //the hung worker was replaced
+            BashWorkerProtocol.Response response = evaluate(pool, "echo ok", 5000);
+            Assert.assertNotNull(response);
+            Assert.assertEquals("ok", response.getOutput());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRecycle() throws Exception {
+        BashProcessPool pool = new BashProcessPool("/bin/bash");
+        if (!pool.isEvaluationSupported()) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < BashProcessPool.MAX_WORKER_USES * 2 + 5; i++) {
+                BashWorkerProtocol.Response response = evaluate(pool, "echo " + i, 5000);
+                Assert.assertNotNull(response);
+                Assert.assertEquals(String.valueOf(i), response.getOutput());
+            }
+
+            Assert.assertTrue(pool.getIdleWorkerCount() <= BashProcessPool.WORKER_COUNT);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testConsoleProcess() throws Exception {
+        BashProcessPool pool = new BashProcessPool("/bin/bash");
+        if (!pool.isEvaluationSupported()) {
+            return;
+        }
+
+        try {
+            String directory = new File(System.getProperty("java.io.tmpdir")).getCanonicalPath();
+            List<String> noArguments = Collections.emptyList();
+
+            //the first console starts the spare process for the next console with the same settings
+            Assert.assertNull(pool.takeConsoleProcess("/", noArguments));
+            waitForSpareProcess(pool);
+
+            //the spare process is not used by a console with another working directory or other arguments
+            Assert.assertNull(pool.takeConsoleProcess(directory, noArguments));
+            waitForSpareProcess(pool);
+            Assert.assertNull(pool.takeConsoleProcess(directory, Arrays.asList("--norc")));
+            waitForSpareProcess(pool);
+            Assert.assertNull(pool.takeConsoleProcess(directory, noArguments));
+            waitForSpareProcess(pool);
+
+            Process process = pool.takeConsoleProcess(directory, noArguments);
+            Assert.assertNotNull(process);
+
+            process.getOutputStream().write("pwd\nexit\n".getBytes());
+            process.getOutputStream().flush();
+
+            byte[] buffer = new byte[256];
+            int length = process.getInputStream().read(buffer);
+            Assert.assertEquals(directory + "\n", new String(buffer, 0, length));
+            Assert.assertEquals(0, process.waitFor());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testConsoleEnvironment() {
+        Map<String, String> parent = new HashMap<String, String>();
+        parent.put("HOME", "/home/user");
+        parent.put("PATH", "/bin");
+        parent.put("LD_LIBRARY_PATH", "/opt/idea/lib");
+
+        Map<String, String> environment = BashProcessPool.createConsoleEnvironment(parent);
+        Assert.assertEquals(2, environment.size());
+        Assert.assertEquals("/home/user", environment.get("HOME"));
+        Assert.assertEquals("/bin", environment.get("PATH"));
+    }
+
+    /**
+     * Evaluates a command as soon as a worker of the pool is running.
+     */
+    private static BashWorkerProtocol.Response evaluate(BashProcessPool pool, String command, long timeoutMillis) throws InterruptedException {
+        pool.warmUp();
+        for (int i = 0; i < 50 && pool.getIdleWorkerCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+
+        return pool.evaluate(command, timeoutMillis);
+    }
+
+    private static void waitForWorkers(BashProcessPool pool) throws InterruptedException {
+        for (int i = 0; i < 50 && pool.getIdleWorkerCount() < BashProcessPool.WORKER_COUNT; i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static void waitForSpareProcess(BashProcessPool pool) throws InterruptedException {
+        for (int i = 0; i < 50 && !pool.hasSpareConsoleProcess(); i++) {
+            Thread.sleep(100);
+        }
+
+        Assert.assertTrue(pool.hasSpareConsoleProcess());
+    }
+}
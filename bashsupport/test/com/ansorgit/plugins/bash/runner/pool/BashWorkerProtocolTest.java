@@ -0,0 +1,50 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashWorkerProtocolTest.java, Class: BashWorkerProtocolTest
+ * Last modified: 2011-02-11
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.pool;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashWorkerProtocolTest {
+    @Test
+    public void testEncodeRequest() throws Exception {
+        Assert.assertEquals("echo a", BashWorkerProtocol.encodeRequest("echo a"));
+        Assert.assertEquals("echo a\\nexit 1", BashWorkerProtocol.encodeRequest("echo a\nexit 1"));
+        Assert.assertEquals("echo a\\\\nb\\r", BashWorkerProtocol.encodeRequest("echo a\\nb\r"));
+    }
+
+    @Test
+    public void testDecodeResponse() throws Exception {
+        BashWorkerProtocol.Response response = BashWorkerProtocol.decodeResponse("0 a\\nb\\\\n");
+        Assert.assertTrue(response.isSuccessful());
+        Assert.assertEquals("a\nb\\n", response.getOutput());
+
+        response = BashWorkerProtocol.decodeResponse("127 ");
+        Assert.assertEquals(127, response.getStatus());
+        Assert.assertEquals("", response.getOutput());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidResponse() throws Exception {
+        BashWorkerProtocol.decodeResponse("garbage");
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashProfileCommandLineStateTest.java, Class: BashProfileCommandLineStateTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Runs the bootstrap command of the profiler with the bash interpreter of the system.
+ *
+ * @author Joachim Ansorg
+ */
+public class BashProfileCommandLineStateTest {
+    @Test
+    public void testScriptWithUnsetCheck() throws Exception {
+        File script = File.createTempFile("profiled", ".sh");
+        try {
+            write(script, "set -u\nwork() {\n  echo work\n}\nwork\necho done\n");
+
+            BashProfile profile = profile(new ProcessBuilder(), script.getAbsolutePath(), "work\ndone\n");
+
+            //the commands at the top level and in the function are traced with their line
+            boolean topLevel = false;
+            boolean function = false;
+            for (BashProfile.Entry entry : profile.getLineEntries()) {
+                topLevel |= entry.getLine() == 6 && "".equals(entry.getFunction());
+                function |= entry.getLine() == 3 && "work".equals(entry.getFunction());
+            }
+
+            Assert.assertTrue(topLevel);
+            Assert.assertTrue(function);
+        } finally {
+            script.delete();
+        }
+    }
+
+    @Test
+    public void testScriptRunsLikeUnprofiled() throws Exception {
+        File script = File.createTempFile("profiled", ".sh");
+        File userStartup = File.createTempFile("profiled", ".bashrc");
+        try {
+            //a return at the top level only stops a sourced script
+            write(script, "echo \"$0 $1 $USER_STARTUP\"\nreturn 2>/dev/null\necho end\n");
+            write(userStartup, "USER_STARTUP=loaded\n");
+
+            ProcessBuilder builder = new ProcessBuilder().directory(script.getParentFile());
+            builder.environment().put("BASH_ENV", userStartup.getAbsolutePath());
+
+            String scriptPath = BashProfileCommandLineState.scriptPath(script.getName());
+            BashProfile profile = profile(builder, scriptPath, scriptPath + " first loaded\nend\n");
+
+            Assert.assertEquals(3, profile.getLineEntries().size());
+        } finally {
+            script.delete();
+            userStartup.delete();
+        }
+    }
+
+    private static BashProfile profile(ProcessBuilder builder, String scriptPath, String expectedOutput) throws Exception {
+        File trace = File.createTempFile("profiled", ".trace");
+        File startup = File.createTempFile("profiled", ".sh");
+        try {
+            write(startup, BashProfileCommandLineState.createStartupScript());
+
+            String bootstrap = BashProfileCommandLineState.createBootstrapCommand(trace.getAbsolutePath(), startup.getAbsolutePath());
+            Process process = builder.command("bash", "-c", bootstrap, scriptPath, "first").redirectErrorStream(true).start();
+            String output = read(process.getInputStream());
+
+            Assert.assertEquals(output, 0, process.waitFor());
+            Assert.assertEquals(expectedOutput, output);
+
+            Reader reader = new InputStreamReader(new FileInputStream(trace));
+            try {
+                return new BashTraceParser().parse(reader);
+            } finally {
+                reader.close();
+            }
+        } finally {
+            trace.delete();
+            startup.delete();
+        }
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String read(InputStream input) throws Exception {
+        StringBuilder result = new StringBuilder();
+        Reader reader = new InputStreamReader(input);
+        try {
+            char[] buffer = new char[1024];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                result.append(buffer, 0, count);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: BashTraceParserTest.java, Class: BashTraceParserTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.runner.profiler;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class BashTraceParserTest {
+    private static final char SEP = BashTraceParser.SEPARATOR;
+
+    @Test
+    public void testParseMicros() throws Exception {
+        Assert.assertEquals(1296000000123456L, BashTraceParser.parseMicros("1296000000.123456", 0, 17));
+        Assert.assertEquals(1296000000120000L, BashTraceParser.parseMicros("1296000000,12", 0, 13));
+        Assert.assertEquals(42000000L, BashTraceParser.parseMicros("42", 0, 2));
+        Assert.assertEquals(-1L, BashTraceParser.parseMicros("", 0, 0));
+        Assert.assertEquals(-1L, BashTraceParser.parseMicros("12a", 0, 3));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        String trace = traceLine("+", "10.000000", "", 1, "", ". \"$0\"")
+                + traceLine("++", "10.000100", "/tmp/test.sh", 3, "", "work")
+                + traceLine("+++", "10.000200", "/tmp/test.sh", 1, "work", "sleep 1")
+                + "continuation line of a multi-line command\n"
+                + traceLine("+++", "11.000200", "/tmp/test.sh", 1, "work", "sleep 1")
+                + traceLine("++", "12.000200", "/tmp/test.sh", 4, "", "echo done");
+
+        BashProfile profile = new BashTraceParser().parse(new StringReader(trace));
+
+        List<BashProfile.Entry> lines = profile.getLineEntries();
+        Assert.assertEquals(3, lines.size());
+
+        //the most expensive line is first
+        Assert.assertEquals(1, lines.get(0).getLine());
+        Assert.assertEquals("work", lines.get(0).getFunction());
+        Assert.assertEquals(2L, lines.get(0).getCount());
+        Assert.assertEquals(2000000L, lines.get(0).getTotalMicros());
+
+        List<BashProfile.Entry> functions = profile.getFunctionEntries();
+        Assert.assertEquals(2, functions.size());
+        Assert.assertEquals("work", functions.get(0).getFunction());
+        Assert.assertEquals("", functions.get(1).getFunction());
+        Assert.assertEquals(2L, functions.get(1).getCount());
+
+        //the bootstrap command without source file is not part of the profile
+        Assert.assertEquals(2000100L, profile.getTotalMicros());
+    }
+
+    @Test
+    public void testFunctionsOfSeveralFiles() throws Exception {
+        String trace = traceLine("+", "10.000000", "/tmp/main.sh", 2, "log", "echo a")
+                + traceLine("+", "10.000100", "/tmp/lib.sh", 5, "log", "echo b")
+                + traceLine("+", "10.000300", "/tmp/main.sh", 2, "log", "echo a")
+                + traceLine("+", "10.000600", "/tmp/main.sh", 3, "", "exit");
+
+        List<BashProfile.Entry> functions = new BashTraceParser().parse(new StringReader(trace)).getFunctionEntries();
+        Assert.assertEquals(3, functions.size());
+
+        //functions with the same name in different files have separate entries
+        Assert.assertEquals("/tmp/main.sh", functions.get(0).getSource());
+        Assert.assertEquals(2L, functions.get(0).getCount());
+        Assert.assertEquals(400L, functions.get(0).getTotalMicros());
+        Assert.assertEquals("/tmp/lib.sh", functions.get(1).getSource());
+        Assert.assertEquals(200L, functions.get(1).getTotalMicros());
+    }
+
+    private static String traceLine(String prefix, String time, String source, int line, String function, String command) {
+        return prefix + SEP + time + SEP + source + SEP + line + SEP + function + SEP + command + "\n";
+    }
+}
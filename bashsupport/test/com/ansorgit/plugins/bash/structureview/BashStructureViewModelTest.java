@@ -1,7 +1,7 @@
 /*
  * Copyright 2010 Joachim Ansorg, mail@ansorg-it.com
  * File: BashStructureViewModelTest.java, Class: BashStructureViewModelTest
- * Last modified: 2010-07-17
+ * Last modified: 2011-02-28
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,6 +61,29 @@ public class BashStructureViewModelTest extends StructureViewTestCase {
         doTest(test);
     }
 
+    public void testStructureViewNested() throws Exception {
+        VirtualFile file = configure();
+        Assert.assertNotNull(file);
+
+        Test test = new Test() {
+            public void test(StructureViewComponent component) {
+                StructureViewTreeElement root = component.getTreeModel().getRoot();
+
+                //a is listed once, only variables assigned at the top level are listed, b is assigned in the body of outer()
+                TreeElement[] children = root.getChildren();
+                Assert.assertEquals(2, children.length);
+                Assert.assertEquals("a", children[0].getPresentation().getPresentableText());
+                Assert.assertEquals("outer()", children[1].getPresentation().getPresentableText());
+
+                TreeElement[] nested = children[1].getChildren();
+                Assert.assertEquals(1, nested.length);
+                Assert.assertEquals("inner()", nested[0].getPresentation().getPresentableText());
+            }
+        };
+
+        doTest(test);
+    }
+
     protected VirtualFile configure() throws Exception {
         return configureByFile(getTestName(false) + ".bash", null);
     }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: CompletionUtilTest.java, Class: CompletionUtilTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ansorgit.plugins.bash.util;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.intellij.util.Processor;
+import junit.framework.Assert;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class CompletionUtilTest extends CodeInsightFixtureTestCase {
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        directory = FileUtil.createTempDirectory("completion", null);
+        Assert.assertTrue(new File(directory, "alpha").createNewFile());
+        Assert.assertTrue(new File(directory, "alpine").mkdir());
+        Assert.assertTrue(new File(directory, "beta").createNewFile());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.delete(directory);
+
+        super.tearDown();
+    }
+
+    public void testPrefix() throws Exception {
+        String base = directory.getPath();
+
+        Assert.assertEquals(Arrays.asList(base + "/alpha", base + "/alpine/"), complete(base + "/al"));
+        Assert.assertEquals(Arrays.asList(base + "/alpha", base + "/alpine/", base + "/beta"), complete(base + "/"));
+        Assert.assertEquals(Arrays.asList(), complete(base + "/x"));
+    }
+
+    public void testCachedListing() throws Exception {
+        String base = directory.getPath();
+        Assert.assertEquals(Arrays.asList(base + "/alpha", base + "/alpine/"), complete(base + "/al"));
+
+        //the listing was just validated, the following keystrokes do not list the directory again
+        Assert.assertTrue(new File(directory, "alps").createNewFile());
+        Assert.assertEquals(Arrays.asList(base + "/alpha", base + "/alpine/"), complete(base + "/al"));
+        Assert.assertEquals(Arrays.asList(base + "/alpine/"), complete(base + "/alpi"));
+    }
+
+    public void testProcessorStops() throws Exception {
+        final List<String> paths = Lists.newArrayList();
+        CompletionUtil.completeAbsolutePath(directory.getPath() + "/", new Processor<String>() {
+            public boolean process(String path) {
+                paths.add(path);
+                return false;
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(directory.getPath() + "/alpha"), paths);
+    }
+
+    public void testCancelled() throws Exception {
+        final ProgressIndicatorBase indicator = new ProgressIndicatorBase();
+        final List<String> paths = Lists.newArrayList();
+
+        try {
+            ProgressManager.getInstance().runProcess(new Runnable() {
+                public void run() {
+                    CompletionUtil.completeAbsolutePath(directory.getPath() + "/", new Processor<String>() {
+                        public boolean process(String path) {
+                            paths.add(path);
+
+                            //the user typed the next character while the first path was added
+                            indicator.cancel();
+                            return true;
+                        }
+                    });
+                }
+            }, indicator);
+
+            Assert.fail("The completion was not cancelled");
+        } catch (ProcessCanceledException e) {
+            //expected
+        }
+
+        Assert.assertEquals(Arrays.asList(directory.getPath() + "/alpha"), paths);
+    }
+
+    public void testMaxResults() throws Exception {
+        File large = FileUtil.createTempDirectory("completion", null);
+        try {
+            for (int i = 0; i < CompletionUtil.MAX_RESULTS + 10; i++) {
+                Assert.assertTrue(new File(large, "file" + i).createNewFile());
+            }
+
+            Assert.assertEquals(CompletionUtil.MAX_RESULTS, complete(large.getPath() + "/file").size());
+        } finally {
+            FileUtil.delete(large);
+        }
+    }
+
+    private static List<String> complete(String prefix) {
+        final List<String> paths = Lists.newArrayList();
+        CompletionUtil.completeAbsolutePath(prefix, new Processor<String>() {
+            public boolean process(String path) {
+                paths.add(path);
+                return true;
+            }
+        });
+
+        return paths;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ErrorReportSenderTest.java, Class: ErrorReportSenderTest
+ * Last modified: 2011-02-26
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nu.studer.idea.errorreporting;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static nu.studer.idea.errorreporting.ErrorReportSpoolTest.TRACE_A;
+import static nu.studer.idea.errorreporting.ErrorReportSpoolTest.TRACE_B;
+import static nu.studer.idea.errorreporting.ErrorReportSpoolTest.report;
+
+/**
+ * Sends the reports to a local stand-in of the lookup and the error receiving server.
+ *
+ * @author Joachim Ansorg
+ */
+public class ErrorReportSenderTest {
+    private File directory;
+    private HttpServer server;
+    private String baseUrl;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean reject;
+    private final List<String> received = new CopyOnWriteArrayList<String>();
+
+    @Before
+    public void startServer() throws Exception {
+        directory = ErrorReportSpoolTest.createTempDirectory();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        server.createContext("/lookup", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                lookups.incrementAndGet();
+                respond(exchange, 200, (baseUrl + "/receiver\n").getBytes("UTF-8"));
+            }
+        });
+
+        server.createContext("/receiver", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                DataInputStream in = new DataInputStream(new InflaterInputStream(exchange.getRequestBody()));
+                String header = in.readUTF() + "|" + in.readUTF() + "|" + in.readUTF() + "|" + in.readUTF() + "|" + in.readUTF() + "|"
+                        + in.readUTF() + "|" + in.readUTF() + "|" + in.readUTF();
+                StringBuilder events = new StringBuilder();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    events.append("|").append(in.readUTF()).append("|").append(in.readUTF());
+                }
+
+                if (failures.get() > 0) {
+                    failures.decrementAndGet();
+                    respond(exchange, 500, new byte[0]);
+                    return;
+                }
+
+                received.add(header + events);
+
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(body));
+                out.writeBoolean(!reject);
+                out.writeUTF(reject ? "rejected" : "ok");
+                out.close();
+
+                respond(exchange, 200, body.toByteArray());
+            }
+        });
+
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        ErrorReportSpoolTest.delete(directory);
+    }
+
+    @Test
+    public void testSendPending() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, "description"));
+        spool.add(report("second", TRACE_A, null));
+        spool.add(report("other", TRACE_B, null));
+
+        ErrorReportSender sender = createSender(spool, null);
+        Assert.assertTrue(sender.sendPending());
+
+        Assert.assertEquals(0, spool.getReports().size());
+        Assert.assertEquals(2, received.size());
+        Assert.assertTrue(received.contains("plugin|Plugin|1.0|IC-93.13|mail@example.com||user|description\n\n(reported 2 times)|first|" + TRACE_A));
+        Assert.assertTrue(received.contains("plugin|Plugin|1.0|IC-93.13|mail@example.com||user||other|" + TRACE_B));
+
+        //the address of the server is cached
+        Assert.assertEquals(1, lookups.get());
+        spool.add(report("third", "java.lang.Error\n\tat a.D.e(D.java:1)\n", null));
+        Assert.assertTrue(createSender(spool, null).sendPending());
+        Assert.assertEquals(1, lookups.get());
+        Assert.assertEquals(3, received.size());
+
+        //sent errors are not sent again
+        Assert.assertEquals(ErrorReportSpool.AddResult.ALREADY_SENT, spool.add(report("again", TRACE_A, null)));
+    }
+
+    @Test
+    public void testUnreachableServer() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, null));
+
+        //neither the lookup nor the fallback address are reachable
+        server.stop(0);
+        ErrorReportSender sender = new ErrorReportSender(spool, null, baseUrl + "/lookup", baseUrl + "/receiver", 10, 10);
+        Assert.assertFalse(sender.sendPending());
+        Assert.assertEquals(1, spool.getReports().size());
+        Assert.assertNull(spool.getServerUrl(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRejectedReport() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, null));
+
+        reject = true;
+        Assert.assertTrue(createSender(spool, baseUrl + "/receiver").sendPending());
+        Assert.assertEquals(0, spool.getReports().size());
+        Assert.assertEquals(0, lookups.get());
+
+        //a rejected report was not sent
+        Assert.assertEquals(ErrorReportSpool.AddResult.ADDED, spool.add(report("again", TRACE_A, null)));
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, null));
+
+        failures.set(2);
+        ErrorReportSender sender = createSender(spool, null);
+        try {
+            sender.wakeUp();
+
+            long end = System.currentTimeMillis() + 10000;
+            while (!spool.getReports().isEmpty() && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+        } finally {
+            sender.shutdown();
+        }
+
+        Assert.assertEquals(0, spool.getReports().size());
+        Assert.assertEquals(3, requests.get());
+        Assert.assertEquals(1, received.size());
+    }
+
+    private ErrorReportSender createSender(ErrorReportSpool spool, String configuredServerUrl) {
+        return new ErrorReportSender(spool, configuredServerUrl, baseUrl + "/lookup", baseUrl + "/fallback", 20, 100);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(body);
+        output.close();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2011 Joachim Ansorg, mail@ansorg-it.com
+ * File: ErrorReportSpoolTest.java, Class: ErrorReportSpoolTest
+ * Last modified: 2011-02-28
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nu.studer.idea.errorreporting;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+/**
+ * @author Joachim Ansorg
+ */
+public class ErrorReportSpoolTest {
+    static final String TRACE_A = "java.lang.IllegalStateException: a\n\tat a.B.c(B.java:10)\n\tat a.B.d(B.java:20)\n";
+    static final String TRACE_B = "java.lang.NullPointerException\n\tat a.C.c(C.java:5)\n";
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = createTempDirectory();
+    }
+
+    @After
+    public void deleteDirectory() {
+        delete(directory);
+    }
+
+    @Test
+    public void testAddAndMerge() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+
+        Assert.assertEquals(ErrorReportSpool.AddResult.ADDED, spool.add(report("first", TRACE_A, "description")));
+        Assert.assertEquals(ErrorReportSpool.AddResult.ADDED, spool.add(report("other", TRACE_B, null)));
+        Assert.assertEquals(ErrorReportSpool.AddResult.MERGED, spool.add(report("second", TRACE_A, null)));
+
+        //a new spool reads the stored reports
+        List<ErrorReport> reports = new ErrorReportSpool(directory).getReports();
+        Assert.assertEquals(2, reports.size());
+
+        ErrorReport merged = findReport(reports, TRACE_A);
+        Assert.assertEquals(2, merged.getOccurrences());
+        Assert.assertEquals("first", merged.getMessages()[0]);
+        Assert.assertEquals("description\n\n(reported 2 times)", merged.getDescription());
+        Assert.assertEquals("plugin", merged.getPluginId());
+        Assert.assertEquals(1, merged.getEmailTo().length);
+        Assert.assertEquals(0, merged.getEmailCc().length);
+
+        Assert.assertEquals(1, findReport(reports, TRACE_B).getOccurrences());
+        Assert.assertEquals(null, findReport(reports, TRACE_B).getDescription());
+    }
+
+    @Test
+    public void testSent() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, null));
+        spool.markSent(spool.getReports().get(0));
+
+        Assert.assertEquals(0, spool.getReports().size());
+        Assert.assertEquals(ErrorReportSpool.AddResult.ALREADY_SENT, new ErrorReportSpool(directory).add(report("again", TRACE_A, null)));
+        Assert.assertEquals(ErrorReportSpool.AddResult.ADDED, spool.add(report("other", TRACE_B, null)));
+    }
+
+    @Test
+    public void testMergedWhileSending() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        Assert.assertTrue(spool.isEmpty());
+
+        spool.add(report("first", TRACE_A, null));
+        Assert.assertFalse(spool.isEmpty());
+
+        //the report is read by the sender, the same error is reported again before it was sent
+        ErrorReport sending = spool.getReports().get(0);
+        Assert.assertEquals(ErrorReportSpool.AddResult.MERGED, spool.add(report("second", TRACE_A, null)));
+        spool.markSent(sending);
+
+        List<ErrorReport> reports = spool.getReports();
+        Assert.assertEquals(1, reports.size());
+        Assert.assertEquals(1, reports.get(0).getOccurrences());
+
+        spool.markSent(reports.get(0));
+        Assert.assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        //the messages of the exceptions do not matter if there is a stack trace
+        Assert.assertEquals(report("a", TRACE_A, null).getFingerprint(), report("b", TRACE_A.replace(": a", ": b"), "x").getFingerprint());
+        Assert.assertFalse(report("a", TRACE_A, null).getFingerprint().equals(report("a", TRACE_B, null).getFingerprint()));
+
+        //without stack traces the messages are used
+        Assert.assertFalse(report("a", null, null).getFingerprint().equals(report("b", null, null).getFingerprint()));
+    }
+
+    @Test
+    public void testLongText() throws Exception {
+        StringBuilder trace = new StringBuilder(TRACE_A);
+        while (trace.length() < 100000) {
+            trace.append("\tat a.B.e(B.java:1)\n");
+        }
+
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("long", trace.toString(), null));
+
+        Assert.assertEquals(ErrorReport.MAX_TEXT_LENGTH, spool.getReports().get(0).getThrowableTexts()[0].length());
+    }
+
+    @Test
+    public void testDamagedReport() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        spool.add(report("first", TRACE_A, null));
+
+        File damaged = new File(directory, "damaged.report");
+        FileOutputStream output = new FileOutputStream(damaged);
+        output.write(new byte[]{0, 0, 0, 1, 0});
+        output.close();
+
+        Assert.assertEquals(1, spool.getReports().size());
+        Assert.assertFalse(damaged.exists());
+    }
+
+    @Test
+    public void testServerUrl() throws Exception {
+        ErrorReportSpool spool = new ErrorReportSpool(directory);
+        Assert.assertNull(spool.getServerUrl(Long.MAX_VALUE));
+
+        spool.setServerUrl("http://localhost/receiver");
+        Assert.assertEquals("http://localhost/receiver", spool.getServerUrl(Long.MAX_VALUE));
+
+        File file = new File(directory, "server.txt");
+        Assert.assertTrue(file.setLastModified(System.currentTimeMillis() - 10000));
+        Assert.assertNull(spool.getServerUrl(5000));
+        Assert.assertEquals("http://localhost/receiver", spool.getServerUrl(Long.MAX_VALUE));
+    }
+
+    static ErrorReport report(String message, String throwableText, String description) {
+        return new ErrorReport("plugin", "Plugin", "1.0", "IC-93.13", new String[]{"mail@example.com"}, new String[0],
+                "user", description, new String[]{message}, new String[]{throwableText});
+    }
+
+    static File createTempDirectory() throws Exception {
+        File directory = File.createTempFile("errorReports", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+
+        return directory;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    private static ErrorReport findReport(List<ErrorReport> reports, String throwableText) {
+        for (ErrorReport report : reports) {
+            if (report.getThrowableTexts()[0].equals(throwableText)) {
+                return report;
+            }
+        }
+
+        Assert.fail("Report not found");
+        return null;
+    }
+}
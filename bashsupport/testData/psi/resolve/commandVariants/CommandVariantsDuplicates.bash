@@ -0,0 +1,15 @@
+function f() {
+    echo first
+}
+
+function g() {
+    function f() {
+        echo inner
+    }
+}
+
+function f() {
+    echo second
+}
+
+<ref>x
\ No newline at end of file
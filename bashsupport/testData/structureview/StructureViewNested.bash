@@ -0,0 +1,13 @@
+#!/bin/sh
+
+a=1
+
+function outer() {
+    b=2
+    <caret>
+    function inner() {
+        echo
+    }
+}
+
+a=2